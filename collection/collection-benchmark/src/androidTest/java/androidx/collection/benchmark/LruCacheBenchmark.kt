@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.benchmark.measureRepeated
+import androidx.collection.ConcurrentLruCache
+import androidx.collection.LruCache
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+/**
+ * Compares [LruCache] and [ConcurrentLruCache] under a read-mostly load (roughly 80% hits, missed
+ * keys are put) shared between a varying number of threads. Each measured iteration runs
+ * [OPS_PER_THREAD] operations on every thread and waits for all of them to finish.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class LruCacheBenchmark(private val threadCount: Int, private val cacheType: CacheType) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val executor = Executors.newFixedThreadPool(threadCount)
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun getAndPut() {
+        val get: (Int) -> Any?
+        val put: (Int) -> Unit
+        when (cacheType) {
+            CacheType.LRU_CACHE -> {
+                val cache = LruCache<Int, Any>(CACHE_SIZE)
+                get = { cache.get(it) }
+                put = { cache.put(it, it) }
+            }
+            CacheType.CONCURRENT_LRU_CACHE -> {
+                val cache = ConcurrentLruCache<Int, Any>(CACHE_SIZE)
+                get = { cache.get(it) }
+                put = { cache.put(it, it) }
+            }
+        }
+        for (key in 0 until CACHE_SIZE) {
+            put(key)
+        }
+
+        val tasks = List(threadCount) { thread ->
+            val keys = createKeys(Random(thread.toLong()))
+            Callable {
+                for (key in keys) {
+                    if (get(key) == null) {
+                        put(key)
+                    }
+                }
+            }
+        }
+
+        benchmarkRule.measureRepeated {
+            executor.invokeAll(tasks).forEach { it.get() }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "threads={0}, cache={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                CacheType.values().forEach { cacheType ->
+                    arrayOf(1, 4, 16).forEach { threadCount ->
+                        add(arrayOf(threadCount, cacheType))
+                    }
+                }
+            }
+        }
+
+        private const val CACHE_SIZE = 4096
+        private const val OPS_PER_THREAD = 10_000
+        // Hot keys fit in the cache with room to spare and are looked up often enough to stay
+        // in it, while cold keys are spread over a range too large to ever hit.
+        private const val HOT_KEY_COUNT = CACHE_SIZE / 2
+        private const val HOT_KEY_PERCENT = 80
+        private const val COLD_KEY_COUNT = 1_000_000
+
+        /**
+         * Returns the keys a thread looks up, [HOT_KEY_PERCENT] of which are hot keys, which
+         * makes for roughly that rate of hits. They are computed up front so that the random
+         * number generator is not measured.
+         */
+        private fun createKeys(random: Random): IntArray {
+            return IntArray(OPS_PER_THREAD) {
+                if (random.nextInt(100) < HOT_KEY_PERCENT) {
+                    random.nextInt(HOT_KEY_COUNT)
+                } else {
+                    HOT_KEY_COUNT + random.nextInt(COLD_KEY_COUNT)
+                }
+            }
+        }
+    }
+
+    enum class CacheType {
+        LRU_CACHE,
+        CONCURRENT_LRU_CACHE
+    }
+}
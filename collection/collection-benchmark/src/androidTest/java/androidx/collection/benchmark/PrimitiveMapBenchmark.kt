@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.benchmark.measureRepeated
+import androidx.collection.IntObjectMap
+import androidx.collection.LongObjectMap
+import androidx.collection.LongSparseArray
+import androidx.collection.SparseArrayCompat
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+
+/**
+ * Compares the open-addressing [IntObjectMap] and [LongObjectMap] against [SparseArrayCompat]
+ * and [LongSparseArray] when building, querying and draining maps of random ids.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PrimitiveMapBenchmark(private val size: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val random = Random(0)
+    private val intKeys = IntArray(size) { random.nextInt() }
+    private val longKeys = LongArray(size) { random.nextLong() }
+
+    @Test
+    fun intObjectMap_insert() {
+        benchmarkRule.measureRepeated {
+            val map = IntObjectMap<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun sparseArrayCompat_insert() {
+        benchmarkRule.measureRepeated {
+            val map = SparseArrayCompat<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun intObjectMap_get() {
+        val map = IntObjectMap<Any>()
+        intKeys.forEach { map.put(it, VALUE) }
+        benchmarkRule.measureRepeated {
+            for (key in intKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun sparseArrayCompat_get() {
+        val map = SparseArrayCompat<Any>()
+        intKeys.forEach { map.put(it, VALUE) }
+        benchmarkRule.measureRepeated {
+            for (key in intKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun intObjectMap_insertAndRemove() {
+        benchmarkRule.measureRepeated {
+            val map = IntObjectMap<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+            for (key in intKeys) {
+                map.remove(key)
+            }
+            assertEquals(0, map.size())
+        }
+    }
+
+    @Test
+    fun sparseArrayCompat_insertAndRemove() {
+        benchmarkRule.measureRepeated {
+            val map = SparseArrayCompat<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+            for (key in intKeys) {
+                map.remove(key)
+            }
+            assertEquals(0, map.size())
+        }
+    }
+
+    @Test
+    fun longObjectMap_insert() {
+        benchmarkRule.measureRepeated {
+            val map = LongObjectMap<Any>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArray_insert() {
+        benchmarkRule.measureRepeated {
+            val map = LongSparseArray<Any>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longObjectMap_get() {
+        val map = LongObjectMap<Any>()
+        longKeys.forEach { map.put(it, VALUE) }
+        benchmarkRule.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArray_get() {
+        val map = LongSparseArray<Any>()
+        longKeys.forEach { map.put(it, VALUE) }
+        benchmarkRule.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "size={0}")
+        fun data() = listOf(100, 1_000, 10_000, 100_000)
+
+        private val VALUE = Any()
+    }
+}
@@ -57,20 +57,10 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
     private static final int BASE_SIZE = 4;
 
     /**
-     * Maximum number of entries to have in array caches.
+     * Cache of small array objects to avoid spamming garbage, shared by all instances.
+     * See {@link #configureArrayCache(int, int...)}.
      */
-    private static final int CACHE_SIZE = 10;
-
-    /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
-     */
-    private static @Nullable Object[] sBaseCache;
-    private static int sBaseCacheSize;
-    private static @Nullable Object[] sTwiceBaseCache;
-    private static int sTwiceBaseCacheSize;
+    private static final ContainerArrayPool sArrayPool = new ContainerArrayPool(1);
 
     private int[] mHashes;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -155,81 +145,40 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
+    /**
+     * Configures the cache of small backing arrays shared by all sets of this type in the
+     * process. Creating and growing small sets takes arrays from this cache instead of
+     * allocating them, and arrays released by sets that shrink or are cleared go back into it.
+     * The cache is lock-free, so threads creating sets concurrently do not contend on it.
+     *
+     * <p>By default 10 arrays are cached for each of the capacities 4 and 8. Arrays cached
+     * under the previous configuration are dropped.
+     *
+     * @param arraysPerCapacity the number of arrays to cache for each capacity. Pass 0 to turn
+     *                          the cache off, e.g. to see every allocation in a profiler.
+     * @param capacities the capacities to cache arrays for; each must be positive.
+     * @throws IllegalArgumentException if {@code arraysPerCapacity} is negative or a capacity
+     *                                  is not positive.
+     */
+    public static void configureArrayCache(int arraysPerCapacity, @NonNull int... capacities) {
+        sArrayPool.configure(arraysPerCapacity, capacities.clone());
+    }
+
     private void allocArrays(final int size) {
-        if (size == (BASE_SIZE * 2)) {
-            synchronized (ArraySet.class) {
-                if (sTwiceBaseCache != null) {
-                    final Object[] array = sTwiceBaseCache;
-                    mArray = array;
-                    sTwiceBaseCache = (Object[]) array[0];
-                    mHashes = (int[]) array[1];
-                    array[0] = array[1] = null;
-                    sTwiceBaseCacheSize--;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Retrieving 2x cache " + mHashes + " now have "
-                                + sTwiceBaseCacheSize + " entries");
-                    }
-                    return;
-                }
-            }
-        } else if (size == BASE_SIZE) {
-            synchronized (ArraySet.class) {
-                if (sBaseCache != null) {
-                    final Object[] array = sBaseCache;
-                    mArray = array;
-                    sBaseCache = (Object[]) array[0];
-                    mHashes = (int[]) array[1];
-                    array[0] = array[1] = null;
-                    sBaseCacheSize--;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Retrieving 1x cache " + mHashes + " now have "
-                                + sBaseCacheSize + " entries");
-                    }
-                    return;
-                }
-            }
+        final Object[] array = sArrayPool.acquire(size);
+        if (array != null) {
+            mHashes = (int[]) array[0];
+            array[0] = null;
+            mArray = array;
+            return;
         }
 
         mHashes = new int[size];
         mArray = new Object[size];
     }
 
-    @SuppressWarnings("ArrayToString")
     private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE * 2)) {
-            synchronized (ArraySet.class) {
-                if (sTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sTwiceBaseCache = array;
-                    sTwiceBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 2x cache " + array + " now have "
-                                + sTwiceBaseCacheSize + " entries");
-                    }
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (ArraySet.class) {
-                if (sBaseCacheSize < CACHE_SIZE) {
-                    array[0] = sBaseCache;
-                    array[1] = hashes;
-                    for (int i = size - 1; i >= 2; i--) {
-                        array[i] = null;
-                    }
-                    sBaseCache = array;
-                    sBaseCacheSize++;
-                    if (DEBUG) {
-                        System.out.println(TAG + " Storing 1x cache " + array + " now have "
-                                + sBaseCacheSize + " entries");
-                    }
-                }
-            }
-        }
+        sArrayPool.release(hashes, array, size);
     }
 
     /**
@@ -0,0 +1,493 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A cache with the same contract as {@link LruCache} ({@link #sizeOf}, {@link #create} and
+ * {@link #entryRemoved} are called at the same points and with the same arguments) that scales
+ * to many threads.
+ *
+ * <p>{@link LruCache} guards its whole map with the cache's monitor, so every {@link #get} and
+ * {@link #put} from every thread is serialized. This class instead splits the cache into a number
+ * of independently locked segments, chosen by key hash, so that threads only contend when they
+ * touch keys in the same segment. Statistics such as {@link #hitCount()} and {@link #size()} are
+ * read without taking any lock.
+ *
+ * <p>The price is that eviction order is only least-recently-used <em>within</em> a segment:
+ * each segment is given an equal share of {@link #maxSize()} and evicts its own eldest entries
+ * when it exceeds that share. With a reasonably uniform key distribution this approximates a
+ * global LRU policy closely, but caches holding a handful of entries that are each a large
+ * fraction of {@link #maxSize()} (large bitmaps, for example) should use a low concurrency level
+ * or {@link LruCache}.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int MAX_CONCURRENCY_LEVEL = 1 << 16;
+
+    private final Segment<K, V>[] mSegments;
+    private final int mSegmentShift;
+
+    private volatile int mMaxSize;
+
+    /**
+     * Creates a cache with a default concurrency level of 16.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param concurrencyLevel the expected number of threads accessing the cache concurrently.
+     *     This is rounded up to a power of two and used as the number of segments, but never
+     *     exceeds {@code maxSize} so that every segment can hold at least one unit.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentLruCache(int maxSize, int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+        int segmentCount = Math.min(concurrencyLevel, MAX_CONCURRENCY_LEVEL);
+        segmentCount = Integer.highestOneBit(segmentCount - 1) << 1;
+        if (segmentCount == 0) {
+            segmentCount = 1;
+        }
+        // Don't create segments that couldn't hold anything.
+        segmentCount = Math.min(segmentCount, Integer.highestOneBit(maxSize));
+
+        mSegmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        mSegments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            mSegments[i] = new Segment<>();
+        }
+        mMaxSize = maxSize;
+        distributeMaxSize(maxSize);
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        mMaxSize = maxSize;
+        distributeMaxSize(maxSize);
+        for (Segment<K, V> segment : mSegments) {
+            trimSegment(segment, segment.mMaxSize);
+        }
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of its segment's queue. This returns null if a value is not cached
+     * and cannot be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Segment<K, V> segment = segmentFor(key);
+        V mapValue;
+        synchronized (segment) {
+            mapValue = segment.mMap.get(key);
+            if (mapValue != null) {
+                segment.mHitCount++;
+                return mapValue;
+            }
+            segment.mMissCount++;
+        }
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        synchronized (segment) {
+            segment.mCreateCount++;
+            mapValue = segment.mMap.put(key, createdValue);
+
+            if (mapValue != null) {
+                // There was a conflict so undo that last put
+                segment.mMap.put(key, mapValue);
+            } else {
+                segment.mSize += safeSizeOf(key, createdValue);
+            }
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        } else {
+            trimSegment(segment, segment.mMaxSize);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * its segment's queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            segment.mPutCount++;
+            segment.mSize += safeSizeOf(key, value);
+            previous = segment.mMap.put(key, value);
+            if (previous != null) {
+                segment.mSize -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+
+        trimSegment(segment, segment.mMaxSize);
+        return previous;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size. Each segment is trimmed to its share of
+     * {@code maxSize}.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        if (maxSize < 0) {
+            for (Segment<K, V> segment : mSegments) {
+                trimSegment(segment, -1);
+            }
+            return;
+        }
+        int segmentCount = mSegments.length;
+        for (int i = 0; i < segmentCount; i++) {
+            trimSegment(mSegments[i], shareOf(maxSize, i));
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Segment<K, V> segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            previous = segment.mMap.remove(key);
+            if (previous != null) {
+                segment.mSize -= safeSizeOf(key, previous);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     *
+     * <p>This does not lock the cache; while other threads are modifying it the
+     * result is only an estimate.
+     */
+    public final int size() {
+        int size = 0;
+        for (Segment<K, V> segment : mSegments) {
+            size += segment.mSize;
+        }
+        return size;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mHitCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mMissCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mCreateCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mPutCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mEvictionCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache. Entries are ordered
+     * from least recently accessed to most recently accessed within each
+     * segment, and segments are listed one after another.
+     */
+    public final Map<K, V> snapshot() {
+        LinkedHashMap<K, V> snapshot = new LinkedHashMap<>();
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                snapshot.putAll(segment.mMap);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,segments=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, mSegments.length, hitCount, missCount, hitPercent);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        if (mSegments.length == 1) {
+            return mSegments[0];
+        }
+        // Use the high bits of a well mixed hash so that the low bits, which the segment's
+        // HashMap uses to pick a bucket, stay evenly distributed within each segment.
+        int h = key.hashCode() * 0x9E3779B9;
+        return mSegments[h >>> mSegmentShift];
+    }
+
+    private int shareOf(int maxSize, int segmentIndex) {
+        int segmentCount = mSegments.length;
+        int share = maxSize / segmentCount;
+        return segmentIndex < maxSize % segmentCount ? share + 1 : share;
+    }
+
+    private void distributeMaxSize(int maxSize) {
+        for (int i = 0; i < mSegments.length; i++) {
+            Segment<K, V> segment = mSegments[i];
+            synchronized (segment) {
+                segment.mMaxSize = shareOf(maxSize, i);
+            }
+        }
+    }
+
+    private void trimSegment(Segment<K, V> segment, int maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (segment) {
+                if (segment.mSize < 0 || (segment.mMap.isEmpty() && segment.mSize != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                if (segment.mSize <= maxSize || segment.mMap.isEmpty()) {
+                    break;
+                }
+
+                Iterator<Map.Entry<K, V>> iterator = segment.mMap.entrySet().iterator();
+                Map.Entry<K, V> toEvict = iterator.next();
+                key = toEvict.getKey();
+                value = toEvict.getValue();
+                iterator.remove();
+                segment.mSize -= safeSizeOf(key, value);
+                segment.mEvictionCount++;
+            }
+
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * One independently locked part of the cache. Its fields are only written while holding the
+     * segment's monitor; the counters are volatile so that they can be summed without locking.
+     */
+    private static final class Segment<K, V> {
+        final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(0, 0.75f, true);
+
+        volatile int mMaxSize;
+        volatile int mSize;
+
+        volatile int mPutCount;
+        volatile int mCreateCount;
+        volatile int mEvictionCount;
+        volatile int mHitCount;
+        volatile int mMissCount;
+
+        Segment() {
+        }
+    }
+}
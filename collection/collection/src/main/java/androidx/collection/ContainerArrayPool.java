@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free cache of the small backing arrays used by {@link SimpleArrayMap} and
+ * {@link ArraySet}, so that maps and sets which are created and grown often don't spam garbage.
+ *
+ * <p>Arrays are cached per capacity in a fixed number of slots. A pooled entry is the
+ * Object[] backing array with its int[] hash array stored in element 0. Slots are claimed with
+ * {@link AtomicReferenceArray#getAndSet} and filled with
+ * {@link AtomicReferenceArray#compareAndSet}, so each entry is only ever owned by one thread and
+ * threads churning through small containers never block each other. When every slot of a
+ * capacity is empty or full the caller simply allocates or drops the arrays.
+ */
+final class ContainerArrayPool {
+    /** Capacities cached by default; these are the first two sizes a growing container uses. */
+    static final int[] DEFAULT_CAPACITIES = {4, 8};
+
+    /** Number of arrays cached for each capacity by default. */
+    static final int DEFAULT_ARRAYS_PER_CAPACITY = 10;
+
+    private static final Bucket[] NO_BUCKETS = new Bucket[0];
+
+    private final int mArrayLengthMultiplier;
+    private volatile Bucket[] mBuckets;
+
+    /**
+     * @param arrayLengthMultiplier length of the Object[] backing array relative to the
+     *                              capacity, e.g. 2 for a map storing keys and values.
+     */
+    ContainerArrayPool(int arrayLengthMultiplier) {
+        mArrayLengthMultiplier = arrayLengthMultiplier;
+        mBuckets = createBuckets(DEFAULT_ARRAYS_PER_CAPACITY, DEFAULT_CAPACITIES);
+    }
+
+    /**
+     * Replaces the cache configuration. Arrays cached under the previous configuration are
+     * dropped.
+     *
+     * @param arraysPerCapacity number of arrays kept for each capacity, or 0 to disable caching.
+     * @param capacities the capacities to cache arrays for.
+     */
+    void configure(int arraysPerCapacity, int[] capacities) {
+        if (arraysPerCapacity < 0) {
+            throw new IllegalArgumentException("arraysPerCapacity < 0");
+        }
+        for (int capacity : capacities) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacities must be > 0");
+            }
+        }
+        mBuckets = createBuckets(arraysPerCapacity, capacities);
+    }
+
+    /**
+     * Takes a cached backing array for {@code capacity} out of the pool. The hash array is in
+     * element 0 and must be moved out by the caller, all other elements are null.
+     *
+     * @return the pooled array, or null if there is none for this capacity.
+     */
+    @Nullable
+    Object[] acquire(int capacity) {
+        final Bucket bucket = findBucket(capacity);
+        if (bucket == null) {
+            return null;
+        }
+        final AtomicReferenceArray<Object[]> slots = bucket.mSlots;
+        final int count = slots.length();
+        for (int i = 0; i < count; i++) {
+            // Cheap volatile read first so empty slots don't pay for an atomic swap.
+            if (slots.get(i) != null) {
+                final Object[] array = slots.getAndSet(i, null);
+                if (array != null) {
+                    return array;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Offers the arrays of a container that no longer uses them to the pool. The arrays are
+     * dropped if their capacity is not cached or its slots are full.
+     *
+     * @param hashes the hash array, whose length is the capacity.
+     * @param array the backing array.
+     * @param usedLength number of leading elements of {@code array} that may be non-null.
+     */
+    void release(int[] hashes, Object[] array, int usedLength) {
+        final Bucket bucket = findBucket(hashes.length);
+        if (bucket == null || array.length != hashes.length * mArrayLengthMultiplier) {
+            return;
+        }
+        final AtomicReferenceArray<Object[]> slots = bucket.mSlots;
+        final int count = slots.length();
+        boolean cleared = false;
+        for (int i = 0; i < count; i++) {
+            if (slots.get(i) == null) {
+                if (!cleared) {
+                    // The array is not visible to other threads until the CAS below succeeds.
+                    for (int j = usedLength - 1; j >= 1; j--) {
+                        array[j] = null;
+                    }
+                    array[0] = hashes;
+                    cleared = true;
+                }
+                if (slots.compareAndSet(i, null, array)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private Bucket findBucket(int capacity) {
+        final Bucket[] buckets = mBuckets;
+        for (Bucket bucket : buckets) {
+            if (bucket.mCapacity == capacity) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    private static Bucket[] createBuckets(int arraysPerCapacity, int[] capacities) {
+        if (arraysPerCapacity == 0 || capacities.length == 0) {
+            return NO_BUCKETS;
+        }
+        final Bucket[] buckets = new Bucket[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            buckets[i] = new Bucket(capacities[i], arraysPerCapacity);
+        }
+        return buckets;
+    }
+
+    private static final class Bucket {
+        final int mCapacity;
+        final AtomicReferenceArray<Object[]> mSlots;
+
+        Bucket(int capacity, int arraysPerCapacity) {
+            mCapacity = capacity;
+            mSlots = new AtomicReferenceArray<>(arraysPerCapacity);
+        }
+    }
+}
@@ -80,6 +80,30 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    /**
+     * Returns the power-of-two capacity an open-addressing table needs to hold {@code need}
+     * entries at a load factor of at most 3/4.
+     */
+    static int idealHashCapacity(int need) {
+        int capacity = 8;
+        while (capacity < 1 << 30 && capacity - (capacity >> 2) < need) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Fibonacci hashing, folded so that the low bits used to index a power-of-two table depend on
+    // every bit of the key; sequential ids would otherwise cluster in adjacent slots.
+    static int mixHash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mixHash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
     private ContainerHelpers() {
     }
 }
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.Arrays;
+
+/**
+ * A map of long keys to long values, backed by an open-addressing hash table with linear
+ * probing.
+ * <p>
+ * {@link LongSparseArray} keeps its keys sorted and binary searches them, so every insertion or
+ * removal in the middle of the map shifts its arrays. This class instead hashes keys into a
+ * table whose capacity is kept a power of two at no more than 3/4 full, so {@link #get},
+ * {@link #put} and {@link #remove} stay O(1) on average however many entries the map holds. Keys
+ * and values are stored in primitive arrays; no boxing occurs and nothing is allocated except
+ * when the table grows.
+ * <p>
+ * Unlike {@link LongSparseArray} this map does not keep its keys in order, and it uses more
+ * memory for small numbers of entries. Prefer it for large indexes where lookups and updates
+ * dominate.
+ */
+public class LongLongMap {
+    private long[] mKeys;
+    private long[] mValues;
+    // Empty slots are marked with a key of 0, so a mapping for 0 itself is kept on the side.
+    private boolean mHasZeroKey;
+    private long mZeroValue;
+    private int mSize;
+    private int mMask;
+    private int mGrowAt;
+
+    /**
+     * Creates a new LongLongMap with a default capacity.
+     */
+    public LongLongMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new LongLongMap that can hold the given number of entries without growing.
+     *
+     * @param initialCapacity the number of entries the map can hold before it has to grow
+     */
+    public LongLongMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        allocate(ContainerHelpers.idealHashCapacity(initialCapacity));
+    }
+
+    /**
+     * Gets the long mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public long get(long key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the long mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public long get(long key, long valueIfKeyNotFound) {
+        if (key == 0) {
+            return mHasZeroKey ? mZeroValue : valueIfKeyNotFound;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? mValues[index] : valueIfKeyNotFound;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     */
+    public void put(long key, long value) {
+        if (key == 0) {
+            if (!mHasZeroKey) {
+                mHasZeroKey = true;
+                mSize++;
+            }
+            mZeroValue = value;
+            return;
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+        insertAt(~index, key, value);
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return {@code true} if a mapping was removed.
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!mHasZeroKey) {
+                return false;
+            }
+            mHasZeroKey = false;
+            mZeroValue = 0;
+            mSize--;
+            return true;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the map contains a mapping for the specified key.
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? mHasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the number of key-value mappings this map stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this map. The table keeps its capacity.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mKeys, 0);
+            mHasZeroKey = false;
+            mZeroValue = 0;
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Returns a new array containing the keys of this map, in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[mSize];
+        int count = 0;
+        if (mHasZeroKey) {
+            result[count++] = 0;
+        }
+        for (long key : mKeys) {
+            if (key != 0) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a value, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        if (mHasZeroKey) {
+            appendEntry(buffer, 0, mZeroValue);
+        }
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] != 0) {
+                appendEntry(buffer, mKeys[i], mValues[i]);
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private void appendEntry(StringBuilder buffer, long key, long value) {
+        if (buffer.length() > 1) {
+            buffer.append(", ");
+        }
+        buffer.append(key);
+        buffer.append('=');
+        buffer.append(value);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the one's complement of the empty slot where it
+     * would be inserted. {@code key} must not be 0.
+     */
+    private int indexOf(long key) {
+        long[] keys = mKeys;
+        int mask = mMask;
+        int index = ContainerHelpers.mixHash(key) & mask;
+        while (true) {
+            long candidate = keys[index];
+            if (candidate == key) {
+                return index;
+            }
+            if (candidate == 0) {
+                return ~index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insertAt(int index, long key, long value) {
+        mKeys[index] = key;
+        mValues[index] = value;
+        if (++mSize > mGrowAt) {
+            rehash(mKeys.length << 1);
+        }
+    }
+
+    /**
+     * Empties the slot at {@code index} and shifts back any entries of the probe sequence that
+     * follows it, so that lookups never need tombstones.
+     */
+    private void removeAt(int index) {
+        long[] keys = mKeys;
+        int mask = mMask;
+        int gap = index;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == 0) {
+                break;
+            }
+            int ideal = ContainerHelpers.mixHash(key) & mask;
+            // Move the entry into the gap unless its ideal slot lies cyclically after the gap.
+            if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                mValues[gap] = mValues[index];
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+        mValues[gap] = 0;
+        mSize--;
+    }
+
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("LongLongMap is too large");
+        }
+        long[] oldKeys = mKeys;
+        long[] oldValues = mValues;
+        allocate(capacity);
+        long[] keys = mKeys;
+        int mask = mMask;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int index = ContainerHelpers.mixHash(key) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                mValues[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new long[capacity];
+        mMask = capacity - 1;
+        mGrowAt = capacity - (capacity >> 2);
+    }
+}
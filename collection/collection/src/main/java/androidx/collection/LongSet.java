@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs, backed by an open-addressing hash table with linear probing.
+ * <p>
+ * A {@link LongSparseArray} used as a set keeps its keys sorted and binary searches them, so
+ * every insertion or removal in the middle shifts its arrays. This class instead hashes values
+ * into a table whose capacity is kept a power of two at no more than 3/4 full, so {@link #add},
+ * {@link #contains} and {@link #remove} stay O(1) on average however many values the set holds.
+ * Values are stored in a primitive array; no boxing occurs and nothing is allocated except when
+ * the table grows.
+ */
+public class LongSet {
+    private long[] mKeys;
+    // Empty slots are marked with 0, so whether the set contains 0 itself is kept on the side.
+    private boolean mHasZeroKey;
+    private int mSize;
+    private int mMask;
+    private int mGrowAt;
+
+    /**
+     * Creates a new LongSet with a default capacity.
+     */
+    public LongSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a new LongSet that can hold the given number of values without growing.
+     *
+     * @param initialCapacity the number of values the set can hold before it has to grow
+     */
+    public LongSet(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        allocate(ContainerHelpers.idealHashCapacity(initialCapacity));
+    }
+
+    /**
+     * Adds the specified value to the set.
+     *
+     * @return {@code true} if the set did not already contain the value.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (mHasZeroKey) {
+                return false;
+            }
+            mHasZeroKey = true;
+            mSize++;
+            return true;
+        }
+        int index = indexOf(value);
+        if (index >= 0) {
+            return false;
+        }
+        insertAt(~index, value);
+        return true;
+    }
+
+    /**
+     * Removes the specified value from the set.
+     *
+     * @return {@code true} if the set contained the value.
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!mHasZeroKey) {
+                return false;
+            }
+            mHasZeroKey = false;
+            mSize--;
+            return true;
+        }
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified value.
+     */
+    public boolean contains(long value) {
+        return value == 0 ? mHasZeroKey : indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the number of values this set stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values from this set. The table keeps its capacity.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mKeys, 0);
+            mHasZeroKey = false;
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Returns a new array containing the values of this set, in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[mSize];
+        int count = 0;
+        if (mHasZeroKey) {
+            result[count++] = 0;
+        }
+        for (long key : mKeys) {
+            if (key != 0) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 14);
+        buffer.append('{');
+        if (mHasZeroKey) {
+            buffer.append(0);
+        }
+        for (long key : mKeys) {
+            if (key != 0) {
+                if (buffer.length() > 1) {
+                    buffer.append(", ");
+                }
+                buffer.append(key);
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the one's complement of the empty slot where it
+     * would be inserted. {@code key} must not be 0.
+     */
+    private int indexOf(long key) {
+        long[] keys = mKeys;
+        int mask = mMask;
+        int index = ContainerHelpers.mixHash(key) & mask;
+        while (true) {
+            long candidate = keys[index];
+            if (candidate == key) {
+                return index;
+            }
+            if (candidate == 0) {
+                return ~index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insertAt(int index, long key) {
+        mKeys[index] = key;
+        if (++mSize > mGrowAt) {
+            rehash(mKeys.length << 1);
+        }
+    }
+
+    /**
+     * Empties the slot at {@code index} and shifts back any entries of the probe sequence that
+     * follows it, so that lookups never need tombstones.
+     */
+    private void removeAt(int index) {
+        long[] keys = mKeys;
+        int mask = mMask;
+        int gap = index;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == 0) {
+                break;
+            }
+            int ideal = ContainerHelpers.mixHash(key) & mask;
+            // Move the entry into the gap unless its ideal slot lies cyclically after the gap.
+            if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = key;
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+        mSize--;
+    }
+
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("LongSet is too large");
+        }
+        long[] oldKeys = mKeys;
+        allocate(capacity);
+        long[] keys = mKeys;
+        int mask = mMask;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int index = ContainerHelpers.mixHash(key) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mMask = capacity - 1;
+        mGrowAt = capacity - (capacity >> 2);
+    }
+}
@@ -53,20 +53,10 @@ public class SimpleArrayMap<K, V> {
     private static final int BASE_SIZE = 4;
 
     /**
-     * Maximum number of entries to have in array caches.
+     * Cache of small array objects to avoid spamming garbage, shared by all instances.
+     * See {@link #configureArrayCache(int, int...)}.
      */
-    private static final int CACHE_SIZE = 10;
-
-    /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
-     */
-    static @Nullable Object[] mBaseCache;
-    static int mBaseCacheSize;
-    static @Nullable Object[] mTwiceBaseCache;
-    static int mTwiceBaseCacheSize;
+    private static final ContainerArrayPool sArrayPool = new ContainerArrayPool(2);
 
     int[] mHashes;
     Object[] mArray;
@@ -160,73 +150,40 @@ public class SimpleArrayMap<K, V> {
         return ~end;
     }
 
-    @SuppressWarnings("ArrayToString")
+    /**
+     * Configures the cache of small backing arrays shared by all maps of this type in the
+     * process. Creating and growing small maps takes arrays from this cache instead of
+     * allocating them, and arrays released by maps that shrink or are cleared go back into it.
+     * The cache is lock-free, so threads creating maps concurrently do not contend on it.
+     *
+     * <p>By default 10 arrays are cached for each of the capacities 4 and 8. Arrays cached
+     * under the previous configuration are dropped.
+     *
+     * @param arraysPerCapacity the number of arrays to cache for each capacity. Pass 0 to turn
+     *                          the cache off, e.g. to see every allocation in a profiler.
+     * @param capacities the capacities to cache arrays for; each must be positive.
+     * @throws IllegalArgumentException if {@code arraysPerCapacity} is negative or a capacity
+     *                                  is not positive.
+     */
+    public static void configureArrayCache(int arraysPerCapacity, @NonNull int... capacities) {
+        sArrayPool.configure(arraysPerCapacity, capacities.clone());
+    }
+
     private void allocArrays(final int size) {
-        if (size == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCache != null) {
-                    final Object[] array = mTwiceBaseCache;
-                    mArray = array;
-                    mTwiceBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mTwiceBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                    return;
-                }
-            }
-        } else if (size == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCache != null) {
-                    final Object[] array = mBaseCache;
-                    mArray = array;
-                    mBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                            + " now have " + mBaseCacheSize + " entries");
-                    return;
-                }
-            }
+        final Object[] array = sArrayPool.acquire(size);
+        if (array != null) {
+            mHashes = (int[]) array[0];
+            array[0] = null;
+            mArray = array;
+            return;
         }
 
         mHashes = new int[size];
         mArray = new Object[size<<1];
     }
 
-    @SuppressWarnings("ArrayToString")
     private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mTwiceBaseCache = array;
-                    mTwiceBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 2x cache " + array
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mBaseCache = array;
-                    mBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 1x cache " + array
-                            + " now have " + mBaseCacheSize + " entries");
-                }
-            }
-        }
+        sArrayPool.release(hashes, array, size<<1);
     }
 
     /**
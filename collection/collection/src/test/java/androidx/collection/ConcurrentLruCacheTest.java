@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void singleSegmentEvictsLeastRecentlyUsed() {
+        final List<String> evicted = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3, 1) {
+            @Override
+            protected void entryRemoved(boolean wasEvicted, String key, String oldValue,
+                    String newValue) {
+                if (wasEvicted) {
+                    evicted.add(key);
+                }
+            }
+        };
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        cache.put("d", "D");
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, evicted.size());
+        assertEquals("b", evicted.get(0));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void sizeNeverExceedsMaxSize() {
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(100);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, "value" + i);
+        }
+        assertTrue(cache.size() <= 100);
+        assertEquals(cache.size(), cache.snapshot().size());
+        assertEquals(10000, cache.putCount());
+    }
+
+    @Test
+    public void sizeOfIsRespected() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10, 1) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "xxxx");
+        cache.put("b", "yyyy");
+        assertEquals(8, cache.size());
+        cache.put("c", "zzzz");
+        assertEquals(8, cache.size());
+        assertNull(cache.get("a"));
+        cache.remove("b");
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void createIsUsedOnMiss() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected String create(String key) {
+                return key.toUpperCase();
+            }
+        };
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.createCount());
+    }
+
+    @Test
+    public void resizeTrimsEverySegment() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(64, 4);
+        for (int i = 0; i < 64; i++) {
+            cache.put(i, i);
+        }
+        cache.resize(8);
+        assertEquals(8, cache.maxSize());
+        assertTrue(cache.size() <= 8);
+        cache.evictAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void segmentsDoNotExceedMaxSize() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(3, 16);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 3);
+    }
+
+    @Test
+    public void concurrentAccessKeepsStatisticsConsistent() throws InterruptedException {
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(500) {
+                    @Override
+                    protected Integer create(Integer key) {
+                        return key;
+                    }
+                };
+        final int threadCount = 8;
+        final int operations = 10000;
+        final AtomicInteger gets = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < operations; i++) {
+                        int key = (i * 31 + seed) % 1000;
+                        assertEquals(Integer.valueOf(key), cache.get(key));
+                        gets.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(gets.get(), cache.hitCount() + cache.missCount());
+        assertTrue(cache.size() <= 500);
+        assertEquals(cache.size(), cache.snapshot().size());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ContainerArrayPoolTest {
+    @Test
+    public void acquireEmpty() {
+        ContainerArrayPool pool = new ContainerArrayPool(2);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void releaseThenAcquireReturnsClearedArrays() {
+        ContainerArrayPool pool = new ContainerArrayPool(2);
+        int[] hashes = new int[4];
+        Object[] array = new Object[8];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = "value" + i;
+        }
+        pool.release(hashes, array, 6);
+
+        Object[] pooled = pool.acquire(4);
+        assertSame(array, pooled);
+        assertSame(hashes, pooled[0]);
+        for (int i = 1; i < 6; i++) {
+            assertNull(pooled[i]);
+        }
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void releaseUncachedCapacityIsDropped() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        pool.release(new int[5], new Object[5], 5);
+        assertNull(pool.acquire(5));
+    }
+
+    @Test
+    public void releaseMismatchedLengthIsDropped() {
+        ContainerArrayPool pool = new ContainerArrayPool(2);
+        pool.release(new int[4], new Object[4], 4);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void releaseBeyondLimitIsDropped() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        pool.configure(2, new int[] {4});
+        for (int i = 0; i < 3; i++) {
+            pool.release(new int[4], new Object[4], 0);
+        }
+        assertEquals(4, ((Object[]) pool.acquire(4)).length);
+        assertEquals(4, ((Object[]) pool.acquire(4)).length);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void configureCustomCapacities() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        pool.configure(1, new int[] {12});
+        Object[] array = new Object[12];
+        pool.release(new int[12], array, 0);
+        assertSame(array, pool.acquire(12));
+
+        pool.release(new int[4], new Object[4], 0);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void configureDropsCachedArrays() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        pool.release(new int[4], new Object[4], 0);
+        pool.configure(ContainerArrayPool.DEFAULT_ARRAYS_PER_CAPACITY,
+                ContainerArrayPool.DEFAULT_CAPACITIES);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void configureZeroDisables() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        pool.configure(0, new int[] {4, 8});
+        pool.release(new int[4], new Object[4], 0);
+        assertNull(pool.acquire(4));
+    }
+
+    @Test
+    public void configureInvalid() {
+        ContainerArrayPool pool = new ContainerArrayPool(1);
+        try {
+            pool.configure(-1, new int[] {4});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            pool.configure(1, new int[] {0});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Churns small maps on several threads sharing the static pool; an array handed to two
+     * maps at once would show up as a lost or foreign entry.
+     */
+    @Test
+    public void concurrentChurnKeepsMapsIntact() throws InterruptedException {
+        final int threadCount = 8;
+        final List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 10000; i++) {
+                            SimpleArrayMap<Integer, Integer> map = new SimpleArrayMap<>();
+                            int size = 1 + (i % 8);
+                            for (int k = 0; k < size; k++) {
+                                map.put(k, id);
+                            }
+                            for (int k = 0; k < size; k++) {
+                                if (map.get(k) != id) {
+                                    throw new AssertionError("Foreign value in map " + map);
+                                }
+                            }
+                            assertEquals(size, map.size());
+                            map.clear();
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.get(0));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void putGetRemove() {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        map.put(1, "v" + 1);
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(1));
+        assertEquals("v" + 1, map.get(1));
+        assertNull(map.get(2));
+        assertEquals("default", map.get(2, "default"));
+        assertEquals("v" + 1, map.remove(1));
+        assertNull(map.remove(1));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void zeroKey() {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        assertFalse(map.containsKey(0));
+        map.put(0, "v" + 0);
+        assertTrue(map.containsKey(0));
+        assertEquals("v" + 0, map.get(0));
+        assertEquals(1, map.size());
+        assertEquals(1, map.keys().length);
+        map.remove(0);
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void growsAndKeepsEntries() {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 7, "v" + i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("v" + i, map.get(i * 7));
+        }
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(10000, keys.length);
+        assertEquals(7 * 9999, keys[keys.length - 1]);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(7));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key) != null);
+            } else {
+                map.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), (String) map.get(entry.getKey()));
+        }
+        for (int key : map.keys()) {
+            assertTrue(expected.containsKey(key));
+        }
+    }
+
+    @Test
+    public void toStringListsEntries() {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        assertEquals("{}", map.toString());
+        map.put(3, "v" + 3);
+        assertEquals("{3=v3}", map.toString());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addContainsRemove() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(6));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void zero() {
+        IntSet set = new IntSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.toArray().length);
+        assertTrue(set.remove(0));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(0);
+        IntSet set = new IntSet(16);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (Integer value : expected) {
+            assertTrue(set.contains(value));
+        }
+        for (int value : set.toArray()) {
+            assertTrue(expected.contains(value));
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void toStringListsValues() {
+        IntSet set = new IntSet();
+        assertEquals("{}", set.toString());
+        set.add(3);
+        assertEquals("{3}", set.toString());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void putGetRemove() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(1L));
+        assertEquals(1L, map.get(1L));
+        assertEquals(0, map.get(2L));
+        assertEquals(-1, map.get(2L, -1));
+        assertTrue(map.remove(1L));
+        assertFalse(map.remove(1L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void zeroKey() {
+        LongLongMap map = new LongLongMap();
+        assertFalse(map.containsKey(0L));
+        map.put(0L, 0L);
+        assertTrue(map.containsKey(0L));
+        assertEquals(0L, map.get(0L));
+        assertEquals(1, map.size());
+        assertEquals(1, map.keys().length);
+        map.remove(0L);
+        assertFalse(map.containsKey(0L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void growsAndKeepsEntries() {
+        LongLongMap map = new LongLongMap();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 7L, (long) i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals((long) i, map.get(i * 7L));
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(10000, keys.length);
+        assertEquals(7 * 9999L, keys[keys.length - 1]);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(7L));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (long) (random.nextInt(2000) - 1000) << 33;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, (long) i);
+                expected.put(key, (long) i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), (Long) map.get(entry.getKey()));
+        }
+        for (long key : map.keys()) {
+            assertTrue(expected.containsKey(key));
+        }
+    }
+
+    @Test
+    public void toStringListsEntries() {
+        LongLongMap map = new LongLongMap();
+        assertEquals("{}", map.toString());
+        map.put(3L, 3L);
+        assertEquals("{3=3}", map.toString());
+    }
+}
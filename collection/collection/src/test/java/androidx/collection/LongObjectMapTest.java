@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongObjectMapTest {
+    @Test
+    public void putGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        map.put(1L, "v" + 1);
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(1L));
+        assertEquals("v" + 1, map.get(1L));
+        assertNull(map.get(2L));
+        assertEquals("default", map.get(2L, "default"));
+        assertEquals("v" + 1, map.remove(1L));
+        assertNull(map.remove(1L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void zeroKey() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        assertFalse(map.containsKey(0L));
+        map.put(0L, "v" + 0);
+        assertTrue(map.containsKey(0L));
+        assertEquals("v" + 0, map.get(0L));
+        assertEquals(1, map.size());
+        assertEquals(1, map.keys().length);
+        map.remove(0L);
+        assertFalse(map.containsKey(0L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void growsAndKeepsEntries() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 7L, "v" + i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("v" + i, map.get(i * 7L));
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(10000, keys.length);
+        assertEquals(7 * 9999L, keys[keys.length - 1]);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(7L));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (long) (random.nextInt(2000) - 1000) << 33;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key) != null);
+            } else {
+                map.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), (String) map.get(entry.getKey()));
+        }
+        for (long key : map.keys()) {
+            assertTrue(expected.containsKey(key));
+        }
+    }
+
+    @Test
+    public void toStringListsEntries() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        assertEquals("{}", map.toString());
+        map.put(3L, "v" + 3);
+        assertEquals("{3=v3}", map.toString());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class LongSetTest {
+    @Test
+    public void addContainsRemove() {
+        LongSet set = new LongSet();
+        assertTrue(set.add(5L));
+        assertFalse(set.add(5L));
+        assertTrue(set.contains(5L));
+        assertFalse(set.contains(6L));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(5L));
+        assertFalse(set.remove(5L));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void zero() {
+        LongSet set = new LongSet();
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.toArray().length);
+        assertTrue(set.remove(0L));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(0);
+        LongSet set = new LongSet(16);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            long value = (long) (random.nextInt(2000) - 1000) << 33;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (Long value : expected) {
+            assertTrue(set.contains(value));
+        }
+        for (long value : set.toArray()) {
+            assertTrue(expected.contains(value));
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void toStringListsValues() {
+        LongSet set = new LongSet();
+        assertEquals("{}", set.toString());
+        set.add(3L);
+        assertEquals("{3}", set.toString());
+    }
+}
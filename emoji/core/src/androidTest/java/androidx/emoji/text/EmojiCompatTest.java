@@ -73,6 +73,7 @@ import android.view.KeyEvent;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputConnection;
 
+import androidx.annotation.NonNull;
 import androidx.emoji.util.Emoji.EmojiMapping;
 import androidx.emoji.util.TestString;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -89,6 +90,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @MediumTest
 @RunWith(AndroidJUnit4.class)
@@ -575,6 +578,130 @@ public class EmojiCompatTest {
         assertThat(processed, hasEmoji(EMOJI_SINGLE_CODEPOINT));
     }
 
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testPrecompute_findsSameEmojisAsProcess() {
+        final TestString string = new TestString(EMOJI_WITH_ZWJ).append(0x20, 0x2B, 0x31)
+                .append(EMOJI_FLAG).withSuffix().withPrefix();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string.toString());
+        assertEquals(2, emojis.getEmojiCount());
+        assertEquals(string.toString().length(), emojis.getTextLength());
+
+        final CharSequence processed = EmojiCompat.get().process(string.toString());
+        final CharSequence applied = EmojiCompat.get().applyPrecomputedEmojis(string.toString(),
+                emojis);
+        assertThat(applied, hasEmojiCount(2));
+        final Spannable spannable = (Spannable) processed;
+        final EmojiSpan[] spans = spannable.getSpans(0, spannable.length(), EmojiSpan.class);
+        for (EmojiSpan span : spans) {
+            assertThat(applied, hasEmojiAt(spannable.getSpanStart(span),
+                    spannable.getSpanEnd(span)));
+        }
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testPrecompute_withoutEmoji_returnsSameCharSequence() {
+        final String string = "abc";
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        assertEquals(0, emojis.getEmojiCount());
+        assertSame(string, EmojiCompat.get().applyPrecomputedEmojis(string, emojis));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testApplyPrecomputedEmojis_reusesSpannable() {
+        final String string = new TestString(EMOJI_SINGLE_CODEPOINT).withPrefix().toString();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        final Spannable spannable = new SpannableString(string);
+        assertSame(spannable, EmojiCompat.get().applyPrecomputedEmojis(spannable, emojis));
+        assertThat(spannable, hasEmoji(EMOJI_SINGLE_CODEPOINT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SdkSuppress(minSdkVersion = 19)
+    public void testApplyPrecomputedEmojis_withDifferentText() {
+        final String string = new TestString(EMOJI_SINGLE_CODEPOINT).toString();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        EmojiCompat.get().applyPrecomputedEmojis(string + "a", emojis);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SdkSuppress(minSdkVersion = 19)
+    public void testApplyPrecomputedEmojis_withDifferentMetadata() {
+        final String string = new TestString(EMOJI_SINGLE_CODEPOINT).toString();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        EmojiCompat.reset(new TestConfigBuilder.TestConfig(new EmojiCompat.MetadataRepoLoader() {
+            @Override
+            public void load(@NonNull EmojiCompat.MetadataRepoLoaderCallback loaderCallback) {
+                loaderCallback.onLoaded(new MetadataRepo());
+            }
+        }));
+        EmojiCompat.get().applyPrecomputedEmojis(string, emojis);
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testApplyPrecomputedEmojis_replacesExistingEmojiSpans() {
+        final String string = new TestString(EMOJI_SINGLE_CODEPOINT).withPrefix().toString();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        final CharSequence processed = EmojiCompat.get().process(string);
+        assertThat(processed, hasEmojiCount(1));
+        final CharSequence applied = EmojiCompat.get().applyPrecomputedEmojis(processed, emojis);
+        assertSame(processed, applied);
+        assertThat(applied, hasEmojiCount(1));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testApplyPrecomputedEmojis_withoutEmoji_removesEmojiSpans() {
+        final String string = new TestString(EMOJI_SINGLE_CODEPOINT).withPrefix().toString();
+        final CharSequence spanned = new SpannedString(EmojiCompat.get().process(string));
+        assertThat(spanned, hasEmojiCount(1));
+        // with every glyph available, the emoji is no longer replaced
+        final EmojiProcessor.GlyphChecker glyphChecker = mock(EmojiProcessor.GlyphChecker.class);
+        when(glyphChecker.hasGlyph(any(CharSequence.class), anyInt(), anyInt())).thenReturn(true);
+        EmojiCompat.reset(TestConfigBuilder.config().setReplaceAll(false));
+        EmojiCompat.get().setGlyphChecker(glyphChecker);
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        assertEquals(0, emojis.getEmojiCount());
+
+        final CharSequence applied = EmojiCompat.get().applyPrecomputedEmojis(spanned, emojis);
+        assertThat(applied, instanceOf(Spannable.class));
+        assertThat(applied, not(hasEmoji()));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testPrecompute_withList() throws Exception {
+        final List<String> strings = Arrays.asList(
+                new TestString(EMOJI_SINGLE_CODEPOINT).withPrefix().toString(),
+                "abc",
+                new TestString(EMOJI_FLAG).append(EMOJI_WITH_ZWJ).toString());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final List<PrecomputedEmojis> emojis =
+                    EmojiCompat.get().precompute(strings, executor).get();
+            assertEquals(strings.size(), emojis.size());
+            assertEquals(1, emojis.get(0).getEmojiCount());
+            assertEquals(0, emojis.get(1).getEmojiCount());
+            assertEquals(2, emojis.get(2).getEmojiCount());
+            assertThat(EmojiCompat.get().applyPrecomputedEmojis(strings.get(2), emojis.get(2)),
+                    hasEmojiCount(2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SdkSuppress(maxSdkVersion = 18)
+    public void testPrecompute_pre19() {
+        final String string = new TestString(new int[]{CHAR_DEFAULT_EMOJI_STYLE}).toString();
+        final PrecomputedEmojis emojis = EmojiCompat.get().precompute(string);
+        assertEquals(0, emojis.getEmojiCount());
+        assertSame(string, EmojiCompat.get().applyPrecomputedEmojis(string, emojis));
+    }
+
     @Test(expected = NullPointerException.class)
     public void testHasEmojiGlyph_withNullCharSequence() {
         EmojiCompat.get().hasEmojiGlyph(null);
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = 19)
+public class GlyphCacheTest {
+    private static final String FINGERPRINT = "test/fingerprint";
+
+    private File mFile;
+    private ScheduledThreadPoolExecutor mExecutor;
+
+    @Before
+    public void setup() {
+        mExecutor = new ScheduledThreadPoolExecutor(1);
+        mFile = new File(ApplicationProvider.getApplicationContext().getCacheDir(),
+                "glyph_cache_test");
+        mFile.delete();
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mExecutor.shutdownNow();
+        mExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        mFile.delete();
+    }
+
+    private GlyphCache createSavedCache() {
+        final GlyphCache cache = new GlyphCache(mFile, 3, 4, FINGERPRINT, mExecutor);
+        cache.put(1, true);
+        cache.put(2, false);
+        cache.save();
+        return cache;
+    }
+
+    @Test
+    public void testGet_returnsPutValues() {
+        final GlyphCache cache = new GlyphCache(mFile, 3, 4, FINGERPRINT, mExecutor);
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(1));
+        cache.put(1, true);
+        cache.put(2, false);
+        assertEquals(EmojiMetadata.HAS_GLYPH_EXISTS, cache.get(1));
+        assertEquals(EmojiMetadata.HAS_GLYPH_ABSENT, cache.get(2));
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(10));
+    }
+
+    @Test
+    public void testPut_schedulesSingleSave() throws InterruptedException {
+        final GlyphCache cache = new GlyphCache(mFile, 3, 100, FINGERPRINT, mExecutor);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i % 2 == 0);
+        }
+        assertEquals(1, mExecutor.getQueue().size());
+
+        // the pending save still runs after shutdown and writes every result
+        mExecutor.shutdown();
+        assertTrue(mExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        final GlyphCache loaded = new GlyphCache(mFile, 3, 100, FINGERPRINT, mExecutor);
+        loaded.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_EXISTS, loaded.get(0));
+        assertEquals(EmojiMetadata.HAS_GLYPH_ABSENT, loaded.get(99));
+    }
+
+    @Test
+    public void testLoad_sameKey() {
+        createSavedCache();
+        final GlyphCache cache = new GlyphCache(mFile, 3, 4, FINGERPRINT, mExecutor);
+        cache.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(0));
+        assertEquals(EmojiMetadata.HAS_GLYPH_EXISTS, cache.get(1));
+        assertEquals(EmojiMetadata.HAS_GLYPH_ABSENT, cache.get(2));
+    }
+
+    @Test
+    public void testLoad_differentMetadataVersion() {
+        createSavedCache();
+        final GlyphCache cache = new GlyphCache(mFile, 4, 4, FINGERPRINT, mExecutor);
+        cache.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(1));
+    }
+
+    @Test
+    public void testLoad_differentSize() {
+        createSavedCache();
+        final GlyphCache cache = new GlyphCache(mFile, 3, 5, FINGERPRINT, mExecutor);
+        cache.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(1));
+    }
+
+    @Test
+    public void testLoad_differentFingerprint() {
+        createSavedCache();
+        final GlyphCache cache = new GlyphCache(mFile, 3, 4, "other/fingerprint", mExecutor);
+        cache.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(1));
+    }
+
+    @Test
+    public void testLoad_corruptFile() throws IOException {
+        final FileOutputStream out = new FileOutputStream(mFile);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+        final GlyphCache cache = new GlyphCache(mFile, 3, 4, FINGERPRINT, mExecutor);
+        cache.load();
+        assertEquals(EmojiMetadata.HAS_GLYPH_UNKNOWN, cache.get(1));
+    }
+}
@@ -93,15 +93,25 @@ public class MetadataRepoTest {
     }
 
     final EmojiMetadata getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
+        int node = MetadataRepo.ROOT_NODE;
+        for (int codepoint : codepoints) {
+            node = mMetadataRepo.getNextNode(node, codepoint);
+            if (node == MetadataRepo.NO_NODE) return null;
+        }
+        return mMetadataRepo.getNodeData(node);
     }
 
-    final EmojiMetadata getNode(MetadataRepo.Node node, final int[] codepoints, int start) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
-
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+    @Test
+    public void testPut_manyCodePoints() {
+        // more transitions than the default capacity to exercise growing the table
+        final TestEmojiMetadata[] metadata = new TestEmojiMetadata[2000];
+        for (int i = 0; i < metadata.length; i++) {
+            metadata[i] = new TestEmojiMetadata(new int[]{0x1F000 + i, 0x200D, i});
+            mMetadataRepo.put(metadata[i]);
+        }
+        for (int i = 0; i < metadata.length; i++) {
+            assertSame(metadata[i], getNode(new int[]{0x1F000 + i, 0x200D, i}));
+            assertEquals(null, getNode(new int[]{0x1F000 + i, 0x200D}));
+        }
     }
 }
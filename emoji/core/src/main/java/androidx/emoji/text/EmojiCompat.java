@@ -41,6 +41,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.collection.ArraySet;
 import androidx.core.util.Preconditions;
 
+import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
@@ -48,6 +49,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -215,7 +220,8 @@ public class EmojiCompat {
     /**
      * Helper class for pre 19 compatibility.
      */
-    private final CompatInternal mHelper;
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final CompatInternal mHelper;
 
     /**
      * Metadata loader instance given in the Config instance.
@@ -256,6 +262,12 @@ public class EmojiCompat {
      */
     @LoadStrategy private final int mMetadataLoadStrategy;
 
+    /**
+     * @see Config#setGlyphCacheFile(File)
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final File mGlyphCacheFile;
+
     /**
      * Private constructor for singleton instance.
      *
@@ -271,6 +283,7 @@ public class EmojiCompat {
         mEmojiSpanIndicatorColor = config.mEmojiSpanIndicatorColor;
         mMetadataLoader = config.mMetadataLoader;
         mMetadataLoadStrategy = config.mMetadataLoadStrategy;
+        mGlyphCacheFile = config.mGlyphCacheFile;
         mMainHandler = new Handler(Looper.getMainLooper());
         mInitCallbacks = new ArraySet<>();
         if (config.mInitCallbacks != null && !config.mInitCallbacks.isEmpty()) {
@@ -778,6 +791,103 @@ public class EmojiCompat {
         return mHelper.process(charSequence, start, end, maxEmojiCount, replaceAll);
     }
 
+    /**
+     * Finds the emojis in a CharSequence that {@link #process(CharSequence)} would replace,
+     * without creating any spans. Can be called on any thread, for example to move emoji
+     * processing of the items of a list off the main thread. Use
+     * {@link #applyPrecomputedEmojis(CharSequence, PrecomputedEmojis)} to add the EmojiSpans to
+     * the text later. When used on devices running API 18 or below, no emojis are found.
+     *
+     * @param charSequence CharSequence to find the emojis in
+     *
+     * @return the positions of the emojis in {@code charSequence}
+     *
+     * @throws IllegalStateException if not initialized yet
+     * @see #precompute(List, Executor)
+     */
+    @NonNull
+    public PrecomputedEmojis precompute(@NonNull final CharSequence charSequence) {
+        Preconditions.checkState(isInitialized(), "Not initialized yet");
+        Preconditions.checkNotNull(charSequence, "charSequence cannot be null");
+        return mHelper.precompute(charSequence, mReplaceAll);
+    }
+
+    /**
+     * Calls {@link #precompute(CharSequence)} for each of the given CharSequences on
+     * {@code executor}. The result list has the same order as {@code charSequences}.
+     * <pre>
+     * Future&lt;List&lt;PrecomputedEmojis&gt;&gt; future =
+     *         EmojiCompat.get().precompute(messages, backgroundExecutor);
+     * // on a background thread, before the messages are shown
+     * List&lt;PrecomputedEmojis&gt; emojis = future.get();
+     * // when binding message i
+     * textView.setText(EmojiCompat.get().applyPrecomputedEmojis(messages.get(i), emojis.get(i)));
+     * </pre>
+     *
+     * @param charSequences CharSequences to find the emojis in, the list should not be modified
+     *                      until the returned Future is done
+     * @param executor Executor to run the work on
+     *
+     * @return a Future for the positions of the emojis in each of the CharSequences
+     *
+     * @throws IllegalStateException if not initialized yet
+     */
+    @NonNull
+    public Future<List<PrecomputedEmojis>> precompute(
+            @NonNull final List<? extends CharSequence> charSequences,
+            @NonNull final Executor executor) {
+        Preconditions.checkState(isInitialized(), "Not initialized yet");
+        Preconditions.checkNotNull(charSequences, "charSequences cannot be null");
+        Preconditions.checkNotNull(executor, "executor cannot be null");
+        final FutureTask<List<PrecomputedEmojis>> task = new FutureTask<>(
+                new Callable<List<PrecomputedEmojis>>() {
+                    @Override
+                    public List<PrecomputedEmojis> call() {
+                        final List<PrecomputedEmojis> result =
+                                new ArrayList<>(charSequences.size());
+                        for (int i = 0; i < charSequences.size(); i++) {
+                            result.add(mHelper.precompute(charSequences.get(i), mReplaceAll));
+                        }
+                        return result;
+                    }
+                });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Adds the EmojiSpans found by {@link #precompute(CharSequence)} to a CharSequence. Takes time
+     * proportional to the number of emojis, the text is not checked again.
+     * <p>
+     * Existing EmojiSpans in {@code charSequence} are removed first, as
+     * {@link #process(CharSequence)} does.
+     * <p>
+     * <ul>
+     * <li>If there are no emojis and no EmojiSpans to remove, {@code charSequence} is returned
+     * without any changes.</li>
+     * <li>If the given input is not a Spannable (such as String), a new
+     * {@link android.text.Spannable} instance is returned.</li>
+     * <li>If the given input is a Spannable, the same instance is returned.</li>
+     * </ul>
+     *
+     * @param charSequence the CharSequence that was passed to {@link #precompute(CharSequence)}
+     * @param precomputedEmojis the result of {@link #precompute(CharSequence)}
+     *
+     * @throws IllegalStateException if not initialized yet
+     * @throws IllegalArgumentException if {@code precomputedEmojis} was not calculated for a text
+     *                                  of the same length, or with the emoji metadata that is
+     *                                  currently loaded
+     */
+    @CheckResult
+    @NonNull
+    public CharSequence applyPrecomputedEmojis(@NonNull final CharSequence charSequence,
+            @NonNull final PrecomputedEmojis precomputedEmojis) {
+        Preconditions.checkState(isInitialized(), "Not initialized yet");
+        Preconditions.checkNotNull(charSequence, "charSequence cannot be null");
+        Preconditions.checkNotNull(precomputedEmojis, "precomputedEmojis cannot be null");
+        return mHelper.applyPrecomputedEmojis(charSequence, precomputedEmojis);
+    }
+
     /**
      * Returns signature for the currently loaded emoji assets. The signature is a SHA that is
      * constructed using emoji assets. Can be used to detect if currently loaded asset is different
@@ -908,6 +1018,8 @@ public class EmojiCompat {
         int mEmojiSpanIndicatorColor = Color.GREEN;
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         @LoadStrategy int mMetadataLoadStrategy = LOAD_STRATEGY_DEFAULT;
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        File mGlyphCacheFile;
 
         /**
          * Default constructor.
@@ -1081,6 +1193,27 @@ public class EmojiCompat {
             return this;
         }
 
+        /**
+         * Sets a file that is used to remember which emojis the system fonts can render across
+         * processes. When {@link #setReplaceAll(boolean)} is {@code false}, EmojiCompat checks
+         * whether the system can render each emoji it finds the first time it sees it; with a
+         * cache file these checks are not repeated after the app is restarted.
+         * <p/>
+         * The file is read on the thread that loads the metadata and written on a background
+         * thread. It is ignored when the metadata or the system build changes. By default no
+         * cache file is used.
+         *
+         * @param glyphCacheFile file to store the results in, for example a file in
+         *                       {@link android.content.Context#getCacheDir()}, or {@code null}
+         *                       to disable the cache
+         *
+         * @return EmojiCompat.Config instance
+         */
+        public Config setGlyphCacheFile(@Nullable File glyphCacheFile) {
+            mGlyphCacheFile = glyphCacheFile;
+            return this;
+        }
+
         /**
          * Returns the {@link MetadataRepoLoader}.
          */
@@ -1169,6 +1302,18 @@ public class EmojiCompat {
             return charSequence;
         }
 
+        PrecomputedEmojis precompute(@NonNull final CharSequence charSequence,
+                boolean replaceAll) {
+            // Since no metadata is loaded, EmojiCompat cannot detect any emojis.
+            return new PrecomputedEmojis(null, charSequence.length(), null, 0);
+        }
+
+        CharSequence applyPrecomputedEmojis(@NonNull final CharSequence charSequence,
+                @NonNull final PrecomputedEmojis precomputedEmojis) {
+            // Returns the given charSequence as it is.
+            return charSequence;
+        }
+
         void updateEditorInfoAttrs(@NonNull final EditorInfo outAttrs) {
             // Does not add any EditorInfo attributes.
         }
@@ -1229,10 +1374,16 @@ public class EmojiCompat {
                 return;
             }
 
+            GlyphCache glyphCache = null;
+            if (mEmojiCompat.mGlyphCacheFile != null && metadataRepo.getMetadataList() != null) {
+                glyphCache = new GlyphCache(mEmojiCompat.mGlyphCacheFile, metadataRepo);
+                glyphCache.load();
+            }
+
             mMetadataRepo = metadataRepo;
             mProcessor = new EmojiProcessor(mMetadataRepo, new SpanFactory(),
                     mEmojiCompat.mUseEmojiAsDefaultStyle,
-                    mEmojiCompat.mEmojiAsDefaultStyleExceptions);
+                    mEmojiCompat.mEmojiAsDefaultStyleExceptions, glyphCache);
 
             mEmojiCompat.onMetadataLoadSuccess();
         }
@@ -1260,6 +1411,17 @@ public class EmojiCompat {
             outAttrs.extras.putBoolean(EDITOR_INFO_REPLACE_ALL_KEY, mEmojiCompat.mReplaceAll);
         }
 
+        @Override
+        PrecomputedEmojis precompute(@NonNull CharSequence charSequence, boolean replaceAll) {
+            return mProcessor.precompute(charSequence, replaceAll);
+        }
+
+        @Override
+        CharSequence applyPrecomputedEmojis(@NonNull CharSequence charSequence,
+                @NonNull PrecomputedEmojis precomputedEmojis) {
+            return mProcessor.apply(charSequence, precomputedEmojis);
+        }
+
         @Override
         void setGlyphChecker(@NonNull EmojiProcessor.GlyphChecker glyphChecker) {
             mProcessor.setGlyphChecker(glyphChecker);
@@ -114,6 +114,13 @@ public class EmojiMetadata {
         paint.setTypeface(oldTypeface);
     }
 
+    /**
+     * @return index of the emoji in the {@link MetadataList}
+     */
+    int getIndex() {
+        return mIndex;
+    }
+
     /**
      * @return return typeface to be used to render this metadata
      */
@@ -94,6 +94,14 @@ final class EmojiProcessor {
      */
     private GlyphChecker mGlyphChecker = new GlyphChecker();
 
+    /**
+     * Persisted glyph check results, {@code null} if not enabled.
+     *
+     * @see EmojiCompat.Config#setGlyphCacheFile(java.io.File)
+     */
+    @Nullable
+    private final GlyphCache mGlyphCache;
+
     /**
      * @see EmojiCompat.Config#setUseEmojiAsDefaultStyle(boolean)
      */
@@ -108,14 +116,24 @@ final class EmojiProcessor {
             @NonNull final EmojiCompat.SpanFactory spanFactory,
             final boolean useEmojiAsDefaultStyle,
             @Nullable final int[] emojiAsDefaultStyleExceptions) {
+        this(metadataRepo, spanFactory, useEmojiAsDefaultStyle, emojiAsDefaultStyleExceptions,
+                null);
+    }
+
+    EmojiProcessor(@NonNull final MetadataRepo metadataRepo,
+            @NonNull final EmojiCompat.SpanFactory spanFactory,
+            final boolean useEmojiAsDefaultStyle,
+            @Nullable final int[] emojiAsDefaultStyleExceptions,
+            @Nullable final GlyphCache glyphCache) {
         mSpanFactory = spanFactory;
+        mGlyphCache = glyphCache;
         mMetadataRepo = metadataRepo;
         mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
         mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
     }
 
     EmojiMetadata getEmojiMetadata(@NonNull final CharSequence charSequence) {
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
         final int end = charSequence.length();
         int currentOffset = 0;
@@ -216,62 +234,168 @@ final class EmojiProcessor {
                 maxEmojiCount -= spannable.getSpans(0, spannable.length(), EmojiSpan.class).length;
             }
             // add new ones
-            int addedCount = 0;
-            final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
-                    mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
-
-            int currentOffset = start;
-            int codePoint = Character.codePointAt(charSequence, currentOffset);
-
-            while (currentOffset < end && addedCount < maxEmojiCount) {
-                final int action = sm.check(codePoint);
-
-                switch (action) {
-                    case ACTION_ADVANCE_BOTH:
-                        start += Character.charCount(Character.codePointAt(charSequence, start));
-                        currentOffset = start;
-                        if (currentOffset < end) {
-                            codePoint = Character.codePointAt(charSequence, currentOffset);
-                        }
-                        break;
-                    case ACTION_ADVANCE_END:
-                        currentOffset += Character.charCount(codePoint);
-                        if (currentOffset < end) {
-                            codePoint = Character.codePointAt(charSequence, currentOffset);
-                        }
-                        break;
-                    case ACTION_FLUSH:
-                        if (replaceAll || !hasGlyph(charSequence, start, currentOffset,
-                                sm.getFlushMetadata())) {
-                            if (spannable == null) {
-                                spannable = new SpannableString(charSequence);
-                            }
-                            addEmoji(spannable, sm.getFlushMetadata(), start, currentOffset);
-                            addedCount++;
-                        }
-                        start = currentOffset;
-                        break;
-                }
+            final SpanAdder spanAdder = new SpanAdder(spannable);
+            scan(charSequence, start, end, maxEmojiCount, replaceAll, spanAdder);
+            return spanAdder.mSpannable == null ? charSequence : spanAdder.mSpannable;
+        } finally {
+            if (isSpannableBuilder) {
+                ((SpannableBuilder) charSequence).endBatchEdit();
             }
+        }
+    }
 
-            // After the last codepoint is consumed the state machine might be in a state where it
-            // identified an emoji before. i.e. abc[women-emoji] when the last codepoint is consumed
-            // state machine is waiting to see if there is an emoji sequence (i.e. ZWJ).
-            // Need to check if it is in such a state.
-            if (sm.isInFlushableState() && addedCount < maxEmojiCount) {
-                if (replaceAll || !hasGlyph(charSequence, start, currentOffset,
-                        sm.getCurrentMetadata())) {
-                    if (spannable == null) {
-                        spannable = new SpannableString(charSequence);
-                    }
-                    addEmoji(spannable, sm.getCurrentMetadata(), start, currentOffset);
-                    addedCount++;
-                }
+    /**
+     * Finds the emojis in a CharSequence without creating any spans.
+     *
+     * @param charSequence CharSequence to look for emojis in
+     * @param replaceAll whether to include all emojis, or only the ones the system cannot render
+     *
+     * @see #apply(CharSequence, PrecomputedEmojis)
+     */
+    @NonNull
+    PrecomputedEmojis precompute(@NonNull final CharSequence charSequence,
+            final boolean replaceAll) {
+        final int length = charSequence.length();
+        if (length == 0) {
+            return new PrecomputedEmojis(mMetadataRepo, 0, null, 0);
+        }
+        final RangeCollector collector = new RangeCollector();
+        scan(charSequence, 0, length, EmojiCompat.EMOJI_COUNT_UNLIMITED, replaceAll, collector);
+        return new PrecomputedEmojis(mMetadataRepo, length, collector.mRanges, collector.mSize);
+    }
+
+    /**
+     * Replaces the EmojiSpans in {@code charSequence} with the ones described by
+     * {@code precomputedEmojis}.
+     * <p>
+     * <ul>
+     * <li>If there are no emojis and no EmojiSpans to remove, {@code charSequence} is returned
+     * without any changes.</li>
+     * <li>If the given input is not a Spannable, a new {@link android.text.Spannable} instance is
+     * returned.</li>
+     * <li>If the given input is a Spannable, the same instance is returned.</li>
+     * </ul>
+     *
+     * @param charSequence the CharSequence that was passed to
+     *                     {@link #precompute(CharSequence, boolean)}
+     * @param precomputedEmojis the result of {@link #precompute(CharSequence, boolean)}
+     */
+    CharSequence apply(@NonNull final CharSequence charSequence,
+            @NonNull final PrecomputedEmojis precomputedEmojis) {
+        Preconditions.checkArgument(charSequence.length() == precomputedEmojis.getTextLength(),
+                "charSequence is not the text the emojis were precomputed for");
+        // metadata indices only identify an emoji within the metadata they were found with
+        Preconditions.checkArgument(precomputedEmojis.getMetadataRepo() == mMetadataRepo,
+                "emojis were precomputed with different metadata");
+        final int count = precomputedEmojis.getEmojiCount();
+
+        // if it is a spannable already, use the same instance to add/remove EmojiSpans, otherwise
+        // only copy it if there are emojis to add or EmojiSpans to remove.
+        final Spannable spannable;
+        if (charSequence instanceof Spannable) {
+            spannable = (Spannable) charSequence;
+        } else if (count > 0 || hasEmojiSpan(charSequence)) {
+            spannable = new SpannableString(charSequence);
+        } else {
+            return charSequence;
+        }
+        final boolean isSpannableBuilder = spannable instanceof SpannableBuilder;
+        if (isSpannableBuilder) {
+            ((SpannableBuilder) spannable).beginBatchEdit();
+        }
+        try {
+            // the emojis were found in the whole text, so all existing EmojiSpans are replaced
+            final EmojiSpan[] spans = spannable.getSpans(0, spannable.length(), EmojiSpan.class);
+            for (int i = 0; i < spans.length; i++) {
+                spannable.removeSpan(spans[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                final EmojiMetadata metadata = mMetadataRepo.getMetadata(
+                        precomputedEmojis.getMetadataIndex(i));
+                addEmoji(spannable, metadata, precomputedEmojis.getEmojiStart(i),
+                        precomputedEmojis.getEmojiEnd(i));
             }
-            return spannable == null ? charSequence : spannable;
         } finally {
             if (isSpannableBuilder) {
-                ((SpannableBuilder) charSequence).endBatchEdit();
+                ((SpannableBuilder) spannable).endBatchEdit();
+            }
+        }
+        return spannable;
+    }
+
+    /**
+     * @return whether {@code charSequence} is a Spanned with at least one {@link EmojiSpan}
+     */
+    private static boolean hasEmojiSpan(@NonNull final CharSequence charSequence) {
+        if (!(charSequence instanceof Spanned)) {
+            return false;
+        }
+        // start-1, end+1 will return emoji span that starts/ends at start/end indices
+        final int length = charSequence.length();
+        return ((Spanned) charSequence).nextSpanTransition(-1, length + 1, EmojiSpan.class)
+                <= length;
+    }
+
+    /**
+     * Finds the emojis in a CharSequence and passes the ones that should be replaced with an
+     * {@link EmojiSpan} to {@code handler}.
+     *
+     * @param charSequence CharSequence to look for emojis in
+     * @param start start index in the charSequence to look for emojis
+     * @param end end index in the charSequence to look for emojis
+     * @param maxEmojiCount maximum number of emojis to pass to the handler
+     * @param replaceAll whether to pass all emojis, or only the ones the system cannot render
+     * @param handler receives the emojis in the order they appear in charSequence
+     */
+    private void scan(@NonNull final CharSequence charSequence, @IntRange(from = 0) int start,
+            @IntRange(from = 0) final int end, @IntRange(from = 0) final int maxEmojiCount,
+            final boolean replaceAll, @NonNull final EmojiHandler handler) {
+        int addedCount = 0;
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
+                mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
+
+        int currentOffset = start;
+        int codePoint = Character.codePointAt(charSequence, currentOffset);
+
+        while (currentOffset < end && addedCount < maxEmojiCount) {
+            final int action = sm.check(codePoint);
+
+            switch (action) {
+                case ACTION_ADVANCE_BOTH:
+                    start += Character.charCount(Character.codePointAt(charSequence, start));
+                    currentOffset = start;
+                    if (currentOffset < end) {
+                        codePoint = Character.codePointAt(charSequence, currentOffset);
+                    }
+                    break;
+                case ACTION_ADVANCE_END:
+                    currentOffset += Character.charCount(codePoint);
+                    if (currentOffset < end) {
+                        codePoint = Character.codePointAt(charSequence, currentOffset);
+                    }
+                    break;
+                case ACTION_FLUSH:
+                    if (replaceAll || !hasGlyph(charSequence, start, currentOffset,
+                            sm.getFlushMetadata())) {
+                        handler.handleEmoji(charSequence, start, currentOffset,
+                                sm.getFlushMetadata());
+                        addedCount++;
+                    }
+                    start = currentOffset;
+                    break;
+            }
+        }
+
+        // After the last codepoint is consumed the state machine might be in a state where it
+        // identified an emoji before. i.e. abc[women-emoji] when the last codepoint is consumed
+        // state machine is waiting to see if there is an emoji sequence (i.e. ZWJ).
+        // Need to check if it is in such a state.
+        if (sm.isInFlushableState() && addedCount < maxEmojiCount) {
+            if (replaceAll || !hasGlyph(charSequence, start, currentOffset,
+                    sm.getCurrentMetadata())) {
+                handler.handleEmoji(charSequence, start, currentOffset,
+                        sm.getCurrentMetadata());
+                addedCount++;
             }
         }
     }
@@ -461,8 +585,17 @@ final class EmojiProcessor {
 
         // if the existence is not calculated yet
         if (metadata.getHasGlyph() == EmojiMetadata.HAS_GLYPH_UNKNOWN) {
-            final boolean hasGlyph = mGlyphChecker.hasGlyph(charSequence, start, end);
-            metadata.setHasGlyph(hasGlyph);
+            final int cached = mGlyphCache == null ? EmojiMetadata.HAS_GLYPH_UNKNOWN
+                    : mGlyphCache.get(metadata.getIndex());
+            if (cached != EmojiMetadata.HAS_GLYPH_UNKNOWN) {
+                metadata.setHasGlyph(cached == EmojiMetadata.HAS_GLYPH_EXISTS);
+            } else {
+                final boolean hasGlyph = mGlyphChecker.hasGlyph(charSequence, start, end);
+                metadata.setHasGlyph(hasGlyph);
+                if (mGlyphCache != null) {
+                    mGlyphCache.put(metadata.getIndex(), hasGlyph);
+                }
+            }
         }
 
         return metadata.getHasGlyph() == EmojiMetadata.HAS_GLYPH_EXISTS;
@@ -477,7 +610,58 @@ final class EmojiProcessor {
     }
 
     /**
-     * State machine for walking over the metadata trie.
+     * Receives the emojis found by {@link #scan(CharSequence, int, int, int, boolean,
+     * EmojiHandler)}.
+     */
+    private interface EmojiHandler {
+        void handleEmoji(@NonNull CharSequence charSequence, int start, int end,
+                @NonNull EmojiMetadata metadata);
+    }
+
+    /**
+     * Adds an EmojiSpan for each emoji, creating a Spannable for the first one if required.
+     */
+    private final class SpanAdder implements EmojiHandler {
+        @Nullable
+        Spannable mSpannable;
+
+        SpanAdder(@Nullable final Spannable spannable) {
+            mSpannable = spannable;
+        }
+
+        @Override
+        public void handleEmoji(@NonNull final CharSequence charSequence, final int start,
+                final int end, @NonNull final EmojiMetadata metadata) {
+            if (mSpannable == null) {
+                mSpannable = new SpannableString(charSequence);
+            }
+            addEmoji(mSpannable, metadata, start, end);
+        }
+    }
+
+    /**
+     * Collects the start, end and metadata index of each emoji into an int array.
+     */
+    private static final class RangeCollector implements EmojiHandler {
+        int[] mRanges;
+        int mSize;
+
+        @Override
+        public void handleEmoji(@NonNull final CharSequence charSequence, final int start,
+                final int end, @NonNull final EmojiMetadata metadata) {
+            if (mRanges == null) {
+                mRanges = new int[PrecomputedEmojis.FIELD_COUNT * 4];
+            } else if (mSize == mRanges.length) {
+                mRanges = Arrays.copyOf(mRanges, mSize * 2);
+            }
+            mRanges[mSize++] = start;
+            mRanges[mSize++] = end;
+            mRanges[mSize++] = metadata.getIndex();
+        }
+    }
+
+    /**
+     * State machine for walking over the metadata automaton.
      */
     static final class ProcessorSm {
 
@@ -487,20 +671,20 @@ final class EmojiProcessor {
         private int mState = STATE_DEFAULT;
 
         /**
-         * Root of the trie
+         * Repo that holds the automaton.
          */
-        private final MetadataRepo.Node mRootNode;
+        private final MetadataRepo mMetadataRepo;
 
         /**
          * Pointer to the node after last codepoint.
          */
-        private MetadataRepo.Node mCurrentNode;
+        private int mCurrentNode = MetadataRepo.ROOT_NODE;
 
         /**
          * The node where ACTION_FLUSH is called. Required since after flush action is
          * returned mCurrentNode is reset to be the root.
          */
-        private MetadataRepo.Node mFlushNode;
+        private int mFlushNode = MetadataRepo.NO_NODE;
 
         /**
          * The code point that was checked.
@@ -522,10 +706,9 @@ final class EmojiProcessor {
          */
         private final int[] mEmojiAsDefaultStyleExceptions;
 
-        ProcessorSm(MetadataRepo.Node rootNode, boolean useEmojiAsDefaultStyle,
+        ProcessorSm(MetadataRepo metadataRepo, boolean useEmojiAsDefaultStyle,
                 int[] emojiAsDefaultStyleExceptions) {
-            mRootNode = rootNode;
-            mCurrentNode = rootNode;
+            mMetadataRepo = metadataRepo;
             mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
             mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
         }
@@ -533,10 +716,10 @@ final class EmojiProcessor {
         @Action
         int check(final int codePoint) {
             final int action;
-            MetadataRepo.Node node = mCurrentNode.get(codePoint);
+            final int node = mMetadataRepo.getNextNode(mCurrentNode, codePoint);
             switch (mState) {
                 case STATE_WALKING:
-                    if (node != null) {
+                    if (node != MetadataRepo.NO_NODE) {
                         mCurrentNode = node;
                         mCurrentDepth += 1;
                         action = ACTION_ADVANCE_END;
@@ -545,7 +728,7 @@ final class EmojiProcessor {
                             action = reset();
                         } else if (isEmojiStyle(codePoint)) {
                             action = ACTION_ADVANCE_END;
-                        } else if (mCurrentNode.getData() != null) {
+                        } else if (getCurrentMetadata() != null) {
                             if (mCurrentDepth == 1) {
                                 if (shouldUseEmojiPresentationStyleForSingleCodepoint()) {
                                     mFlushNode = mCurrentNode;
@@ -566,7 +749,7 @@ final class EmojiProcessor {
                     break;
                 case STATE_DEFAULT:
                 default:
-                    if (node == null) {
+                    if (node == MetadataRepo.NO_NODE) {
                         action = reset();
                     } else {
                         mState = STATE_WALKING;
@@ -584,7 +767,7 @@ final class EmojiProcessor {
         @Action
         private int reset() {
             mState = STATE_DEFAULT;
-            mCurrentNode = mRootNode;
+            mCurrentNode = MetadataRepo.ROOT_NODE;
             mCurrentDepth = 0;
             return ACTION_ADVANCE_BOTH;
         }
@@ -593,14 +776,14 @@ final class EmojiProcessor {
          * @return the metadata node when ACTION_FLUSH is returned
          */
         EmojiMetadata getFlushMetadata() {
-            return mFlushNode.getData();
+            return mMetadataRepo.getNodeData(mFlushNode);
         }
 
         /**
-         * @return current pointer to the metadata node in the trie
+         * @return the metadata for the current node of the automaton
          */
         EmojiMetadata getCurrentMetadata() {
-            return mCurrentNode.getData();
+            return mMetadataRepo.getNodeData(mCurrentNode);
         }
 
         /**
@@ -611,12 +794,12 @@ final class EmojiProcessor {
          * @return whether the current state requires an emoji to be added
          */
         boolean isInFlushableState() {
-            return mState == STATE_WALKING && mCurrentNode.getData() != null
+            return mState == STATE_WALKING && getCurrentMetadata() != null
                     && (mCurrentDepth > 1 || shouldUseEmojiPresentationStyleForSingleCodepoint());
         }
 
         private boolean shouldUseEmojiPresentationStyleForSingleCodepoint() {
-            if (mCurrentNode.getData().isDefaultEmoji()) {
+            if (getCurrentMetadata().isDefaultEmoji()) {
                 // The codepoint is emoji style by default.
                 return true;
             }
@@ -630,7 +813,7 @@ final class EmojiProcessor {
                 if (mEmojiAsDefaultStyleExceptions == null) {
                     return true;
                 }
-                final int codepoint = mCurrentNode.getData().getCodepointAt(0);
+                final int codepoint = getCurrentMetadata().getCodepointAt(0);
                 final int index = Arrays.binarySearch(mEmojiAsDefaultStyleExceptions, codepoint);
                 if (index < 0) {
                     // Index is negative, so the codepoint was not found in the array of exceptions.
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji.text;
+
+import android.os.Build;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the {@link EmojiMetadata#getHasGlyph()} results of a {@link MetadataRepo} so that
+ * the system fonts do not have to be checked again for the same emoji in a later process.
+ * <p>
+ * The results depend on both the emoji metadata and the system fonts, therefore the file is only
+ * used when it was written for the same metadata version, the same number of emojis and the same
+ * {@link Build#FINGERPRINT}. The cache is best effort: any error while reading or writing the file
+ * is ignored and the results are calculated again.
+ *
+ * @see EmojiCompat.Config#setGlyphCacheFile(File)
+ */
+@AnyThread
+@RequiresApi(19)
+final class GlyphCache {
+    private static final int MAGIC = 'E' << 24 | 'm' << 16 | 'G' << 8 | 'c';
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Delay between the first new result and the write of the file, so that the results of
+     * scanning a whole text are written at once.
+     */
+    private static final long SAVE_DELAY_MS = 2000;
+
+    private static final Object sExecutorLock = new Object();
+    @GuardedBy("sExecutorLock")
+    private static ScheduledExecutorService sExecutor;
+
+    private final File mFile;
+    private final int mMetadataVersion;
+    private final String mFingerprint;
+
+    /**
+     * {@link EmojiMetadata.HasGlyph} values by metadata index. Written without synchronization, a
+     * thread that does not see the value of another thread calculates it again.
+     */
+    private final byte[] mStates;
+
+    private final ScheduledExecutorService mExecutor;
+
+    private final Object mLock = new Object();
+
+    /**
+     * Serializes writes of saves that were scheduled one after the other.
+     */
+    private final Object mFileLock = new Object();
+
+    @GuardedBy("mLock")
+    private boolean mSaveScheduled;
+
+    GlyphCache(@NonNull final File file, @NonNull final MetadataRepo metadataRepo) {
+        this(file, metadataRepo.getMetadataVersion(), metadataRepo.getMetadataCount(),
+                Build.FINGERPRINT, getExecutor());
+    }
+
+    @VisibleForTesting
+    GlyphCache(@NonNull final File file, final int metadataVersion,
+            @IntRange(from = 0) final int size, @NonNull final String fingerprint,
+            @NonNull final ScheduledExecutorService executor) {
+        mFile = file;
+        mMetadataVersion = metadataVersion;
+        mFingerprint = fingerprint;
+        mStates = new byte[size];
+        mExecutor = executor;
+    }
+
+    /**
+     * Returns the executor shared by all caches, whose single low priority thread stops when
+     * there is nothing to write.
+     */
+    private static ScheduledExecutorService getExecutor() {
+        synchronized (sExecutorLock) {
+            if (sExecutor == null) {
+                final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(@NonNull Runnable runnable) {
+                                final Thread thread = new Thread(runnable,
+                                        "EmojiCompatGlyphCache");
+                                thread.setDaemon(true);
+                                thread.setPriority(Thread.MIN_PRIORITY);
+                                return thread;
+                            }
+                        });
+                executor.setKeepAliveTime(SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+                executor.allowCoreThreadTimeOut(true);
+                sExecutor = executor;
+            }
+            return sExecutor;
+        }
+    }
+
+    /**
+     * Reads the results from the file. Does nothing if the file does not exist, or if it was
+     * written for different metadata or a different system build.
+     */
+    void load() {
+        if (!mFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (in.readInt() != MAGIC
+                    || in.readInt() != FORMAT_VERSION
+                    || in.readInt() != mMetadataVersion
+                    || in.readInt() != mStates.length
+                    || !mFingerprint.equals(in.readUTF())) {
+                return;
+            }
+            in.readFully(mStates);
+        } catch (IOException e) {
+            // a partially read file might contain garbage
+            clear();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * @param index index of the emoji in the {@link androidx.text.emoji.flatbuffer.MetadataList}
+     *
+     * @return the cached result for the emoji
+     */
+    @EmojiMetadata.HasGlyph
+    int get(@IntRange(from = 0) final int index) {
+        return index < mStates.length ? mStates[index] : EmojiMetadata.HAS_GLYPH_UNKNOWN;
+    }
+
+    /**
+     * Records the result for an emoji and schedules the file to be written on a background
+     * thread after a delay. Results that arrive before the write starts are written together.
+     *
+     * @param index index of the emoji in the {@link androidx.text.emoji.flatbuffer.MetadataList}
+     * @param hasGlyph whether the system can render the emoji
+     */
+    void put(@IntRange(from = 0) final int index, final boolean hasGlyph) {
+        if (index >= mStates.length) {
+            return;
+        }
+        mStates[index] = (byte) (hasGlyph ? EmojiMetadata.HAS_GLYPH_EXISTS
+                : EmojiMetadata.HAS_GLYPH_ABSENT);
+        synchronized (mLock) {
+            if (mSaveScheduled) {
+                return;
+            }
+            mSaveScheduled = true;
+        }
+        try {
+            mExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    save();
+                }
+            }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            synchronized (mLock) {
+                mSaveScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the results to the file. The data is written to a temporary file first and renamed,
+     * so that a process that dies during the write does not leave a truncated file behind.
+     */
+    @VisibleForTesting
+    void save() {
+        final byte[] states;
+        synchronized (mLock) {
+            // results put after the snapshot schedule another save
+            states = mStates.clone();
+            mSaveScheduled = false;
+        }
+        synchronized (mFileLock) {
+            final File tmpFile = new File(mFile.getPath() + ".tmp");
+            DataOutputStream out = null;
+            try {
+                out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tmpFile)));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(mMetadataVersion);
+                out.writeInt(mStates.length);
+                out.writeUTF(mFingerprint);
+                out.write(states);
+                out.close();
+                out = null;
+                if (!tmpFile.renameTo(mFile)) {
+                    tmpFile.delete();
+                }
+            } catch (IOException e) {
+                tmpFile.delete();
+            } finally {
+                closeQuietly(out);
+            }
+        }
+    }
+
+    private void clear() {
+        Arrays.fill(mStates, (byte) EmojiMetadata.HAS_GLYPH_UNKNOWN);
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
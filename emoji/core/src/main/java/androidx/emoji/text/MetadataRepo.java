@@ -19,30 +19,59 @@ import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Preconditions;
+import androidx.text.emoji.flatbuffer.MetadataItem;
 import androidx.text.emoji.flatbuffer.MetadataList;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Class to hold the emoji metadata required to process and draw emojis.
+ * <p>
+ * Emoji sequences are matched with an automaton that is encoded in flat arrays and built directly
+ * from the {@link MetadataList}. Transitions are kept in an open addressing hash table keyed by
+ * the source node and the codepoint, so that a lookup does not allocate and no per node objects
+ * are created. {@link EmojiMetadata} instances are only created for the emojis that are matched.
  */
 @AnyThread
 @RequiresApi(19)
 public final class MetadataRepo {
     /**
-     * The default children size of the root node.
+     * Id of the root node of the automaton.
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    static final int ROOT_NODE = 0;
+
+    /**
+     * Returned by {@link #getNextNode(int, int)} when there is no transition.
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    static final int NO_NODE = -1;
+
+    /**
+     * The default transition capacity of an empty repo.
      */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
+    private static final int DEFAULT_TRANSITION_CAPACITY = 1024;
+
+    /**
+     * Marks an empty slot in the transition table. Keys always have a non negative node id in the
+     * upper 32 bits, therefore they can never be equal to this value.
+     */
+    private static final long EMPTY_KEY = -1L;
 
     /**
      * MetadataList that contains the emoji metadata.
@@ -56,14 +85,45 @@ public final class MetadataRepo {
     private final char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * Typeface to be used to render emojis.
      */
-    private final Node mRootNode;
+    private final Typeface mTypeface;
 
     /**
-     * Typeface to be used to render emojis.
+     * Transition keys, {@code node << 32 | codepoint}, or {@link #EMPTY_KEY}.
      */
-    private final Typeface mTypeface;
+    private long[] mTransitionKeys;
+
+    /**
+     * Target node of the transition with the key at the same index in {@link #mTransitionKeys}.
+     */
+    private int[] mTransitionTargets;
+
+    /**
+     * Number of transitions in the table.
+     */
+    private int mTransitionCount;
+
+    /**
+     * For each node, the metadata index + 1 of the emoji that ends at that node, or {@code 0}.
+     */
+    private int[] mNodeMetadata;
+
+    /**
+     * Number of nodes in the automaton, including the root.
+     */
+    private int mNodeCount;
+
+    /**
+     * EmojiMetadata instances by metadata index. Created lazily when the repo is read from a
+     * {@link MetadataList}.
+     */
+    private EmojiMetadata[] mMetadata;
+
+    /**
+     * Number of used entries in {@link #mMetadata}.
+     */
+    private int mMetadataCount;
 
     /**
      * Constructor used for tests.
@@ -74,8 +134,9 @@ public final class MetadataRepo {
     MetadataRepo() {
         mTypeface = null;
         mMetadataList = null;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[0];
+        mMetadata = new EmojiMetadata[0];
+        initAutomaton(DEFAULT_TRANSITION_CAPACITY);
     }
 
     /**
@@ -88,11 +149,9 @@ public final class MetadataRepo {
             @NonNull final MetadataList metadataList) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[mMetadataList.listLength() * 2];
         constructIndex(mMetadataList);
     }
-
     /**
      * Construct MetadataRepo from an input stream. The library does not close the given
      * InputStream, therefore it is caller's responsibility to properly close the stream.
@@ -131,20 +190,52 @@ public final class MetadataRepo {
     }
 
     /**
-     * Read emoji metadata list and construct the trie.
+     * Read emoji metadata list and construct the automaton.
      */
     private void constructIndex(final MetadataList metadataList) {
-        int length = metadataList.listLength();
+        final int length = metadataList.listLength();
+        final MetadataItem item = new MetadataItem();
+        // every codepoint of every emoji can add at most one transition
+        int codepointCount = 0;
+        for (int i = 0; i < length; i++) {
+            metadataList.list(item, i);
+            codepointCount += item.codepointsLength();
+        }
+        initAutomaton(codepointCount);
+        mMetadata = new EmojiMetadata[length];
+        mMetadataCount = length;
+
         for (int i = 0; i < length; i++) {
-            final EmojiMetadata metadata = new EmojiMetadata(this, i);
+            metadataList.list(item, i);
             //since all emojis are mapped to a single codepoint in Private Use Area A they are 2
             //chars wide
             //noinspection ResultOfMethodCallIgnored
-            Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            Character.toChars(item.id(), mEmojiCharArray, i * 2);
+            final int codepointsLength = item.codepointsLength();
+            int node = ROOT_NODE;
+            for (int j = 0; j < codepointsLength; j++) {
+                node = getOrAddNode(node, item.codepoints(j));
+            }
+            mNodeMetadata[node] = i + 1;
         }
     }
 
+    /**
+     * Allocates an automaton that only has the root node.
+     *
+     * @param transitionCapacity expected number of transitions
+     */
+    private void initAutomaton(final int transitionCapacity) {
+        // keep the load factor of the transition table at or below 0.5
+        int tableSize = Integer.highestOneBit(Math.max(transitionCapacity, 1)) << 2;
+        mTransitionKeys = new long[tableSize];
+        Arrays.fill(mTransitionKeys, EMPTY_KEY);
+        mTransitionTargets = new int[tableSize];
+        mTransitionCount = 0;
+        mNodeMetadata = new int[transitionCapacity + 1];
+        mNodeCount = 1;
+    }
+
     /**
      * @hide
      */
@@ -162,11 +253,75 @@ public final class MetadataRepo {
     }
 
     /**
+     * Returns the node that is reached from {@code node} with {@code codepoint}.
+     *
+     * @param node the current node, {@link #ROOT_NODE} to start a new sequence
+     * @param codepoint the next codepoint
+     *
+     * @return the next node or {@link #NO_NODE} if there is no emoji that continues with the
+     *         codepoint
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    int getNextNode(final int node, final int codepoint) {
+        final long key = transitionKey(node, codepoint);
+        final long[] keys = mTransitionKeys;
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY_KEY) {
+            if (current == key) {
+                return mTransitionTargets[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Returns the emoji that ends at {@code node}.
+     *
+     * @param node a node returned by {@link #getNextNode(int, int)}
+     *
+     * @return the EmojiMetadata for the node or {@code null} if no emoji ends at the node
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    EmojiMetadata getNodeData(final int node) {
+        final int index = mNodeMetadata[node] - 1;
+        return index < 0 ? null : getMetadata(index);
+    }
+
+    /**
+     * @param index index of the emoji in the {@link MetadataList}
+     *
+     * @return the EmojiMetadata for the emoji
+     *
      * @hide
      */
     @RestrictTo(LIBRARY_GROUP_PREFIX)
-    Node getRootNode() {
-        return mRootNode;
+    @NonNull
+    EmojiMetadata getMetadata(@IntRange(from = 0) final int index) {
+        EmojiMetadata metadata = mMetadata[index];
+        if (metadata == null) {
+            // EmojiMetadata is a thin immutable view on the MetadataList, if two threads race
+            // here both instances are equivalent.
+            metadata = new EmojiMetadata(this, index);
+            mMetadata[index] = metadata;
+        }
+        return metadata;
+    }
+
+    /**
+     * @return number of emojis in the repo
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    int getMetadataCount() {
+        return mMetadataCount;
     }
 
     /**
@@ -197,50 +352,76 @@ public final class MetadataRepo {
         Preconditions.checkArgument(data.getCodepointsLength() > 0,
                 "invalid metadata codepoint length");
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
+        final int codepointsLength = data.getCodepointsLength();
+        int node = ROOT_NODE;
+        for (int i = 0; i < codepointsLength; i++) {
+            node = getOrAddNode(node, data.getCodepointAt(i));
+        }
+
+        if (mMetadataCount == mMetadata.length) {
+            mMetadata = Arrays.copyOf(mMetadata, Math.max(mMetadataCount * 2, 16));
+        }
+        mMetadata[mMetadataCount++] = data;
+        mNodeMetadata[node] = mMetadataCount;
     }
 
     /**
-     * Trie node that holds mapping from emoji codepoint(s) to EmojiMetadata. A single codepoint
-     * emoji is represented by a child of the root node.
-     *
-     * @hide
+     * Returns the node that is reached from {@code node} with {@code codepoint}, adding a new
+     * node if there is no such transition yet.
      */
-    @RestrictTo(LIBRARY_GROUP_PREFIX)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private EmojiMetadata mData;
-
-        private Node() {
-            this(1);
+    private int getOrAddNode(final int node, final int codepoint) {
+        final int next = getNextNode(node, codepoint);
+        if (next != NO_NODE) {
+            return next;
         }
 
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
+        if ((mTransitionCount + 1) * 2 > mTransitionKeys.length) {
+            rehash(mTransitionKeys.length * 2);
         }
-
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
+        if (mNodeCount == mNodeMetadata.length) {
+            mNodeMetadata = Arrays.copyOf(mNodeMetadata, mNodeCount * 2);
         }
 
-        final EmojiMetadata getData() {
-            return mData;
-        }
+        final int newNode = mNodeCount++;
+        insertTransition(mTransitionKeys, mTransitionTargets, transitionKey(node, codepoint),
+                newNode);
+        mTransitionCount++;
+        return newNode;
+    }
 
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final EmojiMetadata data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
+    private void rehash(final int tableSize) {
+        final long[] oldKeys = mTransitionKeys;
+        final int[] oldTargets = mTransitionTargets;
+        final long[] keys = new long[tableSize];
+        Arrays.fill(keys, EMPTY_KEY);
+        final int[] targets = new int[tableSize];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                insertTransition(keys, targets, oldKeys[i], oldTargets[i]);
             }
+        }
+        mTransitionKeys = keys;
+        mTransitionTargets = targets;
+    }
 
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
-            }
+    private static void insertTransition(final long[] keys, final int[] targets, final long key,
+            final int target) {
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY_KEY) {
+            index = (index + 1) & mask;
         }
+        keys[index] = key;
+        targets[index] = target;
+    }
+
+    private static long transitionKey(final int node, final int codepoint) {
+        return ((long) node << 32) | (codepoint & 0xFFFFFFFFL);
+    }
+
+    private static int hash(final long key) {
+        // codepoints of a sequence are close to each other, spread them over the table
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
     }
 }
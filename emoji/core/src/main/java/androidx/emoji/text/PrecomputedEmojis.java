@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.emoji.text;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.IntRange;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The positions of the emojis that EmojiCompat would replace in a text, calculated without
+ * creating any spans. Instances are immutable and do not keep a reference to the text, therefore
+ * they can be calculated on a background thread, cached, and applied to the text later using
+ * {@link EmojiCompat#applyPrecomputedEmojis(CharSequence, PrecomputedEmojis)}. They can only be
+ * applied while EmojiCompat uses the emoji metadata they were calculated with.
+ *
+ * @see EmojiCompat#precompute(CharSequence)
+ * @see EmojiCompat#precompute(java.util.List, java.util.concurrent.Executor)
+ */
+@AnyThread
+public final class PrecomputedEmojis {
+    /**
+     * Number of ints stored for each emoji: start, end and metadata index.
+     */
+    static final int FIELD_COUNT = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    @Nullable
+    private final MetadataRepo mMetadataRepo;
+    private final int mTextLength;
+    private final int[] mRanges;
+
+    PrecomputedEmojis(@Nullable final MetadataRepo metadataRepo,
+            @IntRange(from = 0) final int textLength, @Nullable final int[] ranges,
+            @IntRange(from = 0) final int size) {
+        mMetadataRepo = metadataRepo;
+        mTextLength = textLength;
+        if (ranges == null || size == 0) {
+            mRanges = EMPTY;
+        } else {
+            mRanges = ranges.length == size ? ranges : Arrays.copyOf(ranges, size);
+        }
+    }
+
+    /**
+     * @return the number of emojis that will be replaced with spans
+     */
+    @IntRange(from = 0)
+    public int getEmojiCount() {
+        return mRanges.length / FIELD_COUNT;
+    }
+
+    /**
+     * @param index index of the emoji, between {@code 0} and {@link #getEmojiCount()}
+     *
+     * @return start index of the emoji in the text
+     */
+    @IntRange(from = 0)
+    public int getEmojiStart(@IntRange(from = 0) final int index) {
+        return mRanges[index * FIELD_COUNT];
+    }
+
+    /**
+     * @param index index of the emoji, between {@code 0} and {@link #getEmojiCount()}
+     *
+     * @return end index of the emoji in the text
+     */
+    @IntRange(from = 0)
+    public int getEmojiEnd(@IntRange(from = 0) final int index) {
+        return mRanges[index * FIELD_COUNT + 1];
+    }
+
+    /**
+     * @return length of the text the emojis were calculated for
+     */
+    @IntRange(from = 0)
+    public int getTextLength() {
+        return mTextLength;
+    }
+
+    /**
+     * @return the metadata the emojis were calculated with, or {@code null} if no metadata was
+     *         loaded
+     */
+    @Nullable
+    MetadataRepo getMetadataRepo() {
+        return mMetadataRepo;
+    }
+
+    /**
+     * @return index of the emoji in the {@link androidx.text.emoji.flatbuffer.MetadataList}
+     */
+    int getMetadataIndex(@IntRange(from = 0) final int index) {
+        return mRanges[index * FIELD_COUNT + 2];
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.core.pom
+
+/**
+ * Contains sets of mappings for dependency version variables.
+ *
+ * E.g. alpha1 => { newSlVersion: 1.0.0-alpha1, newArchVersion: 2.0.0-alpha1 }
+ */
+data class DependencyVersionsMap(val data: Map<String, Map<String, String>>) {
+
+    companion object {
+        val EMPTY = DependencyVersionsMap(emptyMap())
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.utils.Log
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.android.tools.build.jetifier.processor.archive.ArchiveItem
+import com.android.tools.build.jetifier.processor.transform.TransformationContext
+import com.android.tools.build.jetifier.processor.transform.Transformer
+import com.android.tools.build.jetifier.processor.transform.pom.PomDocument
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+import java.util.zip.ZipOutputStream
+
+/**
+ * Transforms a single library by streaming its entries from the input archive straight into a new
+ * archive, so only the entry that is being transformed is held in memory. Nested archives are
+ * rewritten within the stream of their parent instead of being extracted first, and entries that
+ * none of the [transformers] is interested in are copied through without being buffered.
+ *
+ * Whether the library changed is only known once its last entry was written, so the new archive
+ * goes into a temporary file that the caller either moves to the target path or drops in favor of
+ * the unmodified input.
+ *
+ * Instances keep no state between libraries and can be shared by multiple threads.
+ */
+internal class StreamingArchiveTransformer(
+    private val context: TransformationContext,
+    private val transformers: List<Transformer>
+) {
+
+    companion object {
+        private const val TAG = "StreamingTransformer"
+
+        private const val ANNOTATIONS_FILE_NAME = "annotations.xml"
+
+        private val EMPTY_DATA = ByteArray(0)
+
+        /**
+         * Creates a temporary file next to the target path of the given [library], so it can be
+         * moved there without copying.
+         */
+        @Throws(IOException::class)
+        fun createTempFile(library: FileMapping): Path {
+            val targetPath = library.to.toPath().toAbsolutePath()
+            Files.createDirectories(targetPath.parent)
+            return Files.createTempFile(targetPath.parent, targetPath.fileName.toString(), ".tmp")
+        }
+    }
+
+    /**
+     * Outcome of transforming a single library.
+     *
+     * @param tempFile The transformed library, to be moved to its target path or deleted.
+     * @param wasChanged Whether any entry of the library was changed.
+     * @param signatureFiles Signature files found in the library. These are never written to
+     * [tempFile], a library that keeps its signatures was not changed and is copied from its input
+     * instead.
+     * @param pomValidationFailures Number of POM files that failed the version validation.
+     */
+    class Result(
+        val tempFile: Path,
+        val wasChanged: Boolean,
+        val signatureFiles: List<Path>,
+        val pomValidationFailures: Int
+    )
+
+    private class Session {
+        var wasChanged = false
+        val signatureFiles = mutableListOf<Path>()
+        var pomValidationFailures = 0
+    }
+
+    /**
+     * Transforms the library at [FileMapping.from] into a temporary file placed next to
+     * [FileMapping.to].
+     */
+    @Throws(IOException::class)
+    fun transform(library: FileMapping): Result {
+        Log.i(TAG, "Started new transformation")
+        Log.i(TAG, "- Input file: %s", library.from)
+
+        val tempFile = createTempFile(library)
+        val session = Session()
+        try {
+            ZipInputStream(BufferedInputStream(FileInputStream(library.from))).use { zipIn ->
+                ZipOutputStream(BufferedOutputStream(Files.newOutputStream(tempFile))).use {
+                    transformEntries(zipIn, it, session)
+                }
+            }
+        } catch (e: Throwable) {
+            Files.deleteIfExists(tempFile)
+            throw e
+        }
+
+        return Result(
+            tempFile = tempFile,
+            wasChanged = session.wasChanged,
+            signatureFiles = session.signatureFiles.toList(),
+            pomValidationFailures = session.pomValidationFailures)
+    }
+
+    /**
+     * Returns whether any class of the given library, including its nested archives, references
+     * androidX. Stops reading at the first reference found.
+     */
+    @Throws(IOException::class)
+    fun hasAndroidXReferences(library: File): Boolean {
+        ZipInputStream(BufferedInputStream(FileInputStream(library))).use {
+            return scanForAndroidXReferences(it)
+        }
+    }
+
+    private fun scanForAndroidXReferences(zipIn: ZipInputStream): Boolean {
+        var entry: ZipEntry? = zipIn.nextEntry
+        while (entry != null) {
+            if (!entry.isDirectory) {
+                if (isArchive(entry)) {
+                    if (scanForAndroidXReferences(ZipInputStream(zipIn))) {
+                        return true
+                    }
+                } else if (entry.name.endsWith(".class", ignoreCase = true) &&
+                    AndroidXRefScanner.hasAndroidXReferences(zipIn.readBytes())) {
+                    return true
+                }
+            }
+            zipIn.closeEntry()
+            entry = zipIn.nextEntry
+        }
+        return false
+    }
+
+    private fun transformEntries(zipIn: ZipInputStream, zipOut: ZipOutputStream, session: Session) {
+        // Annotation files that need merging in reversed mode, written once all were seen
+        val annotationFiles = mutableListOf<ArchiveItem>()
+
+        var entry: ZipEntry? = zipIn.nextEntry
+        while (entry != null) {
+            if (!entry.isDirectory) {
+                val entryPath = Paths.get(entry.name)
+                if (isArchive(entry)) {
+                    Log.i(TAG, "Streaming nested: %s", entryPath)
+                    putNextEntry(zipOut, entryPath)
+                    // Cannot close the nested streams as that would close also the parent ones.
+                    val nestedOut = ZipOutputStream(zipOut)
+                    transformEntries(ZipInputStream(zipIn), nestedOut, session)
+                    nestedOut.finish()
+                    zipOut.closeEntry()
+                } else {
+                    transformFile(zipIn, zipOut, entryPath, session, annotationFiles)
+                }
+            }
+            zipIn.closeEntry()
+            entry = zipIn.nextEntry
+        }
+
+        if (annotationFiles.isNotEmpty()) {
+            val archive = Archive(Paths.get(""), annotationFiles)
+            AnnotationFilesMerger.tryMergeFilesInArchive(archive)
+            archive.files.forEach { writeFile(zipOut, it as ArchiveFile) }
+        }
+    }
+
+    private fun transformFile(
+        zipIn: ZipInputStream,
+        zipOut: ZipOutputStream,
+        entryPath: Path,
+        session: Session,
+        annotationFiles: MutableList<ArchiveItem>
+    ) {
+        val probe = ArchiveFile(entryPath, EMPTY_DATA)
+        val transformer = transformers.firstOrNull { it.canTransform(probe) }
+        if (transformer == null && !probe.isPomFile() && !isMetaInfFile(entryPath)) {
+            Log.v(TAG, "[Skipped] %s", entryPath)
+            putNextEntry(zipOut, entryPath)
+            zipIn.copyTo(zipOut)
+            zipOut.closeEntry()
+            return
+        }
+
+        val file = ArchiveFile(entryPath, zipIn.readBytes())
+        if (transformer != null) {
+            Log.v(TAG, "[Applied: %s] %s", transformer.javaClass.simpleName, entryPath)
+            transformer.runTransform(file)
+        } else if (file.isPomFile()) {
+            transformPomFile(file, session)
+        }
+        session.wasChanged = session.wasChanged || file.wasChanged
+
+        if (isSignatureFile(file)) {
+            session.signatureFiles.add(file.relativePath)
+        } else if (context.isInReversedMode && file.fileName == ANNOTATIONS_FILE_NAME) {
+            annotationFiles.add(file)
+        } else {
+            writeFile(zipOut, file)
+        }
+    }
+
+    private fun transformPomFile(file: ArchiveFile, session: Session) {
+        val pomDocument = PomDocument.loadFrom(file)
+        pomDocument.logDocumentDetails()
+        if (!context.ignorePomVersionCheck &&
+            !pomDocument.validate(context.config.pomRewriteRules)) {
+            Log.e(TAG, "Version mismatch!")
+            session.pomValidationFailures++
+        }
+
+        pomDocument.applyRules(context)
+        pomDocument.saveBackToFileIfNeeded()
+    }
+
+    private fun writeFile(zipOut: ZipOutputStream, file: ArchiveFile) {
+        Log.v(TAG, "Writing file: %s", file.relativePath)
+        putNextEntry(zipOut, file.relativePath)
+        file.writeSelfTo(zipOut)
+        zipOut.closeEntry()
+    }
+
+    private fun putNextEntry(zipOut: ZipOutputStream, path: Path) {
+        // Same as Archive.writeSelfTo, always use '/' as separator (b/109738608) and a fresh
+        // timestamp (b/78249473).
+        val entry = ZipEntry(path.toString().replace('\\', '/'))
+        entry.lastModifiedTime = FileTime.from(Instant.now())
+        zipOut.putNextEntry(entry)
+    }
+
+    private fun isArchive(zipEntry: ZipEntry): Boolean {
+        return Archive.ARCHIVE_EXTENSIONS.any { zipEntry.name.endsWith(it, ignoreCase = true) }
+    }
+
+    /** Signature files and the manifest live here, the data is needed to tell them apart. */
+    private fun isMetaInfFile(path: Path): Boolean {
+        return path.toString()
+            .replace('\\', '/')
+            .trimStart('/')
+            .startsWith("META-INF/", ignoreCase = true)
+    }
+}
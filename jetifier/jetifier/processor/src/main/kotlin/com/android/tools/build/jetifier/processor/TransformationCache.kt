@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.utils.Log
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.FileSystemException
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.util.Properties
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * On-disk cache of libraries transformed by [Processor.transformStreaming], keyed by the content
+ * of the input library together with everything else that affects its transformation.
+ *
+ * Every entry is a directory named after its key holding the transformed library (only if the
+ * library was changed) and the result metadata. Entries are written into a temporary directory
+ * and renamed into place, so the same cache directory can be shared by concurrent jetifier runs.
+ * Once the entries take more than [maxSizeBytes], the least recently used ones are evicted. The
+ * directory is only listed on the first store and whenever the size tracked since then exceeds
+ * [maxSizeBytes], so entries stored by concurrent runs are noticed late.
+ *
+ * @param directory Directory to keep the entries in, created if it does not exist yet.
+ * @param maxSizeBytes Upper bound for the total size of the cached libraries.
+ * @param useHardLinks Whether to hard link libraries between the cache and their target paths
+ * instead of copying them. Linked libraries must never be modified in place.
+ */
+class TransformationCache(
+    val directory: Path,
+    val maxSizeBytes: Long = DEFAULT_MAX_SIZE_BYTES,
+    private val useHardLinks: Boolean = false
+) {
+
+    companion object {
+        private const val TAG = "TransformationCache"
+
+        const val DEFAULT_MAX_SIZE_BYTES = 1024L * 1024L * 1024L
+
+        private const val OUTPUT_FILE_NAME = "output"
+        private const val METADATA_FILE_NAME = "result.properties"
+        private const val TEMP_DIR_PREFIX = "tmp-"
+
+        private const val PROPERTY_WAS_CHANGED = "wasChanged"
+        private const val PROPERTY_SIGNATURE_FILES = "signatureFiles"
+
+        /** Returns the hex encoded SHA-256 digest of the given file's content. */
+        @Throws(IOException::class)
+        fun hashFile(file: File): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            val buffer = ByteArray(64 * 1024)
+            FileInputStream(file).use {
+                var read = it.read(buffer)
+                while (read >= 0) {
+                    digest.update(buffer, 0, read)
+                    read = it.read(buffer)
+                }
+            }
+            return toHex(digest.digest())
+        }
+
+        /** Returns the hex encoded SHA-256 digest of the given string. */
+        fun hashString(value: String): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            return toHex(digest.digest(value.toByteArray(StandardCharsets.UTF_8)))
+        }
+
+        private fun toHex(bytes: ByteArray) = bytes.joinToString("") { "%02x".format(it) }
+    }
+
+    /**
+     * A cached library.
+     *
+     * @param wasChanged Whether the library was changed by jetifier.
+     * @param signatureFiles Signature files found in the library.
+     */
+    class Entry(val wasChanged: Boolean, val signatureFiles: List<String>)
+
+    // Size of the entries when the directory was last listed plus the size of the entries stored
+    // since, negative until the directory is listed.
+    private val knownSizeBytes = AtomicLong(-1)
+
+    init {
+        if (maxSizeBytes < 0) {
+            throw IllegalArgumentException("Max size cannot be negative, was $maxSizeBytes")
+        }
+        Files.createDirectories(directory)
+    }
+
+    /**
+     * Looks up the library cached under [key]. If the cached library was changed by jetifier, its
+     * transformed version is placed at [target], replacing any existing file.
+     *
+     * @return the cached library, null if there is no entry for [key].
+     */
+    @Throws(IOException::class)
+    fun restore(key: String, target: Path): Entry? {
+        val entryDir = directory.resolve(key)
+        val metadataFile = entryDir.resolve(METADATA_FILE_NAME)
+        try {
+            val metadata = Properties()
+            Files.newInputStream(metadataFile).use { metadata.load(it) }
+            val wasChanged = metadata.getProperty(PROPERTY_WAS_CHANGED)?.toBoolean() ?: return null
+            val signatureFiles = metadata.getProperty(PROPERTY_SIGNATURE_FILES)
+                ?.split('\n')
+                ?.filter { it.isNotEmpty() }
+                ?: emptyList()
+            if (wasChanged) {
+                placeFile(entryDir.resolve(OUTPUT_FILE_NAME), target)
+            }
+            // Marks the entry as recently used for the eviction
+            Files.setLastModifiedTime(metadataFile, FileTime.fromMillis(System.currentTimeMillis()))
+            Log.i(TAG, "Restored '%s' from cache", target)
+            return Entry(wasChanged, signatureFiles)
+        } catch (e: NoSuchFileException) {
+            // Either not cached or evicted by a concurrent run in the meantime
+            return null
+        }
+    }
+
+    /**
+     * Caches the result of a library under [key]. The transformed library [output] has to be
+     * given if the library [wasChanged]. The [signatureFiles] found in the library are returned
+     * along with it by [restore].
+     */
+    @Throws(IOException::class)
+    fun store(
+        key: String,
+        wasChanged: Boolean,
+        output: Path?,
+        signatureFiles: List<String> = emptyList()
+    ) {
+        if (wasChanged && output == null) {
+            throw IllegalArgumentException("Changed library '$key' has no output")
+        }
+
+        val entryDir = directory.resolve(key)
+        if (Files.exists(entryDir)) {
+            return
+        }
+
+        val tempDir = Files.createTempDirectory(directory, TEMP_DIR_PREFIX)
+        val entrySize: Long
+        try {
+            if (wasChanged) {
+                placeFile(output!!, tempDir.resolve(OUTPUT_FILE_NAME))
+            }
+            val metadata = Properties()
+            metadata.setProperty(PROPERTY_WAS_CHANGED, wasChanged.toString())
+            metadata.setProperty(PROPERTY_SIGNATURE_FILES, signatureFiles.joinToString("\n"))
+            Files.newOutputStream(tempDir.resolve(METADATA_FILE_NAME)).use {
+                metadata.store(it, null)
+            }
+            entrySize = sizeOf(tempDir.toFile())
+            Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: FileSystemException) {
+            if (!Files.exists(entryDir)) {
+                throw e
+            }
+            // A concurrent run stored the same entry first
+            return
+        } finally {
+            if (Files.exists(tempDir)) {
+                tempDir.toFile().deleteRecursively()
+            }
+        }
+
+        if (knownSizeBytes.get() < 0 || knownSizeBytes.addAndGet(entrySize) > maxSizeBytes) {
+            evictIfNeeded()
+        }
+    }
+
+    /** Removes the least recently used entries until the cache fits into [maxSizeBytes]. */
+    @Throws(IOException::class)
+    fun evictIfNeeded() {
+        val entries = directory.toFile().listFiles { file ->
+            file.isDirectory && !file.name.startsWith(TEMP_DIR_PREFIX)
+        } ?: return
+
+        var totalSize = 0L
+        val entrySizes = entries.associate { entry ->
+            val size = sizeOf(entry)
+            totalSize += size
+            entry to size
+        }
+        if (totalSize <= maxSizeBytes) {
+            knownSizeBytes.set(totalSize)
+            return
+        }
+
+        val leastRecentlyUsedFirst = entries.sortedBy {
+            File(it, METADATA_FILE_NAME).lastModified()
+        }
+        for (entry in leastRecentlyUsedFirst) {
+            if (totalSize <= maxSizeBytes) {
+                break
+            }
+            Log.i(TAG, "Evicting '%s'", entry.name)
+            entry.deleteRecursively()
+            totalSize -= entrySizes[entry]!!
+        }
+        knownSizeBytes.set(totalSize)
+    }
+
+    private fun sizeOf(entryDir: File) = entryDir.listFiles()?.map { it.length() }?.sum() ?: 0L
+
+    private fun placeFile(source: Path, target: Path) {
+        Files.deleteIfExists(target)
+        if (useHardLinks) {
+            try {
+                Files.createLink(target, source)
+                return
+            } catch (e: UnsupportedOperationException) {
+                Log.w(TAG, "Hard links are not supported, copying '%s' instead", source)
+            } catch (e: IOException) {
+                // e.g. the cache is on a different file system
+                Log.w(TAG, "Failed to link '%s', copying instead: %s", source, e.message)
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING)
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.config.Config
+import com.android.tools.build.jetifier.core.rule.RewriteRule
+import com.android.tools.build.jetifier.core.rule.RewriteRulesMap
+import com.android.tools.build.jetifier.core.type.JavaType
+import com.android.tools.build.jetifier.core.type.TypesMap
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.android.tools.build.jetifier.processor.archive.ArchiveItem
+import com.google.common.truth.Truth
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.Random
+
+/**
+ * Compares the in-memory [Processor.transform2] with [Processor.transformStreaming] over a
+ * synthetic corpus of libraries, half of which need to be rewritten.
+ *
+ * The default corpus is small enough to run with the other tests. For meaningful numbers use
+ * a bigger one, e.g. -Djetifier.benchmark.libraries=400 -Djetifier.benchmark.classes=200.
+ */
+class ProcessorBenchmark {
+
+    companion object {
+        private const val REPEATS = 3
+    }
+
+    private val config = Config.fromOptional(
+        restrictToPackagePrefixes = setOf("android/support/v7/preference"),
+        rulesMap =
+            RewriteRulesMap(
+                RewriteRule(from = "android/support/v7/preference/Preference(.+)", to = "ignore"),
+                RewriteRule(from = "(.*)/R(.*)", to = "ignore")
+            ),
+        typesMap = TypesMap(
+            JavaType("android/support/v7/preference/Preference")
+                to JavaType("android/test/pref/Preference")
+        )
+    )
+
+    private val librariesCount = Integer.getInteger("jetifier.benchmark.libraries", 16)
+    private val classesPerLibrary = Integer.getInteger("jetifier.benchmark.classes", 20)
+
+    private lateinit var corpusDir: Path
+    private lateinit var outputDir: Path
+    private lateinit var corpus: List<File>
+
+    @Before
+    fun setUp() {
+        corpusDir = Files.createTempDirectory("jetifierCorpus")
+        outputDir = Files.createTempDirectory("jetifierOutput")
+        corpus = createCorpus()
+    }
+
+    @After
+    fun tearDown() {
+        corpusDir.toFile().deleteRecursively()
+        outputDir.toFile().deleteRecursively()
+    }
+
+    @Test
+    fun transformCorpus() {
+        val inMemory = measure("transform2") { input ->
+            Processor.createProcessor3(config).transform2(input)
+        }
+        val streamed = measure("transformStreaming(parallelism = 1)") { input ->
+            Processor.createProcessor3(config).transformStreaming(input, parallelism = 1)
+        }
+        val parallelism = Runtime.getRuntime().availableProcessors()
+        val streamedParallel = measure("transformStreaming(parallelism = $parallelism)") { input ->
+            Processor.createProcessor3(config).transformStreaming(input, parallelism = parallelism)
+        }
+
+        Truth.assertThat(inMemory.numberOfLibsModified).isEqualTo(librariesCount / 2)
+        Truth.assertThat(streamed.numberOfLibsModified).isEqualTo(librariesCount / 2)
+        Truth.assertThat(streamedParallel.numberOfLibsModified).isEqualTo(librariesCount / 2)
+    }
+
+    private fun measure(
+        name: String,
+        transform: (Set<FileMapping>) -> TransformationResult
+    ): TransformationResult {
+        var result: TransformationResult? = null
+        var bestMillis = Long.MAX_VALUE
+        for (i in 0 until REPEATS) {
+            val input = corpus.map {
+                FileMapping(it, outputDir.resolve("$i-${it.name}").toFile())
+            }.toSet()
+            val start = System.nanoTime()
+            result = transform(input)
+            bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1_000_000)
+        }
+        println("$name: $bestMillis ms for $librariesCount libraries " +
+            "($classesPerLibrary classes each), best of $REPEATS")
+        return result!!
+    }
+
+    /**
+     * Every library has a nested jar with the classes, a layout and an incompressible asset. Every
+     * other library references the support library and has to be rewritten.
+     */
+    private fun createCorpus(): List<File> {
+        val supportClass = File(
+            javaClass.getResource("/changeDetectionTest/testPreference.class").file).readBytes()
+        val androidXClass = File(
+            javaClass.getResource("/classRewriteTest/ShareCompat.class").file).readBytes()
+        val random = Random(42)
+        return (0 until librariesCount).map { lib ->
+            val needsRewrite = lib % 2 == 0
+            val classes = (0 until classesPerLibrary).map {
+                val data = if (needsRewrite) supportClass else androidXClass
+                ArchiveFile(Paths.get("com/example/lib$lib/Class$it.class"), data)
+            }
+            val asset = ByteArray(64 * 1024)
+            random.nextBytes(asset)
+            val files = listOf<ArchiveItem>(
+                Archive(Paths.get("classes.jar"), classes),
+                ArchiveFile(Paths.get("res/layout/layout.xml"),
+                    ("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<LinearLayout/>").toByteArray()),
+                ArchiveFile(Paths.get("assets/data.bin"), asset)
+            )
+            Archive(Paths.get("lib$lib.aar"), files)
+                .writeSelfToFile(corpusDir.resolve("lib$lib.aar"))
+        }
+    }
+}
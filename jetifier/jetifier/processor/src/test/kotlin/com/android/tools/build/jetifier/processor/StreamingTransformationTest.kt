@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.config.Config
+import com.android.tools.build.jetifier.core.config.ConfigParser
+import com.android.tools.build.jetifier.core.rule.RewriteRule
+import com.android.tools.build.jetifier.core.rule.RewriteRulesMap
+import com.android.tools.build.jetifier.core.type.JavaType
+import com.android.tools.build.jetifier.core.type.TypesMap
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.android.tools.build.jetifier.processor.archive.ArchiveItem
+import com.google.common.truth.Truth
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Paths
+
+/**
+ * Tests that [Processor.transformStreaming] produces the same libraries as the in-memory
+ * [Processor.transform2].
+ */
+class StreamingTransformationTest {
+
+    private val prefRewriteConfig = Config.fromOptional(
+        restrictToPackagePrefixes = setOf("android/support/v7/preference"),
+        rulesMap =
+            RewriteRulesMap(
+                RewriteRule(from = "android/support/v7/preference/Preference(.+)", to = "ignore"),
+                RewriteRule(from = "(.*)/R(.*)", to = "ignore")
+            ),
+        typesMap = TypesMap(
+            JavaType("android/support/v7/preference/Preference")
+                to JavaType("android/test/pref/Preference")
+        )
+    )
+
+    private val preferenceClass = File(
+        javaClass.getResource("/changeDetectionTest/testPreference.class").file).readBytes()
+
+    private val signedLib = File(
+        javaClass.getResource("/signatureDetectionTest/signedLibrary.jar").file)
+
+    @Test
+    fun nestedArchive_sameContentAsInMemory() {
+        val nested = Archive(Paths.get("libs/nested.jar"), listOf(
+            ArchiveFile(Paths.get("preference.class"), preferenceClass),
+            ArchiveFile(Paths.get("res/layout/pref.xml"),
+                ("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                    "<android.support.v7.preference.Preference/>").toByteArray())
+        ))
+        val library = writeArchive(listOf(
+            nested,
+            ArchiveFile(Paths.get("proguard.txt"),
+                "-keep class android.support.v7.preference.Preference".toByteArray()),
+            ArchiveFile(Paths.get("assets/data.bin"), ByteArray(1024) { it.toByte() })
+        ))
+
+        val inMemory = Files.createTempFile("inMemory", ".zip").toFile()
+        Processor.createProcessor3(prefRewriteConfig)
+            .transform2(setOf(FileMapping(library, inMemory)))
+        val streamed = Files.createTempFile("streamed", ".zip").toFile()
+        val result = Processor.createProcessor3(prefRewriteConfig)
+            .transformStreaming(setOf(FileMapping(library, streamed)))
+
+        Truth.assertThat(result.numberOfLibsModified).isEqualTo(1)
+        Truth.assertThat(readContent(streamed)).isEqualTo(readContent(inMemory))
+    }
+
+    @Test
+    fun unchangedLibrary_copiedAsIs() {
+        val library = writeArchive(listOf(
+            ArchiveFile(Paths.get("preference.class"), preferenceClass)
+        ))
+
+        val streamed = Files.createTempFile("streamed", ".zip").toFile()
+        val result = Processor.createProcessor3(Config.EMPTY)
+            .transformStreaming(setOf(FileMapping(library, streamed)))
+
+        Truth.assertThat(result.numberOfLibsModified).isEqualTo(0)
+        Truth.assertThat(result.librariesMap).containsExactly(library, streamed)
+        Truth.assertThat(streamed.readBytes()).isEqualTo(library.readBytes())
+    }
+
+    @Test
+    fun multipleLibraries_transformedInParallel() {
+        val changed = (1..8).map {
+            writeArchive(listOf(ArchiveFile(Paths.get("preference$it.class"), preferenceClass)))
+        }
+        val unchanged = writeArchive(listOf(
+            ArchiveFile(Paths.get("assets/data.bin"), ByteArray(16))
+        ))
+        val input = (changed + unchanged)
+            .map { FileMapping(it, Files.createTempFile("streamed", ".zip").toFile()) }
+            .toSet()
+
+        val result = Processor.createProcessor3(prefRewriteConfig)
+            .transformStreaming(input, copyUnmodifiedLibsAlso = false, parallelism = 4)
+
+        Truth.assertThat(result.numberOfLibsModified).isEqualTo(8)
+        Truth.assertThat(result.librariesMap[unchanged]).isNull()
+        input.filter { it.from != unchanged }.forEach {
+            Truth.assertThat(result.librariesMap[it.from]).isEqualTo(it.to)
+        }
+    }
+
+    @Test(expected = SignatureFilesFoundJetifierException::class)
+    fun archiveWithSignature_andJetified_shouldThrowError() {
+        val toFile = File.createTempFile("signatureTestResult.jar", "test")
+
+        Processor.createProcessor3(ConfigParser.loadDefaultConfig()!!)
+            .transformStreaming(setOf(FileMapping(from = signedLib, to = toFile)))
+    }
+
+    @Test
+    fun archiveWithSignature_andJetified_stripRequired_shouldStrip() {
+        val toFile = File.createTempFile("signatureTestResult.jar", "test")
+
+        Processor.createProcessor3(ConfigParser.loadDefaultConfig()!!, stripSignatures = true)
+            .transformStreaming(setOf(FileMapping(from = signedLib, to = toFile)))
+
+        val paths = Archive.Builder.extract(toFile).files.map { it.relativePath.toString() }
+        Truth.assertThat(paths).doesNotContain("META-INF/MANIFEST.MF")
+        Truth.assertThat(paths).doesNotContain("META-INF/PFOPENSO.RSA")
+        Truth.assertThat(paths).doesNotContain("META-INF/PFOPENSO.SF")
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun invalidParallelism_shouldThrow() {
+        Processor.createProcessor3(Config.EMPTY)
+            .transformStreaming(setOf(FileMapping(signedLib, signedLib)), parallelism = 0)
+    }
+
+    private fun writeArchive(files: List<ArchiveItem>): File {
+        return Archive(Paths.get("some/path"), files)
+            .writeSelfToFile(Files.createTempFile("test", ".zip"))
+    }
+
+    /** Returns the data of all files, nested archives are flattened under their own path. */
+    private fun readContent(file: File): Map<String, String> {
+        val content = mutableMapOf<String, String>()
+        collectContent(Archive.Builder.extract(file), "", content)
+        return content
+    }
+
+    private fun collectContent(
+        archive: Archive,
+        prefix: String,
+        content: MutableMap<String, String>
+    ) {
+        archive.files.forEach {
+            val path = prefix + it.relativePath.toString()
+            if (it is Archive) {
+                collectContent(it, "$path!", content)
+            } else {
+                val data = ByteArrayOutputStream()
+                it.writeSelfTo(data)
+                content[path] = data.toByteArray().joinToString(",")
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tools.build.jetifier.processor
+
+import com.android.tools.build.jetifier.core.config.Config
+import com.android.tools.build.jetifier.core.rule.RewriteRule
+import com.android.tools.build.jetifier.core.rule.RewriteRulesMap
+import com.android.tools.build.jetifier.core.type.JavaType
+import com.android.tools.build.jetifier.core.type.TypesMap
+import com.android.tools.build.jetifier.processor.archive.Archive
+import com.android.tools.build.jetifier.processor.archive.ArchiveFile
+import com.google.common.truth.Truth
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
+
+/**
+ * Tests [TransformationCache] and its use by [Processor.transformStreaming].
+ */
+class TransformationCacheTest {
+
+    private val prefRewriteConfig = Config.fromOptional(
+        restrictToPackagePrefixes = setOf("android/support/v7/preference"),
+        rulesMap =
+            RewriteRulesMap(
+                RewriteRule(from = "android/support/v7/preference/Preference(.+)", to = "ignore"),
+                RewriteRule(from = "(.*)/R(.*)", to = "ignore")
+            ),
+        typesMap = TypesMap(
+            JavaType("android/support/v7/preference/Preference")
+                to JavaType("android/test/pref/Preference")
+        )
+    )
+
+    private val preferenceClass = File(
+        javaClass.getResource("/changeDetectionTest/testPreference.class").file).readBytes()
+
+    private lateinit var cacheDir: Path
+
+    @Before
+    fun setUp() {
+        cacheDir = Files.createTempDirectory("jetifierCache")
+    }
+
+    @After
+    fun tearDown() {
+        cacheDir.toFile().deleteRecursively()
+    }
+
+    @Test
+    fun restore_missingEntry_returnsNull() {
+        val cache = TransformationCache(cacheDir)
+
+        Truth.assertThat(cache.restore("missing", cacheDir.resolve("target"))).isNull()
+    }
+
+    @Test
+    fun storeAndRestore_changedLibrary() {
+        val cache = TransformationCache(cacheDir)
+        val output = Files.write(Files.createTempFile("output", ".jar"), byteArrayOf(1, 2, 3))
+        cache.store("key", wasChanged = true, output = output)
+
+        val target = Files.createTempFile("target", ".jar")
+        Truth.assertThat(cache.restore("key", target)?.wasChanged).isTrue()
+        Truth.assertThat(Files.readAllBytes(target)).isEqualTo(byteArrayOf(1, 2, 3))
+    }
+
+    @Test
+    fun storeAndRestore_unchangedLibrary_doesNotTouchTarget() {
+        val cache = TransformationCache(cacheDir)
+        cache.store("key", wasChanged = false, output = null)
+
+        val target = Files.write(Files.createTempFile("target", ".jar"), byteArrayOf(7))
+        Truth.assertThat(cache.restore("key", target)?.wasChanged).isFalse()
+        Truth.assertThat(Files.readAllBytes(target)).isEqualTo(byteArrayOf(7))
+    }
+
+    @Test
+    fun storeAndRestore_hardLinks() {
+        val cache = TransformationCache(cacheDir, useHardLinks = true)
+        val output = Files.write(Files.createTempFile("output", ".jar"), byteArrayOf(1, 2, 3))
+        cache.store("key", wasChanged = true, output = output)
+
+        val target = cacheDir.resolveSibling(cacheDir.fileName.toString() + "-target.jar")
+        try {
+            Truth.assertThat(cache.restore("key", target)?.wasChanged).isTrue()
+            Truth.assertThat(Files.readAllBytes(target)).isEqualTo(byteArrayOf(1, 2, 3))
+        } finally {
+            Files.deleteIfExists(target)
+        }
+    }
+
+    @Test
+    fun store_overMaxSize_evictsLeastRecentlyUsed() {
+        val cache = TransformationCache(cacheDir, maxSizeBytes = 2500)
+        for (key in listOf("first", "second")) {
+            val output = Files.write(Files.createTempFile("output", ".jar"), ByteArray(1000))
+            cache.store(key, wasChanged = true, output = output)
+        }
+        // Make sure "first" is the least recently used one even on coarse file systems
+        Files.setLastModifiedTime(
+            cacheDir.resolve("first").resolve("result.properties"), FileTime.fromMillis(0))
+
+        val output = Files.write(Files.createTempFile("output", ".jar"), ByteArray(1000))
+        cache.store("third", wasChanged = true, output = output)
+
+        val target = Files.createTempFile("target", ".jar")
+        Truth.assertThat(cache.restore("first", target)).isNull()
+        Truth.assertThat(cache.restore("second", target)?.wasChanged).isTrue()
+        Truth.assertThat(cache.restore("third", target)?.wasChanged).isTrue()
+    }
+
+    @Test
+    fun storeAndRestore_signatureFiles() {
+        val cache = TransformationCache(cacheDir)
+        val output = Files.write(Files.createTempFile("output", ".jar"), byteArrayOf(1))
+        cache.store("key", wasChanged = true, output = output,
+            signatureFiles = listOf("META-INF/CERT.SF", "META-INF/CERT.RSA"))
+        cache.store("unsigned", wasChanged = true, output = output)
+
+        val target = Files.createTempFile("target", ".jar")
+        Truth.assertThat(cache.restore("key", target)?.signatureFiles)
+            .containsExactly("META-INF/CERT.SF", "META-INF/CERT.RSA").inOrder()
+        Truth.assertThat(cache.restore("unsigned", target)?.signatureFiles).isEmpty()
+    }
+
+    @Test
+    fun store_overMaxSize_countsEntriesOfEarlierRuns() {
+        for (key in listOf("first", "second")) {
+            val output = Files.write(Files.createTempFile("output", ".jar"), ByteArray(1000))
+            TransformationCache(cacheDir, maxSizeBytes = 2500)
+                .store(key, wasChanged = true, output = output)
+        }
+        Files.setLastModifiedTime(
+            cacheDir.resolve("first").resolve("result.properties"), FileTime.fromMillis(0))
+
+        val cache = TransformationCache(cacheDir, maxSizeBytes = 2500)
+        val output = Files.write(Files.createTempFile("output", ".jar"), ByteArray(1000))
+        cache.store("third", wasChanged = true, output = output)
+
+        val target = Files.createTempFile("target", ".jar")
+        Truth.assertThat(cache.restore("first", target)).isNull()
+        Truth.assertThat(cache.restore("second", target)?.wasChanged).isTrue()
+        Truth.assertThat(cache.restore("third", target)?.wasChanged).isTrue()
+    }
+
+    @Test
+    fun transformStreaming_secondRunRestoredFromCache() {
+        val library = Archive(Paths.get("some/path"), listOf(
+            ArchiveFile(Paths.get("preference.class"), preferenceClass)
+        )).writeSelfToFile(Files.createTempFile("test", ".zip"))
+        val cache = TransformationCache(cacheDir)
+
+        val firstTarget = Files.createTempFile("first", ".zip").toFile()
+        val first = Processor.createProcessor3(prefRewriteConfig)
+            .transformStreaming(setOf(FileMapping(library, firstTarget)), cache = cache)
+        Truth.assertThat(first.numberOfLibsModified).isEqualTo(1)
+
+        // Replace the cached library to tell whether the second run really used it
+        val cachedOutputs = cacheDir.toFile().walk().filter { it.name == "output" }.toList()
+        Truth.assertThat(cachedOutputs).hasSize(1)
+        cachedOutputs.single().writeBytes(byteArrayOf(4, 2))
+
+        val secondTarget = Files.createTempFile("second", ".zip").toFile()
+        val second = Processor.createProcessor3(prefRewriteConfig)
+            .transformStreaming(setOf(FileMapping(library, secondTarget)), cache = cache)
+        Truth.assertThat(second.numberOfLibsModified).isEqualTo(1)
+        Truth.assertThat(second.librariesMap).containsExactly(library, secondTarget)
+        Truth.assertThat(secondTarget.readBytes()).isEqualTo(byteArrayOf(4, 2))
+    }
+
+    @Test
+    fun transformStreaming_differentConfig_notRestoredFromCache() {
+        val library = Archive(Paths.get("some/path"), listOf(
+            ArchiveFile(Paths.get("preference.class"), preferenceClass)
+        )).writeSelfToFile(Files.createTempFile("test", ".zip"))
+        val cache = TransformationCache(cacheDir)
+
+        Processor.createProcessor3(prefRewriteConfig).transformStreaming(
+            setOf(FileMapping(library, Files.createTempFile("first", ".zip").toFile())),
+            cache = cache)
+
+        val second = Processor.createProcessor3(Config.EMPTY).transformStreaming(
+            setOf(FileMapping(library, Files.createTempFile("second", ".zip").toFile())),
+            copyUnmodifiedLibsAlso = false,
+            cache = cache)
+        Truth.assertThat(second.numberOfLibsModified).isEqualTo(0)
+        Truth.assertThat(second.librariesMap).containsExactly(library, null)
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation
+
+import android.net.Uri
+import androidx.benchmark.BenchmarkRule
+import androidx.benchmark.measureRepeated
+import androidx.navigation.testing.TestNavigator
+import androidx.navigation.testing.TestNavigatorProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures matching a uri against a graph of [GRAPH_COUNT] nested graphs holding
+ * [DESTINATION_COUNT] destinations with a deep link each.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class NavDeepLinkBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val graph = createGraph()
+
+    @Test
+    fun matchFirstDeepLink() {
+        val uri = Uri.parse("https://www.example.com/section0/item0/42")
+        benchmarkRule.measureRepeated {
+            graph.matchDeepLink(uri)
+        }
+    }
+
+    @Test
+    fun matchLastDeepLink() {
+        val uri = Uri.parse("https://www.example.com/section${GRAPH_COUNT - 1}/" +
+                "item${DESTINATION_COUNT - 1}/42")
+        benchmarkRule.measureRepeated {
+            graph.matchDeepLink(uri)
+        }
+    }
+
+    @Test
+    fun matchExactDeepLink() {
+        val uri = Uri.parse("https://www.example.com/section${GRAPH_COUNT / 2}/index.html")
+        benchmarkRule.measureRepeated {
+            graph.matchDeepLink(uri)
+        }
+    }
+
+    @Test
+    fun matchNoDeepLink() {
+        val uri = Uri.parse("https://www.example.com/missing/item0/42")
+        benchmarkRule.measureRepeated {
+            graph.matchDeepLink(uri)
+        }
+    }
+
+    private fun createGraph(): NavGraph {
+        val provider = TestNavigatorProvider()
+        val graphNavigator = provider.getNavigator(NavGraphNavigator::class.java)
+        val testNavigator = provider.getNavigator(TestNavigator::class.java)
+        val root = graphNavigator.createDestination()
+        var id = 1
+        for (section in 0 until GRAPH_COUNT) {
+            val nestedGraph = graphNavigator.createDestination()
+            nestedGraph.id = id++
+            nestedGraph.addDeepLink("www.example.com/section$section/index.html")
+            for (item in 0 until DESTINATION_COUNT) {
+                val destination = testNavigator.createDestination()
+                destination.id = id++
+                destination.addDeepLink("www.example.com/section$section/item$item/{id}")
+                nestedGraph.addDestination(destination)
+            }
+            nestedGraph.startDestination = nestedGraph.first().id
+            root.addDestination(nestedGraph)
+        }
+        root.startDestination = 1
+        return root
+    }
+
+    companion object {
+        private const val GRAPH_COUNT = 20
+        private const val DESTINATION_COUNT = 30
+    }
+}
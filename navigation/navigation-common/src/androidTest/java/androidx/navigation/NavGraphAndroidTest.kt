@@ -17,6 +17,7 @@
 package androidx.navigation
 
 import android.net.Uri
+import android.os.Bundle
 import androidx.test.filters.SmallTest
 import com.google.common.truth.Truth.assertWithMessage
 import org.junit.Test
@@ -181,4 +182,108 @@ class NavGraphAndroidTest {
             .that(match?.matchingArgs?.getInt("postId"))
             .isEqualTo(99)
     }
+
+    @Test
+    fun matchDeepLinkNestedGraph() {
+        val navigatorProvider = NavigatorProvider().apply {
+            addNavigator(NavGraphNavigator(this))
+            addNavigator(NoOpNavigator())
+        }
+        val graph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        val nestedGraph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        nestedGraph.id = 1
+        graph.addDestination(nestedGraph)
+        val destination = navigatorProvider.getNavigator(NoOpNavigator::class.java)
+            .createDestination()
+        destination.id = 2
+        nestedGraph.addDestination(destination)
+
+        val uri = Uri.parse("https://www.example.com/users/43")
+        assertWithMessage("Deep link should not match yet")
+            .that(graph.matchDeepLink(uri))
+            .isNull()
+
+        destination.addDeepLink("www.example.com/users/{id}")
+
+        val match = graph.matchDeepLink(uri)
+        assertWithMessage("Deep link added after matching should match")
+            .that(match?.destination)
+            .isSameInstanceAs(destination)
+        assertWithMessage("Deep link should extract id argument correctly")
+            .that(match?.matchingArgs?.getString("id"))
+            .isEqualTo("43")
+
+        nestedGraph.remove(destination)
+        assertWithMessage("Deep link of removed destination should not match")
+            .that(graph.matchDeepLink(uri))
+            .isNull()
+    }
+
+    @Test
+    fun matchDeepLinkSameAsEachDestination() {
+        val navigatorProvider = NavigatorProvider().apply {
+            addNavigator(NavGraphNavigator(this))
+            addNavigator(NoOpNavigator())
+        }
+        val graph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        val patterns = listOf(
+            "www.example.com/users/{id}",
+            "www.example.com/users/{id}/posts/{postId}",
+            "www.example.com/.*",
+            "www.example.com/users/index.html",
+            "http://www.example.com/users/{id}",
+            "example://app/{first}-{second}",
+            "example://app/.*/detail/{item}",
+            "example://app/{path}/.*",
+            ".*example.com/{rest}",
+            "{anything}",
+            "www.example.com/back\\slash/{id}"
+        )
+        val destinations = patterns.mapIndexed { index, pattern ->
+            navigatorProvider.getNavigator(NoOpNavigator::class.java)
+                .createDestination().apply {
+                    id = index + 1
+                    addDeepLink(pattern)
+                    graph.addDestination(this)
+                }
+        }
+        val uris = listOf(
+            "https://www.example.com/users/43",
+            "http://www.example.com/users/43/posts/99",
+            "https://www.example.com/users/index.html",
+            "https://www.example.com/",
+            "https://www.example.com/back\\slash/7",
+            "example://app/a-b-c",
+            "example://app/some/deep/detail/7",
+            "example://app/x/",
+            "https://other.example.com/x",
+            "ftp://example.org",
+            "example://app"
+        )
+
+        for (uriString in uris) {
+            val uri = Uri.parse(uriString)
+            // Same as matching the destinations one by one, the first best match wins
+            var expected: NavDestination.DeepLinkMatch? = null
+            for (destination in destinations) {
+                val match = destination.matchDeepLink(uri)
+                if (match != null && (expected == null || match > expected)) {
+                    expected = match
+                }
+            }
+
+            val match = graph.matchDeepLink(uri)
+            assertWithMessage("Destination matching $uriString")
+                .that(match?.destination)
+                .isSameInstanceAs(expected?.destination)
+            assertWithMessage("Arguments matching $uriString")
+                .that(match?.matchingArgs.toStringMap())
+                .isEqualTo(expected?.matchingArgs.toStringMap())
+        }
+    }
+
+    private fun Bundle?.toStringMap() = this?.keySet()?.associateWith { getString(it) }
 }
@@ -33,9 +33,27 @@ import java.util.regex.Pattern;
 class NavDeepLink {
     private static final Pattern SCHEME_PATTERN = Pattern.compile("^[a-zA-Z]+[+\\w\\-.]*:");
 
+    /** Prefixes tried for uri patterns without a scheme. */
+    static final String[] DEFAULT_SCHEME_PREFIXES = {"http://", "https://"};
+
+    static final int TOKEN_LITERAL = 0;
+    static final int TOKEN_ARGUMENT = 1;
+    static final int TOKEN_WILDCARD = 2;
+
     private final ArrayList<String> mArguments = new ArrayList<>();
     private final Pattern mPattern;
     private final boolean mExactDeepLink;
+    private final boolean mHasScheme;
+
+    /**
+     * The uri pattern as a sequence of literals, arguments and wildcards, matched the same way as
+     * {@link #mPattern} but without a regex. Null if the pattern contains characters that would
+     * change the meaning of the regex, so only {@link #mPattern} can be used.
+     */
+    @Nullable
+    private final int[] mTokenTypes;
+    @Nullable
+    private final String[] mTokenLiterals;
 
     /**
      * NavDestinations should be created via {@link Navigator#createDestination}.
@@ -43,7 +61,8 @@ class NavDeepLink {
     NavDeepLink(@NonNull String uri) {
         StringBuilder uriRegex = new StringBuilder("^");
 
-        if (!SCHEME_PATTERN.matcher(uri).find()) {
+        mHasScheme = SCHEME_PATTERN.matcher(uri).find();
+        if (!mHasScheme) {
             uriRegex.append("http[s]?://");
         }
         Pattern fillInPattern = Pattern.compile("\\{(.+?)\\}");
@@ -51,18 +70,25 @@ class NavDeepLink {
         int appendPos = 0;
         // Track whether this is an exact deep link
         boolean exactDeepLink = !uri.contains(".*");
+        ArrayList<Integer> tokenTypes = new ArrayList<>();
+        ArrayList<String> tokenLiterals = new ArrayList<>();
         while (matcher.find()) {
             String argName = matcher.group(1);
             mArguments.add(argName);
             // Use Pattern.quote() to treat the input string as a literal
             uriRegex.append(Pattern.quote(uri.substring(appendPos, matcher.start())));
             uriRegex.append("(.+?)");
+            addLiteralTokens(uri.substring(appendPos, matcher.start()), tokenTypes,
+                    tokenLiterals);
+            tokenTypes.add(TOKEN_ARGUMENT);
+            tokenLiterals.add(null);
             appendPos = matcher.end();
             exactDeepLink = false;
         }
         if (appendPos < uri.length()) {
             // Use Pattern.quote() to treat the input string as a literal
             uriRegex.append(Pattern.quote(uri.substring(appendPos)));
+            addLiteralTokens(uri.substring(appendPos), tokenTypes, tokenLiterals);
         }
         // Since we've used Pattern.quote() above, we need to
         // specifically escape any .* instances to ensure
@@ -70,6 +96,69 @@ class NavDeepLink {
         String finalRegex = uriRegex.toString().replace(".*", "\\E.*\\Q");
         mPattern = Pattern.compile(finalRegex);
         mExactDeepLink = exactDeepLink;
+
+        // A backslash could end the quoting of the regex early, leave such patterns to the regex
+        if (uri.indexOf('\\') < 0) {
+            mTokenTypes = new int[tokenTypes.size()];
+            for (int i = 0; i < mTokenTypes.length; i++) {
+                mTokenTypes[i] = tokenTypes.get(i);
+            }
+            mTokenLiterals = tokenLiterals.toArray(new String[0]);
+        } else {
+            mTokenTypes = null;
+            mTokenLiterals = null;
+        }
+    }
+
+    /**
+     * Splits a literal part of the uri pattern at its <code>.*</code> wildcards.
+     */
+    private static void addLiteralTokens(String literal, ArrayList<Integer> tokenTypes,
+            ArrayList<String> tokenLiterals) {
+        int start = 0;
+        int wildcard = literal.indexOf(".*");
+        while (wildcard >= 0) {
+            if (wildcard > start) {
+                tokenTypes.add(TOKEN_LITERAL);
+                tokenLiterals.add(literal.substring(start, wildcard));
+            }
+            tokenTypes.add(TOKEN_WILDCARD);
+            tokenLiterals.add(null);
+            start = wildcard + 2;
+            wildcard = literal.indexOf(".*", start);
+        }
+        if (start < literal.length()) {
+            tokenTypes.add(TOKEN_LITERAL);
+            tokenLiterals.add(literal.substring(start));
+        }
+    }
+
+    /**
+     * Returns true if the uri pattern has its own scheme. Patterns without one match uris
+     * starting with any of the {@link #DEFAULT_SCHEME_PREFIXES}.
+     */
+    boolean hasScheme() {
+        return mHasScheme;
+    }
+
+    /**
+     * Returns true if this deep link can be matched token by token, see
+     * {@link #getMatchingArguments(String, int, int, Map)}.
+     */
+    boolean isTokenized() {
+        return mTokenTypes != null;
+    }
+
+    /**
+     * Returns the literal the uri pattern starts with after its scheme, or an empty string if it
+     * starts with an argument or wildcard.
+     */
+    @NonNull
+    String getLiteralPrefix() {
+        if (mTokenTypes != null && mTokenTypes.length > 0 && mTokenTypes[0] == TOKEN_LITERAL) {
+            return mTokenLiterals[0];
+        }
+        return "";
     }
 
     boolean matches(@NonNull Uri deepLink) {
@@ -87,11 +176,106 @@ class NavDeepLink {
         if (!matcher.matches()) {
             return null;
         }
+        int size = mArguments.size();
+        String[] values = new String[size];
+        for (int index = 0; index < size; index++) {
+            values[index] = matcher.group(index + 1);
+        }
+        return parseArguments(values, arguments);
+    }
+
+    /**
+     * Matches the rest of the given uri against the tokens of this deep link, the same way as
+     * {@link #getMatchingArguments(Uri, Map)} matches the whole uri.
+     *
+     * @param uri The uri to match.
+     * @param start The position in the uri to start matching at.
+     * @param firstToken The first token to match at {@code start}. Tokens before it, as well as
+     *                   the scheme, are expected to have matched the uri up to {@code start}.
+     * @param arguments The arguments of the destination to parse the values with.
+     * @return The arguments extracted from the uri, or null if the uri does not match.
+     */
+    @Nullable
+    Bundle getMatchingArguments(@NonNull String uri, int start, int firstToken,
+            @NonNull Map<String, NavArgument> arguments) {
+        if (mTokenTypes == null) {
+            throw new IllegalStateException("Deep link " + mPattern + " cannot be tokenized");
+        }
+        int[] bounds = new int[mArguments.size() * 2];
+        int argumentIndex = 0;
+        for (int i = 0; i < firstToken; i++) {
+            if (mTokenTypes[i] == TOKEN_ARGUMENT) {
+                argumentIndex++;
+            }
+        }
+        if (!matchTokens(uri, start, firstToken, argumentIndex, bounds)) {
+            return null;
+        }
+        String[] values = new String[mArguments.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = uri.substring(bounds[index * 2], bounds[index * 2 + 1]);
+        }
+        return parseArguments(values, arguments);
+    }
+
+    /**
+     * Backtracking match of the tokens from {@code token} on against the uri from {@code pos} on,
+     * trying the same alternatives in the same order as {@link #mPattern}: arguments match as few
+     * characters as possible, wildcards as many as possible and neither matches line terminators.
+     */
+    private boolean matchTokens(String uri, int pos, int token, int argumentIndex,
+            int[] bounds) {
+        if (token == mTokenTypes.length) {
+            return pos == uri.length();
+        }
+        switch (mTokenTypes[token]) {
+            case TOKEN_LITERAL: {
+                String literal = mTokenLiterals[token];
+                return uri.startsWith(literal, pos)
+                        && matchTokens(uri, pos + literal.length(), token + 1, argumentIndex,
+                        bounds);
+            }
+            case TOKEN_ARGUMENT: {
+                bounds[argumentIndex * 2] = pos;
+                for (int end = pos + 1; end <= uri.length(); end++) {
+                    if (isLineTerminator(uri.charAt(end - 1))) {
+                        return false;
+                    }
+                    bounds[argumentIndex * 2 + 1] = end;
+                    if (matchTokens(uri, end, token + 1, argumentIndex + 1, bounds)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default: {
+                int maxEnd = pos;
+                while (maxEnd < uri.length() && !isLineTerminator(uri.charAt(maxEnd))) {
+                    maxEnd++;
+                }
+                for (int end = maxEnd; end >= pos; end--) {
+                    if (matchTokens(uri, end, token + 1, argumentIndex, bounds)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+    /** Characters not matched by <code>.</code> in a regex without flags. */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    @Nullable
+    private Bundle parseArguments(@NonNull String[] values,
+            @NonNull Map<String, NavArgument> arguments) {
         Bundle bundle = new Bundle();
         int size = mArguments.size();
         for (int index = 0; index < size; index++) {
             String argumentName = mArguments.get(index);
-            String value = Uri.decode(matcher.group(index + 1));
+            String value = Uri.decode(values[index]);
             NavArgument argument = arguments.get(argumentName);
             if (argument != null) {
                 NavType type = argument.getType();
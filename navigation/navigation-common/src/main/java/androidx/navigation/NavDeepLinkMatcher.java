@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches a uri against all deep links of a {@link NavGraph} and its nested graphs at once.
+ * <p>
+ * The deep links are stored in a radix tree keyed by the literal each uri pattern starts with,
+ * including its scheme. Matching walks the uri down the tree once, and only the deep links whose
+ * literal prefix matches the uri are matched any further. Exact deep links are fully matched by
+ * the walk itself.
+ * <p>
+ * The result is the same as matching every deep link of the graph one by one, including which
+ * deep link wins among equally good matches: the first one in the order the graph is traversed.
+ */
+final class NavDeepLinkMatcher {
+
+    private static final class Entry {
+        final NavDestination mDestination;
+        final NavDeepLink mDeepLink;
+        /** Position of the deep link in the traversal of the graph, lower wins ties. */
+        final int mOrder;
+        /** The first token left to match once the prefix of this entry matched. */
+        final int mFirstToken;
+
+        Entry(NavDestination destination, NavDeepLink deepLink, int order, int firstToken) {
+            mDestination = destination;
+            mDeepLink = deepLink;
+            mOrder = order;
+            mFirstToken = firstToken;
+        }
+    }
+
+    private static final class Node {
+        String mLabel;
+        char[] mFirstChars = new char[0];
+        Node[] mChildren = new Node[0];
+        ArrayList<Entry> mEntries;
+
+        Node(String label) {
+            mLabel = label;
+        }
+
+        @Nullable
+        Node getChild(char c) {
+            for (int i = 0; i < mFirstChars.length; i++) {
+                if (mFirstChars[i] == c) {
+                    return mChildren[i];
+                }
+            }
+            return null;
+        }
+
+        void putChild(Node child) {
+            char c = child.mLabel.charAt(0);
+            for (int i = 0; i < mFirstChars.length; i++) {
+                if (mFirstChars[i] == c) {
+                    mChildren[i] = child;
+                    return;
+                }
+            }
+            int count = mFirstChars.length;
+            char[] firstChars = new char[count + 1];
+            Node[] children = new Node[count + 1];
+            System.arraycopy(mFirstChars, 0, firstChars, 0, count);
+            System.arraycopy(mChildren, 0, children, 0, count);
+            firstChars[count] = c;
+            children[count] = child;
+            mFirstChars = firstChars;
+            mChildren = children;
+        }
+
+        void addEntry(Entry entry) {
+            if (mEntries == null) {
+                mEntries = new ArrayList<>(1);
+            }
+            mEntries.add(entry);
+        }
+    }
+
+    private final Node mRoot = new Node("");
+    private int mEntryCount;
+
+    /**
+     * Builds a matcher for the deep links of the given graph, its destinations and recursively
+     * its nested graphs.
+     */
+    NavDeepLinkMatcher(@NonNull NavGraph graph) {
+        addDeepLinks(graph);
+    }
+
+    private void addDeepLinks(NavDestination destination) {
+        List<NavDeepLink> deepLinks = destination.getDeepLinks();
+        if (deepLinks != null) {
+            for (NavDeepLink deepLink : deepLinks) {
+                add(destination, deepLink);
+            }
+        }
+        if (destination instanceof NavGraph) {
+            for (NavDestination child : (NavGraph) destination) {
+                addDeepLinks(child);
+            }
+        }
+    }
+
+    private void add(NavDestination destination, NavDeepLink deepLink) {
+        int order = mEntryCount++;
+        if (!deepLink.isTokenized()) {
+            // Can only be matched by its regex, against the whole uri
+            mRoot.addEntry(new Entry(destination, deepLink, order, -1));
+            return;
+        }
+        String literalPrefix = deepLink.getLiteralPrefix();
+        int firstToken = literalPrefix.isEmpty() ? 0 : 1;
+        if (deepLink.hasScheme()) {
+            insert(literalPrefix, new Entry(destination, deepLink, order, firstToken));
+        } else {
+            for (String schemePrefix : NavDeepLink.DEFAULT_SCHEME_PREFIXES) {
+                insert(schemePrefix + literalPrefix,
+                        new Entry(destination, deepLink, order, firstToken));
+            }
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = mRoot;
+        int pos = 0;
+        while (pos < key.length()) {
+            Node child = node.getChild(key.charAt(pos));
+            if (child == null) {
+                child = new Node(key.substring(pos));
+                node.putChild(child);
+                child.addEntry(entry);
+                return;
+            }
+            String label = child.mLabel;
+            int common = 0;
+            int max = Math.min(label.length(), key.length() - pos);
+            while (common < max && label.charAt(common) == key.charAt(pos + common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                // split the edge where the key leaves it
+                Node middle = new Node(label.substring(0, common));
+                child.mLabel = label.substring(common);
+                middle.putChild(child);
+                node.putChild(middle);
+                child = middle;
+            }
+            node = child;
+            pos += common;
+        }
+        node.addEntry(entry);
+    }
+
+    /**
+     * Returns the best match for the given uri among all deep links of the graph, or null if
+     * none matches.
+     */
+    @Nullable
+    NavDestination.DeepLinkMatch match(@NonNull Uri uri) {
+        String uriString = uri.toString();
+        NavDestination.DeepLinkMatch bestMatch = null;
+        int bestOrder = Integer.MAX_VALUE;
+
+        Node node = mRoot;
+        int pos = 0;
+        while (true) {
+            if (node.mEntries != null) {
+                for (int i = 0; i < node.mEntries.size(); i++) {
+                    Entry entry = node.mEntries.get(i);
+                    NavDestination.DeepLinkMatch match = match(entry, uri, uriString, pos);
+                    if (match == null) {
+                        continue;
+                    }
+                    int comparison = bestMatch == null ? 1 : match.compareTo(bestMatch);
+                    if (comparison > 0 || (comparison == 0 && entry.mOrder < bestOrder)) {
+                        bestMatch = match;
+                        bestOrder = entry.mOrder;
+                    }
+                }
+            }
+            if (pos == uriString.length()) {
+                break;
+            }
+            Node child = node.getChild(uriString.charAt(pos));
+            if (child == null || !uriString.startsWith(child.mLabel, pos)) {
+                break;
+            }
+            node = child;
+            pos += child.mLabel.length();
+        }
+        return bestMatch;
+    }
+
+    @Nullable
+    private static NavDestination.DeepLinkMatch match(Entry entry, Uri uri, String uriString,
+            int pos) {
+        Bundle arguments;
+        if (entry.mFirstToken < 0) {
+            arguments = entry.mDeepLink.getMatchingArguments(uri,
+                    entry.mDestination.getArguments());
+        } else {
+            arguments = entry.mDeepLink.getMatchingArguments(uriString, pos, entry.mFirstToken,
+                    entry.mDestination.getArguments());
+        }
+        if (arguments == null) {
+            return null;
+        }
+        return new NavDestination.DeepLinkMatch(entry.mDestination, arguments,
+                entry.mDeepLink.isExactDeepLink());
+    }
+}
@@ -40,6 +40,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -225,7 +226,19 @@ public class NavDestination {
     }
 
     final void setParent(NavGraph parent) {
+        invalidateDeepLinkMatchers();
         mParent = parent;
+        invalidateDeepLinkMatchers();
+    }
+
+    /**
+     * Called when the deep links of this destination or its descendants change, so the graphs
+     * containing it stop using a {@link NavDeepLinkMatcher} built from stale deep links.
+     */
+    void invalidateDeepLinkMatchers() {
+        if (mParent != null) {
+            mParent.invalidateDeepLinkMatchers();
+        }
     }
 
     /**
@@ -348,6 +361,15 @@ public class NavDestination {
             mDeepLinks = new ArrayList<>();
         }
         mDeepLinks.add(new NavDeepLink(uriPattern));
+        invalidateDeepLinkMatchers();
+    }
+
+    /**
+     * Returns the deep links added to this destination, or null if there are none.
+     */
+    @Nullable
+    final List<NavDeepLink> getDeepLinks() {
+        return mDeepLinks;
     }
 
     /**
@@ -43,6 +43,8 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     final SparseArrayCompat<NavDestination> mNodes = new SparseArrayCompat<>();
     private int mStartDestId;
     private String mStartDestIdName;
+    private NavDeepLinkMatcher mDeepLinkMatcher;
+    private Runnable mContentsLoader;
 
     /**
      * Construct a new NavGraph. This NavGraph is not valid until you
@@ -72,17 +74,39 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     @Override
     @Nullable
     DeepLinkMatch matchDeepLink(@NonNull Uri uri) {
-        // First search through any deep links directly added to this NavGraph
-        DeepLinkMatch bestMatch = super.matchDeepLink(uri);
-        // Then search through all child destinations for a matching deep link
-        for (NavDestination child : this) {
-            DeepLinkMatch childBestMatch = child.matchDeepLink(uri);
-            if (childBestMatch != null && (bestMatch == null
-                    || childBestMatch.compareTo(bestMatch) > 0)) {
-                bestMatch = childBestMatch;
-            }
+        // Matches the deep links of this NavGraph and of all child destinations at once, the
+        // matcher is rebuilt whenever any of them changes
+        if (mDeepLinkMatcher == null) {
+            mDeepLinkMatcher = new NavDeepLinkMatcher(this);
+        }
+        return mDeepLinkMatcher.match(uri);
+    }
+
+    @Override
+    void invalidateDeepLinkMatchers() {
+        mDeepLinkMatcher = null;
+        super.invalidateDeepLinkMatchers();
+    }
+
+    /**
+     * Sets a loader that adds the destinations of this NavGraph the first time they are needed,
+     * i.e. when navigating to this NavGraph or when looking up, iterating, adding or removing
+     * its destinations. This lets large graphs skip building nested graphs that are never
+     * entered.
+     *
+     * @param contentsLoader the loader to run once, or null to not load destinations lazily
+     */
+    void setContentsLoader(@Nullable Runnable contentsLoader) {
+        mContentsLoader = contentsLoader;
+    }
+
+    private void loadContents() {
+        Runnable contentsLoader = mContentsLoader;
+        if (contentsLoader != null) {
+            // Cleared first, as the loader adds destinations to this graph
+            mContentsLoader = null;
+            contentsLoader.run();
         }
-        return bestMatch;
     }
 
     /**
@@ -100,6 +124,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
             throw new IllegalArgumentException("Destinations must have an id."
                     + " Call setId() or include an android:id in your navigation XML.");
         }
+        loadContents();
         NavDestination existingDestination = mNodes.get(node.getId());
         if (existingDestination == node) {
             return;
@@ -168,6 +193,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
 
     @Nullable
     final NavDestination findNode(@IdRes int resid, boolean searchParents) {
+        loadContents();
         NavDestination destination = mNodes.get(resid);
         // Search the parent for the NavDestination if it is not a child of this navigation graph
         // and searchParents is true
@@ -179,6 +205,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     @NonNull
     @Override
     public final Iterator<NavDestination> iterator() {
+        loadContents();
         return new Iterator<NavDestination>() {
             private int mIndex = -1;
             private boolean mWentToNext = false;
@@ -233,6 +260,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
      * @param node the destination to remove.
      */
     public final void remove(@NonNull NavDestination node) {
+        loadContents();
         int index = mNodes.indexOfKey(node.getId());
         if (index >= 0) {
             mNodes.valueAt(index).setParent(null);
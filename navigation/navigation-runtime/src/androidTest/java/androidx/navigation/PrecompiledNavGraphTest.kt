@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation
+
+import android.net.Uri
+import androidx.navigation.test.R
+import androidx.navigation.testing.TestNavigator
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class PrecompiledNavGraphTest {
+
+    private val loadedGraphs = mutableListOf<Int>()
+
+    @Test
+    fun testContentsLoadedOnFirstEntry() {
+        val navController = createNavController()
+        val graph = createGraph(navController.navigatorProvider)
+        assertThat(loadedGraphs).isEmpty()
+
+        navController.graph = graph
+        assertThat(navController.currentDestination?.id).isEqualTo(R.id.start_test)
+        assertThat(loadedGraphs).containsExactly(0)
+
+        navController.navigate(R.id.nested)
+        assertThat(navController.currentDestination?.id).isEqualTo(R.id.nested_test)
+        assertThat(loadedGraphs).containsExactly(0, R.id.nested).inOrder()
+    }
+
+    @Test
+    fun testContentsLoadedOnce() {
+        val navController = createNavController()
+        val graph = createGraph(navController.navigatorProvider)
+
+        assertThat(graph.findNode(R.id.second_test)).isNotNull()
+        assertThat(graph.iterator().asSequence().map { it.id }.toList())
+            .containsExactly(R.id.start_test, R.id.second_test, R.id.nested)
+        assertThat(loadedGraphs).containsExactly(0)
+    }
+
+    @Test
+    fun testDeepLinkLoadsNestedGraph() {
+        val navController = createNavController()
+        val graph = createGraph(navController.navigatorProvider)
+
+        val match = graph.matchDeepLink(Uri.parse("https://www.example.com/nested"))
+        assertThat(match?.destination?.id).isEqualTo(R.id.nested_test)
+        assertThat(loadedGraphs).containsExactly(0, R.id.nested).inOrder()
+    }
+
+    private fun createGraph(navigatorProvider: NavigatorProvider): NavGraph {
+        val testNavigator = navigatorProvider.getNavigator(TestNavigator::class.java)
+        return PrecompiledNavGraph.create(navigatorProvider, 0, null, R.id.start_test) { graph ->
+            loadedGraphs.add(graph.id)
+            graph.addDestination(testNavigator.createDestination().apply {
+                id = R.id.start_test
+            })
+            graph.addDestination(testNavigator.createDestination().apply {
+                id = R.id.second_test
+            })
+            graph.addDestination(PrecompiledNavGraph.create(navigatorProvider, R.id.nested,
+                "Nested", R.id.nested_test) { nestedGraph ->
+                loadedGraphs.add(nestedGraph.id)
+                nestedGraph.addDestination(testNavigator.createDestination().apply {
+                    id = R.id.nested_test
+                    addDeepLink("www.example.com/nested")
+                })
+            })
+        }
+    }
+
+    private fun createNavController(): NavController {
+        val navController = NavController(ApplicationProvider.getApplicationContext())
+        navController.navigatorProvider.addNavigator(TestNavigator())
+        return navController
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Entry point for navigation graphs precompiled at build time, as an alternative to inflating
+ * navigation XML with {@link NavInflater}.
+ *
+ * <p>The Safe Args Gradle plugin generates a class per navigation XML file when the
+ * <code>androidx.navigation.safeargs.precompileGraphs</code> project property is set. Each of
+ * them builds its graph through this class, with argument types and resource references
+ * resolved ahead of time. The destinations of every graph, including nested and included graphs,
+ * are only built the first time the graph is entered.</p>
+ */
+public final class PrecompiledNavGraph {
+    // No instances. Static utilities only.
+    private PrecompiledNavGraph() {
+    }
+
+    /**
+     * Adds the destinations of a precompiled navigation graph.
+     */
+    public interface Contents {
+        /**
+         * Adds all destinations to the given graph. Called at most once, the first time the
+         * graph is entered or its destinations are looked up.
+         *
+         * @param graph the graph to add the destinations to
+         */
+        void addTo(@NonNull NavGraph graph);
+    }
+
+    /**
+     * Creates a navigation graph whose destinations are added by the given {@link Contents}
+     * only when they are first needed.
+     *
+     * @param navigatorProvider The provider of the {@link NavGraphNavigator} to create the
+     *                          graph with.
+     * @param id The id of the graph, or 0 for a root graph without id.
+     * @param label The label of the graph.
+     * @param startDestination The id of the destination to show when navigating to the graph.
+     * @param contents Adds the destinations of the graph.
+     * @return the new graph
+     */
+    @NonNull
+    public static NavGraph create(@NonNull NavigatorProvider navigatorProvider, @IdRes int id,
+            @Nullable CharSequence label, @IdRes int startDestination,
+            @NonNull final Contents contents) {
+        final NavGraph graph = navigatorProvider.getNavigator(NavGraphNavigator.class)
+                .createDestination();
+        graph.setId(id);
+        graph.setLabel(label);
+        graph.setStartDestination(startDestination);
+        graph.setContentsLoader(new Runnable() {
+            @Override
+            public void run() {
+                contents.addTo(graph);
+            }
+        });
+        return graph;
+    }
+}
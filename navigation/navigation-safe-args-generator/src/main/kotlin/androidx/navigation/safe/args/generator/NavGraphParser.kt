@@ -0,0 +1,365 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation.safe.args.generator
+
+import androidx.navigation.safe.args.generator.models.GraphAction
+import androidx.navigation.safe.args.generator.models.GraphActivity
+import androidx.navigation.safe.args.generator.models.GraphArgument
+import androidx.navigation.safe.args.generator.models.GraphDefaultValue
+import androidx.navigation.safe.args.generator.models.GraphDestination
+import androidx.navigation.safe.args.generator.models.GraphLiteralValue
+import androidx.navigation.safe.args.generator.models.GraphReferenceValue
+import androidx.navigation.safe.args.generator.models.GraphStringValue
+import androidx.navigation.safe.args.generator.models.GraphText
+import androidx.navigation.safe.args.generator.models.ResReference
+import java.io.File
+import java.io.FileReader
+
+private const val TAG_NAVIGATION = "navigation"
+private const val TAG_INCLUDE = "include"
+private const val TAG_FRAGMENT = "fragment"
+private const val TAG_DIALOG = "dialog"
+private const val TAG_ACTIVITY = "activity"
+private const val TAG_ACTION = "action"
+private const val TAG_ARGUMENT = "argument"
+private const val TAG_DEEP_LINK = "deepLink"
+
+private const val NAMESPACE_RES_AUTO = "http://schemas.android.com/apk/res-auto"
+private const val NAMESPACE_ANDROID = "http://schemas.android.com/apk/res/android"
+
+private val RUNTIME_TYPES = mapOf(
+    "integer" to "IntType",
+    "integer[]" to "IntArrayType",
+    "long" to "LongType",
+    "long[]" to "LongArrayType",
+    "float" to "FloatType",
+    "float[]" to "FloatArrayType",
+    "boolean" to "BoolType",
+    "boolean[]" to "BoolArrayType",
+    "string" to "StringType",
+    "string[]" to "StringArrayType",
+    "reference" to "ReferenceType"
+)
+
+private val NULLABLE_RUNTIME_TYPES = setOf("IntArrayType", "LongArrayType", "FloatArrayType",
+    "BoolArrayType", "StringType", "StringArrayType")
+
+// The way aapt2 compiles an android:defaultValue, which is what NavInflater sees at runtime
+private val AAPT_INT_REGEX = Regex("^(0[xX][0-9a-fA-F]+|[-+]?[0-9]+)$")
+private val AAPT_FLOAT_REGEX = Regex("^[-+]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][-+]?[0-9]+)?$")
+private val AAPT_UNIT_REGEX = Regex("^[-+]?[0-9.]+\\s*[a-zA-Z%]+$")
+
+private class UnsupportedGraphException : Exception()
+
+/**
+ * Parses a navigation XML file into the graph NavInflater would inflate at runtime, or null if
+ * any of its attributes can only be resolved at runtime: theme attributes, styled strings,
+ * custom navigators and values that NavInflater would reject.
+ */
+internal class NavGraphParser(
+    private val parser: XmlPositionParser,
+    private val rFilePackage: String
+) {
+
+    companion object {
+        fun parseNavigationFile(
+            navigationXml: File,
+            rFilePackage: String,
+            context: Context
+        ): GraphDestination? {
+            FileReader(navigationXml).use { reader ->
+                val parser = XmlPositionParser(navigationXml.path, reader, context.logger)
+                parser.traverseStartTags { true }
+                return try {
+                    NavGraphParser(parser, rFilePackage).parseDestination(isRoot = true)
+                } catch (e: UnsupportedGraphException) {
+                    null
+                }
+            }
+        }
+    }
+
+    private fun unsupported(): Nothing = throw UnsupportedGraphException()
+
+    internal fun parseDestination(isRoot: Boolean = false): GraphDestination {
+        val type = parser.name()
+        if (type !in setOf(TAG_NAVIGATION, TAG_FRAGMENT, TAG_DIALOG, TAG_ACTIVITY)) {
+            // custom navigators inflate their own attributes
+            unsupported()
+        }
+        val id = parser.attrValue(NAMESPACE_ANDROID, "id")?.let { parseIdReference(it) }
+        if (id == null && !isRoot) {
+            unsupported()
+        }
+        val label = parser.attrValue(NAMESPACE_ANDROID, "label")?.let { parseText(it) }
+        val name = parser.attrValue(NAMESPACE_ANDROID, "name")?.let { parseLiteral(it) }
+        val startDestination = if (type == TAG_NAVIGATION) {
+            parser.attrValue(NAMESPACE_RES_AUTO, "startDestination")?.let { parseIdReference(it) }
+        } else {
+            null
+        }
+        val activity = if (type == TAG_ACTIVITY) {
+            GraphActivity(
+                targetPackage = parser.attrValue(NAMESPACE_RES_AUTO, "targetPackage")
+                    ?.let { parseLiteral(it) },
+                action = parser.attrValue(NAMESPACE_RES_AUTO, "action")?.let { parseLiteral(it) },
+                data = parser.attrValue(NAMESPACE_RES_AUTO, "data")?.let { parseLiteral(it) },
+                dataPattern = parser.attrValue(NAMESPACE_RES_AUTO, "dataPattern")
+                    ?.let { parseLiteral(it) }
+            )
+        } else {
+            null
+        }
+        val args = mutableListOf<GraphArgument>()
+        val deepLinks = mutableListOf<GraphText>()
+        val actions = mutableListOf<GraphAction>()
+        val children = mutableListOf<GraphDestination>()
+        parser.traverseInnerStartTags {
+            when {
+                parser.name() == TAG_ARGUMENT -> args.add(parseArgument())
+                parser.name() == TAG_DEEP_LINK -> deepLinks.add(parseDeepLink())
+                parser.name() == TAG_ACTION -> actions.add(parseAction())
+                type != TAG_NAVIGATION -> Unit
+                parser.name() == TAG_INCLUDE -> children.add(parseInclude())
+                else -> children.add(parseDestination())
+            }
+        }
+        return GraphDestination(type, id, label, name, startDestination, null, activity, args,
+            deepLinks, actions, children)
+    }
+
+    private fun parseInclude(): GraphDestination {
+        val graph = parser.attrValue(NAMESPACE_RES_AUTO, "graph")
+            ?.let { parseReference(it, rFilePackage) }
+        if (graph == null || graph.resType != "navigation") {
+            unsupported()
+        }
+        return GraphDestination(TAG_INCLUDE, null, graph = graph)
+    }
+
+    private fun parseDeepLink(): GraphText {
+        val uri = parser.attrValue(NAMESPACE_RES_AUTO, "uri") ?: unsupported()
+        return parseText(uri).also {
+            if (it.literal?.isEmpty() == true) {
+                unsupported()
+            }
+        }
+    }
+
+    private fun parseAction(): GraphAction {
+        val id = parser.attrValue(NAMESPACE_ANDROID, "id")?.let { parseIdReference(it) }
+            ?: unsupported()
+        val destination = parser.attrValue(NAMESPACE_RES_AUTO, "destination")
+            ?.let { parseIdReference(it) }
+        val launchSingleTop = parseBoolean(
+            parser.attrValue(NAMESPACE_RES_AUTO, "launchSingleTop"))
+        val popUpTo = parser.attrValue(NAMESPACE_RES_AUTO, "popUpTo")
+            ?.let { parseIdReference(it) }
+        val popUpToInclusive = parseBoolean(
+            parser.attrValue(NAMESPACE_RES_AUTO, "popUpToInclusive"))
+        val anims = listOf("enterAnim", "exitAnim", "popEnterAnim", "popExitAnim").map { attr ->
+            parser.attrValue(NAMESPACE_RES_AUTO, attr)?.let {
+                parseReference(it, rFilePackage) ?: unsupported()
+            }
+        }
+        val args = mutableListOf<GraphArgument>()
+        parser.traverseInnerStartTags {
+            if (parser.name() == TAG_ARGUMENT) {
+                args.add(parseArgument())
+            }
+        }
+        return GraphAction(id, destination, launchSingleTop, popUpTo, popUpToInclusive,
+            anims[0], anims[1], anims[2], anims[3], args)
+    }
+
+    private fun parseArgument(): GraphArgument {
+        val name = parser.attrValue(NAMESPACE_ANDROID, "name")?.let { parseLiteral(it) }
+            ?: unsupported()
+        val argType = parser.attrValue(NAMESPACE_RES_AUTO, "argType")?.let { parseLiteral(it) }
+        val isNullable = parseBoolean(parser.attrValue(NAMESPACE_RES_AUTO, "nullable"))
+        val value = parser.attrValue(NAMESPACE_ANDROID, "defaultValue")
+
+        val declaredType = argType?.takeIf { it.isNotEmpty() }?.let { RUNTIME_TYPES[it] }
+        val customType = argType?.takeIf { it.isNotEmpty() && declaredType == null }
+        val (type, defaultValue) = if (customType != null) {
+            null to parseCustomDefaultValue(value)
+        } else {
+            parseDefaultValue(declaredType, value)
+        }
+        if (isNullable && customType == null && type !in NULLABLE_RUNTIME_TYPES) {
+            // NavArgument would reject it at runtime
+            unsupported()
+        }
+        return GraphArgument(name, type, customType, isNullable, defaultValue)
+    }
+
+    private fun parseCustomDefaultValue(value: String?): GraphDefaultValue? = when {
+        value == null || value == VALUE_NULL -> null
+        aaptKind(value) == AaptKind.STRING -> GraphStringValue(value)
+        else -> unsupported()
+    }
+
+    /**
+     * Returns the runtime NavType and default value NavInflater ends up with for the given
+     * declared type and android:defaultValue.
+     */
+    private fun parseDefaultValue(
+        type: String?,
+        value: String?
+    ): Pair<String?, GraphDefaultValue?> {
+        if (value == null || value == VALUE_NULL) {
+            return type to null
+        }
+        val kind = aaptKind(value)
+        if (kind == AaptKind.REFERENCE) {
+            if (type != null && type != "ReferenceType") {
+                unsupported()
+            }
+            val reference = parseReference(value, rFilePackage) ?: unsupported()
+            return "ReferenceType" to GraphReferenceValue(reference)
+        }
+        return when (type) {
+            null -> when (kind) {
+                AaptKind.BOOLEAN -> "BoolType" to GraphLiteralValue(value.toLowerCase())
+                AaptKind.INT -> "IntType" to GraphLiteralValue(parseAaptInt(value).toString())
+                AaptKind.FLOAT -> "FloatType" to GraphLiteralValue("${value}F")
+                else -> inferFromString(value)
+            }
+            "ReferenceType" -> if (kind == AaptKind.INT && parseAaptInt(value) == 0) {
+                type to GraphLiteralValue("0")
+            } else {
+                unsupported()
+            }
+            "StringType" -> if (kind == AaptKind.STRING) {
+                type to GraphStringValue(value)
+            } else {
+                unsupported()
+            }
+            "IntType" -> if (kind == AaptKind.INT) {
+                type to GraphLiteralValue(parseAaptInt(value).toString())
+            } else {
+                unsupported()
+            }
+            "LongType" -> if (kind == AaptKind.STRING) {
+                type to GraphLiteralValue("${parseRuntimeLong(value) ?: unsupported()}L")
+            } else {
+                unsupported()
+            }
+            "FloatType" -> when (kind) {
+                AaptKind.FLOAT -> type to GraphLiteralValue("${value}F")
+                AaptKind.STRING -> type to GraphLiteralValue("${parseRuntimeFloat(value)}F")
+                else -> unsupported()
+            }
+            "BoolType" -> if (kind == AaptKind.BOOLEAN) {
+                type to GraphLiteralValue(value.toLowerCase())
+            } else {
+                unsupported()
+            }
+            // NavInflater has no way to parse array default values
+            else -> unsupported()
+        }
+    }
+
+    /**
+     * Same as NavType.inferFromValue for a value aapt2 kept as a string.
+     */
+    private fun inferFromString(value: String): Pair<String, GraphDefaultValue> {
+        parseRuntimeLong(value)?.let { return "LongType" to GraphLiteralValue("${it}L") }
+        value.toFloatOrNull()?.let {
+            return "FloatType" to GraphLiteralValue("${parseRuntimeFloat(value)}F")
+        }
+        return "StringType" to GraphStringValue(value)
+    }
+
+    private fun parseRuntimeFloat(value: String): Float {
+        val number = value.toFloatOrNull()
+        if (number == null || !number.isFinite()) {
+            unsupported()
+        }
+        return number
+    }
+
+    private fun parseRuntimeLong(value: String): Long? {
+        val number = value.removeSuffix("L")
+        return if (number.startsWith("0x")) {
+            number.substring(2).toLongOrNull(16)
+        } else {
+            number.toLongOrNull()
+        }
+    }
+
+    private enum class AaptKind { REFERENCE, BOOLEAN, INT, FLOAT, STRING }
+
+    private fun aaptKind(value: String): AaptKind = when {
+        value.startsWith("@") -> AaptKind.REFERENCE
+        value.equals("true", ignoreCase = true) || value.equals("false", ignoreCase = true) ->
+            AaptKind.BOOLEAN
+        AAPT_INT_REGEX.matches(value) && parseAaptIntOrNull(value) != null -> AaptKind.INT
+        AAPT_FLOAT_REGEX.matches(value) -> AaptKind.FLOAT
+        AAPT_UNIT_REGEX.matches(value) && !value.endsWith("L") -> unsupported()
+        else -> {
+            parseLiteral(value)
+            AaptKind.STRING
+        }
+    }
+
+    private fun parseAaptIntOrNull(value: String): Int? {
+        if (value.startsWith("0x") || value.startsWith("0X")) {
+            // hexadecimal values are the raw 32 bits
+            return value.substring(2).toLongOrNull(16)?.takeIf { it <= 0xFFFFFFFFL }?.toInt()
+        }
+        return value.removePrefix("+").toIntOrNull()
+    }
+
+    private fun parseAaptInt(value: String) = parseAaptIntOrNull(value) ?: unsupported()
+
+    private fun parseBoolean(value: String?) = when (value) {
+        null, "false" -> false
+        "true" -> true
+        else -> unsupported()
+    }
+
+    private fun parseIdReference(value: String): ResReference {
+        val reference = parseReference(value, rFilePackage)
+        if (reference == null || !reference.isId()) {
+            unsupported()
+        }
+        return reference
+    }
+
+    private fun parseText(value: String): GraphText {
+        if (value.startsWith("@")) {
+            val reference = parseReference(value, rFilePackage)
+            if (reference == null || reference.resType != "string") {
+                unsupported()
+            }
+            return GraphText(null, reference)
+        }
+        return GraphText(parseLiteral(value), null)
+    }
+
+    /**
+     * Returns the given attribute value if aapt2 would compile it to the same string.
+     */
+    private fun parseLiteral(value: String): String {
+        if (value.startsWith("@") || value.startsWith("?") || value.startsWith("\"") ||
+            value.contains('\\') || value.trim() != value) {
+            unsupported()
+        }
+        return value
+    }
+}
@@ -16,6 +16,7 @@
 
 package androidx.navigation.safe.args.generator
 
+import androidx.navigation.safe.args.generator.java.JavaNavGraphWriter
 import androidx.navigation.safe.args.generator.java.JavaNavWriter
 import androidx.navigation.safe.args.generator.kotlin.KotlinNavWriter
 import androidx.navigation.safe.args.generator.models.Destination
@@ -27,7 +28,8 @@ fun SafeArgsGenerator(
     navigationXml: File,
     outputDir: File,
     useAndroidX: Boolean = true,
-    generateKotlin: Boolean
+    generateKotlin: Boolean,
+    precompileGraph: Boolean = false
 ) = NavSafeArgsGenerator(
     rFilePackage,
     applicationId,
@@ -37,7 +39,8 @@ fun SafeArgsGenerator(
         KotlinNavWriter(useAndroidX)
     } else {
         JavaNavWriter(useAndroidX)
-    }
+    },
+    if (precompileGraph) JavaNavGraphWriter(useAndroidX) else null
 )
 
 class NavSafeArgsGenerator<T : CodeFile> internal constructor(
@@ -45,7 +48,8 @@ class NavSafeArgsGenerator<T : CodeFile> internal constructor(
     private val applicationId: String,
     private val navigationXml: File,
     private val outputDir: File,
-    private val writer: NavWriter<T>
+    private val writer: NavWriter<T>,
+    private val graphWriter: JavaNavGraphWriter? = null
 ) {
     fun generate(): GeneratorOutput {
         val context = Context()
@@ -78,6 +82,11 @@ class NavSafeArgsGenerator<T : CodeFile> internal constructor(
             }
         }
         writeCodeFiles(resolvedDestination, emptyList())
+        if (graphWriter != null) {
+            val graph = NavGraphParser.parseNavigationFile(navigationXml, rFilePackage, context)
+            codeFiles.add(graphWriter.generateNavGraphCodeFile(rFilePackage,
+                navigationXml.nameWithoutExtension, graph))
+        }
         codeFiles.forEach { it.writeTo(outputDir) }
         return GeneratorOutput(codeFiles.toList(), context.logger.allMessages())
     }
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation.safe.args.generator.java
+
+import androidx.navigation.safe.args.generator.ext.toCamelCase
+import androidx.navigation.safe.args.generator.models.GraphAction
+import androidx.navigation.safe.args.generator.models.GraphArgument
+import androidx.navigation.safe.args.generator.models.GraphDefaultValue
+import androidx.navigation.safe.args.generator.models.GraphDestination
+import androidx.navigation.safe.args.generator.models.GraphLiteralValue
+import androidx.navigation.safe.args.generator.models.GraphReferenceValue
+import androidx.navigation.safe.args.generator.models.GraphStringValue
+import androidx.navigation.safe.args.generator.models.GraphText
+import androidx.navigation.safe.args.generator.models.ResReference
+import com.squareup.javapoet.AnnotationSpec
+import com.squareup.javapoet.ClassName
+import com.squareup.javapoet.CodeBlock
+import com.squareup.javapoet.JavaFile
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+private const val NAVIGATION_PACKAGE = "androidx.navigation"
+private const val APPLICATION_ID_PLACEHOLDER = "\${applicationId}"
+
+private val NAV_GRAPH_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavGraph")
+private val NAVIGATOR_PROVIDER_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavigatorProvider")
+private val NAV_INFLATER_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavInflater")
+private val NAV_ACTION_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavAction")
+private val NAV_OPTIONS_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavOptions")
+private val NAV_ARGUMENT_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavArgument")
+private val NAV_TYPE_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "NavType")
+private val PRECOMPILED_NAV_GRAPH_CLASSNAME =
+    ClassName.get(NAVIGATION_PACKAGE, "PrecompiledNavGraph")
+private val ACTIVITY_NAVIGATOR_CLASSNAME = ClassName.get(NAVIGATION_PACKAGE, "ActivityNavigator")
+private val FRAGMENT_NAVIGATOR_CLASSNAME =
+    ClassName.get("$NAVIGATION_PACKAGE.fragment", "FragmentNavigator")
+private val DIALOG_FRAGMENT_NAVIGATOR_CLASSNAME =
+    ClassName.get("$NAVIGATION_PACKAGE.fragment", "DialogFragmentNavigator")
+private val CONTEXT_CLASSNAME = ClassName.get("android.content", "Context")
+private val COMPONENT_NAME_CLASSNAME = ClassName.get("android.content", "ComponentName")
+private val URI_CLASSNAME = ClassName.get("android.net", "Uri")
+
+private const val CONTEXT = "context"
+private const val NAVIGATOR_PROVIDER = "navigatorProvider"
+private const val GRAPH = "graph"
+
+/**
+ * Generates the class that builds a navigation graph without inflating its XML, see
+ * androidx.navigation.PrecompiledNavGraph.
+ */
+class JavaNavGraphWriter(private val useAndroidX: Boolean = true) {
+
+    private val annotations = Annotations.getInstance(useAndroidX)
+
+    /**
+     * Generates the precompiled class of the given navigation resource. If the graph could not
+     * be precompiled, the class inflates the navigation resource instead.
+     */
+    fun generateNavGraphCodeFile(
+        rFilePackage: String,
+        navigationName: String,
+        graph: GraphDestination?
+    ): JavaCodeFile {
+        val className = precompiledClassName(rFilePackage, navigationName)
+        val methods = mutableListOf<MethodSpec>()
+        val create = createMethodBuilder("create")
+            .addModifiers(Modifier.PUBLIC)
+            .addJavadoc("Creates the navigation graph of R.navigation.\$L, whose " +
+                    "destinations are only\nbuilt when the graph is first entered.\n",
+                navigationName)
+        if (graph != null) {
+            methods.addAll(NavGraphMethods(rFilePackage).graphMethods(create, "", graph))
+        } else {
+            // Resolved at runtime, the same as without precompiling
+            create.addStatement("return new \$T(\$N, \$N).inflate(\$T.\$N)",
+                NAV_INFLATER_CLASSNAME, CONTEXT, NAVIGATOR_PROVIDER,
+                ClassName.get(rFilePackage, "R", "navigation"), navigationName)
+            methods.add(create.build())
+        }
+        val typeSpec = TypeSpec.classBuilder(className)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+            .addMethods(methods)
+            .build()
+        return JavaFile.builder(className.packageName(), typeSpec).build().toCodeFile()
+    }
+
+    private fun createMethodBuilder(name: String) = MethodSpec.methodBuilder(name)
+        .addModifiers(Modifier.STATIC)
+        .addAnnotation(annotations.NONNULL_CLASSNAME)
+        .returns(NAV_GRAPH_CLASSNAME)
+        .addParameter(ParameterSpec.builder(CONTEXT_CLASSNAME, CONTEXT)
+            .addAnnotation(annotations.NONNULL_CLASSNAME)
+            .addModifiers(Modifier.FINAL)
+            .build())
+        .addParameter(ParameterSpec.builder(NAVIGATOR_PROVIDER_CLASSNAME, NAVIGATOR_PROVIDER)
+            .addAnnotation(annotations.NONNULL_CLASSNAME)
+            .addModifiers(Modifier.FINAL)
+            .build())
+
+    private inner class NavGraphMethods(private val rFilePackage: String) {
+        private var variableCount = 0
+
+        private fun newVariable(prefix: String) = "$prefix${variableCount++}"
+
+        /**
+         * Returns the methods creating the given graph and its nested graphs, the first one
+         * being the given method creating the graph itself.
+         */
+        fun graphMethods(
+            create: MethodSpec.Builder,
+            methodSuffix: String,
+            graph: GraphDestination
+        ): List<MethodSpec> {
+            val addDestinations = addDestinationsMethod(methodSuffix, graph)
+            val contents = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(PRECOMPILED_NAV_GRAPH_CLASSNAME.nestedClass("Contents"))
+                .addMethod(MethodSpec.methodBuilder("addTo")
+                    .addAnnotation(Override::class.java)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(ParameterSpec.builder(NAV_GRAPH_CLASSNAME, GRAPH)
+                        .addAnnotation(annotations.NONNULL_CLASSNAME)
+                        .build())
+                    .addStatement("\$N(\$N, \$N, \$N)", addDestinations.first, GRAPH, CONTEXT,
+                        NAVIGATOR_PROVIDER)
+                    .build())
+                .build()
+            val navGraph = CodeBlock.of("\$T.create(\$N, \$L, \$L, \$L, \$L)",
+                PRECOMPILED_NAV_GRAPH_CLASSNAME, NAVIGATOR_PROVIDER, graph.id.accessor(),
+                graph.label.text(), graph.startDestination.accessor(), contents)
+            if (graph.args.isEmpty() && graph.deepLinks.isEmpty() && graph.actions.isEmpty()) {
+                create.addStatement("return \$L", navGraph)
+            } else {
+                // Global actions, graph arguments and deep links are part of the graph itself,
+                // only its destinations are added lazily
+                val variable = newVariable(GRAPH)
+                create.addStatement("\$T \$N = \$L", NAV_GRAPH_CLASSNAME, variable, navGraph)
+                if (addDestinationContents(create, variable, graph)) {
+                    create.addAnnotation(uncheckedAnnotation())
+                }
+                create.addStatement("return \$N", variable)
+            }
+            return listOf(create.build(), addDestinations.first) + addDestinations.second
+        }
+
+        private fun addDestinationsMethod(
+            methodSuffix: String,
+            graph: GraphDestination
+        ): Pair<MethodSpec, List<MethodSpec>> {
+            val nestedMethods = mutableListOf<MethodSpec>()
+            val method = MethodSpec.methodBuilder("add${methodSuffix}Destinations")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(NAV_GRAPH_CLASSNAME, GRAPH)
+                .addParameter(CONTEXT_CLASSNAME, CONTEXT)
+                .addParameter(NAVIGATOR_PROVIDER_CLASSNAME, NAVIGATOR_PROVIDER)
+            var usesRawTypes = false
+            graph.children.forEach { child ->
+                when (child.type) {
+                    "include" -> method.addStatement("\$N.addDestination(\$L)", GRAPH,
+                        includedGraph(child.graph!!))
+                    "navigation" -> {
+                        val suffix = child.id!!.javaIdentifier.toCamelCase()
+                        val create = createMethodBuilder("create$suffix")
+                            .addModifiers(Modifier.PRIVATE)
+                        val methods = graphMethods(create, suffix, child)
+                        method.addStatement("\$N.addDestination(\$N(\$N, \$N))", GRAPH,
+                            methods.first(), CONTEXT, NAVIGATOR_PROVIDER)
+                        nestedMethods.addAll(methods)
+                    }
+                    else -> {
+                        val destination = newVariable("destination")
+                        usesRawTypes = addDestination(method, destination, child) ||
+                                usesRawTypes
+                        method.addStatement("\$N.addDestination(\$N)", GRAPH, destination)
+                    }
+                }
+            }
+            if (usesRawTypes) {
+                method.addAnnotation(uncheckedAnnotation())
+            }
+            return method.build() to nestedMethods
+        }
+
+        private fun uncheckedAnnotation() = AnnotationSpec.builder(SuppressWarnings::class.java)
+            .addMember("value", "\$S", "unchecked")
+            .build()
+
+        private fun includedGraph(graph: ResReference) = if (graph.packageName == rFilePackage) {
+            CodeBlock.of("\$T.create(\$N, \$N)",
+                precompiledClassName(rFilePackage, graph.javaIdentifier), CONTEXT,
+                NAVIGATOR_PROVIDER)
+        } else {
+            // Graphs of other modules might not be precompiled
+            CodeBlock.of("new \$T(\$N, \$N).inflate(\$L)", NAV_INFLATER_CLASSNAME, CONTEXT,
+                NAVIGATOR_PROVIDER, graph.accessor())
+        }
+
+        /**
+         * Adds the statements creating the given destination into the given variable, returns
+         * true if they use raw NavTypes.
+         */
+        private fun addDestination(
+            method: MethodSpec.Builder,
+            variable: String,
+            destination: GraphDestination
+        ): Boolean {
+            val navigator = when (destination.type) {
+                "fragment" -> FRAGMENT_NAVIGATOR_CLASSNAME
+                "dialog" -> DIALOG_FRAGMENT_NAVIGATOR_CLASSNAME
+                else -> ACTIVITY_NAVIGATOR_CLASSNAME
+            }
+            method.addStatement("\$T \$N = \$N.getNavigator(\$T.class).createDestination()",
+                navigator.nestedClass("Destination"), variable, NAVIGATOR_PROVIDER, navigator)
+            method.addStatement("\$N.setId(\$L)", variable, destination.id.accessor())
+            destination.label?.let {
+                method.addStatement("\$N.setLabel(\$L)", variable, it.text())
+            }
+            val className = destination.className
+            val activity = destination.activity
+            if (activity != null) {
+                activity.targetPackage?.let {
+                    method.addStatement("\$N.setTargetPackage(\$L)", variable,
+                        withApplicationId(CodeBlock.of("\$S", it),
+                            it.contains(APPLICATION_ID_PLACEHOLDER)))
+                }
+                if (className != null) {
+                    val name = if (className.startsWith(".")) {
+                        CodeBlock.of("\$N.getPackageName() + \$S", CONTEXT, className)
+                    } else {
+                        CodeBlock.of("\$S", className)
+                    }
+                    method.addStatement("\$N.setComponentName(new \$T(\$N, \$L))", variable,
+                        COMPONENT_NAME_CLASSNAME, CONTEXT, name)
+                }
+                activity.action?.let { method.addStatement("\$N.setAction(\$S)", variable, it) }
+                activity.data?.let {
+                    method.addStatement("\$N.setData(\$T.parse(\$S))", variable, URI_CLASSNAME,
+                        it)
+                }
+                activity.dataPattern?.let {
+                    method.addStatement("\$N.setDataPattern(\$S)", variable, it)
+                }
+            } else if (className != null) {
+                method.addStatement("\$N.setClassName(\$S)", variable, className)
+            }
+            return addDestinationContents(method, variable, destination)
+        }
+
+        /**
+         * Adds the statements adding the arguments, deep links and actions of the given
+         * destination or graph to the given variable, returns true if they use raw NavTypes.
+         */
+        private fun addDestinationContents(
+            method: MethodSpec.Builder,
+            variable: String,
+            destination: GraphDestination
+        ): Boolean {
+            var usesRawTypes = false
+            destination.args.forEach { arg ->
+                val argument = CodeBlock.builder()
+                    .add("new \$T.Builder()", NAV_ARGUMENT_CLASSNAME)
+                    .add(".setIsNullable(\$L)", arg.isNullable)
+                val type = navType(method, arg)
+                if (type != null) {
+                    argument.add(".setType(\$L)", type)
+                }
+                arg.defaultValue?.let {
+                    argument.add(".setDefaultValue(\$L)", defaultValue(type, arg, it))
+                }
+                argument.add(".build()")
+                method.addStatement("\$N.addArgument(\$S, \$L)", variable, arg.name,
+                    argument.build())
+                usesRawTypes = usesRawTypes || arg.customType != null
+            }
+            destination.deepLinks.forEach { deepLink ->
+                val uri = deepLink.reference?.let {
+                    withApplicationId(CodeBlock.of("\$N.getString(\$L)", CONTEXT, it.accessor()),
+                        true)
+                } ?: withApplicationId(CodeBlock.of("\$S", deepLink.literal),
+                    deepLink.literal!!.contains(APPLICATION_ID_PLACEHOLDER))
+                method.addStatement("\$N.addDeepLink(\$L)", variable, uri)
+            }
+            destination.actions.forEach { action ->
+                usesRawTypes = addAction(method, variable, action) || usesRawTypes
+            }
+            return usesRawTypes
+        }
+
+        private fun addAction(
+            method: MethodSpec.Builder,
+            destination: String,
+            action: GraphAction
+        ): Boolean {
+            val variable = newVariable("action")
+            val navOptions = CodeBlock.builder()
+                .add("new \$T.Builder()", NAV_OPTIONS_CLASSNAME)
+                .add(".setLaunchSingleTop(\$L)", action.launchSingleTop)
+                .add(".setPopUpTo(\$L, \$L)", action.popUpTo.accessorOr(-1),
+                    action.popUpToInclusive)
+                .add(".setEnterAnim(\$L)", action.enterAnim.accessorOr(-1))
+                .add(".setExitAnim(\$L)", action.exitAnim.accessorOr(-1))
+                .add(".setPopEnterAnim(\$L)", action.popEnterAnim.accessorOr(-1))
+                .add(".setPopExitAnim(\$L)", action.popExitAnim.accessorOr(-1))
+                .add(".build()")
+                .build()
+            method.addStatement("\$T \$N = new \$T(\$L, \$L)", NAV_ACTION_CLASSNAME, variable,
+                NAV_ACTION_CLASSNAME, action.destination.accessor(), navOptions)
+            val defaultArgs = action.args.filter { it.defaultValue != null }
+            if (defaultArgs.isNotEmpty()) {
+                val bundle = "${variable}Arguments"
+                method.addStatement("\$T \$N = new \$T()", BUNDLE_CLASSNAME, bundle,
+                    BUNDLE_CLASSNAME)
+                defaultArgs.forEach { arg ->
+                    val type = navType(method, arg)
+                    method.addStatement("\$L.put(\$N, \$S, \$L)", type, bundle, arg.name,
+                        defaultValue(type, arg, arg.defaultValue!!))
+                }
+                method.addStatement("\$N.setDefaultArguments(\$N)", variable, bundle)
+            }
+            method.addStatement("\$N.putAction(\$L, \$N)", destination, action.id.accessor(),
+                variable)
+            return defaultArgs.any { it.customType != null }
+        }
+
+        /**
+         * Returns the NavType of the given argument, declaring it in a variable first for the
+         * types only known at runtime.
+         */
+        private fun navType(method: MethodSpec.Builder, arg: GraphArgument): CodeBlock? {
+            if (arg.customType != null) {
+                val variable = newVariable("navType")
+                method.addStatement("\$T \$N = \$T.fromArgType(\$S, \$S)", NAV_TYPE_CLASSNAME,
+                    variable, NAV_TYPE_CLASSNAME, arg.customType, rFilePackage)
+                return CodeBlock.of("\$N", variable)
+            }
+            return arg.type?.let { CodeBlock.of("\$T.\$N", NAV_TYPE_CLASSNAME, it) }
+        }
+
+        private fun defaultValue(
+            type: CodeBlock?,
+            arg: GraphArgument,
+            value: GraphDefaultValue
+        ) = when (value) {
+            is GraphLiteralValue -> CodeBlock.of("\$L", value.literal)
+            is GraphReferenceValue -> value.reference.accessor()
+            // Enums are parsed by the NavType that is only known at runtime
+            is GraphStringValue -> if (arg.customType != null) {
+                CodeBlock.of("\$L.parseValue(\$S)", type, value.value)
+            } else {
+                CodeBlock.of("\$S", value.value)
+            }
+        }
+
+        private fun GraphText?.text(): CodeBlock = when {
+            this == null -> CodeBlock.of("null")
+            reference != null -> CodeBlock.of("\$N.getText(\$L)", CONTEXT, reference.accessor())
+            else -> CodeBlock.of("\$S", literal)
+        }
+
+        private fun withApplicationId(value: CodeBlock, hasPlaceholder: Boolean) =
+            if (hasPlaceholder) {
+                CodeBlock.of("\$L.replace(\$S, \$N.getPackageName())", value,
+                    APPLICATION_ID_PLACEHOLDER, CONTEXT)
+            } else {
+                value
+            }
+
+        private fun ResReference?.accessorOr(defaultValue: Int) =
+            this?.accessor() ?: CodeBlock.of("\$L", defaultValue)
+    }
+}
+
+/**
+ * Returns the name of the class generated for the navigation resource with the given name,
+ * e.g. NavMainPrecompiled for R.navigation.nav_main.
+ */
+internal fun precompiledClassName(rFilePackage: String, navigationName: String): ClassName =
+    ClassName.get(rFilePackage, "${navigationName.toCamelCase()}Precompiled")
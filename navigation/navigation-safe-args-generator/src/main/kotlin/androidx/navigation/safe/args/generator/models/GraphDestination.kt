@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation.safe.args.generator.models
+
+/**
+ * A destination of a navigation graph as the runtime NavInflater would inflate it, with every
+ * attribute resolved at build time.
+ */
+data class GraphDestination(
+    val type: String,
+    val id: ResReference?,
+    val label: GraphText? = null,
+    val className: String? = null,
+    val startDestination: ResReference? = null,
+    val graph: ResReference? = null,
+    val activity: GraphActivity? = null,
+    val args: List<GraphArgument> = emptyList(),
+    val deepLinks: List<GraphText> = emptyList(),
+    val actions: List<GraphAction> = emptyList(),
+    val children: List<GraphDestination> = emptyList()
+)
+
+/**
+ * A text attribute, either a literal or a reference to a string resource.
+ */
+data class GraphText(val literal: String?, val reference: ResReference?)
+
+data class GraphActivity(
+    val targetPackage: String?,
+    val action: String?,
+    val data: String?,
+    val dataPattern: String?
+)
+
+/**
+ * An argument of a destination or action.
+ *
+ * @param type the name of the runtime NavType constant, e.g. IntType, or null if the type is
+ * inferred at runtime.
+ * @param customType the argType of Parcelable, Serializable and Enum arguments.
+ * @param defaultValue the default value as a Java expression, or null if there is none.
+ */
+data class GraphArgument(
+    val name: String,
+    val type: String?,
+    val customType: String?,
+    val isNullable: Boolean,
+    val defaultValue: GraphDefaultValue?
+)
+
+sealed class GraphDefaultValue
+
+data class GraphLiteralValue(val literal: String) : GraphDefaultValue()
+
+data class GraphStringValue(val value: String) : GraphDefaultValue()
+
+data class GraphReferenceValue(val reference: ResReference) : GraphDefaultValue()
+
+data class GraphAction(
+    val id: ResReference,
+    val destination: ResReference?,
+    val launchSingleTop: Boolean,
+    val popUpTo: ResReference?,
+    val popUpToInclusive: Boolean,
+    val enterAnim: ResReference?,
+    val exitAnim: ResReference?,
+    val popEnterAnim: ResReference?,
+    val popExitAnim: ResReference?,
+    val args: List<GraphArgument>
+)
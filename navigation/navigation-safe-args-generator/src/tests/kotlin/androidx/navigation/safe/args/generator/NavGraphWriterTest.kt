@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation.safe.args.generator
+
+import androidx.navigation.safe.args.generator.java.JavaNavGraphWriter
+import androidx.navigation.safe.args.generator.models.GraphArgument
+import androidx.navigation.safe.args.generator.models.GraphLiteralValue
+import androidx.navigation.safe.args.generator.models.GraphReferenceValue
+import androidx.navigation.safe.args.generator.models.GraphStringValue
+import androidx.navigation.safe.args.generator.models.ResReference
+import com.google.common.truth.Truth.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class NavGraphWriterTest {
+
+    @Suppress("MemberVisibilityCanBePrivate")
+    @get:Rule
+    val workingDir = TemporaryFolder()
+
+    private fun generateCode(name: String): String {
+        val graph = NavGraphParser.parseNavigationFile(testData("$name.xml"), "a.b", Context())
+        return JavaNavGraphWriter().generateNavGraphCodeFile("a.b", name, graph).toString()
+            .replace(Regex("\\s+"), " ")
+    }
+
+    @Test
+    fun testParseArguments() {
+        val graph = NavGraphParser.parseNavigationFile(testData("precompiled_graph_test.xml"),
+            "a.b", Context())!!
+        val mainFragment = graph.children.first()
+        assertThat(mainFragment.args).containsExactly(
+            GraphArgument("count", "IntType", null, false, GraphLiteralValue("3")),
+            GraphArgument("size", "LongType", null, false, GraphLiteralValue("10L")),
+            GraphArgument("ratio", "FloatType", null, false, GraphLiteralValue("1.5F")),
+            GraphArgument("title", "StringType", null, true, null),
+            GraphArgument("icon", "ReferenceType", null, false,
+                GraphReferenceValue(ResReference("a.b", "drawable", "icon"))),
+            GraphArgument("mode", null, "a.b.Mode", false, GraphStringValue("FAST"))
+        ).inOrder()
+        assertThat(graph.children.map { it.type }).containsExactly("fragment", "activity",
+            "dialog", "navigation", "include", "include").inOrder()
+    }
+
+    @Test
+    fun testPrecompiledGraph() {
+        val code = generateCode("precompiled_graph_test")
+
+        assertThat(code).contains("public final class PrecompiledGraphTestPrecompiled {")
+        assertThat(code).contains("NavGraph graph9 = PrecompiledNavGraph.create(" +
+                "navigatorProvider, R.id.main, null, R.id.main_fragment, " +
+                "new PrecompiledNavGraph.Contents() {")
+        assertThat(code).contains("FragmentNavigator.Destination destination0 = " +
+                "navigatorProvider.getNavigator(FragmentNavigator.class).createDestination();")
+        assertThat(code).contains("destination0.setLabel(context.getText(R.string.main_label));")
+        assertThat(code).contains("destination0.setClassName(\".MainFragment\");")
+        assertThat(code).contains("destination0.addArgument(\"count\", new NavArgument.Builder()" +
+                ".setIsNullable(false).setType(NavType.IntType).setDefaultValue(3).build());")
+        assertThat(code).contains("NavType navType1 = NavType.fromArgType(\"a.b.Mode\", \"a.b\");")
+        assertThat(code).contains(".setType(navType1).setDefaultValue(navType1.parseValue(" +
+                "\"FAST\")).build());")
+        assertThat(code).contains("destination0.addDeepLink(\"www.example.com/\${applicationId}/" +
+                "{count}\".replace(\"\${applicationId}\", context.getPackageName()));")
+        assertThat(code).contains("new NavOptions.Builder().setLaunchSingleTop(true)" +
+                ".setPopUpTo(-1, false).setEnterAnim(R.anim.fade_in).setExitAnim(-1)")
+        assertThat(code).contains("NavType.StringType.put(action2Arguments, \"from\", \"main\");")
+        assertThat(code).contains("destination0.putAction(R.id.start_login, action2);")
+        assertThat(code).contains("setComponentName(new ComponentName(context, " +
+                "context.getPackageName() + \".SettingsActivity\"));")
+        assertThat(code).contains("DialogFragmentNavigator.Destination destination4")
+        assertThat(code).contains("graph.addDestination(createLogin(context, navigatorProvider));")
+        assertThat(code).contains("private static NavGraph createLogin(")
+        assertThat(code).contains(".setPopUpTo(R.id.main_fragment, true)")
+        assertThat(code).contains("NavGraph graph7 = PrecompiledNavGraph.create(" +
+                "navigatorProvider, R.id.login, null, R.id.login_fragment, ")
+        assertThat(code).contains("graph7.addArgument(\"userId\", new NavArgument.Builder()" +
+                ".setIsNullable(true).setType(NavType.StringType).build());")
+        assertThat(code).contains("graph7.addDeepLink(\"www.example.com/login\");")
+        assertThat(code).contains("graph7.putAction(R.id.cancel, action8);")
+        assertThat(code).contains("return graph7;")
+        assertThat(code).contains(
+            "graph.addDestination(SettingsPrecompiled.create(context, navigatorProvider));")
+        assertThat(code).contains("graph.addDestination(new NavInflater(context, " +
+                "navigatorProvider).inflate(c.d.R.navigation.library));")
+        assertThat(code).contains("graph9.addArgument(\"session\", new NavArgument.Builder()" +
+                ".setIsNullable(false).setType(NavType.IntType).setDefaultValue(0).build());")
+        assertThat(code).contains("graph9.addDeepLink(\"www.example.com/home\");")
+        assertThat(code).contains("new NavAction(R.id.settings_activity, ")
+        assertThat(code).contains("graph9.putAction(R.id.global_settings, action10);")
+        assertThat(code).contains("return graph9;")
+    }
+
+    @Test
+    fun testUnsupportedGraphIsInflated() {
+        val graph = NavGraphParser.parseNavigationFile(
+            testData("precompiled_graph_unsupported_test.xml"), "a.b", Context())
+        assertThat(graph).isNull()
+
+        val code = generateCode("precompiled_graph_unsupported_test")
+        assertThat(code).contains("return new NavInflater(context, navigatorProvider)" +
+                ".inflate(R.navigation.precompiled_graph_unsupported_test);")
+    }
+
+    @Test
+    fun testGeneratorOutput() {
+        val output = SafeArgsGenerator(
+            rFilePackage = "a.b",
+            applicationId = "a.b",
+            navigationXml = testData("precompiled_graph_test.xml"),
+            outputDir = workingDir.root,
+            generateKotlin = true,
+            precompileGraph = true
+        ).generate()
+        assertThat(output.errors).isEmpty()
+        assertThat(output.fileNames).contains("a.b.PrecompiledGraphTestPrecompiled")
+    }
+}
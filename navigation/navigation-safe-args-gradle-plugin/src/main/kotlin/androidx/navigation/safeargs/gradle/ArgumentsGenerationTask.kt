@@ -47,6 +47,13 @@ open class ArgumentsGenerationTask : DefaultTask() {
     @get:Input
     var generateKotlin: Boolean = false
 
+    /**
+     * Whether to also generate the classes building each navigation graph without inflating
+     * its XML. They are always Java.
+     */
+    @get:Input
+    var precompileGraphs: Boolean = false
+
     @get:OutputDirectory
     lateinit var outputDir: File
 
@@ -71,7 +78,8 @@ open class ArgumentsGenerationTask : DefaultTask() {
             navigationXml = file,
             outputDir = out,
             useAndroidX = useAndroidX,
-            generateKotlin = generateKotlin).generate()
+            generateKotlin = generateKotlin,
+            precompileGraph = precompileGraphs).generate()
         Mapping(file.relativeTo(project.projectDir).path, output.fileNames) to output.errors
     }.unzip().let { (mappings, errorLists) -> mappings to errorLists.flatten() }
 
@@ -127,12 +135,14 @@ open class ArgumentsGenerationTask : DefaultTask() {
         modified.flatMap { it.javaFiles }
                 .filter { name -> name !in newJavaFiles }
                 .forEach { javaName ->
-                    val fileExtension = if (generateKotlin) { ".kt" } else { ".java" }
-                    val fileName =
-                        "${javaName.replace('.', File.separatorChar)}$fileExtension"
-                    val file = File(outputDir, fileName)
-                    if (file.exists()) {
-                        file.delete()
+                    // precompiled graphs are Java even when generating Kotlin
+                    listOf(".kt", ".java").forEach { fileExtension ->
+                        val fileName =
+                            "${javaName.replace('.', File.separatorChar)}$fileExtension"
+                        val file = File(outputDir, fileName)
+                        if (file.exists()) {
+                            file.delete()
+                        }
                     }
                 }
         writeMappings(unmodified + newMapping)
@@ -33,6 +33,7 @@ import javax.inject.Inject
 private const val PLUGIN_DIRNAME = "navigation-args"
 internal const val GENERATED_PATH = "generated/source/$PLUGIN_DIRNAME"
 internal const val INCREMENTAL_PATH = "intermediates/incremental"
+private const val PRECOMPILE_GRAPHS_PROPERTY = "androidx.navigation.safeargs.precompileGraphs"
 
 abstract class SafeArgsPlugin protected constructor(
     val providerFactory: ProviderFactory
@@ -81,6 +82,7 @@ abstract class SafeArgsPlugin protected constructor(
                     }
                 }
                 task.generateKotlin = generateKotlin
+                task.precompileGraphs = project.findProperty(PRECOMPILE_GRAPHS_PROPERTY) == "true"
             }
             task.applicationIdResource?.let { task.dependsOn(it) }
             variant.registerJavaGeneratingTask(task, task.outputDir)
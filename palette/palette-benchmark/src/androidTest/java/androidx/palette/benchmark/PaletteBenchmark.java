@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.palette.graphics.Palette;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares generating palettes from a scaled down copy of a bitmap, which is the default, with
+ * sampling the bitmap directly.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PaletteBenchmark {
+
+    private static final int BITMAP_SIZE = 512;
+    private static final int GRID_SIZE = 16;
+    private static final int SAMPLE_AREA = 112 * 112;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Bitmap mBitmap = createBitmap(BITMAP_SIZE, 0);
+    private final List<Bitmap> mGrid = new ArrayList<>();
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setup() {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            mGrid.add(createBitmap(BITMAP_SIZE / 2, i));
+        }
+        mExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @After
+    public void teardown() {
+        mExecutor.shutdown();
+    }
+
+    @Test
+    public void generateResized() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap).generate();
+        }
+    }
+
+    @Test
+    public void generateSampled() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap).sampleBitmapArea(SAMPLE_AREA).generate();
+        }
+    }
+
+    @Test
+    public void generateGridResized() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (Bitmap bitmap : mGrid) {
+                Palette.from(bitmap).generate();
+            }
+        }
+    }
+
+    @Test
+    public void generateGridSampledParallel() throws ExecutionException, InterruptedException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        final List<Future<Palette>> futures = new ArrayList<>(mGrid.size());
+        final Palette.PaletteAsyncListener listener = new Palette.PaletteAsyncListener() {
+            @Override
+            public void onGenerated(Palette palette) {
+            }
+        };
+        while (state.keepRunning()) {
+            futures.clear();
+            for (Bitmap bitmap : mGrid) {
+                futures.add(Palette.from(bitmap).sampleBitmapArea(SAMPLE_AREA)
+                        .generate(mExecutor, listener));
+            }
+            for (Future<Palette> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    /**
+     * Creates a bitmap with a few color gradients and some noise, so that the quantizer has to
+     * split boxes like it would for a photo.
+     */
+    private static Bitmap createBitmap(int size, int seed) {
+        final Random random = new Random(seed);
+        final int[] pixels = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final int noise = random.nextInt(32);
+                pixels[y * size + x] = Color.rgb(
+                        (x * 255 / size + noise) & 0xFF,
+                        (y * 255 / size + seed * 16) & 0xFF,
+                        ((x + y) * 127 / size + noise) & 0xFF);
+            }
+        }
+        return Bitmap.createBitmap(pixels, size, size, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static androidx.palette.graphics.TestUtils.assertCloseColors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(AndroidJUnit4.class)
+public class SampleBitmapTest {
+
+    @Test
+    @SmallTest
+    public void testSampleAllPixels_sameAsNotResized() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette notResized = Palette.from(bitmap).resizeBitmapArea(0).generate();
+        // A sample area that covers the whole bitmap reads every pixel
+        final Palette sampled = Palette.from(bitmap)
+                .sampleBitmapArea(bitmap.getWidth() * bitmap.getHeight())
+                .generate();
+        assertEquals(notResized.getSwatches(), sampled.getSwatches());
+    }
+
+    @Test
+    @SmallTest
+    public void testSampledConsistency() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette first = Palette.from(bitmap).sampleBitmapArea(4096).generate();
+        for (int i = 0; i < 5; i++) {
+            final Palette palette = Palette.from(bitmap).sampleBitmapArea(4096).generate();
+            assertEquals(first.getSwatches(), palette.getSwatches());
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testSampledRegion() {
+        // Left half red, right half blue
+        final Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 100; x++) {
+                bitmap.setPixel(x, y, x < 50 ? Color.RED : Color.BLUE);
+            }
+        }
+
+        final Palette palette = Palette.from(bitmap)
+                .clearFilters()
+                .sampleBitmapArea(100)
+                .setRegion(50, 0, 100, 100)
+                .generate();
+        assertEquals(1, palette.getSwatches().size());
+        assertCloseColors(Color.BLUE, palette.getSwatches().get(0).getRgb());
+    }
+
+    @Test
+    @SmallTest
+    public void testSampledMaxColorCount() {
+        final Palette palette = Palette.from(TestUtils.loadSampleBitmap())
+                .sampleBitmapArea(4096)
+                .maximumColorCount(8)
+                .generate();
+        assertTrue(palette.getSwatches().size() <= 8);
+    }
+
+    @Test
+    @MediumTest
+    public void testGenerateOnExecutor() throws InterruptedException {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Palette expected = Palette.from(bitmap).generate();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final AtomicReference<Palette> result = new AtomicReference<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                Palette.from(bitmap).generate(executor, new Palette.PaletteAsyncListener() {
+                    @Override
+                    public void onGenerated(Palette palette) {
+                        result.set(palette);
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(expected.getSwatches(), result.get().getSwatches());
+    }
+}
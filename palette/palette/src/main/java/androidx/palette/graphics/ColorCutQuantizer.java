@@ -54,8 +54,6 @@ final class ColorCutQuantizer {
     private static final int QUANTIZE_WORD_WIDTH = 5;
     private static final int QUANTIZE_WORD_MASK = (1 << QUANTIZE_WORD_WIDTH) - 1;
 
-    final int[] mColors;
-    final int[] mHistogram;
     final List<Palette.Swatch> mQuantizedColors;
     @Nullable final TimingLogger mTimingLogger;
     @Nullable final Palette.Filter[] mFilters;
@@ -69,25 +67,47 @@ final class ColorCutQuantizer {
      * @param maxColors The maximum number of colors that should be in the result palette.
      * @param filters Set of filters to use in the quantization stage
      */
-    @SuppressWarnings("NullAway") // mTimingLogger initialization and access guarded by LOG_TIMINGS.
     ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters) {
-        mTimingLogger = LOG_TIMINGS ? new TimingLogger(LOG_TAG, "Creation") : null;
+        final Buffers buffers = Buffers.obtain();
+        try {
+            final int[] hist = buffers.mHistogram;
+            for (int i = 0; i < pixels.length; i++) {
+                hist[quantizeFromRgb888(pixels[i])]++;
+            }
+            mFilters = filters;
+            mTimingLogger = LOG_TIMINGS ? new TimingLogger(LOG_TAG, "Creation") : null;
+            mQuantizedColors = quantize(buffers, maxColors);
+        } finally {
+            buffers.release();
+        }
+    }
+
+    /**
+     * Constructor for a histogram that was already built, for example by sampling a bitmap.
+     * The buffers are only used during construction and can be released afterwards.
+     *
+     * @param buffers buffers with {@link Buffers#mHistogram} filled using
+     *                {@link #quantizeFromRgb888(int)}
+     * @param maxColors The maximum number of colors that should be in the result palette.
+     * @param filters Set of filters to use in the quantization stage
+     */
+    ColorCutQuantizer(Buffers buffers, int maxColors, @Nullable Palette.Filter[] filters) {
         mFilters = filters;
+        mTimingLogger = LOG_TIMINGS ? new TimingLogger(LOG_TAG, "Creation") : null;
+        mQuantizedColors = quantize(buffers, maxColors);
+    }
 
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
-        }
+    @SuppressWarnings("NullAway") // mTimingLogger initialization and access guarded by LOG_TIMINGS.
+    private List<Palette.Swatch> quantize(Buffers buffers, int maxColors) {
+        final int[] hist = buffers.mHistogram;
 
         if (LOG_TIMINGS) {
             mTimingLogger.addSplit("Histogram created");
         }
 
-        // Now let's count the number of distinct colors
+        // Now let's count the number of distinct colors and go through create an array
+        // consisting of only distinct colors
+        final int[] colors = buffers.mColors;
         int distinctColorCount = 0;
         for (int color = 0; color < hist.length; color++) {
             if (hist[color] > 0 && shouldIgnoreColor(color)) {
@@ -95,33 +115,22 @@ final class ColorCutQuantizer {
                 hist[color] = 0;
             }
             if (hist[color] > 0) {
-                // If the color has population, increase the distinct color count
-                distinctColorCount++;
+                // If the color has population, add it to the distinct colors
+                colors[distinctColorCount++] = color;
             }
         }
 
         if (LOG_TIMINGS) {
-            mTimingLogger.addSplit("Filtered colors and distinct colors counted");
-        }
-
-        // Now lets go through create an array consisting of only distinct colors
-        final int[] colors = mColors = new int[distinctColorCount];
-        int distinctColorIndex = 0;
-        for (int color = 0; color < hist.length; color++) {
-            if (hist[color] > 0) {
-                colors[distinctColorIndex++] = color;
-            }
-        }
-
-        if (LOG_TIMINGS) {
-            mTimingLogger.addSplit("Distinct colors copied into array");
+            mTimingLogger.addSplit("Filtered colors and distinct colors copied into array");
         }
 
+        final List<Palette.Swatch> quantizedColors;
         if (distinctColorCount <= maxColors) {
             // The image has fewer colors than the maximum requested, so just return the colors
-            mQuantizedColors = new ArrayList<>();
-            for (int color : colors) {
-                mQuantizedColors.add(new Palette.Swatch(approximateToRgb888(color), hist[color]));
+            quantizedColors = new ArrayList<>();
+            for (int i = 0; i < distinctColorCount; i++) {
+                final int color = colors[i];
+                quantizedColors.add(new Palette.Swatch(approximateToRgb888(color), hist[color]));
             }
 
             if (LOG_TIMINGS) {
@@ -130,13 +139,14 @@ final class ColorCutQuantizer {
             }
         } else {
             // We need use quantization to reduce the number of colors
-            mQuantizedColors = quantizePixels(maxColors);
+            quantizedColors = quantizePixels(buffers, distinctColorCount, maxColors);
 
             if (LOG_TIMINGS) {
                 mTimingLogger.addSplit("Quantized colors computed");
                 mTimingLogger.dumpToLog();
             }
         }
+        return quantizedColors;
     }
 
     /**
@@ -146,13 +156,13 @@ final class ColorCutQuantizer {
         return mQuantizedColors;
     }
 
-    private List<Palette.Swatch> quantizePixels(int maxColors) {
-        // Create the priority queue which is sorted by volume descending. This means we always
-        // split the largest box in the queue
-        final PriorityQueue<Vbox> pq = new PriorityQueue<>(maxColors, VBOX_COMPARATOR_VOLUME);
+    private List<Palette.Swatch> quantizePixels(Buffers buffers, int colorCount, int maxColors) {
+        // The priority queue is sorted by volume descending. This means we always split the
+        // largest box in the queue
+        final PriorityQueue<Vbox> pq = buffers.mQueue;
 
         // To start, offer a box which contains all of the colors
-        pq.offer(new Vbox(0, mColors.length - 1));
+        pq.offer(buffers.obtainVbox(0, colorCount - 1));
 
         // Now go through the boxes, splitting them until we have reached maxColors or there are no
         // more boxes to split
@@ -211,7 +221,9 @@ final class ColorCutQuantizer {
     /**
      * Represents a tightly fitting box around a color space.
      */
-    private class Vbox {
+    static final class Vbox {
+        private final Buffers mBuffers;
+
         // lower and upper index are inclusive
         private int mLowerIndex;
         private int mUpperIndex;
@@ -222,7 +234,11 @@ final class ColorCutQuantizer {
         private int mMinGreen, mMaxGreen;
         private int mMinBlue, mMaxBlue;
 
-        Vbox(int lowerIndex, int upperIndex) {
+        Vbox(Buffers buffers) {
+            mBuffers = buffers;
+        }
+
+        void set(int lowerIndex, int upperIndex) {
             mLowerIndex = lowerIndex;
             mUpperIndex = upperIndex;
             fitBox();
@@ -245,8 +261,8 @@ final class ColorCutQuantizer {
          * Recomputes the boundaries of this box to tightly fit the colors within the box.
          */
         final void fitBox() {
-            final int[] colors = mColors;
-            final int[] hist = mHistogram;
+            final int[] colors = mBuffers.mColors;
+            final int[] hist = mBuffers.mHistogram;
 
             // Reset the min and max to opposite values
             int minRed, minGreen, minBlue;
@@ -304,7 +320,7 @@ final class ColorCutQuantizer {
             // find median along the longest dimension
             final int splitPoint = findSplitPoint();
 
-            Vbox newBox = new Vbox(splitPoint + 1, mUpperIndex);
+            Vbox newBox = mBuffers.obtainVbox(splitPoint + 1, mUpperIndex);
 
             // Now change this box's upperIndex and recompute the color boundaries
             mUpperIndex = splitPoint;
@@ -341,8 +357,8 @@ final class ColorCutQuantizer {
          */
         final int findSplitPoint() {
             final int longestDimension = getLongestColorDimension();
-            final int[] colors = mColors;
-            final int[] hist = mHistogram;
+            final int[] colors = mBuffers.mColors;
+            final int[] hist = mBuffers.mHistogram;
 
             // We need to sort the colors in this box based on the longest color dimension.
             // As we can't use a Comparator to define the sort logic, we modify each color so that
@@ -372,8 +388,8 @@ final class ColorCutQuantizer {
          * @return the average color of this box.
          */
         final Palette.Swatch getAverageColor() {
-            final int[] colors = mColors;
-            final int[] hist = mHistogram;
+            final int[] colors = mBuffers.mColors;
+            final int[] hist = mBuffers.mHistogram;
             int redSum = 0;
             int greenSum = 0;
             int blueSum = 0;
@@ -451,6 +467,80 @@ final class ColorCutQuantizer {
         return false;
     }
 
+    /**
+     * Histogram, color and {@link Vbox} buffers used while quantizing. Instances are pooled so
+     * that generating many palettes does not allocate the 32k entry arrays for every bitmap.
+     */
+    static final class Buffers {
+        private static final int MAX_POOL_SIZE = 4;
+        private static final Buffers[] sPool = new Buffers[MAX_POOL_SIZE];
+        private static int sPoolSize;
+
+        final int[] mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
+        final int[] mColors = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
+        final PriorityQueue<Vbox> mQueue =
+                new PriorityQueue<>(Palette.DEFAULT_CALCULATE_NUMBER_COLORS,
+                        VBOX_COMPARATOR_VOLUME);
+        private final ArrayList<Vbox> mVboxes = new ArrayList<>();
+        private int mVboxCount;
+        private int[] mRow = new int[0];
+
+        private Buffers() {
+        }
+
+        /**
+         * Returns buffers with an empty histogram from the pool, or new buffers if the pool is
+         * empty. Call {@link #release()} once the quantizer has been created.
+         */
+        static Buffers obtain() {
+            synchronized (sPool) {
+                if (sPoolSize > 0) {
+                    final Buffers buffers = sPool[--sPoolSize];
+                    sPool[sPoolSize] = null;
+                    return buffers;
+                }
+            }
+            return new Buffers();
+        }
+
+        /**
+         * Clears the buffers and returns them to the pool.
+         */
+        void release() {
+            Arrays.fill(mHistogram, 0);
+            mQueue.clear();
+            mVboxCount = 0;
+            synchronized (sPool) {
+                if (sPoolSize < MAX_POOL_SIZE) {
+                    sPool[sPoolSize++] = this;
+                }
+            }
+        }
+
+        /**
+         * @return a row buffer of at least {@code width} pixels
+         */
+        int[] getRow(int width) {
+            if (mRow.length < width) {
+                mRow = new int[width];
+            }
+            return mRow;
+        }
+
+        Vbox obtainVbox(int lowerIndex, int upperIndex) {
+            final Vbox vbox;
+            if (mVboxCount < mVboxes.size()) {
+                vbox = mVboxes.get(mVboxCount);
+            } else {
+                vbox = new Vbox(this);
+                mVboxes.add(vbox);
+            }
+            mVboxCount++;
+            vbox.set(lowerIndex, upperIndex);
+            return vbox;
+        }
+    }
+
     /**
      * Comparator which sorts {@link Vbox} instances based on their volume, in descending order
      */
@@ -464,7 +554,7 @@ final class ColorCutQuantizer {
     /**
      * Quantized a RGB888 value to have a word width of {@value #QUANTIZE_WORD_WIDTH}.
      */
-    private static int quantizeFromRgb888(int color) {
+    static int quantizeFromRgb888(int color) {
         int r = modifyWordWidth(Color.red(color), 8, QUANTIZE_WORD_WIDTH);
         int g = modifyWordWidth(Color.green(color), 8, QUANTIZE_WORD_WIDTH);
         int b = modifyWordWidth(Color.blue(color), 8, QUANTIZE_WORD_WIDTH);
@@ -20,6 +20,8 @@ import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.Rect;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.util.SparseBooleanArray;
 import android.util.TimingLogger;
@@ -35,6 +37,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -598,6 +605,7 @@ public final class Palette {
         private int mMaxColors = DEFAULT_CALCULATE_NUMBER_COLORS;
         private int mResizeArea = DEFAULT_RESIZE_BITMAP_AREA;
         private int mResizeMaxDimension = -1;
+        private int mSampleArea = -1;
 
         private final List<Filter> mFilters = new ArrayList<>();
         @Nullable private Rect mRegion;
@@ -666,6 +674,7 @@ public final class Palette {
         public Builder resizeBitmapSize(final int maxDimension) {
             mResizeMaxDimension = maxDimension;
             mResizeArea = -1;
+            mSampleArea = -1;
             return this;
         }
 
@@ -686,6 +695,37 @@ public final class Palette {
         public Builder resizeBitmapArea(final int area) {
             mResizeArea = area;
             mResizeMaxDimension = -1;
+            mSampleArea = -1;
+            return this;
+        }
+
+        /**
+         * Sample the pixels of a {@link android.graphics.Bitmap} source instead of resizing it.
+         * If the bitmap's area (or the area of the region set via
+         * {@link #setRegion(int, int, int, int)}) is greater than the value specified, the
+         * palette is calculated from roughly {@code area} pixels that are read on a regular
+         * grid directly from the bitmap. Unlike {@link #resizeBitmapArea(int)} no scaled copy of
+         * the bitmap is created, which makes generating palettes for many bitmaps, such as the
+         * thumbnails of a grid, considerably cheaper. Since pixels are skipped instead of
+         * filtered, small details may have less effect on the result.
+         * <p>
+         * Calling {@link #resizeBitmapArea(int)} or {@link #resizeBitmapSize(int)} disables
+         * sampling again.
+         *
+         * @param area the number of pixels that should be sampled, or any value <= 0 to use
+         *             the default resizing instead.
+         */
+        @NonNull
+        public Builder sampleBitmapArea(final int area) {
+            if (area > 0) {
+                mSampleArea = area;
+                mResizeArea = -1;
+                mResizeMaxDimension = -1;
+            } else {
+                mSampleArea = -1;
+                mResizeArea = DEFAULT_RESIZE_BITMAP_AREA;
+                mResizeMaxDimension = -1;
+            }
             return this;
         }
 
@@ -782,7 +822,28 @@ public final class Palette {
 
             List<Swatch> swatches;
 
-            if (mBitmap != null) {
+            if (mBitmap != null && mSampleArea > 0) {
+                // Build the histogram from a grid of pixels read directly from the Bitmap
+                final ColorCutQuantizer.Buffers buffers = ColorCutQuantizer.Buffers.obtain();
+                try {
+                    sampleBitmap(mBitmap, buffers);
+
+                    if (logger != null) {
+                        logger.addSplit("Sampled Bitmap");
+                    }
+
+                    swatches = new ColorCutQuantizer(buffers, mMaxColors,
+                            mFilters.isEmpty() ? null
+                                    : mFilters.toArray(new Filter[mFilters.size()]))
+                            .getQuantizedColors();
+                } finally {
+                    buffers.release();
+                }
+
+                if (logger != null) {
+                    logger.addSplit("Color quantization completed");
+                }
+            } else if (mBitmap != null) {
                 // We have a Bitmap so we need to use quantization to reduce the number of colors
 
                 // First we'll scale down the bitmap if needed
@@ -873,6 +934,83 @@ public final class Palette {
             }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, mBitmap);
         }
 
+        /**
+         * Generate the {@link Palette} on {@code executor}. The provided listener's
+         * {@link PaletteAsyncListener#onGenerated} method will be called on the main thread with
+         * the palette when generated, unless the returned {@link Future} was cancelled before.
+         * <p>
+         * Use this to generate palettes for many bitmaps in parallel, for example with a thread
+         * pool that has as many threads as there are CPU cores.
+         */
+        @NonNull
+        public Future<Palette> generate(@NonNull final Executor executor,
+                @NonNull final PaletteAsyncListener listener) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor can not be null");
+            }
+            if (listener == null) {
+                throw new IllegalArgumentException("listener can not be null");
+            }
+
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            final FutureTask<Palette> task = new FutureTask<Palette>(new Callable<Palette>() {
+                @Override
+                public Palette call() {
+                    return generate();
+                }
+            }) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    Palette palette = null;
+                    try {
+                        palette = get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        Log.e(LOG_TAG, "Exception thrown during async generate", e.getCause());
+                    }
+                    final Palette result = palette;
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!isCancelled()) {
+                                listener.onGenerated(result);
+                            }
+                        }
+                    });
+                }
+            };
+            executor.execute(task);
+            return task;
+        }
+
+        /**
+         * Adds roughly {@link #mSampleArea} pixels of the bitmap, or of the region if set, to the
+         * histogram in {@code buffers}. Pixels are read one row at a time, taking every
+         * {@code step}th pixel of every {@code step}th row.
+         */
+        private void sampleBitmap(Bitmap bitmap, ColorCutQuantizer.Buffers buffers) {
+            final int left = mRegion != null ? mRegion.left : 0;
+            final int top = mRegion != null ? mRegion.top : 0;
+            final int width = mRegion != null ? mRegion.width() : bitmap.getWidth();
+            final int height = mRegion != null ? mRegion.height() : bitmap.getHeight();
+
+            final int step = Math.max(1, (int) Math.sqrt(width * (double) height / mSampleArea));
+            // Center the sampling grid
+            final int offset = step / 2;
+            final int[] row = buffers.getRow(width);
+            final int[] hist = buffers.mHistogram;
+            for (int y = top + Math.min(offset, height - 1); y < top + height; y += step) {
+                bitmap.getPixels(row, 0, width, left, y, width, 1);
+                for (int x = Math.min(offset, width - 1); x < width; x += step) {
+                    hist[ColorCutQuantizer.quantizeFromRgb888(row[x])]++;
+                }
+            }
+        }
+
         private int[] getPixelsFromBitmap(Bitmap bitmap) {
             final int bitmapWidth = bitmap.getWidth();
             final int bitmapHeight = bitmap.getHeight();
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AdaptiveRecycledViewPoolTest {
+
+    private Context getContext() {
+        return ApplicationProvider.getApplicationContext();
+    }
+
+    private RecyclerView.ViewHolder makeHolder(int viewType) {
+        RecyclerView.ViewHolder holder = new RecyclerView.ViewHolder(new View(getContext())) {};
+        holder.mItemViewType = viewType;
+        return holder;
+    }
+
+    private static AdaptiveRecycledViewPool.TypeStats getStats(AdaptiveRecycledViewPool pool,
+            int viewType) {
+        List<AdaptiveRecycledViewPool.TypeStats> stats = pool.getStats();
+        for (AdaptiveRecycledViewPool.TypeStats typeStats : stats) {
+            if (typeStats.getViewType() == viewType) {
+                return typeStats;
+            }
+        }
+        throw new AssertionError("No stats for view type " + viewType);
+    }
+
+    @Test
+    public void statsCountHitsMissesAndDiscards() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.setMaxRecycledViewsLimit(1);
+        pool.setMaxRecycledViews(0, 1);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+
+        assertNotNull(pool.getRecycledView(0));
+        assertNull(pool.getRecycledView(0));
+
+        AdaptiveRecycledViewPool.TypeStats stats = getStats(pool, 0);
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getDiscardCount());
+        assertEquals(0, stats.getRecycledViewCount());
+        assertEquals(1, stats.getMaxRecycledViews());
+
+        pool.resetStats();
+        stats = getStats(pool, 0);
+        assertEquals(0, stats.getHitCount());
+        assertEquals(0, stats.getMissCount());
+        assertEquals(0, stats.getDiscardCount());
+    }
+
+    @Test
+    public void growsAfterDiscardAndMiss() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.setMaxRecycledViews(0, 1);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0)); // discarded
+
+        assertNotNull(pool.getRecycledView(0));
+        assertNull(pool.getRecycledView(0));
+        assertEquals(2, pool.getMaxRecycledViews(0));
+
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+        assertEquals(2, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void doesNotGrowForCheapViews() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.setMaxRecycledViews(0, 1);
+        pool.factorInCreateTime(0, 100);
+        pool.factorInBindTime(0, 1000);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+
+        assertNotNull(pool.getRecycledView(0));
+        assertNull(pool.getRecycledView(0));
+        assertEquals(1, pool.getMaxRecycledViews(0));
+    }
+
+    @Test
+    public void shrinksBackWhenUnused() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.setMaxRecycledViews(0, 1);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+        pool.getRecycledView(0);
+        pool.getRecycledView(0);
+        pool.putRecycledView(makeHolder(0));
+        pool.putRecycledView(makeHolder(0));
+        assertEquals(2, pool.getMaxRecycledViews(0));
+
+        // only ever one of the two pooled views is used
+        for (int i = 0; i < 64; i++) {
+            pool.putRecycledView(pool.getRecycledView(0));
+        }
+        assertEquals(1, pool.getMaxRecycledViews(0));
+        assertEquals(1, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void clearsViewsWhenIncompatibleAdapterChanges() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.putRecycledView(makeHolder(1));
+
+        pool.attach();
+        pool.onAdapterChanged(new TestAdapter(), null, false);
+
+        assertEquals(0, pool.getRecycledViewCount(1));
+    }
+
+    @Test
+    public void keepsViewsWhenCompatibleAdapterChanges() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.putRecycledView(makeHolder(1));
+
+        pool.attach();
+        pool.onAdapterChanged(new TestAdapter(), new TestAdapter(), true);
+
+        assertEquals(1, pool.getRecycledViewCount(1));
+    }
+
+    @Test
+    public void keepsViewsAcrossAdaptersWhenEnabled() {
+        AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        pool.setKeepViewsAcrossAdapters(true);
+        pool.putRecycledView(makeHolder(1));
+
+        pool.attach();
+        pool.onAdapterChanged(new TestAdapter(), null, false);
+
+        assertEquals(1, pool.getRecycledViewCount(1));
+    }
+
+    @Test
+    public void warmUp() throws Exception {
+        warmUp(false);
+    }
+
+    @Test
+    public void warmUpThreadSafe() throws Exception {
+        warmUp(true);
+    }
+
+    private void warmUp(boolean threadSafe) throws Exception {
+        final AdaptiveRecycledViewPool pool = new AdaptiveRecycledViewPool();
+        final TestAdapter adapter = new TestAdapter();
+        adapter.setHasThreadSafeViewHolderCreation(threadSafe);
+        final ViewGroup parent = new FrameLayout(getContext());
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pool.warmUp(parent, adapter, 2, 7);
+            }
+        });
+        assertTrue(adapter.mCreated.await(2, TimeUnit.SECONDS));
+
+        long timeoutMs = SystemClock.uptimeMillis() + 2000;
+        while (pool.getRecycledViewCount(2) < 7 && SystemClock.uptimeMillis() < timeoutMs) {
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        }
+        assertEquals(7, pool.getRecycledViewCount(2));
+        assertEquals(7, pool.getMaxRecycledViews(2));
+        assertEquals(7, getStats(pool, 2).getWarmUpCount());
+    }
+
+    private class TestAdapter extends RecyclerView.Adapter {
+        final CountDownLatch mCreated = new CountDownLatch(7);
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            mCreated.countDown();
+            return new RecyclerView.ViewHolder(new View(getContext())) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+}
@@ -345,6 +345,60 @@ class AsyncListDifferTest {
         verifyNoMoreInteractions(listener)
     }
 
+    @Test
+    fun staleDiffCanceled() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = AsyncListDiffer(callback,
+                AsyncDifferConfig.Builder(object : DiffUtil.ItemCallback<String>() {
+                    override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                        if (newItem.startsWith("x")) {
+                            fail("diff of a stale list should be canceled")
+                        }
+                        return oldItem[0] == newItem[0]
+                    }
+
+                    override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                        return oldItem == newItem
+                    }
+                })
+                        .setMainThreadExecutor(mMainThread)
+                        .setBackgroundThreadExecutor(mBackgroundThread)
+                        .build())
+
+        differ.submitList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+
+        // stale update, replaced before its diff gets to run
+        differ.submitList(listOf("x", "y"))
+        differ.submitList(listOf("a", "b", "c"))
+        drain()
+        verify(callback).onInserted(2, 1)
+        verifyNoMoreInteractions(callback)
+        assertEquals(listOf("a", "b", "c"), differ.currentList)
+    }
+
+    @Test
+    fun keyedItemCallback() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = AsyncListDiffer(callback,
+                AsyncDifferConfig.Builder(KEYED_STRING_DIFF_CALLBACK)
+                        .setMainThreadExecutor(mMainThread)
+                        .setBackgroundThreadExecutor(mBackgroundThread)
+                        .build())
+
+        differ.submitList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+        verifyNoMoreInteractions(callback)
+
+        differ.submitList(listOf("b", "alpha", "c"))
+        drain()
+        verify(callback).onInserted(2, 1)
+        verify(callback).onMoved(0, 1)
+        verify(callback).onChanged(1, 1, "lpha")
+        verifyNoMoreInteractions(callback)
+        assertEquals(listOf("b", "alpha", "c"), differ.currentList)
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -373,6 +427,21 @@ class AsyncListDifferTest {
             }
         }
 
+        private val KEYED_STRING_DIFF_CALLBACK = object : DiffUtil.KeyedItemCallback<String>() {
+            override fun getItemKey(item: String): Any {
+                // items are the same if first char is the same
+                return item[0]
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+            }
+
+            override fun getChangePayload(oldItem: String, newItem: String): Any? {
+                return STRING_DIFF_CALLBACK.getChangePayload(oldItem, newItem)
+            }
+        }
+
         private val IGNORE_CALLBACK = object : ListUpdateCallback {
             override fun onInserted(position: Int, count: Int) {}
 
@@ -48,6 +48,7 @@ import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.MediumTest;
 import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
 
 import org.junit.After;
 import org.junit.Before;
@@ -59,6 +60,7 @@ import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 @MediumTest
@@ -522,6 +524,123 @@ public class RecyclerViewCacheTest {
         assertEquals(RecyclerView.NO_POSITION, pooledHolder.getAdapterPosition());
     }
 
+    @Test
+    public void prefetchListenerReportsHitsAndMisses() {
+        mRecyclerView.setLayoutManager(new GridLayoutManager(getContext(), 3));
+
+        // 100x100 pixel views
+        RecyclerView.Adapter adapter = new RecyclerView.Adapter() {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(
+                    @NonNull ViewGroup parent, int viewType) {
+                mRecyclerView.registerTimePassingMs(5);
+                View view = new View(getContext());
+                view.setMinimumWidth(100);
+                view.setMinimumHeight(100);
+                return new RecyclerView.ViewHolder(view) {};
+            }
+
+            @Override
+            public void onBindViewHolder(
+                    @NonNull RecyclerView.ViewHolder holder, int position) {
+                mRecyclerView.registerTimePassingMs(5);
+            }
+
+            @Override
+            public int getItemCount() {
+                return 100;
+            }
+        };
+        mRecyclerView.setAdapter(adapter);
+        final int[] results = new int[3];
+        mRecyclerView.setOnPrefetchListener(new RecyclerView.OnPrefetchListener() {
+            @Override
+            public void onPrefetchFinished(@NonNull RecyclerView recyclerView, int hitCount,
+                    int missCount) {
+                assertSame(mRecyclerView, recyclerView);
+                results[0]++;
+                results[1] = hitCount;
+                results[2] = missCount;
+            }
+        });
+
+        layout(300, 300);
+
+        // offset scroll so that no prefetch-able views are directly adjacent to viewport
+        mRecyclerView.scrollBy(0, 50);
+
+        // enough time to inflate/bind one view, and inflate another
+        final long deadlineNs = mRecyclerView.getNanoTime() + TimeUnit.MILLISECONDS.toNanos(19);
+        mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 1);
+        mRecyclerView.mGapWorker.prefetch(deadlineNs);
+        assertEquals(1, results[0]);
+        assertEquals(1, results[1]);
+        assertEquals(2, results[2]);
+
+        // counts are per pass, so cached item now counts as a hit as well
+        mRecyclerView.mGapWorker.prefetch(RecyclerView.FOREVER_NS);
+        assertEquals(2, results[0]);
+        assertEquals(3, results[1]);
+        assertEquals(0, results[2]);
+    }
+
+    @Test
+    public void prefetchCreatesThreadSafeViewHoldersInBackground() throws Exception {
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+
+        final Thread testThread = Thread.currentThread();
+        final CountDownLatch createdInBackground = new CountDownLatch(1);
+        RecyclerView.Adapter adapter = new RecyclerView.Adapter() {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(
+                    @NonNull ViewGroup parent, int viewType) {
+                if (Thread.currentThread() != testThread) {
+                    createdInBackground.countDown();
+                }
+                View view = new View(getContext());
+                view.setMinimumWidth(100);
+                view.setMinimumHeight(100);
+                return new RecyclerView.ViewHolder(view) {};
+            }
+
+            @Override
+            public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            }
+
+            @Override
+            public int getItemCount() {
+                return 100;
+            }
+        };
+        adapter.setHasThreadSafeViewHolderCreation(true);
+        mRecyclerView.setAdapter(adapter);
+
+        layout(100, 300);
+        mRecyclerView.scrollBy(0, 50);
+
+        // creating a view is known to take 5ms, so it can't be done in 4ms on the UI thread
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        pool.factorInCreateTime(0, TimeUnit.MILLISECONDS.toNanos(5));
+        final long deadlineNs = mRecyclerView.getNanoTime() + TimeUnit.MILLISECONDS.toNanos(4);
+        mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 1);
+        mRecyclerView.mGapWorker.prefetch(deadlineNs);
+
+        assertEquals(0, mRecycler.mCachedViews.size());
+        assertTrue(createdInBackground.await(2, TimeUnit.SECONDS));
+
+        // the view is delivered to the pool on the main thread
+        long timeoutMs = SystemClock.uptimeMillis() + 2000;
+        while (pool.getRecycledViewCount(0) == 0 && SystemClock.uptimeMillis() < timeoutMs) {
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        }
+        assertEquals(1, pool.getRecycledViewCount(0));
+
+        // which the next pass binds in time
+        mRecyclerView.mGapWorker.prefetch(deadlineNs);
+        assertEquals(0, pool.getRecycledViewCount(0));
+        CacheUtils.verifyCacheContainsPrefetchedPositions(mRecyclerView, 4);
+    }
+
     @Test
     public void prefetchStaggeredItemsPriority() {
         StaggeredGridLayoutManager sglm =
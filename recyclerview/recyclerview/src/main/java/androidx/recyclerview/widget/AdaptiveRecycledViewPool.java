@@ -0,0 +1,499 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} meant to be shared by the RecyclerViews of multiple
+ * screens, e.g. the fragments of an activity, that sizes itself from how it is used.
+ * <p>
+ * Views can be created ahead of time through
+ * {@link #warmUp(ViewGroup, RecyclerView.Adapter, int, int)}. Like the default pool, it is cleared
+ * when the last RecyclerView using it switches to an adapter that is not compatible with the
+ * previous one, unless {@link #setKeepViewsAcrossAdapters(boolean)} is enabled so that a screen
+ * can be set up with views left behind by a previous one.
+ * <p>
+ * The number of ViewHolders kept per view type starts at the value passed to
+ * {@link #setMaxRecycledViews(int, int)}. It grows by one every time a ViewHolder of the type is
+ * requested but missing while others of the type have been discarded for lack of space, as long
+ * as creating a ViewHolder of the type takes longer than binding one. It shrinks back once the
+ * extra ViewHolders stay unused for a while. It never grows beyond
+ * {@link #setMaxRecycledViewsLimit(int) the limit}.
+ * <p>
+ * Usage statistics per view type are available through {@link #getStats()}, e.g. to monitor hit
+ * rates in production.
+ * <p>
+ * Pooled ViewHolders keep a reference to the {@link android.content.Context} of their views. To
+ * share the pool between activities, adapters have to create their views with a context that
+ * outlives the activities, and the pool should be cleared when it is not needed anymore.
+ * <p>
+ * Like {@link RecyclerView.RecycledViewPool}, this class must only be used on the UI thread.
+ */
+public class AdaptiveRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    /**
+     * Default upper bound for the number of ViewHolders kept per view type.
+     */
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS_LIMIT = 20;
+
+    /**
+     * Number of ViewHolder requests of a type after which unused extra capacity is released.
+     */
+    private static final int SHRINK_WINDOW = 32;
+
+    private final SparseArray<TypeInfo> mTypeInfo = new SparseArray<>();
+    private int mMaxRecycledViewsLimit = DEFAULT_MAX_RECYCLED_VIEWS_LIMIT;
+    private boolean mKeepViewsAcrossAdapters;
+
+    /** Incremented on {@link #clear()}, to drop warm-up ViewHolders still being created. */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    int mGeneration;
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    Handler mHandler;
+
+    /**
+     * Usage of a single view type.
+     */
+    static class TypeInfo {
+        int mBaseMaxScrap;
+        long mHitCount;
+        long mMissCount;
+        long mDiscardCount;
+        long mWarmUpCount;
+
+        boolean mDiscardedSinceMiss;
+        int mWindowRequests;
+        int mWindowLowWaterMark = Integer.MAX_VALUE;
+
+        TypeInfo(int baseMaxScrap) {
+            mBaseMaxScrap = baseMaxScrap;
+        }
+    }
+
+    /**
+     * Usage statistics of a single view type, see {@link #getStats()}.
+     */
+    public static final class TypeStats {
+        private final int mViewType;
+        private final long mHitCount;
+        private final long mMissCount;
+        private final long mDiscardCount;
+        private final long mWarmUpCount;
+        private final int mRecycledViewCount;
+        private final int mMaxRecycledViews;
+        private final long mCreateTimeNs;
+        private final long mBindTimeNs;
+
+        TypeStats(int viewType, long hitCount, long missCount, long discardCount,
+                long warmUpCount, int recycledViewCount, int maxRecycledViews, long createTimeNs,
+                long bindTimeNs) {
+            mViewType = viewType;
+            mHitCount = hitCount;
+            mMissCount = missCount;
+            mDiscardCount = discardCount;
+            mWarmUpCount = warmUpCount;
+            mRecycledViewCount = recycledViewCount;
+            mMaxRecycledViews = maxRecycledViews;
+            mCreateTimeNs = createTimeNs;
+            mBindTimeNs = bindTimeNs;
+        }
+
+        /**
+         * Returns the view type these statistics are for.
+         */
+        public int getViewType() {
+            return mViewType;
+        }
+
+        /**
+         * Returns how many times a ViewHolder of the type was requested and found in the pool.
+         */
+        public long getHitCount() {
+            return mHitCount;
+        }
+
+        /**
+         * Returns how many times a ViewHolder of the type was requested but the pool had none,
+         * so a new one had to be created.
+         */
+        public long getMissCount() {
+            return mMissCount;
+        }
+
+        /**
+         * Returns how many ViewHolders of the type were dropped because the pool was full.
+         */
+        public long getDiscardCount() {
+            return mDiscardCount;
+        }
+
+        /**
+         * Returns how many ViewHolders of the type were added by warm-ups.
+         */
+        public long getWarmUpCount() {
+            return mWarmUpCount;
+        }
+
+        /**
+         * Returns the number of ViewHolders of the type held by the pool.
+         */
+        public int getRecycledViewCount() {
+            return mRecycledViewCount;
+        }
+
+        /**
+         * Returns the number of ViewHolders of the type the pool keeps at most.
+         */
+        public int getMaxRecycledViews() {
+            return mMaxRecycledViews;
+        }
+
+        /**
+         * Returns the running average of the time it takes to create a ViewHolder of the type,
+         * in nanoseconds, or 0 if unknown.
+         */
+        public long getCreateTimeNs() {
+            return mCreateTimeNs;
+        }
+
+        /**
+         * Returns the running average of the time it takes to bind a ViewHolder of the type,
+         * in nanoseconds, or 0 if unknown.
+         */
+        public long getBindTimeNs() {
+            return mBindTimeNs;
+        }
+    }
+
+    /**
+     * Sets the upper bound for the number of ViewHolders the pool may grow to per view type.
+     * View types with a larger {@link #setMaxRecycledViews(int, int) maximum} are not affected.
+     *
+     * @param limit Maximum number of ViewHolders per view type.
+     */
+    public void setMaxRecycledViewsLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        }
+        mMaxRecycledViewsLimit = limit;
+        for (int i = 0; i < mScrap.size(); i++) {
+            final int viewType = mScrap.keyAt(i);
+            final ScrapData scrapData = mScrap.valueAt(i);
+            final int baseMaxScrap = getTypeInfo(viewType).mBaseMaxScrap;
+            if (scrapData.mMaxScrap > baseMaxScrap && scrapData.mMaxScrap > limit) {
+                setCurrentMaxScrap(scrapData, Math.max(baseMaxScrap, limit));
+            }
+        }
+    }
+
+    /**
+     * Returns the upper bound for the number of ViewHolders the pool may grow to per view type.
+     *
+     * @see #setMaxRecycledViewsLimit(int)
+     */
+    public int getMaxRecycledViewsLimit() {
+        return mMaxRecycledViewsLimit;
+    }
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        super.setMaxRecycledViews(viewType, max);
+        getTypeInfo(viewType).mBaseMaxScrap = max;
+    }
+
+    /**
+     * Returns the number of ViewHolders of the given type the pool currently keeps at most,
+     * including the capacity it added from its usage.
+     */
+    public int getMaxRecycledViews(int viewType) {
+        return getScrapDataForType(viewType).mMaxScrap;
+    }
+
+    @Nullable
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        final RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        final TypeInfo typeInfo = getTypeInfo(viewType);
+        final ScrapData scrapData = getScrapDataForType(viewType);
+        if (holder != null) {
+            typeInfo.mHitCount++;
+        } else {
+            typeInfo.mMissCount++;
+            if (typeInfo.mDiscardedSinceMiss) {
+                typeInfo.mDiscardedSinceMiss = false;
+                if (scrapData.mMaxScrap < mMaxRecycledViewsLimit && isWorthKeeping(scrapData)) {
+                    // Had the pool been one larger, this ViewHolder would not need to be created
+                    scrapData.mMaxScrap++;
+                }
+            }
+        }
+
+        typeInfo.mWindowLowWaterMark = Math.min(typeInfo.mWindowLowWaterMark,
+                scrapData.mScrapHeap.size());
+        if (++typeInfo.mWindowRequests >= SHRINK_WINDOW) {
+            // ViewHolders that have been sitting in the pool for the whole window are not needed
+            final int unused = Math.min(typeInfo.mWindowLowWaterMark,
+                    scrapData.mMaxScrap - typeInfo.mBaseMaxScrap);
+            if (unused > 0) {
+                setCurrentMaxScrap(scrapData, scrapData.mMaxScrap - unused);
+            }
+            typeInfo.mWindowRequests = 0;
+            typeInfo.mWindowLowWaterMark = Integer.MAX_VALUE;
+        }
+        return holder;
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder scrap) {
+        final int viewType = scrap.getItemViewType();
+        final ScrapData scrapData = getScrapDataForType(viewType);
+        if (scrapData.mScrapHeap.size() >= scrapData.mMaxScrap) {
+            final TypeInfo typeInfo = getTypeInfo(viewType);
+            typeInfo.mDiscardCount++;
+            typeInfo.mDiscardedSinceMiss = true;
+        }
+        super.putRecycledView(scrap);
+    }
+
+    /**
+     * Discard all ViewHolders, including the ones still being created by
+     * {@link #warmUp(ViewGroup, RecyclerView.Adapter, int, int)}.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        mGeneration++;
+    }
+
+    /**
+     * Sets whether the pool keeps its ViewHolders when the last RecyclerView using it switches to
+     * an adapter that is not compatible with the previous one. Disabled by default.
+     * <p>
+     * Once enabled, a ViewHolder created by one adapter may be handed to another one that uses the
+     * same view type, so every adapter using the pool must only use view types that are unique
+     * across all of them, e.g. layout resource ids, and must be able to bind the ViewHolders that
+     * the others create for those types.
+     *
+     * @param keep True to keep the ViewHolders when the adapter changes.
+     */
+    public void setKeepViewsAcrossAdapters(boolean keep) {
+        mKeepViewsAcrossAdapters = keep;
+    }
+
+    /**
+     * Returns whether the pool keeps its ViewHolders when the adapter changes.
+     *
+     * @see #setKeepViewsAcrossAdapters(boolean)
+     */
+    public boolean getKeepViewsAcrossAdapters() {
+        return mKeepViewsAcrossAdapters;
+    }
+
+    @Override
+    void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter,
+            boolean compatibleWithPrevious) {
+        super.onAdapterChanged(oldAdapter, newAdapter,
+                compatibleWithPrevious || mKeepViewsAcrossAdapters);
+    }
+
+    /**
+     * Asynchronously creates ViewHolders of the given type until the pool holds {@code count} of
+     * them, e.g. before showing a screen with a RecyclerView using this pool.
+     * <p>
+     * If the adapter {@link RecyclerView.Adapter#hasThreadSafeViewHolderCreation() allows it},
+     * ViewHolders are created on a background thread. Otherwise they are created one at a time
+     * on the current thread, in between other work. Either way, they are added to the pool on
+     * the current thread, which needs to have a {@link Looper}.
+     * <p>
+     * Setting the adapter of a RecyclerView that uses the pool clears it unless
+     * {@link #setKeepViewsAcrossAdapters(boolean) enabled otherwise}, so the adapter should be set
+     * before the pool is, see
+     * {@link RecyclerView#setRecycledViewPool(RecyclerView.RecycledViewPool)}.
+     *
+     * @param parent The ViewGroup to pass to
+     *               {@link RecyclerView.Adapter#onCreateViewHolder(ViewGroup, int)}, usually
+     *               the RecyclerView that is about to use the ViewHolders.
+     * @param adapter The adapter to create the ViewHolders with.
+     * @param viewType The view type of the ViewHolders.
+     * @param count The number of ViewHolders of the type the pool should hold. Raises the
+     *              {@link #setMaxRecycledViews(int, int) maximum} of the type if needed.
+     */
+    public void warmUp(@NonNull ViewGroup parent, @NonNull RecyclerView.Adapter<?> adapter,
+            int viewType, int count) {
+        if (mHandler == null) {
+            final Looper looper = Looper.myLooper();
+            if (looper == null) {
+                throw new IllegalStateException("Warm-up requires a thread with a Looper");
+            }
+            mHandler = new Handler(looper);
+        }
+
+        final ScrapData scrapData = getScrapDataForType(viewType);
+        if (scrapData.mMaxScrap < count) {
+            setMaxRecycledViews(viewType, count);
+        }
+        final int missing = count - scrapData.mScrapHeap.size()
+                - scrapData.mPendingBackgroundCreations;
+        for (int i = 0; i < missing; i++) {
+            onBackgroundCreationStarted(viewType);
+            final WarmUpTask task = new WarmUpTask(this, parent, adapter, viewType, mGeneration);
+            if (adapter.hasThreadSafeViewHolderCreation()) {
+                GapWorker.getBackgroundExecutor().execute(task);
+            } else {
+                mHandler.post(task);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the usage statistics of every view type seen by the pool.
+     *
+     * @see #resetStats()
+     */
+    @NonNull
+    public List<TypeStats> getStats() {
+        final List<TypeStats> stats = new ArrayList<>(mScrap.size());
+        for (int i = 0; i < mScrap.size(); i++) {
+            final int viewType = mScrap.keyAt(i);
+            final ScrapData scrapData = mScrap.valueAt(i);
+            final TypeInfo typeInfo = getTypeInfo(viewType);
+            stats.add(new TypeStats(viewType, typeInfo.mHitCount, typeInfo.mMissCount,
+                    typeInfo.mDiscardCount, typeInfo.mWarmUpCount, scrapData.mScrapHeap.size(),
+                    scrapData.mMaxScrap, scrapData.mCreateRunningAverageNs,
+                    scrapData.mBindRunningAverageNs));
+        }
+        return stats;
+    }
+
+    /**
+     * Resets the hit, miss, discard and warm-up counts of all view types.
+     */
+    public void resetStats() {
+        for (int i = 0; i < mTypeInfo.size(); i++) {
+            final TypeInfo typeInfo = mTypeInfo.valueAt(i);
+            typeInfo.mHitCount = 0;
+            typeInfo.mMissCount = 0;
+            typeInfo.mDiscardCount = 0;
+            typeInfo.mWarmUpCount = 0;
+        }
+    }
+
+    /**
+     * Returns true if keeping more ViewHolders of a type saves more time than it takes to reuse
+     * them, i.e. creating one is slower than binding one. Unknown timings count as worth it.
+     */
+    private static boolean isWorthKeeping(ScrapData scrapData) {
+        return scrapData.mCreateRunningAverageNs == 0
+                || scrapData.mCreateRunningAverageNs > scrapData.mBindRunningAverageNs;
+    }
+
+    private static void setCurrentMaxScrap(ScrapData scrapData, int max) {
+        scrapData.mMaxScrap = max;
+        final ArrayList<RecyclerView.ViewHolder> scrapHeap = scrapData.mScrapHeap;
+        while (scrapHeap.size() > max) {
+            scrapHeap.remove(scrapHeap.size() - 1);
+        }
+    }
+
+    private TypeInfo getTypeInfo(int viewType) {
+        TypeInfo typeInfo = mTypeInfo.get(viewType);
+        if (typeInfo == null) {
+            typeInfo = new TypeInfo(getScrapDataForType(viewType).mMaxScrap);
+            mTypeInfo.put(viewType, typeInfo);
+        }
+        return typeInfo;
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void onWarmUpFinished(RecyclerView.ViewHolder holder, int viewType, int generation) {
+        onBackgroundCreationFinished(viewType);
+        if (generation != mGeneration) {
+            return;
+        }
+        final RecyclerView innerView = RecyclerView.findNestedRecyclerView(holder.itemView);
+        if (innerView != null) {
+            holder.mNestedRecyclerView = new WeakReference<>(innerView);
+        }
+        getTypeInfo(viewType).mWarmUpCount++;
+        putRecycledView(holder);
+    }
+
+    /**
+     * Creates a ViewHolder, either on the background executor or on the pool's thread, then adds
+     * it to the pool on the pool's thread.
+     */
+    private static class WarmUpTask implements Runnable {
+        private final AdaptiveRecycledViewPool mPool;
+        private final ViewGroup mParent;
+        private final RecyclerView.Adapter<?> mAdapter;
+        private final int mViewType;
+        private final int mGeneration;
+
+        private RecyclerView.ViewHolder mHolder;
+        private RuntimeException mError;
+
+        WarmUpTask(AdaptiveRecycledViewPool pool, ViewGroup parent,
+                RecyclerView.Adapter<?> adapter, int viewType, int generation) {
+            mPool = pool;
+            mParent = parent;
+            mAdapter = adapter;
+            mViewType = viewType;
+            mGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            final boolean onPoolThread = Looper.myLooper() == mPool.mHandler.getLooper();
+            if (mHolder == null && mError == null) {
+                if (!onPoolThread || mGeneration == mPool.mGeneration) {
+                    try {
+                        mHolder = mAdapter.createViewHolder(mParent, mViewType);
+                    } catch (RuntimeException e) {
+                        mError = e;
+                    }
+                }
+                if (!onPoolThread) {
+                    mPool.mHandler.post(this);
+                    return;
+                }
+            }
+
+            if (mError != null) {
+                mPool.onBackgroundCreationFinished(mViewType);
+                // crash like the creation would have on the UI thread
+                throw mError;
+            }
+            if (mHolder == null) {
+                // cleared before it was created
+                mPool.onBackgroundCreationFinished(mViewType);
+                return;
+            }
+            mPool.onWarmUpFinished(mHolder, mViewType, mGeneration);
+        }
+    }
+}
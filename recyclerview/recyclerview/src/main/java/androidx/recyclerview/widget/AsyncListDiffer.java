@@ -21,6 +21,8 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.Collections;
 import java.util.List;
@@ -48,6 +50,10 @@ import java.util.concurrent.Executor;
  * updated. If you're dispatching list updates directly to an Adapter, this means the Adapter can
  * safely access list items and total size via {@link #getCurrentList()}.
  * <p>
+ * Submitting a new List cancels the diff that is still being computed for a previous one. If the
+ * items have stable keys, pass a {@link DiffUtil.KeyedItemCallback} to diff large lists in
+ * near-linear time.
+ * <p>
  * A complete usage pattern with Room would look like this:
  * <pre>
  * {@literal @}Dao
@@ -147,6 +153,10 @@ public class AsyncListDiffer<T> {
 
     private final List<ListListener<T>> mListeners = new CopyOnWriteArrayList<>();
 
+    // Key of null items when diffing with a DiffUtil.KeyedItemCallback
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    static final Object NULL_ITEM_KEY = new Object();
+
     /**
      * Convenience for
      * {@code AsyncListDiffer(new AdapterListUpdateCallback(adapter),
@@ -200,6 +210,11 @@ public class AsyncListDiffer<T> {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mMaxScheduledGeneration;
 
+    // Signal to cancel the diff of the max generation, null if it is not running
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    CancellationSignal mCancellationSignal;
+
     /**
      * Get the current List - any diffing to present this list has already been computed and
      * dispatched via the ListUpdateCallback.
@@ -252,6 +267,11 @@ public class AsyncListDiffer<T> {
             @Nullable final Runnable commitCallback) {
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        // and canceling stops them early, as their result would be discarded anyway
+        if (mCancellationSignal != null) {
+            mCancellationSignal.cancel();
+            mCancellationSignal = null;
+        }
 
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -286,68 +306,25 @@ public class AsyncListDiffer<T> {
         }
 
         final List<T> oldList = mList;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        mCancellationSignal = cancellationSignal;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-                    @Override
-                    public int getOldListSize() {
-                        return oldList.size();
-                    }
-
-                    @Override
-                    public int getNewListSize() {
-                        return newList.size();
-                    }
-
-                    @Override
-                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
-                        }
-                        // If both items are null we consider them the same.
-                        return oldItem == null && newItem == null;
-                    }
-
-                    @Override
-                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
-                        }
-                        if (oldItem == null && newItem == null) {
-                            return true;
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true. That
-                        // only occurs when both items are non-null or both are null and both of
-                        // those cases are handled above.
-                        throw new AssertionError();
-                    }
-
-                    @Nullable
-                    @Override
-                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true AND
-                        // areContentsTheSame returns false. That only occurs when both items are
-                        // non-null which is the only case handled above.
-                        throw new AssertionError();
-                    }
-                });
+                final DiffUtil.DiffResult result;
+                try {
+                    result = DiffUtil.calculateDiff(createDiffCallback(oldList, newList), true,
+                            cancellationSignal);
+                } catch (OperationCanceledException e) {
+                    // a newer list was submitted in the meantime
+                    return;
+                }
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
                         if (mMaxScheduledGeneration == runGeneration) {
+                            mCancellationSignal = null;
                             latchList(newList, result, commitCallback);
                         }
                     }
@@ -356,6 +333,110 @@ public class AsyncListDiffer<T> {
         });
     }
 
+    @SuppressWarnings({"WeakerAccess", "unchecked"}) /* synthetic access */
+    DiffUtil.Callback createDiffCallback(@NonNull final List<T> oldList,
+            @NonNull final List<T> newList) {
+        final DiffUtil.Callback callback = new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
+                }
+                // If both items are null we consider them the same.
+                return oldItem == null && newItem == null;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
+                }
+                if (oldItem == null && newItem == null) {
+                    return true;
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true. That
+                // only occurs when both items are non-null or both are null and both of
+                // those cases are handled above.
+                throw new AssertionError();
+            }
+
+            @Nullable
+            @Override
+            public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true AND
+                // areContentsTheSame returns false. That only occurs when both items are
+                // non-null which is the only case handled above.
+                throw new AssertionError();
+            }
+        };
+
+        if (!(mConfig.getDiffCallback() instanceof DiffUtil.KeyedItemCallback)) {
+            return callback;
+        }
+        final DiffUtil.KeyedItemCallback<T> keyedItemCallback =
+                (DiffUtil.KeyedItemCallback<T>) mConfig.getDiffCallback();
+        return new DiffUtil.KeyedCallback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @NonNull
+            @Override
+            public Object getOldItemKey(int oldItemPosition) {
+                return getItemKey(oldList.get(oldItemPosition));
+            }
+
+            @NonNull
+            @Override
+            public Object getNewItemKey(int newItemPosition) {
+                return getItemKey(newList.get(newItemPosition));
+            }
+
+            private Object getItemKey(@Nullable T item) {
+                // All null items are the same, like in areItemsTheSame.
+                return item == null ? NULL_ITEM_KEY : keyedItemCallback.getItemKey(item);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return callback.areContentsTheSame(oldItemPosition, newItemPosition);
+            }
+
+            @Nullable
+            @Override
+            public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                return callback.getChangePayload(oldItemPosition, newItemPosition);
+            }
+        };
+    }
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void latchList(
             @NonNull List<T> newList,
@@ -20,11 +20,14 @@ import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -70,6 +73,15 @@ import java.util.List;
  *     <li>1000 items and 200 modifications without moves: 13.54 ms, median: 13.36 ms
  * </ul>
  * <p>
+ * If every item has a stable key, such as a database id, extend {@link KeyedCallback} instead of
+ * {@link Callback}. DiffUtil then skips Myers's algorithm: it trims the common prefix and suffix of
+ * the lists and matches the remaining items by a hash lookup of their keys, which takes O(N log N)
+ * time and O(N) space regardless of the number of changes or moves.
+ * <p>
+ * A long running calculation can be stopped through the {@link CancellationSignal} passed to
+ * {@link #calculateDiff(Callback, boolean, CancellationSignal)}, e.g. when the result is not
+ * needed anymore because a newer list arrived.
+ * <p>
  * Due to implementation constraints, the max size of the list can be 2^26.
  *
  * @see ListAdapter
@@ -120,6 +132,31 @@ public class DiffUtil {
      */
     @NonNull
     public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves) {
+        return calculateDiff(cb, detectMoves, null);
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, and
+     * gives up as soon as the given signal is canceled.
+     * <p>
+     * The signal is checked periodically while calculating, so a canceled calculation stops
+     * shortly after instead of running to completion.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param cancellationSignal Signal to cancel the calculation, or null.
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @throws OperationCanceledException if the calculation was canceled.
+     */
+    @NonNull
+    public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves,
+            @Nullable CancellationSignal cancellationSignal) {
+        throwIfCanceled(cancellationSignal);
+        if (cb instanceof KeyedCallback) {
+            return calculateKeyedDiff((KeyedCallback) cb, detectMoves, cancellationSignal);
+        }
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
@@ -141,9 +178,11 @@ public class DiffUtil {
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
         while (!stack.isEmpty()) {
+            throwIfCanceled(cancellationSignal);
             final Range range = stack.remove(stack.size() - 1);
             final Snake snake = diffPartial(cb, range.oldListStart, range.oldListEnd,
-                    range.newListStart, range.newListEnd, forward, backward, max);
+                    range.newListStart, range.newListEnd, forward, backward, max,
+                    cancellationSignal);
             if (snake != null) {
                 if (snake.size > 0) {
                     snakes.add(snake);
@@ -195,12 +234,149 @@ public class DiffUtil {
         // sort snakes
         Collections.sort(snakes, SNAKE_COMPARATOR);
 
-        return new DiffResult(cb, snakes, forward, backward, detectMoves);
+        return new DiffResult(cb, snakes, forward, backward, detectMoves, null,
+                cancellationSignal);
+
+    }
+
+    /**
+     * Matches the items of the lists by their keys instead of running Myers' algorithm.
+     * <p>
+     * Once the common prefix and suffix are trimmed, every remaining old item is joined with the
+     * new item of the same key through a hash map. The items that keep their relative order form
+     * the longest increasing subsequence of the joined new positions and become the snakes, all
+     * the other joined items are moves. If a key appears multiple times, its occurrences are
+     * matched in order.
+     */
+    private static DiffResult calculateKeyedDiff(KeyedCallback cb, boolean detectMoves,
+            @Nullable CancellationSignal cancellationSignal) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+
+        final int maxCommon = Math.min(oldSize, newSize);
+        int prefix = 0;
+        while (prefix < maxCommon && cb.areItemsTheSame(prefix, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && cb.areItemsTheSame(oldSize - suffix - 1, newSize - suffix - 1)) {
+            suffix++;
+        }
+        final int oldEnd = oldSize - suffix;
+        final int newEnd = newSize - suffix;
+        throwIfCanceled(cancellationSignal);
+
+        // For every key, the first of its new positions that is not matched yet. Further new
+        // positions of the same key are chained through nextWithSameKey.
+        final HashMap<Object, Integer> unmatchedNewPositions = new HashMap<>();
+        final int[] nextWithSameKey = new int[newSize];
+        for (int newPos = newEnd - 1; newPos >= prefix; newPos--) {
+            final Integer next = unmatchedNewPositions.put(cb.getNewItemKey(newPos), newPos);
+            nextWithSameKey[newPos] = next == null ? DiffResult.NO_POSITION : next;
+        }
+        throwIfCanceled(cancellationSignal);
+
+        final int[] oldToNew = new int[oldSize];
+        for (int oldPos = 0; oldPos < prefix; oldPos++) {
+            oldToNew[oldPos] = oldPos;
+        }
+        for (int oldPos = oldEnd; oldPos < oldSize; oldPos++) {
+            oldToNew[oldPos] = oldPos - oldEnd + newEnd;
+        }
+        for (int oldPos = prefix; oldPos < oldEnd; oldPos++) {
+            final Object key = cb.getOldItemKey(oldPos);
+            final Integer newPos = unmatchedNewPositions.get(key);
+            if (newPos == null) {
+                oldToNew[oldPos] = DiffResult.NO_POSITION;
+                continue;
+            }
+            oldToNew[oldPos] = newPos;
+            final int next = nextWithSameKey[newPos];
+            if (next == DiffResult.NO_POSITION) {
+                unmatchedNewPositions.remove(key);
+            } else {
+                unmatchedNewPositions.put(key, next);
+            }
+        }
+        throwIfCanceled(cancellationSignal);
+
+        // Longest increasing subsequence of oldToNew within the trimmed range, by patience
+        // sorting. tails[i] is the old position ending the best subsequence of length i + 1.
+        final int middleSize = oldEnd - prefix;
+        final int[] tails = new int[middleSize];
+        final int[] predecessors = new int[middleSize];
+        int longest = 0;
+        for (int oldPos = prefix; oldPos < oldEnd; oldPos++) {
+            final int newPos = oldToNew[oldPos];
+            if (newPos == DiffResult.NO_POSITION) {
+                continue;
+            }
+            int low = 0;
+            int high = longest;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (oldToNew[tails[mid]] < newPos) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            predecessors[oldPos - prefix] = low > 0 ? tails[low - 1] : DiffResult.NO_POSITION;
+            tails[low] = oldPos;
+            if (low == longest) {
+                longest++;
+            }
+        }
+        // re-use tails for the old positions of the subsequence, in order
+        int oldPos = longest > 0 ? tails[longest - 1] : DiffResult.NO_POSITION;
+        for (int i = longest - 1; i >= 0; i--) {
+            tails[i] = oldPos;
+            oldPos = predecessors[oldPos - prefix];
+        }
+        throwIfCanceled(cancellationSignal);
+
+        final List<Snake> snakes = new ArrayList<>();
+        if (prefix > 0) {
+            snakes.add(createSnake(0, 0, prefix));
+        }
+        Snake current = null;
+        for (int i = 0; i < longest; i++) {
+            final int x = tails[i];
+            final int y = oldToNew[x];
+            if (current != null && current.x + current.size == x
+                    && current.y + current.size == y) {
+                current.size++;
+            } else {
+                current = createSnake(x, y, 1);
+                snakes.add(current);
+            }
+        }
+        if (suffix > 0) {
+            snakes.add(createSnake(oldEnd, newEnd, suffix));
+        }
+
+        return new DiffResult(cb, snakes, new int[oldSize], new int[newSize], detectMoves,
+                oldToNew, cancellationSignal);
+    }
+
+    private static Snake createSnake(int x, int y, int size) {
+        final Snake snake = new Snake();
+        snake.x = x;
+        snake.y = y;
+        snake.size = size;
+        return snake;
+    }
 
+    static void throwIfCanceled(@Nullable CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
     }
 
     private static Snake diffPartial(Callback cb, int startOld, int endOld,
-            int startNew, int endNew, int[] forward, int[] backward, int kOffset) {
+            int startNew, int endNew, int[] forward, int[] backward, int kOffset,
+            @Nullable CancellationSignal cancellationSignal) {
         final int oldSize = endOld - startOld;
         final int newSize = endNew - startNew;
 
@@ -214,6 +390,7 @@ public class DiffUtil {
         Arrays.fill(backward, kOffset - dLimit - 1 + delta, kOffset + dLimit + 1 + delta, oldSize);
         final boolean checkInFwd = delta % 2 != 0;
         for (int d = 0; d <= dLimit; d++) {
+            throwIfCanceled(cancellationSignal);
             for (int k = -d; k <= d; k += 2) {
                 // find forward path
                 // we can reach k from k - 1 or k + 1. Check which one is further in the graph
@@ -435,6 +612,70 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * A {@link Callback} for lists whose items have stable keys, for example their database ids.
+     * <p>
+     * Two items are the same if their keys are equal. Instead of running Myers' algorithm, DiffUtil
+     * matches the items of both lists through a hash map of their keys, which is much faster for
+     * large lists. Keys have to implement {@link Object#equals(Object)} and
+     * {@link Object#hashCode()} and should be unique within a list. If a key appears multiple
+     * times, the result is still correct but may contain more updates than necessary.
+     */
+    public abstract static class KeyedCallback extends Callback {
+        /**
+         * Returns the key of an item in the old list.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key identifying the item.
+         */
+        @NonNull
+        public abstract Object getOldItemKey(int oldItemPosition);
+
+        /**
+         * Returns the key of an item in the new list.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key identifying the item.
+         */
+        @NonNull
+        public abstract Object getNewItemKey(int newItemPosition);
+
+        /**
+         * Returns whether the items have equal keys.
+         */
+        @Override
+        public final boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldItemKey(oldItemPosition).equals(getNewItemKey(newItemPosition));
+        }
+    }
+
+    /**
+     * An {@link ItemCallback} for items that have stable keys, for example their database ids.
+     * <p>
+     * {@link AsyncListDiffer} and {@link ListAdapter} diff lists with this callback through a
+     * {@link KeyedCallback}, see its documentation for the requirements on keys.
+     *
+     * @param <T> Type of items to compare.
+     */
+    public abstract static class KeyedItemCallback<T> extends ItemCallback<T> {
+        /**
+         * Returns the key of the given item.
+         *
+         * @param item The item in the old or new list.
+         * @return The key identifying the item.
+         */
+        @NonNull
+        public abstract Object getItemKey(@NonNull T item);
+
+        /**
+         * Returns whether the items have equal keys.
+         */
+        @Override
+        public final boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+            return getItemKey(oldItem).equals(getItemKey(newItem));
+        }
+    }
+
     /**
      * Snakes represent a match between two lists. It is optionally prefixed or postfixed with an
      * add or remove operation. See the Myers' paper for details.
@@ -556,15 +797,24 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // The position in the new list of every item in the old list when matched by their keys,
+        // null otherwise.
+        @Nullable
+        private final int[] mOldToNew;
+
         /**
          * @param callback The callback that was used to calculate the diff
          * @param snakes The list of Myers' snakes
          * @param oldItemStatuses An int[] that can be re-purposed to keep metadata
          * @param newItemStatuses An int[] that can be re-purposed to keep metadata
          * @param detectMoves True if this DiffResult will try to detect moved items
+         * @param oldToNew The new positions of the old items if they were matched by their keys,
+         *                 null to search the moved items instead
+         * @param cancellationSignal Signal to cancel the move detection, or null
          */
         DiffResult(Callback callback, List<Snake> snakes, int[] oldItemStatuses,
-                int[] newItemStatuses, boolean detectMoves) {
+                int[] newItemStatuses, boolean detectMoves, @Nullable int[] oldToNew,
+                @Nullable CancellationSignal cancellationSignal) {
             mSnakes = snakes;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
@@ -574,8 +824,9 @@ public class DiffUtil {
             mOldListSize = callback.getOldListSize();
             mNewListSize = callback.getNewListSize();
             mDetectMoves = detectMoves;
+            mOldToNew = oldToNew;
             addRootSnake();
-            findMatchingItems();
+            findMatchingItems(cancellationSignal);
         }
 
         /**
@@ -606,15 +857,16 @@ public class DiffUtil {
          * the statuses maps. DiffResult uses this pre-calculated information while dispatching
          * the updates (which is probably being called on the main thread).
          */
-        private void findMatchingItems() {
+        private void findMatchingItems(@Nullable CancellationSignal cancellationSignal) {
             int posOld = mOldListSize;
             int posNew = mNewListSize;
             // traverse the matrix from right bottom to 0,0.
             for (int i = mSnakes.size() - 1; i >= 0; i--) {
+                throwIfCanceled(cancellationSignal);
                 final Snake snake = mSnakes.get(i);
                 final int endX = snake.x + snake.size;
                 final int endY = snake.y + snake.size;
-                if (mDetectMoves) {
+                if (mDetectMoves && mOldToNew == null) {
                     while (posOld > endX) {
                         // this is a removal. Check remaining snakes to see if this was added before
                         findAddition(posOld, posNew, i);
@@ -640,6 +892,53 @@ public class DiffUtil {
                 posOld = snake.x;
                 posNew = snake.y;
             }
+            if (mDetectMoves && mOldToNew != null) {
+                throwIfCanceled(cancellationSignal);
+                findMovedItemsByKey();
+            }
+        }
+
+        /**
+         * Flags the moved items based on the positions matched by their keys, in linear time.
+         * <p>
+         * The flags are the same that {@link #findMatchingItem(int, int, int, boolean)} assigns:
+         * whichever side of a move is visited first when dispatching the updates from the end is
+         * ignored, and the other side dispatches the move. Removals and additions between snake
+         * {@code i} and snake {@code i + 1} are visited together, removals first.
+         */
+        private void findMovedItemsByKey() {
+            // index of the preceding snake for every new item that is not part of a snake
+            final int[] newItemGaps = new int[mNewListSize];
+            int posNew = mNewListSize;
+            for (int i = mSnakes.size() - 1; i >= 0; i--) {
+                final Snake snake = mSnakes.get(i);
+                for (int y = snake.y + snake.size; y < posNew; y++) {
+                    newItemGaps[y] = i;
+                }
+                posNew = snake.y;
+            }
+
+            int posOld = mOldListSize;
+            for (int i = mSnakes.size() - 1; i >= 0; i--) {
+                final Snake snake = mSnakes.get(i);
+                for (int x = snake.x + snake.size; x < posOld; x++) {
+                    final int y = mOldToNew[x];
+                    if (y == NO_POSITION) {
+                        continue; // real removal
+                    }
+                    final boolean theSame = mCallback.areContentsTheSame(x, y);
+                    final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                    if (newItemGaps[y] <= i) {
+                        // the removal is visited first
+                        mOldItemStatuses[x] = (y << FLAG_OFFSET) | FLAG_IGNORE;
+                        mNewItemStatuses[y] = (x << FLAG_OFFSET) | changeFlag;
+                    } else {
+                        mNewItemStatuses[y] = (x << FLAG_OFFSET) | FLAG_IGNORE;
+                        mOldItemStatuses[x] = (y << FLAG_OFFSET) | changeFlag;
+                    }
+                }
+                posOld = snake.x;
+            }
         }
 
         private void findAddition(int x, int y, int snakeIndex) {
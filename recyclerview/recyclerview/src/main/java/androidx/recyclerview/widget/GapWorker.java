@@ -16,31 +16,59 @@
 package androidx.recyclerview.widget;
 
 import android.annotation.SuppressLint;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.view.View;
 
-import androidx.annotation.Nullable;
+import androidx.annotation.NonNull;
 import androidx.core.os.TraceCompat;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 final class GapWorker implements Runnable {
 
     static final ThreadLocal<GapWorker> sGapWorker = new ThreadLocal<>();
 
+    /**
+     * Creates ViewHolders for adapters with thread-safe ViewHolder creation. Shared by all
+     * GapWorkers, and only started once one of those adapters misses a prefetch deadline.
+     */
+    private static Executor sBackgroundExecutor;
+
     ArrayList<RecyclerView> mRecyclerViews = new ArrayList<>();
     long mPostTimeNs;
     long mFrameIntervalNs;
 
+    /**
+     * RecyclerViews with items prefetched during the current pass, to report their hits and misses
+     * to once the pass is done.
+     */
+    private ArrayList<RecyclerView> mPrefetchedViews = new ArrayList<>();
+
+    /** Handler of the thread this worker runs on, delivers ViewHolders created in background. */
+    private Handler mHandler;
+
     static class Task {
         public boolean immediate;
         public int viewVelocity;
         public int distanceToItem;
         public RecyclerView view;
         public int position;
+        /**
+         * Prefetched holder of the outer item that {@link #view} is nested in, or null if this
+         * is not a nested prefetch.
+         */
+        public RecyclerView.ViewHolder parentHolder;
+        public int parentPosition;
 
         public void clear() {
             immediate = false;
@@ -48,6 +76,8 @@ final class GapWorker implements Runnable {
             distanceToItem = 0;
             view = null;
             position = 0;
+            parentHolder = null;
+            parentPosition = 0;
         }
     }
 
@@ -70,6 +100,9 @@ final class GapWorker implements Runnable {
 
         int mCount;
 
+        int mHitCount;
+        int mMissCount;
+
         void setPrefetchVector(int dx, int dy) {
             mPrefetchDx = dx;
             mPrefetchDy = dy;
@@ -261,6 +294,39 @@ final class GapWorker implements Runnable {
         Collections.sort(mTasks, sTaskComparator);
     }
 
+    /**
+     * Inserts a prefetch of an item of a nested RecyclerView into the sorted task list, after
+     * the task at {@code currentIndex} that is being flushed.
+     */
+    private void insertNestedTask(int currentIndex, Task parentTask,
+            RecyclerView.ViewHolder parentHolder, RecyclerView innerView, int innerPosition,
+            int innerDistanceToItem) {
+        // reuse a cleared task from the end of the list, if any
+        final int lastIndex = mTasks.size() - 1;
+        final Task task;
+        if (lastIndex > currentIndex && mTasks.get(lastIndex).view == null) {
+            task = mTasks.remove(lastIndex);
+        } else {
+            task = new Task();
+        }
+
+        // Inner items are never immediate, we have lower confidence they're needed next frame.
+        // Their distance is the one of the outer item plus the one within the nested view.
+        task.immediate = false;
+        task.viewVelocity = parentTask.viewVelocity;
+        task.distanceToItem = parentTask.distanceToItem + innerDistanceToItem;
+        task.view = innerView;
+        task.position = innerPosition;
+        task.parentHolder = parentHolder;
+        task.parentPosition = parentHolder.mPosition;
+
+        int index = currentIndex + 1;
+        while (index < mTasks.size() && sTaskComparator.compare(mTasks.get(index), task) <= 0) {
+            index++;
+        }
+        mTasks.add(index, task);
+    }
+
     static boolean isPrefetchPositionAttached(RecyclerView view, int position) {
         final int childCount = view.mChildHelper.getUnfilteredChildCount();
         for (int i = 0; i < childCount; i++) {
@@ -293,13 +359,20 @@ final class GapWorker implements Runnable {
                     // Only give the view a chance to go into the cache if binding succeeded
                     // Note that we must use public method, since item may need cleanup
                     recycler.recycleView(holder.itemView);
+                    recordPrefetchResult(view, true);
                 } else {
                     // Didn't bind, so we can't cache the view, but it will stay in the pool until
                     // next prefetch/traversal. If a View fails to bind, it means we didn't have
                     // enough time prior to the deadline (and won't for other instances of this
                     // type, during this GapWorker prefetch pass).
                     recycler.addViewHolderToRecycledViewPool(holder, false);
+                    recordPrefetchResult(view, false);
                 }
+            } else {
+                // Not even enough time to create a View, let the adapter do that off the UI
+                // thread if it can, so the pool has one ready for the next pass.
+                createViewHolderInBackground(view, position);
+                recordPrefetchResult(view, false);
             }
         } finally {
             view.onExitLayoutOrScroll(false);
@@ -307,8 +380,140 @@ final class GapWorker implements Runnable {
         return holder;
     }
 
-    private void prefetchInnerRecyclerViewWithDeadline(@Nullable RecyclerView innerView,
-            long deadlineNs) {
+    private void recordPrefetchResult(RecyclerView view, boolean hit) {
+        final LayoutPrefetchRegistryImpl prefetchRegistry = view.mPrefetchRegistry;
+        if (prefetchRegistry.mHitCount == 0 && prefetchRegistry.mMissCount == 0) {
+            mPrefetchedViews.add(view);
+        }
+        if (hit) {
+            prefetchRegistry.mHitCount++;
+        } else {
+            prefetchRegistry.mMissCount++;
+        }
+    }
+
+    private void dispatchPrefetchResults() {
+        for (int i = 0; i < mPrefetchedViews.size(); i++) {
+            final RecyclerView view = mPrefetchedViews.get(i);
+            final LayoutPrefetchRegistryImpl prefetchRegistry = view.mPrefetchRegistry;
+            final int hitCount = prefetchRegistry.mHitCount;
+            final int missCount = prefetchRegistry.mMissCount;
+            prefetchRegistry.mHitCount = 0;
+            prefetchRegistry.mMissCount = 0;
+            if (view.mOnPrefetchListener != null) {
+                view.mOnPrefetchListener.onPrefetchFinished(view, hitCount, missCount);
+            }
+        }
+        mPrefetchedViews.clear();
+    }
+
+    /**
+     * Creates a ViewHolder for the item at the given position on a background thread, if the
+     * adapter allows it and the pool has none of its type.
+     */
+    private void createViewHolderInBackground(RecyclerView view, int position) {
+        final RecyclerView.Adapter adapter = view.mAdapter;
+        if (adapter == null || !adapter.hasThreadSafeViewHolderCreation()) {
+            return;
+        }
+        final int offsetPosition = view.mAdapterHelper.findPositionOffset(position);
+        if (offsetPosition < 0 || offsetPosition >= adapter.getItemCount()) {
+            return;
+        }
+        final int viewType = adapter.getItemViewType(offsetPosition);
+        final RecyclerView.RecycledViewPool pool = view.getRecycledViewPool();
+        if (!pool.needsBackgroundCreation(viewType)) {
+            return;
+        }
+
+        if (mHandler == null) {
+            final Looper looper = Looper.myLooper();
+            mHandler = new Handler(looper != null ? looper : Looper.getMainLooper());
+        }
+        pool.onBackgroundCreationStarted(viewType);
+        getBackgroundExecutor().execute(
+                new BackgroundCreationTask(view, adapter, pool, viewType, mHandler));
+    }
+
+    static synchronized Executor getBackgroundExecutor() {
+        if (sBackgroundExecutor == null) {
+            sBackgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "RecyclerView-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sBackgroundExecutor;
+    }
+
+    /**
+     * Creates a ViewHolder on the background executor, then adds it to the pool on the thread of
+     * the given handler, unless the RecyclerView has switched its adapter or pool in the meantime.
+     */
+    static class BackgroundCreationTask implements Runnable {
+        private final RecyclerView mView;
+        private final RecyclerView.Adapter mAdapter;
+        private final RecyclerView.RecycledViewPool mPool;
+        private final int mViewType;
+        private final Handler mHandler;
+
+        private boolean mCreated;
+        private RecyclerView.ViewHolder mHolder;
+        private RuntimeException mError;
+
+        BackgroundCreationTask(RecyclerView view, RecyclerView.Adapter adapter,
+                RecyclerView.RecycledViewPool pool, int viewType, Handler handler) {
+            mView = view;
+            mAdapter = adapter;
+            mPool = pool;
+            mViewType = viewType;
+            mHandler = handler;
+        }
+
+        @Override
+        public void run() {
+            if (!mCreated) {
+                try {
+                    mHolder = mAdapter.createViewHolder(mView, mViewType);
+                } catch (RuntimeException e) {
+                    mError = e;
+                }
+                mCreated = true;
+                mHandler.post(this);
+                return;
+            }
+
+            mPool.onBackgroundCreationFinished(mViewType);
+            if (mError != null) {
+                // crash like the creation would have on the UI thread
+                throw mError;
+            }
+            if (mView.mAdapter != mAdapter || mView.getRecycledViewPool() != mPool) {
+                return;
+            }
+            final RecyclerView innerView = RecyclerView.findNestedRecyclerView(mHolder.itemView);
+            if (innerView != null) {
+                mHolder.mNestedRecyclerView = new WeakReference<>(innerView);
+            }
+            mPool.putRecycledView(mHolder);
+        }
+    }
+
+    /**
+     * Queues the initial prefetch of the given nested RecyclerView, whose parent item was just
+     * prefetched by the task at {@code taskIndex}.
+     */
+    private void queueInnerRecyclerViewPrefetch(int taskIndex, RecyclerView.ViewHolder holder) {
+        final RecyclerView innerView = holder.mNestedRecyclerView.get();
         if (innerView == null) {
             return;
         }
@@ -325,22 +530,44 @@ final class GapWorker implements Runnable {
         innerPrefetchRegistry.collectPrefetchPositionsFromView(innerView, true);
 
         if (innerPrefetchRegistry.mCount != 0) {
+            innerView.mState.prepareForNestedPrefetch(innerView.mAdapter);
+            final Task parentTask = mTasks.get(taskIndex);
+            for (int i = 0; i < innerPrefetchRegistry.mCount * 2; i += 2) {
+                insertNestedTask(taskIndex, parentTask, holder, innerView,
+                        innerPrefetchRegistry.mPrefetchArray[i],
+                        innerPrefetchRegistry.mPrefetchArray[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the outer item of a nested task is no longer bound to the item it was
+     * prefetched for, so its nested RecyclerView is not worth prefetching anymore.
+     */
+    private static boolean isParentStale(Task task) {
+        final RecyclerView.ViewHolder parentHolder = task.parentHolder;
+        return parentHolder.mPosition != task.parentPosition
+                || !parentHolder.isBound()
+                || parentHolder.isInvalid()
+                || parentHolder.mNestedRecyclerView == null
+                || parentHolder.mNestedRecyclerView.get() != task.view;
+    }
+
+    private void flushTaskWithDeadline(int taskIndex, long deadlineNs) {
+        final Task task = mTasks.get(taskIndex);
+        if (task.parentHolder != null) {
+            if (isParentStale(task)) {
+                return;
+            }
             try {
                 TraceCompat.beginSection(RecyclerView.TRACE_NESTED_PREFETCH_TAG);
-                innerView.mState.prepareForNestedPrefetch(innerView.mAdapter);
-                for (int i = 0; i < innerPrefetchRegistry.mCount * 2; i += 2) {
-                    // Note that we ignore immediate flag for inner items because
-                    // we have lower confidence they're needed next frame.
-                    final int innerPosition = innerPrefetchRegistry.mPrefetchArray[i];
-                    prefetchPositionWithDeadline(innerView, innerPosition, deadlineNs);
-                }
+                prefetchPositionWithDeadline(task.view, task.position, deadlineNs);
             } finally {
                 TraceCompat.endSection();
             }
+            return;
         }
-    }
 
-    private void flushTaskWithDeadline(Task task, long deadlineNs) {
         long taskDeadlineNs = task.immediate ? RecyclerView.FOREVER_NS : deadlineNs;
         RecyclerView.ViewHolder holder = prefetchPositionWithDeadline(task.view,
                 task.position, taskDeadlineNs);
@@ -348,17 +575,18 @@ final class GapWorker implements Runnable {
                 && holder.mNestedRecyclerView != null
                 && holder.isBound()
                 && !holder.isInvalid()) {
-            prefetchInnerRecyclerViewWithDeadline(holder.mNestedRecyclerView.get(), deadlineNs);
+            queueInnerRecyclerViewPrefetch(taskIndex, holder);
         }
     }
 
     private void flushTasksWithDeadline(long deadlineNs) {
+        // Note that nested tasks are inserted while flushing, after the current one
         for (int i = 0; i < mTasks.size(); i++) {
             final Task task = mTasks.get(i);
             if (task.view == null) {
                 break; // done with populated tasks
             }
-            flushTaskWithDeadline(task, deadlineNs);
+            flushTaskWithDeadline(i, deadlineNs);
             task.clear();
         }
     }
@@ -366,6 +594,7 @@ final class GapWorker implements Runnable {
     void prefetch(long deadlineNs) {
         buildTaskList();
         flushTasksWithDeadline(deadlineNs);
+        dispatchPrefetchResults();
     }
 
     @Override
@@ -421,6 +421,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
     Adapter mAdapter;
     @VisibleForTesting LayoutManager mLayout;
     RecyclerListener mRecyclerListener;
+    OnPrefetchListener mOnPrefetchListener;
     final ArrayList<ItemDecoration> mItemDecorations = new ArrayList<>();
     private final ArrayList<OnItemTouchListener> mOnItemTouchListeners =
             new ArrayList<>();
@@ -1240,6 +1241,22 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         mRecyclerListener = listener;
     }
 
+    /**
+     * Register a listener that will be notified after each prefetch pass that prefetched items of
+     * this RecyclerView, with the number of items that were prefetched successfully and the number
+     * of items that could not be prefetched in time.
+     * <p>
+     * Prefetch passes run at most once per frame, in between frames, so this can be used to
+     * monitor whether item creation and binding are fast enough to keep up with scrolling.
+     * Nested RecyclerViews report the items prefetched for them separately.
+     *
+     * @param listener Listener to register, or null to clear
+     * @see LayoutManager#setItemPrefetchEnabled(boolean)
+     */
+    public void setOnPrefetchListener(@Nullable OnPrefetchListener listener) {
+        mOnPrefetchListener = listener;
+    }
+
     /**
      * <p>Return the offset of the RecyclerView's text baseline from the its top
      * boundary. If the LayoutManager of this RecyclerView does not support baseline alignment,
@@ -5639,6 +5656,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+            int mPendingBackgroundCreations = 0;
         }
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
@@ -5763,6 +5781,23 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             return expectedDurationNs == 0 || (approxCurrentNs + expectedDurationNs < deadlineNs);
         }
 
+        /**
+         * Returns true if a ViewHolder of the given type should be created in the background for
+         * this pool, i.e. the pool has none and there is no creation for it in progress already.
+         */
+        boolean needsBackgroundCreation(int viewType) {
+            ScrapData scrapData = getScrapDataForType(viewType);
+            return scrapData.mScrapHeap.isEmpty() && scrapData.mPendingBackgroundCreations == 0;
+        }
+
+        void onBackgroundCreationStarted(int viewType) {
+            getScrapDataForType(viewType).mPendingBackgroundCreations++;
+        }
+
+        void onBackgroundCreationFinished(int viewType) {
+            getScrapDataForType(viewType).mPendingBackgroundCreations--;
+        }
+
         void attach() {
             mAttachCount++;
         }
@@ -5796,7 +5831,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             }
         }
 
-        private ScrapData getScrapDataForType(int viewType) {
+        ScrapData getScrapDataForType(int viewType) {
             ScrapData scrapData = mScrap.get(viewType);
             if (scrapData == null) {
                 scrapData = new ScrapData();
@@ -6958,6 +6993,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
     public abstract static class Adapter<VH extends ViewHolder> {
         private final AdapterDataObservable mObservable = new AdapterDataObservable();
         private boolean mHasStableIds = false;
+        private boolean mHasThreadSafeViewHolderCreation = false;
 
         /**
          * Called when RecyclerView needs a new {@link ViewHolder} of the given type to represent
@@ -7149,6 +7185,36 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             return mHasStableIds;
         }
 
+        /**
+         * Indicates whether {@link #onCreateViewHolder(ViewGroup, int)} can be called on a
+         * background thread.
+         * <p>
+         * If enabled, prefetch creates ViewHolders that could not be created in time on the UI
+         * thread on a background thread instead, and adds them to the {@link RecycledViewPool}
+         * once done. This only pays off if creating ViewHolders is expensive, e.g. they inflate
+         * large layouts. ViewHolders are still bound on the UI thread.
+         * <p>
+         * Creating a ViewHolder must then not touch any state shared with the UI thread, including
+         * the parent passed to {@link #onCreateViewHolder(ViewGroup, int)}, which should only be
+         * used to generate layout params, like {@link android.view.LayoutInflater} does.
+         *
+         * @param threadSafe Whether ViewHolders can be created on a background thread.
+         * @see #hasThreadSafeViewHolderCreation()
+         */
+        public void setHasThreadSafeViewHolderCreation(boolean threadSafe) {
+            mHasThreadSafeViewHolderCreation = threadSafe;
+        }
+
+        /**
+         * Returns true if this adapter allows its ViewHolders to be created on a background thread.
+         *
+         * @return true if {@link #onCreateViewHolder(ViewGroup, int)} is thread-safe
+         * @see #setHasThreadSafeViewHolderCreation(boolean)
+         */
+        public final boolean hasThreadSafeViewHolderCreation() {
+            return mHasThreadSafeViewHolderCreation;
+        }
+
         /**
          * Called when a view created by this adapter has been recycled.
          *
@@ -10886,6 +10952,26 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         void onViewRecycled(@NonNull ViewHolder holder);
     }
 
+    /**
+     * An OnPrefetchListener can be set on a RecyclerView to monitor how well item prefetching
+     * keeps up with scrolling.
+     *
+     * @see RecyclerView#setOnPrefetchListener(OnPrefetchListener)
+     */
+    public interface OnPrefetchListener {
+
+        /**
+         * Called on the UI thread after a prefetch pass that prefetched items of the RecyclerView.
+         *
+         * @param recyclerView The RecyclerView whose items were prefetched
+         * @param hitCount The number of items that were created and bound ahead of time, or were
+         *                 already cached
+         * @param missCount The number of items that could not be bound before the deadline of the
+         *                  next frame
+         */
+        void onPrefetchFinished(@NonNull RecyclerView recyclerView, int hitCount, int missCount);
+    }
+
     /**
      * A Listener interface that can be attached to a RecylcerView to get notified
      * whenever a ViewHolder is attached to or detached from RecyclerView.
@@ -23,7 +23,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
@@ -35,6 +38,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -80,6 +84,41 @@ public class DiffUtilTest {
         }
     };
 
+    private DiffUtil.Callback mKeyedCallback = new DiffUtil.KeyedCallback() {
+        @Override
+        public int getOldListSize() {
+            return mCallback.getOldListSize();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mCallback.getNewListSize();
+        }
+
+        @NonNull
+        @Override
+        public Object getOldItemKey(int oldItemPosition) {
+            return mBefore.get(oldItemPosition).id;
+        }
+
+        @NonNull
+        @Override
+        public Object getNewItemKey(int newItemPosition) {
+            return mAfter.get(newItemPosition).id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemIndex, int newItemIndex) {
+            return mCallback.areContentsTheSame(oldItemIndex, newItemIndex);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemIndex, int newItemIndex) {
+            return mCallback.getChangePayload(oldItemIndex, newItemIndex);
+        }
+    };
+
     @Rule
     public TestWatcher mLogOnExceptionWatcher = new TestWatcher() {
         @Override
@@ -276,6 +315,103 @@ public class DiffUtilTest {
         assertThat(applied.contains(mBefore.get(0)), is(false));
     }
 
+    @Test
+    public void testKeyedRandom() {
+        for (int i = 0; i < 200; i++) {
+            testRandom(sRand.nextInt(100), 2 + sRand.nextInt(40));
+        }
+    }
+
+    @Test
+    public void testKeyedSwapEnds() {
+        initWithSize(6);
+        move(0, 5);
+        move(4, 0);
+        check();
+    }
+
+    @Test
+    public void testKeyedDuplicateKeys() {
+        final List<String> before = Arrays.asList("a", "b", "a", "c", "b", "d");
+        final List<String> after = Arrays.asList("b", "a", "e", "a", "d", "b");
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.KeyedCallback() {
+            @Override
+            public int getOldListSize() {
+                return before.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return after.size();
+            }
+
+            @NonNull
+            @Override
+            public Object getOldItemKey(int oldItemPosition) {
+                return before.get(oldItemPosition);
+            }
+
+            @NonNull
+            @Override
+            public Object getNewItemKey(int newItemPosition) {
+                return after.get(newItemPosition);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return true;
+            }
+        });
+
+        final List<String> applied = new ArrayList<>(before);
+        result.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    applied.add(position, "new");
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    applied.remove(position);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                applied.add(toPosition, applied.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                fail("nothing has changed");
+            }
+        });
+        assertThat(applied, equalTo(Arrays.asList("b", "a", "new", "a", "d", "b")));
+    }
+
+    @Test(expected = OperationCanceledException.class)
+    public void testCanceled() {
+        initWithSize(20);
+        delete(3);
+        add(10);
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        cancellationSignal.cancel();
+        DiffUtil.calculateDiff(mCallback, true, cancellationSignal);
+    }
+
+    @Test(expected = OperationCanceledException.class)
+    public void testKeyedCanceled() {
+        initWithSize(20);
+        delete(3);
+        add(10);
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        cancellationSignal.cancel();
+        DiffUtil.calculateDiff(mKeyedCallback, true, cancellationSignal);
+    }
+
     @Test(expected = IndexOutOfBoundsException.class)
     public void convertOldPositionToNew_tooSmall() {
         initWithSize(2);
@@ -342,7 +478,12 @@ public class DiffUtilTest {
     }
 
     private void check() {
-        DiffUtil.DiffResult result = DiffUtil.calculateDiff(mCallback);
+        check(mCallback);
+        check(mKeyedCallback);
+    }
+
+    private void check(DiffUtil.Callback callback) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(callback);
         log("before", mBefore);
         log("after", mAfter);
         log("snakes", result.getSnakes());
@@ -33,11 +33,14 @@ import androidx.test.filters.LargeTest
 import androidx.test.filters.SdkSuppress
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @LargeTest
 @RunWith(Parameterized::class)
@@ -91,6 +94,62 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
         db.close()
     }
 
+    @Test
+    fun writeBurst_manyObservers() {
+        writeBurst(coalescingWindowMillis = 0)
+    }
+
+    @Test
+    fun writeBurst_manyObservers_coalesced() {
+        writeBurst(coalescingWindowMillis = 10)
+    }
+
+    /**
+     * Runs [sampleSize] single row transactions while [OBSERVER_COUNT] observers are registered,
+     * half of them on a table that is never written, then waits for all invalidations to be
+     * dispatched.
+     */
+    private fun writeBurst(coalescingWindowMillis: Long) {
+        // The burst does not depend on the mode, only run it once per sample size.
+        assumeTrue(mode == Mode.MEASURE_INSERT)
+        val db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+        db.invalidationTracker.setRefreshCoalescingWindow(
+            coalescingWindowMillis,
+            TimeUnit.MILLISECONDS
+        )
+
+        val notifications = AtomicInteger()
+        val observers = List(OBSERVER_COUNT) {
+            val table = if (it % 2 == 0) "user" else "item"
+            object : InvalidationTracker.Observer(table) {
+                override fun onInvalidated(tables: MutableSet<String>) {
+                    notifications.incrementAndGet()
+                }
+            }
+        }
+        observers.forEach { db.invalidationTracker.addObserver(it) }
+
+        val users = List(sampleSize) { User(it, "name$it") }
+
+        benchmarkRule.measureRepeated {
+            for (user in users) {
+                db.getUserDao().insert(user)
+            }
+            // Flush whatever refresh is still queued so every iteration includes its dispatch.
+            db.invalidationTracker.refreshVersionsSync()
+
+            runWithTimingDisabled {
+                db.getUserDao().deleteAll()
+                db.invalidationTracker.refreshVersionsSync()
+            }
+        }
+
+        assertTrue(notifications.get() > 0)
+        db.close()
+    }
+
     private inline fun runWithTimingConditional(
         pauseTiming: Boolean = false,
         block: () -> Unit
@@ -118,9 +177,11 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
         }
 
         private const val DB_NAME = "invalidation-benchmark-test"
+
+        private const val OBSERVER_COUNT = 1000
     }
 
-    @Database(entities = [User::class], version = 1, exportSchema = false)
+    @Database(entities = [User::class, Item::class], version = 1, exportSchema = false)
     abstract class TestDatabase : RoomDatabase() {
         abstract fun getUserDao(): UserDao
     }
@@ -128,6 +189,9 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
     @Entity
     data class User(@PrimaryKey val id: Int, val name: String)
 
+    @Entity
+    data class Item(@PrimaryKey val id: Int)
+
     @Dao
     interface UserDao {
         @Insert
@@ -89,8 +89,8 @@ class RelationBenchmark(private val parentSampleSize: Int, private val childSamp
     companion object {
         @JvmStatic
         @Parameterized.Parameters(name = "parentSampleSize={0}, childSampleSize={1}")
-        fun data() = arrayOf(100, 500, 1000).flatMap { parentSampleSize ->
-            arrayOf(10, 100).map { childSampleSize ->
+        fun data() = arrayOf(1000, 10000, 100000).flatMap { parentSampleSize ->
+            arrayOf(1, 10).map { childSampleSize ->
                 arrayOf(parentSampleSize, childSampleSize)
             }
         }
@@ -86,6 +86,16 @@ import java.lang.annotation.Target;
  * Additionally if the statement is an INSERT, UPDATE or DELETE then the return types,
  * {@code Single<T>}, {@code Maybe<T>} and {@code Completable} are supported.
  * <p>
+ * <b>Paging</b> A query can return a {@code DataSource.Factory<Integer, T>} or a
+ * {@code PositionalDataSource<T>}, which page it by position and report the total count of items
+ * as placeholders. If the key of a {@code DataSource.Factory} is any other concrete type, or if
+ * the query returns an {@code ItemKeyedDataSource<K, T>}, the query is paged by the value of
+ * the column it is ordered by instead, which is much faster for later pages. The query must then
+ * end with an {@code ORDER BY} on a single, unique column that is returned by the query, and it
+ * must not have a {@code LIMIT}. Such data sources do not count the items and therefore do not
+ * report placeholders. A wildcard key, as in {@code DataSource.Factory<?, T>}, pages by
+ * position.
+ * <p>
  * You can return arbitrary POJOs from your query methods as long as the fields of the POJO match
  * the column names in the query result.
  * <p>
@@ -20,6 +20,7 @@ import androidx.room.processor.Context
 import androidx.room.processor.DatabaseProcessor
 import androidx.room.processor.MissingTypeException
 import androidx.room.processor.ProcessorErrors
+import androidx.room.processor.cache.QueryCache
 import androidx.room.util.SimpleJavaVersion
 import androidx.room.vo.DaoMethod
 import androidx.room.vo.Warning
@@ -29,6 +30,7 @@ import com.google.auto.common.BasicAnnotationProcessor
 import com.google.auto.common.MoreElements
 import com.google.common.collect.SetMultimap
 import java.io.File
+import java.io.IOException
 import javax.annotation.processing.ProcessingEnvironment
 import javax.lang.model.SourceVersion
 import javax.lang.model.element.Element
@@ -123,10 +125,15 @@ class RoomProcessor : BasicAnnotationProcessor() {
     }
 
     class DatabaseProcessingStep(val processingEnv: ProcessingEnvironment) : ProcessingStep {
+        // shared by all rounds, saved after each one so that the next build can reuse it.
+        private val queryCache by lazy {
+            QueryCache(Context(processingEnv).queryCacheFile)
+        }
+
         override fun process(
             elementsByAnnotation: SetMultimap<Class<out Annotation>, Element>
         ): MutableSet<Element> {
-            val context = Context(processingEnv)
+            val context = Context(processingEnv, queryCache)
             val rejectedElements = mutableSetOf<Element>()
             val databases = elementsByAnnotation[Database::class.java]
                     ?.mapNotNull {
@@ -170,6 +177,11 @@ class RoomProcessor : BasicAnnotationProcessor() {
                     }
                 }
             }
+            try {
+                queryCache.save()
+            } catch (ex: IOException) {
+                context.logger.d("failed to save the query cache ${ex.message}")
+            }
             return rejectedElements
         }
 
@@ -87,10 +87,16 @@ object RoomTypeNames {
             ClassName.get("$ROOM_PACKAGE.util", "ViewInfo")
     val LIMIT_OFFSET_DATA_SOURCE: ClassName =
             ClassName.get("$ROOM_PACKAGE.paging", "LimitOffsetDataSource")
+    val KEYSET_DATA_SOURCE: ClassName =
+            ClassName.get("$ROOM_PACKAGE.paging", "KeysetDataSource")
     val DB_UTIL: ClassName =
             ClassName.get("$ROOM_PACKAGE.util", "DBUtil")
     val CURSOR_UTIL: ClassName =
             ClassName.get("$ROOM_PACKAGE.util", "CursorUtil")
+    val RELATION_KEY_TABLE: ClassName =
+            ClassName.get("$ROOM_PACKAGE.util", "RelationKeyTable")
+    val CURSOR_ITERABLE: ClassName =
+            ClassName.get(ROOM_PACKAGE, "CursorIterable")
 }
 
 object PagingTypeNames {
@@ -98,6 +104,8 @@ object PagingTypeNames {
             ClassName.get(PAGING_PACKAGE, "DataSource")
     val POSITIONAL_DATA_SOURCE: ClassName =
             ClassName.get(PAGING_PACKAGE, "PositionalDataSource")
+    val ITEM_KEYED_DATA_SOURCE: ClassName =
+            ClassName.get(PAGING_PACKAGE, "ItemKeyedDataSource")
     val DATA_SOURCE_FACTORY: ClassName =
             ClassName.get(PAGING_PACKAGE, "DataSource.Factory")
 }
@@ -53,6 +53,12 @@ sealed class Section {
 
 data class Table(val name: String, val alias: String)
 
+/**
+ * A term of the ORDER BY clause of the top level SELECT. [columnName] is null if the term is an
+ * expression rather than a plain column reference.
+ */
+data class OrderingTerm(val columnName: String?, val collation: String?, val descending: Boolean)
+
 data class Position(val line: Int, val charInLine: Int) : Comparable<Position> {
     override fun compareTo(other: Position): Int {
         return if (line == other.line) {
@@ -78,7 +84,10 @@ data class ParsedQuery(
     // pairs of table name and alias,
     val tables: Set<Table>,
     val syntaxErrors: List<String>,
-    val runtimeQueryPlaceholder: Boolean
+    val runtimeQueryPlaceholder: Boolean,
+    // ORDER BY terms of the top level SELECT and whether it has a LIMIT clause
+    val orderingTerms: List<OrderingTerm> = emptyList(),
+    val hasLimit: Boolean = false
 ) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
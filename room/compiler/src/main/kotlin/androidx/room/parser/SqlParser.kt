@@ -42,6 +42,8 @@ class QueryVisitor(
     // table name alias mappings
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
+    private val orderingTerms = arrayListOf<OrderingTerm>()
+    private var hasLimit = false
     private val queryType: QueryType
 
     init {
@@ -129,6 +131,28 @@ class QueryVisitor(
         return super.visitExpr(ctx)
     }
 
+    override fun visitSelect_stmt(ctx: SQLiteParser.Select_stmtContext): Void? {
+        // only the ordering of the top level SELECT, not of its sub queries
+        if (ctx.parent is SQLiteParser.Sql_stmtContext) {
+            ctx.order_clause()?.ordering_term()?.forEach { term ->
+                var expr = term.expr()
+                var collation = term.collation_name()
+                // "column COLLATE name" may also be parsed as a COLLATE expression
+                if (collation == null && expr.K_COLLATE() != null) {
+                    collation = expr.collation_name()
+                    expr = expr.expr(0)
+                }
+                orderingTerms.add(OrderingTerm(
+                    columnName = expr.column_name()?.let { unescapeIdentifier(it.text) },
+                    collation = collation?.let { unescapeIdentifier(it.text) },
+                    descending = term.K_DESC() != null
+                ))
+            }
+            hasLimit = ctx.limit_clause() != null
+        }
+        return super.visitSelect_stmt(ctx)
+    }
+
     fun createParsedQuery(): ParsedQuery {
         return ParsedQuery(
             original = original,
@@ -138,7 +162,9 @@ class QueryVisitor(
             inputs = bindingExpressions.toList(),
             tables = tableNames,
             syntaxErrors = syntaxErrors,
-            runtimeQueryPlaceholder = forRuntimeQuery
+            runtimeQueryPlaceholder = forRuntimeQuery,
+            orderingTerms = orderingTerms.toList(),
+            hasLimit = hasLimit
         )
     }
 
@@ -19,6 +19,7 @@ package androidx.room.processor
 import androidx.room.log.RLog
 import androidx.room.preconditions.Checks
 import androidx.room.processor.cache.Cache
+import androidx.room.processor.cache.QueryCache
 import androidx.room.solver.TypeAdapterStore
 import androidx.room.verifier.DatabaseVerifier
 import androidx.room.vo.Warning
@@ -60,12 +61,15 @@ class Context private constructor(
         BooleanProcessorOptions.EXPAND_PROJECTION.getValue(processingEnv)
     }
 
-    constructor(processingEnv: ProcessingEnvironment) : this(
+    constructor(
+        processingEnv: ProcessingEnvironment,
+        queryCache: QueryCache = QueryCache()
+    ) : this(
             processingEnv = processingEnv,
             logger = RLog(RLog.ProcessingEnvMessager(processingEnv), emptySet(), null),
             typeConverters = CustomConverterProcessor.ProcessResult.EMPTY,
             inheritedAdapterStore = null,
-            cache = Cache(null, LinkedHashSet(), emptySet()))
+            cache = Cache(null, LinkedHashSet(), emptySet(), queryCache))
 
     class CommonTypes(val processingEnv: ProcessingEnvironment) {
         val VOID: TypeMirror by lazy {
@@ -88,6 +92,15 @@ class Context private constructor(
         }
     }
 
+    val queryCacheFile by lazy {
+        val arg = processingEnv.options[ProcessorOptions.OPTION_QUERY_CACHE_FOLDER.argName]
+        if (arg?.isNotEmpty() ?: false) {
+            File(arg, QueryCache.FILE_NAME)
+        } else {
+            null
+        }
+    }
+
     fun <T> collectLogs(handler: (Context) -> T): Pair<T, RLog.CollectingMessager> {
         val collector = RLog.CollectingMessager()
         val subContext = Context(processingEnv = processingEnv,
@@ -124,7 +137,8 @@ class Context private constructor(
     }
 
     enum class ProcessorOptions(val argName: String) {
-        OPTION_SCHEMA_FOLDER("room.schemaLocation")
+        OPTION_SCHEMA_FOLDER("room.schemaLocation"),
+        OPTION_QUERY_CACHE_FOLDER("room.queryCacheLocation")
     }
 
     enum class BooleanProcessorOptions(val argName: String, private val defaultValue: Boolean) {
@@ -16,6 +16,7 @@
 
 package androidx.room.processor
 
+import androidx.room.Query
 import androidx.room.SkipQueryVerification
 import androidx.room.ext.AnnotationBox
 import androidx.room.ext.RoomTypeNames
@@ -39,9 +40,12 @@ import com.squareup.javapoet.TypeName
 import java.util.Locale
 import javax.lang.model.element.Element
 import javax.lang.model.element.ElementKind
+import javax.lang.model.element.ExecutableElement
 import javax.lang.model.element.Modifier
 import javax.lang.model.element.TypeElement
+import javax.lang.model.type.TypeKind
 import javax.lang.model.type.TypeMirror
+import javax.lang.model.util.ElementFilter
 
 class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
     val context = baseContext.fork(element)
@@ -94,7 +98,7 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
         validateUniqueTableAndViewNames(element, entities, views)
 
         val declaredType = MoreTypes.asDeclared(element.asType())
-        val daoMethods = allMembers.filter {
+        val daoMethodElements = allMembers.filter {
             it.hasAnyOf(Modifier.ABSTRACT) && it.kind == ElementKind.METHOD
         }.filterNot {
             // remove methods that belong to room
@@ -102,7 +106,12 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
             MoreElements.isType(containing) &&
                     TypeName.get(containing.asType()) == RoomTypeNames.ROOM_DB
         }.map {
-            val executable = MoreElements.asExecutable(it)
+            MoreElements.asExecutable(it)
+        }
+        if (dbVerifier != null) {
+            dbVerifier.prefetch(collectDaoQueries(daoMethodElements))
+        }
+        val daoMethods = daoMethodElements.map { executable ->
             // TODO when we add support for non Dao return types (e.g. database), this code needs
             // to change
             val daoType = executable.returnType.asTypeElement()
@@ -128,6 +137,28 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
         return database
     }
 
+    /**
+     * Returns the queries of the DAOs that will be verified, so that they can be verified before
+     * the DAOs are processed.
+     */
+    private fun collectDaoQueries(daoMethodElements: List<ExecutableElement>): List<String> {
+        return daoMethodElements.map {
+            it.returnType
+        }.filter {
+            it.kind == TypeKind.DECLARED
+        }.map {
+            it.asTypeElement()
+        }.filterNot {
+            it.hasAnnotation(SkipQueryVerification::class)
+        }.flatMap { daoType ->
+            ElementFilter.methodsIn(context.processingEnv.elementUtils.getAllMembers(daoType))
+        }.filterNot {
+            it.hasAnnotation(SkipQueryVerification::class)
+        }.mapNotNull {
+            it.toAnnotationBox(Query::class)?.value?.value
+        }
+    }
+
     private fun validateForeignKeys(element: TypeElement, entities: List<Entity>) {
         val byTableName = entities.associateBy { it.tableName }
         entities.forEach { entity ->
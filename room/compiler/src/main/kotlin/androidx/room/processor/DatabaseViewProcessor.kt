@@ -19,7 +19,6 @@ package androidx.room.processor
 import androidx.room.ext.toAnnotationBox
 import androidx.room.parser.ParsedQuery
 import androidx.room.parser.QueryType
-import androidx.room.parser.SqlParser
 import androidx.room.vo.DatabaseView
 import javax.lang.model.element.Name
 import javax.lang.model.element.TypeElement
@@ -43,7 +42,7 @@ class DatabaseViewProcessor(
             element.simpleName.toString()
         }
         val query: ParsedQuery = if (annotationBox != null) {
-            SqlParser.parse(annotationBox.value.value).also {
+            context.cache.queries.parse(annotationBox.value.value).also {
                 context.checker.check(it.errors.isEmpty(), element,
                         it.errors.joinToString("\n"))
                 context.checker.check(it.type == QueryType.SELECT, element,
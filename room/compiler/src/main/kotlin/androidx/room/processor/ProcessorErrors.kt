@@ -592,7 +592,39 @@ object ProcessorErrors {
             You can use the @Ignore annotation to eliminate unwanted constructors.
             """.trim()
 
-    val PAGING_SPECIFY_DATA_SOURCE_TYPE = "For now, Room only supports PositionalDataSource class."
+    val PAGING_SPECIFY_DATA_SOURCE_TYPE = "For now, Room only supports PositionalDataSource" +
+            " and ItemKeyedDataSource classes."
+
+    val CURSOR_ITERABLE_WITH_RELATION = "CursorIterable converts rows lazily and cannot be" +
+            " used with POJOs that have @Relation fields. Return a List instead."
+
+    val CURSOR_ITERABLE_IN_TRANSACTION = "CursorIterable reads its rows after the method" +
+            " returns, outside of the transaction of a @Transaction method. Remove @Transaction" +
+            " or return a List instead."
+
+    val PAGING_KEYSET_REQUIRES_ORDER_BY = "Keyset paging (an ItemKeyedDataSource or a" +
+            " DataSource.Factory whose key is a concrete type other than Integer) requires the" +
+            " query to end with an ORDER BY clause on a single column, without LIMIT or OFFSET."
+
+    fun pagingKeysetKeyNotInResult(columnName: String): String {
+        return "The ORDER BY column $columnName of a keyset paged query must be returned by" +
+                " the query and mapped to a field of the result class (not of an @Embedded" +
+                " field)."
+    }
+
+    fun pagingKeysetKeyTypeMismatch(
+        columnName: String,
+        fieldType: TypeName,
+        keyType: TypeName
+    ): String {
+        return "The key type $keyType of a keyset paged query must match the type $fieldType" +
+                " of the field that the ORDER BY column $columnName is read into."
+    }
+
+    fun pagingKeysetKeyCannotBeBound(keyType: TypeName): String {
+        return "The key type $keyType of a keyset paged query cannot be bound to a query" +
+                " parameter. Add a TypeConverter that converts it into a column type."
+    }
 
     fun primaryKeyNull(field: String): String {
         return "You must annotate primary keys with @NonNull. \"$field\" is nullable. SQLite " +
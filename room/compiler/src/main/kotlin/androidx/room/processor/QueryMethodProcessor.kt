@@ -24,7 +24,7 @@ import androidx.room.ext.toAnnotationBox
 import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.parser.QueryType
-import androidx.room.parser.SqlParser
+import androidx.room.solver.query.result.CursorIterableQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.verifier.DatabaseVerificationErrors
 import androidx.room.verifier.DatabaseVerifier
@@ -56,7 +56,7 @@ class QueryMethodProcessor(
                 ProcessorErrors.MISSING_QUERY_ANNOTATION)
 
         val query = if (annotation != null) {
-            val query = SqlParser.parse(annotation.value)
+            val query = context.cache.queries.parse(annotation.value)
             context.checker.check(query.errors.isEmpty(), executableElement,
                     query.errors.joinToString("\n"))
             if (!executableElement.hasAnnotation(SkipQueryVerification::class)) {
@@ -138,6 +138,10 @@ class QueryMethodProcessor(
             ProcessorErrors.cannotFindQueryResultAdapter(returnType.toString()))
 
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        context.checker.check(
+            !inTransaction || resultBinder !is CursorIterableQueryResultBinder,
+            executableElement,
+            ProcessorErrors.CURSOR_ITERABLE_IN_TRANSACTION)
         if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
             resultBinder.adapter?.rowAdapter?.let { rowAdapter ->
@@ -36,10 +36,13 @@ import javax.lang.model.type.TypeMirror
 class Cache(
     val parent: Cache?,
     val converters: LinkedHashSet<TypeMirror>,
-    val suppressedWarnings: Set<Warning>
+    val suppressedWarnings: Set<Warning>,
+    queries: QueryCache? = null
 ) {
     val entities: Bucket<EntityKey, Entity> = Bucket(parent?.entities)
     val pojos: Bucket<PojoKey, Pojo> = Bucket(parent?.pojos)
+    // queries do not depend on converters or warnings so all contexts share the root's cache.
+    val queries: QueryCache = queries ?: parent?.queries ?: QueryCache()
 
     inner class Bucket<K, T>(source: Bucket<K, T>?) {
         private val entries: MutableMap<FullKey<K>, T> = source?.entries ?: mutableMapOf()
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.processor.cache
+
+import androidx.room.parser.OrderingTerm
+import androidx.room.parser.ParsedQuery
+import androidx.room.parser.Position
+import androidx.room.parser.QueryType
+import androidx.room.parser.SQLTypeAffinity
+import androidx.room.parser.Section
+import androidx.room.parser.SectionInfo
+import androidx.room.parser.SqlParser
+import androidx.room.parser.Table
+import androidx.room.verifier.ColumnInfo
+import androidx.room.verifier.QueryResultInfo
+import org.apache.commons.codec.digest.DigestUtils
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.sql.SQLException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Keeps the results of parsing and verifying queries so that they are not computed again.
+ * <p>
+ * Parse results are keyed by the query. Verification results are keyed by the hash of the schema
+ * they were computed against and the query, so changing an entity only invalidates the results of
+ * the database it belongs to.
+ * <p>
+ * If a [file] is given, the cache is loaded from it when created and [save] writes back the
+ * entries that were used since then, which lets incremental builds skip the queries that did not
+ * change. The file is keyed on the [compilerVersion], so a cache written by another build of the
+ * compiler is discarded. The cache can be used from multiple threads.
+ */
+class QueryCache(
+    private val file: File? = null,
+    private val compilerVersion: String = COMPILER_VERSION
+) {
+    private val parsedQueries = ConcurrentHashMap<String, ParsedQuery>()
+    private val resultInfos = ConcurrentHashMap<String, QueryResultInfo>()
+    // keys requested since the cache was loaded, entries that are not in these are not saved.
+    private val usedParsedQueries = ConcurrentHashMap.newKeySet<String>()
+    private val usedResultInfos = ConcurrentHashMap.newKeySet<String>()
+    @Volatile
+    private var modified = false
+
+    init {
+        if (file != null && file.exists()) {
+            try {
+                load(file)
+            } catch (ex: Exception) {
+                // a corrupt cache is the same as not having one.
+                parsedQueries.clear()
+                resultInfos.clear()
+            }
+        }
+    }
+
+    /**
+     * Returns the parsed version of the given query. The result is a copy that the caller can
+     * modify.
+     */
+    fun parse(sql: String): ParsedQuery {
+        usedParsedQueries.add(sql)
+        val parsed = parsedQueries[sql] ?: SqlParser.parse(sql).also {
+            parsedQueries[sql] = it
+            modified = true
+        }
+        return parsed.copy()
+    }
+
+    /**
+     * Returns the result of verifying the given query against the schema with the given hash,
+     * calling [analyze] if it is not known yet.
+     */
+    fun analyze(schemaHash: String, sql: String, analyze: () -> QueryResultInfo): QueryResultInfo {
+        val key = resultInfoKey(schemaHash, sql)
+        usedResultInfos.add(key)
+        return resultInfos[key] ?: analyze().also {
+            resultInfos[key] = it
+            modified = true
+        }
+    }
+
+    /**
+     * Returns true if the result of verifying the given query against the schema with the given
+     * hash is known.
+     */
+    fun isAnalyzed(schemaHash: String, sql: String): Boolean {
+        return resultInfos.containsKey(resultInfoKey(schemaHash, sql))
+    }
+
+    /**
+     * Writes the entries used since the cache was created into its file, if it has one and
+     * anything changed.
+     */
+    fun save() {
+        if (file == null) {
+            return
+        }
+        if (!modified && usedParsedQueries.size == parsedQueries.size &&
+            usedResultInfos.size == resultInfos.size) {
+            return
+        }
+        file.parentFile?.mkdirs()
+        val tmpFile = File(file.parentFile, "${file.name}.tmp")
+        DataOutputStream(BufferedOutputStream(tmpFile.outputStream())).use { out ->
+            out.writeInt(FORMAT_VERSION)
+            out.writeString(compilerVersion)
+            val parsed = parsedQueries.filterKeys { usedParsedQueries.contains(it) }
+            out.writeInt(parsed.size)
+            parsed.values.forEach { out.writeParsedQuery(it) }
+            val resultInfos = resultInfos.filterKeys { usedResultInfos.contains(it) }
+            out.writeInt(resultInfos.size)
+            resultInfos.forEach { (key, resultInfo) ->
+                out.writeString(key)
+                out.writeResultInfo(resultInfo)
+            }
+        }
+        if (!tmpFile.renameTo(file)) {
+            file.delete()
+            tmpFile.renameTo(file)
+        }
+        modified = false
+    }
+
+    private fun load(file: File) {
+        DataInputStream(BufferedInputStream(file.inputStream())).use { input ->
+            if (input.readInt() != FORMAT_VERSION || input.readString() != compilerVersion) {
+                return
+            }
+            repeat(input.readInt()) {
+                val parsed = input.readParsedQuery()
+                parsedQueries[parsed.original] = parsed
+            }
+            repeat(input.readInt()) {
+                resultInfos[input.readString()] = input.readResultInfo()
+            }
+        }
+    }
+
+    companion object {
+        const val FILE_NAME = "room-query-cache.bin"
+        // increment when the format or the contents of the cached objects change.
+        private const val FORMAT_VERSION = 2
+        /**
+         * Identifies the build of the compiler, so that results computed by a different parser
+         * or verifier are not reused. The manifest version does not change between snapshots,
+         * hence the hash of the compiler's jar, or of the size and modification time of its
+         * class files when it runs from a directory.
+         */
+        private val COMPILER_VERSION by lazy { computeCompilerVersion() }
+
+        private fun computeCompilerVersion(): String {
+            return try {
+                val location = QueryCache::class.java.protectionDomain?.codeSource?.location
+                        ?: return ""
+                val source = File(location.toURI())
+                when {
+                    source.isFile -> source.inputStream().use { DigestUtils.md5Hex(it) }
+                    source.isDirectory -> DigestUtils.md5Hex(source.walkTopDown()
+                            .filter { it.isFile }
+                            .sortedBy { it.path }
+                            .joinToString("\n") {
+                                "${it.path}:${it.length()}:${it.lastModified()}"
+                            })
+                    else -> ""
+                }
+            } catch (ex: Exception) {
+                // without an identity, the cache cannot tell compilers apart.
+                ""
+            }
+        }
+
+        private const val SECTION_TEXT = 0
+        private const val SECTION_NEWLINE = 1
+        private const val SECTION_BIND_VAR = 2
+        private const val SECTION_PROJECTION_ALL = 3
+        private const val SECTION_PROJECTION_TABLE = 4
+
+        /**
+         * Only the surrounding whitespace is ignored since SQLite names the result columns of
+         * expressions after their exact text.
+         */
+        private fun resultInfoKey(schemaHash: String, sql: String) = "$schemaHash:${sql.trim()}"
+
+        private fun DataOutputStream.writeString(value: String) {
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            writeInt(bytes.size)
+            write(bytes)
+        }
+
+        private fun DataInputStream.readString(): String {
+            val bytes = ByteArray(readInt())
+            readFully(bytes)
+            return String(bytes, Charsets.UTF_8)
+        }
+
+        private fun DataOutputStream.writeNullableString(value: String?) {
+            writeBoolean(value != null)
+            if (value != null) {
+                writeString(value)
+            }
+        }
+
+        private fun DataInputStream.readNullableString(): String? {
+            return if (readBoolean()) readString() else null
+        }
+
+        private fun DataOutputStream.writeStrings(values: Collection<String>) {
+            writeInt(values.size)
+            values.forEach { writeString(it) }
+        }
+
+        private fun DataInputStream.readStrings(): List<String> {
+            return List(readInt()) { readString() }
+        }
+
+        private fun DataOutputStream.writeParsedQuery(query: ParsedQuery) {
+            writeString(query.original)
+            writeString(query.type.name)
+            writeInt(query.inputs.size)
+            query.inputs.forEach { writeSectionInfo(it) }
+            writeInt(query.projections.size)
+            query.projections.forEach { writeSectionInfo(it) }
+            writeStrings(query.explicitColumns)
+            writeInt(query.tables.size)
+            query.tables.forEach {
+                writeString(it.name)
+                writeString(it.alias)
+            }
+            writeStrings(query.syntaxErrors)
+            writeBoolean(query.runtimeQueryPlaceholder)
+            writeInt(query.orderingTerms.size)
+            query.orderingTerms.forEach {
+                writeNullableString(it.columnName)
+                writeNullableString(it.collation)
+                writeBoolean(it.descending)
+            }
+            writeBoolean(query.hasLimit)
+        }
+
+        private fun DataInputStream.readParsedQuery(): ParsedQuery {
+            return ParsedQuery(
+                original = readString(),
+                type = QueryType.valueOf(readString()),
+                inputs = List(readInt()) { readSectionInfo() },
+                projections = List(readInt()) { readSectionInfo() },
+                explicitColumns = readStrings(),
+                tables = List(readInt()) { Table(readString(), readString()) }.toSet(),
+                syntaxErrors = readStrings(),
+                runtimeQueryPlaceholder = readBoolean(),
+                orderingTerms = List(readInt()) {
+                    OrderingTerm(readNullableString(), readNullableString(), readBoolean())
+                },
+                hasLimit = readBoolean()
+            )
+        }
+
+        private fun DataOutputStream.writeSectionInfo(info: SectionInfo) {
+            writeInt(info.start.line)
+            writeInt(info.start.charInLine)
+            writeInt(info.end.line)
+            writeInt(info.end.charInLine)
+            val section = info.section
+            when (section) {
+                is Section.Text -> {
+                    writeByte(SECTION_TEXT)
+                    writeString(section.content)
+                }
+                is Section.Newline -> writeByte(SECTION_NEWLINE)
+                is Section.BindVar -> {
+                    writeByte(SECTION_BIND_VAR)
+                    writeString(section.symbol)
+                }
+                is Section.Projection.All -> writeByte(SECTION_PROJECTION_ALL)
+                is Section.Projection.Table -> {
+                    writeByte(SECTION_PROJECTION_TABLE)
+                    writeString(section.tableAlias)
+                    writeString(section.text)
+                }
+            }
+        }
+
+        private fun DataInputStream.readSectionInfo(): SectionInfo {
+            val start = Position(readInt(), readInt())
+            val end = Position(readInt(), readInt())
+            val kind = readByte().toInt()
+            val section = when (kind) {
+                SECTION_TEXT -> Section.Text(readString())
+                SECTION_NEWLINE -> Section.Newline
+                SECTION_BIND_VAR -> Section.BindVar(readString())
+                SECTION_PROJECTION_ALL -> Section.Projection.All
+                SECTION_PROJECTION_TABLE -> Section.Projection.Table(readString(), readString())
+                else -> throw IOException("unknown section kind $kind")
+            }
+            return SectionInfo(start, end, section)
+        }
+
+        private fun DataOutputStream.writeResultInfo(resultInfo: QueryResultInfo) {
+            writeInt(resultInfo.columns.size)
+            resultInfo.columns.forEach {
+                writeString(it.name)
+                writeString(it.type.name)
+            }
+            val error = resultInfo.error
+            writeBoolean(error != null)
+            if (error != null) {
+                writeString(error.message ?: "")
+            }
+        }
+
+        private fun DataInputStream.readResultInfo(): QueryResultInfo {
+            val columns = List(readInt()) {
+                ColumnInfo(readString(), SQLTypeAffinity.valueOf(readString()))
+            }
+            val error = if (readBoolean()) {
+                SQLException(readString())
+            } else {
+                null
+            }
+            return QueryResultInfo(columns, error)
+        }
+    }
+}
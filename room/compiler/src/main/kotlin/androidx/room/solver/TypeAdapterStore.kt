@@ -28,6 +28,7 @@ import androidx.room.processor.Context
 import androidx.room.processor.EntityProcessor
 import androidx.room.processor.FieldProcessor
 import androidx.room.processor.PojoProcessor
+import androidx.room.solver.binderprovider.CursorIterableQueryResultBinderProvider
 import androidx.room.solver.binderprovider.CursorQueryResultBinderProvider
 import androidx.room.solver.binderprovider.DataSourceFactoryQueryResultBinderProvider
 import androidx.room.solver.binderprovider.DataSourceQueryResultBinderProvider
@@ -165,6 +166,7 @@ class TypeAdapterStore private constructor(
 
     val queryResultBinderProviders = listOf(
             CursorQueryResultBinderProvider(context),
+            CursorIterableQueryResultBinderProvider(context),
             LiveDataQueryResultBinderProvider(context),
             GuavaListenableFutureQueryResultBinderProvider(context),
             RxFlowableQueryResultBinderProvider(context),
@@ -450,6 +452,7 @@ class TypeAdapterStore private constructor(
                     PojoRowAdapter(
                             context = subContext,
                             info = resultInfo,
+                            query = query,
                             pojo = pojo,
                             out = typeMirror)
                 }
@@ -497,6 +500,7 @@ class TypeAdapterStore private constructor(
                 return PojoRowAdapter(
                         context = context,
                         info = null,
+                        query = null,
                         pojo = pojo,
                         out = typeMirror)
             }
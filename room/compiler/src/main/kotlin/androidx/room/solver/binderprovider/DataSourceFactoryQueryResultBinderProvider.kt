@@ -17,11 +17,13 @@
 package androidx.room.solver.binderprovider
 
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceFactoryQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.solver.query.result.QueryResultBinder
@@ -39,6 +41,12 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
             context.logger.e(ProcessorErrors.OBSERVABLE_QUERY_NOTHING_TO_OBSERVE)
         }
         val typeArg = declared.typeArguments[1]
+        val keyType = declared.typeArguments[0]
+        if (isKeysetKeyType(keyType)) {
+            // any other key is the value of the ORDER BY column
+            return KeysetDataSourceFactoryQueryResultBinder(
+                    createKeysetDataSourceBinder(context, keyType, typeArg, query))
+        }
         val adapter = context.typeAdapterStore.findRowAdapter(typeArg, query)?.let {
             ListQueryResultAdapter(it)
         }
@@ -38,11 +38,20 @@ class DataSourceQueryResultBinderProvider(val context: Context) : QueryResultBin
                 .getTypeElement(PagingTypeNames.POSITIONAL_DATA_SOURCE.toString())?.asType()
     }
 
+    private val itemKeyedDataSourceTypeMirror: TypeMirror? by lazy {
+        context.processingEnv.elementUtils
+                .getTypeElement(PagingTypeNames.ITEM_KEYED_DATA_SOURCE.toString())?.asType()
+    }
+
     override fun provide(declared: DeclaredType, query: ParsedQuery): QueryResultBinder {
         if (query.tables.isEmpty()) {
             context.logger.e(ProcessorErrors.OBSERVABLE_QUERY_NOTHING_TO_OBSERVE)
         }
         val typeArg = declared.typeArguments.last()
+        if (declared.typeArguments.size == 2 && isItemKeyed(declared)) {
+            return createKeysetDataSourceBinder(context, declared.typeArguments[0], typeArg,
+                    query)
+        }
         val listAdapter = context.typeAdapterStore.findRowAdapter(typeArg, query)?.let {
             ListQueryResultAdapter(it)
         }
@@ -66,9 +75,15 @@ class DataSourceQueryResultBinderProvider(val context: Context) : QueryResultBin
         }
         val isPositional = context.processingEnv.typeUtils
                 .isAssignable(erasure, positionalDataSourceTypeMirror)
-        if (!isPositional) {
+        if (!isPositional && !isItemKeyed(declared)) {
             context.logger.e(ProcessorErrors.PAGING_SPECIFY_DATA_SOURCE_TYPE)
         }
         return true
     }
+
+    private fun isItemKeyed(declared: DeclaredType): Boolean {
+        val itemKeyed = itemKeyedDataSourceTypeMirror ?: return false
+        val erasure = context.processingEnv.typeUtils.erasure(declared)
+        return context.processingEnv.typeUtils.isAssignable(erasure, itemKeyed)
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.binderprovider
+
+import androidx.room.ext.typeName
+import androidx.room.parser.ParsedQuery
+import androidx.room.processor.Context
+import androidx.room.processor.ProcessorErrors
+import androidx.room.solver.query.result.KeysetDataSourceQueryResultBinder
+import androidx.room.solver.query.result.ListQueryResultAdapter
+import androidx.room.solver.query.result.PojoRowAdapter
+import com.squareup.javapoet.TypeName
+import javax.lang.model.type.TypeKind
+import javax.lang.model.type.TypeMirror
+
+/**
+ * The single column a keyset paged query is ordered by, and the collation it is compared with.
+ */
+internal data class KeysetOrder(
+    val columnName: String,
+    val collation: String?,
+    val descending: Boolean
+) {
+    companion object {
+        /**
+         * Returns the order of the given query, or null if its top level SELECT is not ordered by
+         * a single plain column or has a LIMIT clause.
+         */
+        fun of(query: ParsedQuery): KeysetOrder? {
+            if (query.hasLimit) {
+                return null
+            }
+            val term = query.orderingTerms.singleOrNull() ?: return null
+            return KeysetOrder(
+                    columnName = term.columnName ?: return null,
+                    collation = term.collation,
+                    descending = term.descending)
+        }
+    }
+}
+
+/**
+ * Returns true if a data source keyed by [keyType] pages by key. Integer keys are positions, and
+ * so are the keys of wildcard and type variable key types such as `DataSource.Factory<?, T>`,
+ * which is how positional data sources are commonly declared.
+ */
+internal fun isKeysetKeyType(keyType: TypeMirror): Boolean {
+    return keyType.kind == TypeKind.DECLARED && keyType.typeName() != TypeName.INT.box()
+}
+
+/**
+ * Creates the binder for a data source of [rowType] items keyed by [keyType], reporting an error
+ * if the query cannot be paged by key.
+ */
+internal fun createKeysetDataSourceBinder(
+    context: Context,
+    keyType: TypeMirror,
+    rowType: TypeMirror,
+    query: ParsedQuery
+): KeysetDataSourceQueryResultBinder {
+    val rowAdapter = context.typeAdapterStore.findRowAdapter(rowType, query)
+    val listAdapter = rowAdapter?.let { ListQueryResultAdapter(it) }
+    val tableNames = ((listAdapter?.accessedTableNames() ?: emptyList()) +
+            query.tables.map { it.name }).toSet()
+    val keyTypeName = keyType.typeName()
+    val order = KeysetOrder.of(query)
+    if (order == null) {
+        context.logger.e(ProcessorErrors.PAGING_KEYSET_REQUIRES_ORDER_BY)
+        return KeysetDataSourceQueryResultBinder(listAdapter, tableNames, keyTypeName, null,
+                null, null, false)
+    }
+    // only fields that the query actually fills in can provide the key
+    val keyField = (rowAdapter as? PojoRowAdapter)?.mapping?.matchedFields
+            ?.firstOrNull { it.columnName == order.columnName && it.parent == null }
+    // keys are bound the same way as query arguments of the key type, including type converters
+    val keyBinder = keyField?.let {
+        context.typeAdapterStore.findStatementValueBinder(keyType, it.affinity)
+    }
+    if (rowAdapter != null && keyField == null) {
+        context.logger.e(ProcessorErrors.pagingKeysetKeyNotInResult(order.columnName))
+    } else if (keyField != null && !isKeyAssignable(keyField.typeName, keyTypeName)) {
+        context.logger.e(ProcessorErrors.pagingKeysetKeyTypeMismatch(order.columnName,
+                keyField.typeName, keyTypeName))
+    } else if (keyField != null && keyBinder == null) {
+        context.logger.e(ProcessorErrors.pagingKeysetKeyCannotBeBound(keyTypeName))
+    }
+    return KeysetDataSourceQueryResultBinder(listAdapter, tableNames, keyTypeName, keyField,
+            keyBinder, order.collation, order.descending)
+}
+
+/**
+ * Whether a field of type [fieldType] can be returned as the key. Integer columns may also be
+ * widened to Long, since an Integer key would select positional paging.
+ */
+internal fun isKeyAssignable(fieldType: TypeName, keyType: TypeName): Boolean {
+    val boxed = fieldType.box()
+    return boxed == keyType || (keyType == TypeName.LONG.box() && boxed in WIDENED_TO_LONG)
+}
+
+private val WIDENED_TO_LONG = setOf(TypeName.INT.box(), TypeName.SHORT.box(), TypeName.BYTE.box())
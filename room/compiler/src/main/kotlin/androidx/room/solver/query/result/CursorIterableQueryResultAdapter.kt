@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Wraps the cursor into a CursorIterable that converts each row when it is iterated.
+ */
+class CursorIterableQueryResultAdapter(rowAdapter: RowAdapter) : QueryResultAdapter(rowAdapter) {
+    val type = rowAdapter.out
+
+    // rows are converted on demand, never copy the cursor.
+    override fun shouldCopyCursor() = false
+
+    override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+        convert(outVarName, cursorVarName, null, scope)
+    }
+
+    /**
+     * @param queryVarName The query to release when the result is closed, if any.
+     */
+    fun convert(
+        outVarName: String,
+        cursorVarName: String,
+        queryVarName: String?,
+        scope: CodeGenScope
+    ) {
+        val iterableType = ParameterizedTypeName.get(RoomTypeNames.CURSOR_ITERABLE,
+                type.typeName())
+        rowAdapter?.onCursorReady(cursorVarName, scope)
+        val convertScope = scope.fork()
+        val rowCursorVar = convertScope.getTmpVar("_rowCursor")
+        val itemVar = convertScope.getTmpVar("_item")
+        convertScope.builder().apply {
+            addStatement("final $T $L", type.typeName(), itemVar)
+            rowAdapter?.convert(itemVar, rowCursorVar, convertScope)
+            addStatement("return $L", itemVar)
+        }
+        val iterableSpec = TypeSpec.anonymousClassBuilder("$L, $L", cursorVarName,
+                queryVarName ?: "null").apply {
+            superclass(iterableType)
+            addMethod(MethodSpec.methodBuilder("convert").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(Modifier.PROTECTED)
+                returns(type.typeName())
+                addParameter(AndroidTypeNames.CURSOR, rowCursorVar)
+                addCode(convertScope.builder().build())
+            }.build())
+        }.build()
+        scope.builder().addStatement("final $T $L = $L", iterableType, outVarName, iterableSpec)
+    }
+}
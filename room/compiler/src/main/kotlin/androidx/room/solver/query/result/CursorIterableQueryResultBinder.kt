@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+
+/**
+ * Runs the query and returns a CursorIterable that owns the cursor, which is closed along with
+ * the query when the CursorIterable is closed. If creating the CursorIterable fails, the cursor
+ * is closed and the query released before the exception is rethrown.
+ * <p>
+ * Rows are read after the method returns, so a CursorIterable cannot be read in the transaction
+ * of a @Transaction method, which QueryMethodProcessor reports as an error.
+ */
+class CursorIterableQueryResultBinder(
+    private val iterableAdapter: CursorIterableQueryResultAdapter?
+) : QueryResultBinder(iterableAdapter) {
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        val outVar = scope.getTmpVar("_result")
+        val cursorVar = scope.getTmpVar("_cursor")
+        val exceptionVar = scope.getTmpVar("_exception")
+        scope.builder().apply {
+            addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+            addStatement("final $T $L = $T.query($N, $L, false)",
+                    AndroidTypeNames.CURSOR,
+                    cursorVar,
+                    RoomTypeNames.DB_UTIL,
+                    dbField,
+                    roomSQLiteQueryVar)
+            beginControlFlow("try").apply {
+                iterableAdapter?.convert(outVar, cursorVar,
+                        if (canReleaseQuery) roomSQLiteQueryVar else null, scope)
+                addStatement("return $L", outVar)
+            }
+            nextControlFlow("catch ($T $L)", RuntimeException::class.java, exceptionVar).apply {
+                addStatement("$L.close()", cursorVar)
+                if (canReleaseQuery) {
+                    addStatement("$L.release()", roomSQLiteQueryVar)
+                }
+                addStatement("throw $L", exceptionVar)
+            }
+            endControlFlow()
+        }
+    }
+}
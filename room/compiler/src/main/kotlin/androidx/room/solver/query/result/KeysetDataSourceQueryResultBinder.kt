@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.CommonTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.S
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+import androidx.room.solver.types.StatementValueBinder
+import androidx.room.vo.Field
+import com.squareup.javapoet.CodeBlock
+import com.squareup.javapoet.FieldSpec
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Creates a KeysetDataSource which pages the query by the value of [keyField], the field that the
+ * single ORDER BY column of the query is read into. Keys are compared with the [collation] of the
+ * ORDER BY clause, if any, and bound with [keyBinder].
+ */
+class KeysetDataSourceQueryResultBinder(
+    val listAdapter: ListQueryResultAdapter?,
+    val tableNames: Set<String>,
+    val keyTypeName: TypeName,
+    val keyField: Field?,
+    val keyBinder: StatementValueBinder?,
+    val collation: String?,
+    val descending: Boolean
+) : QueryResultBinder(listAdapter) {
+    val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName() ?: TypeName.OBJECT
+    val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
+            RoomTypeNames.KEYSET_DATA_SOURCE, keyTypeName, itemTypeName)
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        // see PositionalDataSourceQueryResultBinder for why the first comma is in the string
+        val tableNamesList = tableNames.joinToString("") { ", \"$it\"" }
+        // Counting the rows would cost as much as the offset we are avoiding, so keyset sources
+        // never count them and do not report placeholders, as documented on @Query.
+        val spec = TypeSpec.anonymousClassBuilder("$N, $L, $S, $S, $L, $L, $L $L",
+                dbField, roomSQLiteQueryVar, keyField?.columnName ?: "", collation, descending,
+                false, inTransaction, tableNamesList).apply {
+            superclass(typeName)
+            addMethod(createConvertRowsMethod(scope))
+            addMethod(createGetKeyMethod(scope))
+            if (keyBinder != null) {
+                addMethod(createBindKeyMethod(keyBinder, scope))
+            }
+        }.build()
+        scope.builder().apply {
+            addStatement("return $L", spec)
+        }
+    }
+
+    private fun createConvertRowsMethod(scope: CodeGenScope): MethodSpec =
+            MethodSpec.methodBuilder("convertRows").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(Modifier.PROTECTED)
+                returns(ParameterizedTypeName.get(CommonTypeNames.LIST, itemTypeName))
+                val cursorParam = ParameterSpec.builder(AndroidTypeNames.CURSOR, "cursor")
+                        .build()
+                addParameter(cursorParam)
+                val resultVar = scope.getTmpVar("_res")
+                val rowsScope = scope.fork()
+                listAdapter?.convert(resultVar, cursorParam.name, rowsScope)
+                addCode(rowsScope.builder().build())
+                addStatement("return $L", resultVar)
+            }.build()
+
+    private fun createBindKeyMethod(
+        keyBinder: StatementValueBinder,
+        scope: CodeGenScope
+    ): MethodSpec = MethodSpec.methodBuilder("bindKey").apply {
+        addAnnotation(Override::class.java)
+        addModifiers(Modifier.PROTECTED)
+        val queryParam = ParameterSpec.builder(RoomTypeNames.ROOM_SQL_QUERY, "query").build()
+        val indexParam = ParameterSpec.builder(TypeName.INT, "index").build()
+        val keyParam = ParameterSpec.builder(keyTypeName, "key").build()
+        addParameters(listOf(queryParam, indexParam, keyParam))
+        val bindScope = scope.fork()
+        keyBinder.bindToStmt(queryParam.name, indexParam.name, keyParam.name, bindScope)
+        addCode(bindScope.builder().build())
+    }.build()
+
+    private fun createGetKeyMethod(scope: CodeGenScope): MethodSpec =
+            MethodSpec.methodBuilder("getKey").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(Modifier.PUBLIC)
+                returns(keyTypeName)
+                val itemParam = ParameterSpec.builder(itemTypeName, "item").build()
+                addParameter(itemParam)
+                if (keyField == null) {
+                    // an error has already been reported, just keep the generated code valid
+                    addStatement("return null")
+                } else {
+                    val keyVar = scope.getTmpVar("_key")
+                    val code = CodeBlock.builder()
+                    keyField.getter.writeGet(itemParam.name, keyVar, code)
+                    addCode(code.build())
+                    if (keyField.typeName.box() == keyTypeName) {
+                        addStatement("return $L", keyVar)
+                    } else {
+                        // an integer column paged with a Long key
+                        addStatement("return ($T) $L", TypeName.LONG, keyVar)
+                    }
+                }
+            }.build()
+}
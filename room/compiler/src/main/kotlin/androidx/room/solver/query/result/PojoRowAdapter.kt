@@ -20,6 +20,8 @@ import androidx.room.ext.L
 import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.S
 import androidx.room.ext.T
+import androidx.room.parser.ParsedQuery
+import androidx.room.parser.SqlParser
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.CodeGenScope
@@ -39,10 +41,13 @@ import javax.lang.model.type.TypeMirror
  * Creates the entity from the given info.
  * <p>
  * The info comes from the query processor so we know about the order of columns in the result etc.
+ * If the order of columns is fixed by the query, their positions are used directly instead of
+ * looking them up by name when the cursor is ready.
  */
 class PojoRowAdapter(
     context: Context,
     private val info: QueryResultInfo?,
+    private val query: ParsedQuery?,
     val pojo: Pojo,
     out: TypeMirror
 ) : RowAdapter(out) {
@@ -112,8 +117,43 @@ class PojoRowAdapter(
         }.distinct()
     }
 
+    /**
+     * Returns the position of each column in the result if the query fixes it, null otherwise.
+     * <p>
+     * Star projections are expanded from the columns of the table in the database file, whose
+     * order may differ from the one the query was verified with (e.g. after a migration), so they
+     * are only resolved at runtime. Same goes for results with duplicate column names, which
+     * are resolved by the cursor.
+     */
+    private fun findColumnPositions(): Map<String, Int>? {
+        val query = query ?: return null
+        // read the result info from the query since it is updated if the query is interpreted
+        val resultInfo = query.resultInfo ?: return null
+        if (resultInfo.error != null) {
+            return null
+        }
+        val projections = if (query.interpreted == query.original) {
+            query.projections
+        } else {
+            SqlParser.parse(query.interpreted).projections
+        }
+        if (projections.isNotEmpty()) {
+            return null
+        }
+        val columnNames = resultInfo.columns.map { it.name }
+        if (columnNames.distinct().size != columnNames.size) {
+            return null
+        }
+        return columnNames.withIndex().associate { it.value to it.index }
+    }
+
     override fun onCursorReady(cursorVarName: String, scope: CodeGenScope) {
+        val columnPositions = findColumnPositions()
         mapping.fieldsWithIndices = mapping.matchedFields.map {
+            val position = columnPositions?.get(it.columnName)
+            if (position != null) {
+                return@map FieldWithIndex(field = it, indexVar = "$position", alwaysExists = true)
+            }
             val indexVar = scope.getTmpVar("_cursorIndexOf${it.name.stripNonJava().capitalize()}")
             val indexMethod = if (info == null) {
                 "getColumnIndex"
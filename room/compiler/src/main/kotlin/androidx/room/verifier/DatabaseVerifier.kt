@@ -23,12 +23,15 @@ import androidx.room.vo.FtsEntity
 import androidx.room.vo.FtsOptions
 import androidx.room.vo.Warning
 import columnInfo
+import org.apache.commons.codec.digest.DigestUtils
 import org.sqlite.JDBC
 import java.io.File
 import java.sql.Connection
 import java.sql.DriverManager
 import java.sql.SQLException
 import java.util.UUID
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 import java.util.regex.Pattern
 import javax.lang.model.element.Element
 
@@ -44,6 +47,8 @@ class DatabaseVerifier private constructor(
 ) {
     companion object {
         private const val CONNECTION_URL = "jdbc:sqlite::memory:"
+        // below this, creating another database costs more than it saves.
+        private const val MIN_QUERIES_PER_THREAD = 25
         /**
          * Taken from:
          * https://github.com/robolectric/robolectric/blob/master/shadows/framework/
@@ -106,37 +111,120 @@ class DatabaseVerifier private constructor(
         }
     }
 
+    /**
+     * The statements that create the schema, in the order they are executed.
+     */
+    private val schemaStatements = entities.flatMap { entity ->
+        val createTableQuery = if (entity is FtsEntity &&
+            !FtsOptions.defaultTokenizers.contains(entity.ftsOptions.tokenizer)) {
+            // Custom FTS tokenizer used, use create statement without custom tokenizer
+            // since the DB used for verification probably doesn't have the tokenizer.
+            entity.getCreateTableQueryWithoutTokenizer()
+        } else {
+            entity.createTableQuery
+        }
+        listOf(SchemaStatement(stripLocalizeCollations(createTableQuery), entity.element)) +
+                entity.indices.map { SchemaStatement(it.createQuery(entity.tableName), null) }
+    } + views.map { view ->
+        SchemaStatement(stripLocalizeCollations(view.createViewQuery), view.element)
+    }
+
+    /**
+     * Identifies the schema in the query cache, queries analyzed against another database with
+     * the same schema have the same results.
+     */
+    private val schemaHash = DigestUtils.md5Hex(
+        (listOf(connection.metaData.databaseProductVersion) + schemaStatements.map { it.sql })
+            .joinToString("\n")
+    )
+
+    private val queryCache = context.cache.queries
+
     init {
-        entities.forEach { entity ->
+        schemaStatements.forEach { statement ->
             val stmt = connection.createStatement()
-            val createTableQuery = if (entity is FtsEntity &&
-                !FtsOptions.defaultTokenizers.contains(entity.ftsOptions.tokenizer)) {
-                // Custom FTS tokenizer used, use create statement without custom tokenizer
-                // since the DB used for verification probably doesn't have the tokenizer.
-                entity.getCreateTableQueryWithoutTokenizer()
+            if (statement.element == null) {
+                stmt.executeUpdate(statement.sql)
             } else {
-                entity.createTableQuery
-            }
-            try {
-                stmt.executeUpdate(stripLocalizeCollations(createTableQuery))
-            } catch (e: SQLException) {
-                context.logger.e(entity.element, "${e.message}")
+                try {
+                    stmt.executeUpdate(statement.sql)
+                } catch (e: SQLException) {
+                    context.logger.e(statement.element, "${e.message}")
+                }
             }
-            entity.indices.forEach {
-                stmt.executeUpdate(it.createQuery(entity.tableName))
+        }
+    }
+
+    fun analyze(sql: String): QueryResultInfo {
+        return queryCache.analyze(schemaHash, sql) {
+            analyze(connection, sql)
+        }
+    }
+
+    /**
+     * Parses and analyzes the given queries ahead of time so that processing them afterwards only
+     * reads the query cache.
+     * <p>
+     * The processing of DAOs cannot be split across threads since the element APIs of the
+     * compiler are not thread safe, but parsing and preparing queries do not need them. If there
+     * are enough queries that are not in the cache yet, they are split between threads that each
+     * use their own copy of the database.
+     */
+    fun prefetch(queries: Collection<String>) {
+        val missing = queries.distinct().filterNot { queryCache.isAnalyzed(schemaHash, it) }
+        val threadCount = minOf(
+            Runtime.getRuntime().availableProcessors(),
+            missing.size / MIN_QUERIES_PER_THREAD
+        )
+        if (threadCount < 2) {
+            return
+        }
+        val executor = Executors.newFixedThreadPool(threadCount)
+        try {
+            missing.chunked((missing.size + threadCount - 1) / threadCount).map { chunk ->
+                executor.submit(Runnable {
+                    prefetchOnCopy(chunk)
+                })
+            }.forEach {
+                try {
+                    it.get()
+                } catch (ex: ExecutionException) {
+                    // the queries that were not cached will be analyzed on the main connection.
+                    context.logger.d("failed to prefetch queries ${ex.cause?.message}")
+                }
             }
+        } finally {
+            executor.shutdown()
         }
-        views.forEach { view ->
-            val stmt = connection.createStatement()
-            try {
-                stmt.executeUpdate(stripLocalizeCollations(view.createViewQuery))
-            } catch (e: SQLException) {
-                context.logger.e(view.element, "${e.message}")
+    }
+
+    private fun prefetchOnCopy(queries: List<String>) {
+        val copy = try {
+            JDBC.createConnection(CONNECTION_URL, java.util.Properties())
+        } catch (ex: Exception) {
+            // the queries will be analyzed on the main connection instead.
+            return
+        }
+        try {
+            schemaStatements.forEach { statement ->
+                try {
+                    copy.createStatement().executeUpdate(statement.sql)
+                } catch (e: SQLException) {
+                    // already reported when the main connection was created.
+                }
+            }
+            queries.forEach { sql ->
+                queryCache.parse(sql)
+                queryCache.analyze(schemaHash, sql) {
+                    analyze(copy, sql)
+                }
             }
+        } finally {
+            copy.close()
         }
     }
 
-    fun analyze(sql: String): QueryResultInfo {
+    private fun analyze(connection: Connection, sql: String): QueryResultInfo {
         return try {
             val stmt = connection.prepareStatement(stripLocalizeCollations(sql))
             QueryResultInfo(stmt.columnInfo())
@@ -148,6 +236,12 @@ class DatabaseVerifier private constructor(
     private fun stripLocalizeCollations(sql: String) =
             COLLATE_LOCALIZED_UNICODE_PATTERN.matcher(sql).replaceAll(" COLLATE NOCASE")
 
+    /**
+     * A statement of the schema and the element to report its failure on. The failures of
+     * statements without an element are thrown.
+     */
+    private data class SchemaStatement(val sql: String, val element: Element?)
+
     fun closeConnection(context: Context) {
         if (!connection.isClosed) {
             try {
@@ -25,10 +25,18 @@ package androidx.room.vo
  */
 data class FieldWithIndex(val field: Field, val indexVar: String, val alwaysExists: Boolean) {
     companion object {
-        fun byOrder(fields: List<Field>): List<FieldWithIndex> {
+        /**
+         * @param offsetVar Optional variable holding the number of arguments bound before the
+         * first field, used when several rows are bound into the same statement.
+         */
+        fun byOrder(fields: List<Field>, offsetVar: String? = null): List<FieldWithIndex> {
             return fields.mapIndexed { index, field ->
                 FieldWithIndex(field = field,
-                        indexVar = "${index + 1}",
+                        indexVar = if (offsetVar == null) {
+                            "${index + 1}"
+                        } else {
+                            "$offsetVar + ${index + 1}"
+                        },
                         alwaysExists = true)
             }
         }
@@ -41,6 +41,14 @@ class Relation(
     val pojoTypeName by lazy { pojoType.typeName() }
 
     fun createLoadAllSql(): String {
+        return "${createLoadAllSqlPrefix()}(:args)"
+    }
+
+    /**
+     * Returns the load all query without the right operand of the IN expression that filters the
+     * rows by their parent key, which is always the last part of the query.
+     */
+    fun createLoadAllSqlPrefix(): String {
         val resultFields = projection.toSet()
         return createSelect(resultFields)
     }
@@ -54,12 +62,12 @@ class Relation(
             append(" INNER JOIN `${entity.tableName}` ON" +
                     " (_junction.`${junction.entityField.columnName}`" +
                     " = `${entity.tableName}`.`${entityField.columnName}`)")
-            append(" WHERE _junction.`${junction.parentField.columnName}` IN (:args)")
+            append(" WHERE _junction.`${junction.parentField.columnName}` IN ")
         } else {
             val resultColumns = resultFields.map { "`$it`" }.toSet() + "`${entityField.columnName}`"
             append("SELECT ${resultColumns.joinToString(",")}")
             append(" FROM `${entity.tableName}`")
-            append(" WHERE `${entityField.columnName}` IN (:args)")
+            append(" WHERE `${entityField.columnName}` IN ")
         }
     }
 }
@@ -24,7 +24,6 @@ import androidx.room.ext.T
 import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.parser.SQLTypeAffinity
-import androidx.room.parser.SqlParser
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
 import androidx.room.processor.ProcessorErrors.relationAffinityMismatch
@@ -307,7 +306,7 @@ data class RelationCollector(
                 }
 
                 val loadAllQuery = relation.createLoadAllSql()
-                val parsedQuery = SqlParser.parse(loadAllQuery)
+                val parsedQuery = context.cache.queries.parse(loadAllQuery)
                 context.checker.check(parsedQuery.errors.isEmpty(), relation.field.element,
                         parsedQuery.errors.joinToString("\n"))
                 if (parsedQuery.errors.isEmpty()) {
@@ -68,36 +68,61 @@ class EntityInsertionAdapterWriter private constructor(
         @Suppress("RemoveSingleExpressionStringTemplate")
         return TypeSpec.anonymousClassBuilder("$L", dbParam).apply {
             superclass(ParameterizedTypeName.get(RoomTypeNames.INSERTION_ADAPTER, pojo.typeName))
+            val columns = "(${pojo.columnNames.joinToString(",") { "`$it`" }})"
+            val row = pojo.fields.joinToString(",", "(", ")") {
+                if (it.columnName == primitiveAutoGenerateColumn) {
+                    "nullif(?, 0)"
+                } else {
+                    "?"
+                }
+            }
             addMethod(MethodSpec.methodBuilder("createQuery").apply {
                 addAnnotation(Override::class.java)
                 addModifiers(PUBLIC)
                 returns(ClassName.get("java.lang", "String"))
-                val query = buildString {
-                    append("INSERT OR $onConflict INTO `$tableName`")
-                    append(" (${pojo.columnNames.joinToString(",") { "`$it`" }})")
-                    append(" VALUES (")
-                    append(pojo.fields.joinToString(",") {
-                            if (it.columnName == primitiveAutoGenerateColumn) {
-                                "nullif(?, 0)"
-                            } else {
-                                "?"
-                            }
-                        })
-                    append(")")
-                }
+                val query = "INSERT OR $onConflict INTO `$tableName` $columns VALUES $row"
                 addStatement("return $S", query)
             }.build())
+            addMethod(MethodSpec.methodBuilder("createBulkQuery").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(PUBLIC)
+                returns(ClassName.get("java.lang", "String"))
+                val rowCountParam = "rowCount"
+                addParameter(TypeName.INT, rowCountParam)
+                // A multi-row ABORT would undo the rows of the statement that were inserted before
+                // the conflicting one, FAIL keeps them like separate single-row statements do.
+                val bulkOnConflict = if (onConflict == "ABORT") "FAIL" else onConflict
+                val prefix = "INSERT OR $bulkOnConflict INTO `$tableName` $columns VALUES "
+                addStatement("return buildBulkQuery($S, $S, $L)", prefix, row, rowCountParam)
+            }.build())
+            addMethod(MethodSpec.methodBuilder("getColumnCount").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(PUBLIC)
+                returns(TypeName.INT)
+                addStatement("return $L", pojo.fields.size)
+            }.build())
+            val stmtParam = "stmt"
+            val valueParam = "value"
+            val offsetParam = "offset"
+            addMethod(MethodSpec.methodBuilder("bind").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(PUBLIC)
+                returns(TypeName.VOID)
+                addParameter(ParameterSpec.builder(SupportDbTypeNames.SQLITE_STMT,
+                        stmtParam).build())
+                addParameter(ParameterSpec.builder(pojo.typeName, valueParam).build())
+                addStatement("bind($L, $L, 0)", stmtParam, valueParam)
+            }.build())
             addMethod(MethodSpec.methodBuilder("bind").apply {
                 val bindScope = CodeGenScope(classWriter)
                 addAnnotation(Override::class.java)
                 addModifiers(PUBLIC)
                 returns(TypeName.VOID)
-                val stmtParam = "stmt"
                 addParameter(ParameterSpec.builder(SupportDbTypeNames.SQLITE_STMT,
                         stmtParam).build())
-                val valueParam = "value"
                 addParameter(ParameterSpec.builder(pojo.typeName, valueParam).build())
-                val mapped = FieldWithIndex.byOrder(pojo.fields)
+                addParameter(TypeName.INT, offsetParam)
+                val mapped = FieldWithIndex.byOrder(pojo.fields, offsetParam)
                 FieldReadWriteWriter.bindToStatement(
                         ownerVar = valueParam,
                         stmtParamVar = stmtParam,
@@ -23,6 +23,7 @@ import androidx.room.ext.N
 import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.S
 import androidx.room.ext.T
+import androidx.room.ext.typeName
 import androidx.room.solver.CodeGenScope
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.vo.RelationCollector
@@ -83,10 +84,11 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 addStatement("return")
             }
             endControlFlow()
+            // a key table would have to take the write lock for the whole load when no
+            // transaction is active, so divide the keys into chunks instead
             addStatement("// check if the size is too big, if so divide")
-            beginControlFlow("if($N.size() > $T.MAX_BIND_PARAMETER_CNT)",
-                    param, RoomTypeNames.ROOM_DB).apply {
-                // divide it into chunks
+            beginControlFlow("if($N.size() > $T.MAX_BIND_PARAMETER_CNT && !$N.inTransaction())",
+                    param, RoomTypeNames.ROOM_DB, DaoWriter.dbField).apply {
                 val tmpMapVar = scope.getTmpVar("_tmpInnerMap")
                 addStatement("$T $L = new $T($L.MAX_BIND_PARAMETER_CNT)",
                         collector.mapTypeName, tmpMapVar,
@@ -128,7 +130,45 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 }.endControlFlow()
                 addStatement("return")
             }.endControlFlow()
-            collector.queryWriter.prepareReadAndBind(sqlQueryVar, stmtVar, scope)
+            val keyTableVar = scope.getTmpVar("_keyTable")
+            addStatement("$T $L = null", RoomTypeNames.RELATION_KEY_TABLE, keyTableVar)
+            beginControlFlow("try")
+            addStatement("final $T $L", RoomTypeNames.ROOM_SQL_QUERY, stmtVar)
+            // if there are too many keys to bind inside a transaction, load them from a temporary
+            // table instead so that a single query is needed
+            beginControlFlow("if($N.size() > $T.MAX_BIND_PARAMETER_CNT)",
+                    param, RoomTypeNames.ROOM_DB).apply {
+                addStatement("$L = $T.create($N)", keyTableVar, RoomTypeNames.RELATION_KEY_TABLE,
+                        DaoWriter.dbField)
+                if (usingLongSparseArray || usingArrayMap) {
+                    val mapIndexVar = scope.getTmpVar("_mapIndex")
+                    val limitVar = scope.getTmpVar("_limit")
+                    addStatement("final $T $L = $N.size()", TypeName.INT, limitVar, param)
+                    beginControlFlow("for ($T $L = 0; $L < $L; $L++)", TypeName.INT, mapIndexVar,
+                            mapIndexVar, limitVar, mapIndexVar).apply {
+                        addStatement("$L.add($N.keyAt($L))", keyTableVar, param, mapIndexVar)
+                    }
+                } else {
+                    val mapKeyVar = scope.getTmpVar("_mapKey")
+                    beginControlFlow("for ($T $L : $L)",
+                            collector.keyTypeName, mapKeyVar, KEY_SET_VARIABLE).apply {
+                        addStatement("$L.add($L)", keyTableVar, mapKeyVar)
+                    }
+                }
+                endControlFlow()
+                addStatement("$L.flush()", keyTableVar)
+                addStatement("final $T $L = $S + $L.getKeysQuery() + $S",
+                        String::class.typeName(), sqlQueryVar,
+                        "${relation.createLoadAllSqlPrefix()}(", keyTableVar, ")")
+                addStatement("$L = $T.acquire($L, 0)", stmtVar, RoomTypeNames.ROOM_SQL_QUERY,
+                        sqlQueryVar)
+            }
+            nextControlFlow("else").apply {
+                val boundStmtVar = scope.getTmpVar("_stmt")
+                collector.queryWriter.prepareReadAndBind(sqlQueryVar, boundStmtVar, scope)
+                addStatement("$L = $L", stmtVar, boundStmtVar)
+            }
+            endControlFlow()
 
             val shouldCopyCursor = collector.rowAdapter.let {
                 it is PojoRowAdapter && it.relationCollectors.isNotEmpty()
@@ -196,6 +236,13 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 addStatement("$L.close()", cursorVar)
             }
             endControlFlow()
+            nextControlFlow("finally").apply {
+                beginControlFlow("if ($L != null)", keyTableVar).apply {
+                    addStatement("$L.close()", keyTableVar)
+                }
+                endControlFlow()
+            }
+            endControlFlow()
         }
         builder.apply {
             addModifiers(Modifier.PRIVATE)
@@ -44,20 +44,35 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR ABORT INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES (?,?,?,?)";
             }
 
+            @Override
+            public String createBulkQuery(int rowCount) {
+                return buildBulkQuery("INSERT OR FAIL INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES ", "(?,?,?,?)", rowCount);
+            }
+
+            @Override
+            public int getColumnCount() {
+                return 4;
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, User value) {
-                stmt.bindLong(1, value.uid);
+                bind(stmt, value, 0);
+            }
+
+            @Override
+            public void bind(SupportSQLiteStatement stmt, User value, int offset) {
+                stmt.bindLong(offset + 1, value.uid);
                 if (value.name == null) {
-                    stmt.bindNull(2);
+                    stmt.bindNull(offset + 2);
                 } else {
-                    stmt.bindString(2, value.name);
+                    stmt.bindString(offset + 2, value.name);
                 }
                 if (value.getLastName() == null) {
-                    stmt.bindNull(3);
+                    stmt.bindNull(offset + 3);
                 } else {
-                    stmt.bindString(3, value.getLastName());
+                    stmt.bindString(offset + 3, value.getLastName());
                 }
-                stmt.bindLong(4, value.age);
+                stmt.bindLong(offset + 4, value.age);
             }
         };
         this.__insertionAdapterOfUser_1 = new EntityInsertionAdapter<User>(__db) {
@@ -66,20 +81,35 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR REPLACE INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES (?,?,?,?)";
             }
 
+            @Override
+            public String createBulkQuery(int rowCount) {
+                return buildBulkQuery("INSERT OR REPLACE INTO `User` (`uid`,`name`,`lastName`,`ageColumn`) VALUES ", "(?,?,?,?)", rowCount);
+            }
+
+            @Override
+            public int getColumnCount() {
+                return 4;
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, User value) {
-                stmt.bindLong(1, value.uid);
+                bind(stmt, value, 0);
+            }
+
+            @Override
+            public void bind(SupportSQLiteStatement stmt, User value, int offset) {
+                stmt.bindLong(offset + 1, value.uid);
                 if (value.name == null) {
-                    stmt.bindNull(2);
+                    stmt.bindNull(offset + 2);
                 } else {
-                    stmt.bindString(2, value.name);
+                    stmt.bindString(offset + 2, value.name);
                 }
                 if (value.getLastName() == null) {
-                    stmt.bindNull(3);
+                    stmt.bindNull(offset + 3);
                 } else {
-                    stmt.bindString(3, value.getLastName());
+                    stmt.bindString(offset + 3, value.getLastName());
                 }
-                stmt.bindLong(4, value.age);
+                stmt.bindLong(offset + 4, value.age);
             }
         };
         this.__insertionAdapterOfBook = new EntityInsertionAdapter<Book>(__db) {
@@ -88,10 +118,25 @@ public final class WriterDao_Impl implements WriterDao {
                 return "INSERT OR ABORT INTO `Book` (`bookId`,`uid`) VALUES (?,?)";
             }
 
+            @Override
+            public String createBulkQuery(int rowCount) {
+                return buildBulkQuery("INSERT OR FAIL INTO `Book` (`bookId`,`uid`) VALUES ", "(?,?)", rowCount);
+            }
+
+            @Override
+            public int getColumnCount() {
+                return 2;
+            }
+
             @Override
             public void bind(SupportSQLiteStatement stmt, Book value) {
-                stmt.bindLong(1, value.bookId);
-                stmt.bindLong(2, value.uid);
+                bind(stmt, value, 0);
+            }
+
+            @Override
+            public void bind(SupportSQLiteStatement stmt, Book value, int offset) {
+                stmt.bindLong(offset + 1, value.bookId);
+                stmt.bindLong(offset + 2, value.uid);
             }
         };
     }
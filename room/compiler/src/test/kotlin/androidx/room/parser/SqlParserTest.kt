@@ -231,6 +231,25 @@ class SqlParserTest {
         assertThat(query.errors, `is`(emptyList()))
     }
 
+    @Test
+    fun orderingTerms() {
+        val query = SqlParser.parse("SELECT * FROM (SELECT * FROM users ORDER BY id) u" +
+                " ORDER BY u.`name` COLLATE NOCASE DESC, age + 1, id LIMIT 5")
+        assertThat(query.orderingTerms, `is`(listOf(
+                OrderingTerm("name", "NOCASE", true),
+                OrderingTerm(null, null, false),
+                OrderingTerm("id", null, false))))
+        assertThat(query.hasLimit, `is`(true))
+    }
+
+    @Test
+    fun orderingTerms_subQueryOnly() {
+        val query = SqlParser.parse("SELECT * FROM users WHERE id IN" +
+                " (SELECT id FROM users ORDER BY id LIMIT 1)")
+        assertThat(query.orderingTerms, `is`(emptyList()))
+        assertThat(query.hasLimit, `is`(false))
+    }
+
     @Test
     fun findBindVariables() {
         assertVariables("select * from users")
@@ -27,12 +27,17 @@ import androidx.room.Transaction
 import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.hasAnnotation
 import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
+import androidx.room.solver.query.result.CursorIterableQueryResultAdapter
+import androidx.room.solver.query.result.CursorIterableQueryResultBinder
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
@@ -491,6 +496,55 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testCursorIterableQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERABLE}<User> iterateUsers();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(CursorIterableQueryResultBinder::class.java))
+            assertThat(parsedQuery.queryResultBinder.adapter,
+                    instanceOf(CursorIterableQueryResultAdapter::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCursorIterableInTransaction() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Transaction
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERABLE}<User> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.CURSOR_ITERABLE_IN_TRANSACTION)
+    }
+
+    @Test
+    fun testCursorIterableWithRelation() {
+        if (!enableVerification) {
+            return
+        }
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                static class Merged extends User {
+                   @Relation(parentColumn = "name", entityColumn = "lastName",
+                             entity = User.class)
+                   java.util.List<User> users;
+                }
+                @Transaction
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CURSOR_ITERABLE}<Merged> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.CURSOR_ITERABLE_WITH_RELATION)
+    }
+
     @Test
     fun testBadReturnForDeleteQuery() {
         singleQueryMethod<WriteQueryMethod>(
@@ -559,6 +613,109 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testWildcardKeyDataSourceFactoryQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<?, String>
+                nameDataSourceFactory();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(DataSourceFactoryQueryResultBinder::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_orderByInSubQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user where uid in (select uid from user order by uid)")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, User>
+                keysetDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.PAGING_KEYSET_REQUIRES_ORDER_BY)
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user where name = :name order by uid desc")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, User>
+                keysetDataSourceFactory(String name);
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(KeysetDataSourceFactoryQueryResultBinder::class.java))
+            val binder = (parsedQuery.queryResultBinder
+                    as KeysetDataSourceFactoryQueryResultBinder).keysetDataSourceQueryResultBinder
+            assertThat(binder.keyField?.columnName, `is`("uid"))
+            assertThat(binder.collation, nullValue())
+            assertThat(binder.descending, `is`(true))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testKeysetDataSourceQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user u order by u.`name` COLLATE NOCASE")
+                abstract ${PagingTypeNames.ITEM_KEYED_DATA_SOURCE}<String, User>
+                keysetDataSource();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(KeysetDataSourceQueryResultBinder::class.java))
+            val binder = parsedQuery.queryResultBinder as KeysetDataSourceQueryResultBinder
+            assertThat(binder.keyField?.columnName, `is`("name"))
+            assertThat(binder.collation, `is`("NOCASE"))
+            assertThat(binder.keyBinder, notNullValue())
+            assertThat(binder.descending, `is`(false))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_noOrderBy() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user order by uid limit 10")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, User>
+                keysetDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.PAGING_KEYSET_REQUIRES_ORDER_BY)
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_keyNotInResult() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user order by uid")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, String>
+                keysetDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(
+                ProcessorErrors.pagingKeysetKeyNotInResult("uid"))
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_keyTypeMismatch() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user order by name")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, User>
+                keysetDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(
+                ProcessorErrors.pagingKeysetKeyTypeMismatch("name",
+                        TypeName.get(String::class.java), TypeName.LONG.box()))
+    }
+
     @Test
     fun query_detectTransaction_select() {
         singleQueryMethod<ReadQueryMethod>(
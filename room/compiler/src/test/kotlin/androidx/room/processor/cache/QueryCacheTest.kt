@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.processor.cache
+
+import androidx.room.parser.SQLTypeAffinity
+import androidx.room.parser.SqlParser
+import androidx.room.verifier.ColumnInfo
+import androidx.room.verifier.QueryResultInfo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.File
+import java.sql.SQLException
+
+@RunWith(JUnit4::class)
+class QueryCacheTest {
+    @get:Rule
+    val tmpFolder = TemporaryFolder()
+
+    private val cacheFile by lazy {
+        File(tmpFolder.root, QueryCache.FILE_NAME)
+    }
+
+    @Test
+    fun parse_returnsCopies() {
+        val cache = QueryCache()
+        val first = cache.parse(QUERY)
+        first.interpreted = "SELECT id FROM User"
+        val second = cache.parse(QUERY)
+        assertThat(second, not(sameInstance(first)))
+        assertThat(second.interpreted, `is`(QUERY))
+    }
+
+    @Test
+    fun parse_roundTrip() {
+        QueryCache(cacheFile).apply {
+            parse(QUERY)
+            parse(INVALID_QUERY)
+            parse(ORDERED_QUERY)
+            save()
+        }
+        val cache = QueryCache(cacheFile)
+        listOf(QUERY, INVALID_QUERY, ORDERED_QUERY).forEach {
+            val expected = SqlParser.parse(it)
+            val parsed = cache.parse(it)
+            assertThat(parsed, `is`(expected))
+            assertThat(parsed.sections, `is`(expected.sections))
+            assertThat(parsed.errors, `is`(expected.errors))
+        }
+    }
+
+    @Test
+    fun analyze_roundTrip() {
+        QueryCache(cacheFile).apply {
+            analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+            analyze(SCHEMA_HASH, INVALID_QUERY) {
+                QueryResultInfo(emptyList(), SQLException("no such table: Foo"))
+            }
+            save()
+        }
+        val cache = QueryCache(cacheFile)
+        assertThat(cache.analyze(SCHEMA_HASH, QUERY) { throw AssertionError() },
+                `is`(RESULT_INFO))
+        val error = cache.analyze(SCHEMA_HASH, INVALID_QUERY) { throw AssertionError() }.error
+        assertThat(error, notNullValue())
+        assertThat(error!!.message, `is`("no such table: Foo"))
+    }
+
+    @Test
+    fun analyze_ignoresSurroundingWhitespace() {
+        val cache = QueryCache()
+        cache.analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+        assertThat(cache.isAnalyzed(SCHEMA_HASH, "\n    $QUERY\n"), `is`(true))
+    }
+
+    @Test
+    fun analyze_differentSchema() {
+        val cache = QueryCache()
+        cache.analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+        assertThat(cache.isAnalyzed("other", QUERY), `is`(false))
+    }
+
+    @Test
+    fun save_dropsUnusedEntries() {
+        QueryCache(cacheFile).apply {
+            analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+            analyze("other", QUERY) { RESULT_INFO }
+            save()
+        }
+        QueryCache(cacheFile).apply {
+            analyze(SCHEMA_HASH, QUERY) { throw AssertionError() }
+            save()
+        }
+        val cache = QueryCache(cacheFile)
+        assertThat(cache.isAnalyzed(SCHEMA_HASH, QUERY), `is`(true))
+        assertThat(cache.isAnalyzed("other", QUERY), `is`(false))
+    }
+
+    @Test
+    fun compilerVersionMismatch_discardsCache() {
+        QueryCache(cacheFile, compilerVersion = "1").apply {
+            parse(QUERY)
+            analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+            save()
+        }
+        assertThat(QueryCache(cacheFile, compilerVersion = "1").isAnalyzed(SCHEMA_HASH, QUERY),
+                `is`(true))
+        val cache = QueryCache(cacheFile, compilerVersion = "2")
+        assertThat(cache.isAnalyzed(SCHEMA_HASH, QUERY), `is`(false))
+        var analyzed = false
+        cache.analyze(SCHEMA_HASH, QUERY) {
+            analyzed = true
+            RESULT_INFO
+        }
+        assertThat(analyzed, `is`(true))
+    }
+
+    @Test
+    fun defaultCompilerVersion_roundTrip() {
+        QueryCache(cacheFile).apply {
+            analyze(SCHEMA_HASH, QUERY) { RESULT_INFO }
+            save()
+        }
+        assertThat(QueryCache(cacheFile).isAnalyzed(SCHEMA_HASH, QUERY), `is`(true))
+        assertThat(QueryCache(cacheFile, compilerVersion = "").isAnalyzed(SCHEMA_HASH, QUERY),
+                `is`(false))
+    }
+
+    @Test
+    fun corruptFile() {
+        cacheFile.writeText("not a cache")
+        val cache = QueryCache(cacheFile)
+        assertThat(cache.isAnalyzed(SCHEMA_HASH, QUERY), `is`(false))
+        assertThat(cache.parse(QUERY).resultInfo, nullValue())
+    }
+
+    companion object {
+        const val SCHEMA_HASH = "abc"
+        const val QUERY = "SELECT u.*, name AS n FROM User u WHERE id IN (:ids) AND name = :name"
+        const val INVALID_QUERY = "SELECT FROM"
+        const val ORDERED_QUERY = "SELECT * FROM User ORDER BY name COLLATE NOCASE DESC, id LIMIT 5"
+        val RESULT_INFO = QueryResultInfo(listOf(
+                ColumnInfo("id", SQLTypeAffinity.INTEGER),
+                ColumnInfo("name", SQLTypeAffinity.TEXT),
+                ColumnInfo("n", SQLTypeAffinity.TEXT)
+        ))
+    }
+}
@@ -18,6 +18,7 @@ package androidx.room.solver
 
 import COMMON
 import androidx.paging.DataSource
+import androidx.paging.ItemKeyedDataSource
 import androidx.paging.PositionalDataSource
 import androidx.room.Entity
 import androidx.room.ext.GuavaUtilConcurrentTypeNames
@@ -414,6 +415,18 @@ class TypeAdapterStoreTest {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun findItemKeyedDataSource() {
+        simpleRun {
+            invocation ->
+            val dataSource = invocation.processingEnv.elementUtils
+                    .getTypeElement(ItemKeyedDataSource::class.java.canonicalName)
+            assertThat(dataSource, notNullValue())
+            assertThat(DataSourceQueryResultBinderProvider(invocation.context).matches(
+                    MoreTypes.asDeclared(dataSource.asType())), `is`(true))
+        }.compilesWithoutError()
+    }
+
     @Test
     fun findDataSourceFactory() {
         simpleRun(jfos = *arrayOf(COMMON.DATA_SOURCE_FACTORY)) {
@@ -20,6 +20,7 @@ import android.database.Cursor;
 
 import androidx.lifecycle.LiveData;
 import androidx.paging.DataSource;
+import androidx.room.CursorIterable;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -255,6 +256,15 @@ public abstract class UserDao {
     @Query("SELECT * FROM user ORDER BY mAge DESC")
     public abstract DataSource.Factory<Integer, User> loadUsersByAgeDesc();
 
+    @Query("SELECT * FROM user ORDER BY mId")
+    public abstract DataSource.Factory<Long, User> loadUsersById();
+
+    @Query("SELECT * FROM user ORDER BY mName COLLATE NOCASE")
+    public abstract DataSource.Factory<String, User> loadUsersByNameIgnoringCase();
+
+    @Query("SELECT * FROM user ORDER BY mBirthday DESC")
+    public abstract DataSource.Factory<Date, User> loadUsersByBirthdayDesc();
+
     @Query("DELETE FROM User WHERE mId IN (:ids) AND mAge == :age")
     public abstract int deleteByAgeAndIds(int age, List<Integer> ids);
 
@@ -272,6 +282,12 @@ public abstract class UserDao {
     @Query("SELECT u.mName, u.mLastName from user u where mId = :id")
     public abstract NameAndLastName getNameAndLastName(int id);
 
+    @Query("select * from user order by mId")
+    public abstract CursorIterable<User> iterateAll();
+
+    @Query("SELECT u.mName, u.mLastName from user u order by mId")
+    public abstract CursorIterable<NameAndLastName> iterateNamesAndLastNames();
+
     @Transaction
     public void insertBothByAnnotation(final User a, final User b) {
         insert(a);
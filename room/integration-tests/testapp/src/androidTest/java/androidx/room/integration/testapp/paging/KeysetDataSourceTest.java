@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.paging;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.room.integration.testapp.test.TestDatabaseTest;
+import androidx.room.integration.testapp.test.TestUtil;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.paging.KeysetDataSource;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class KeysetDataSourceTest extends TestDatabaseTest {
+
+    @After
+    public void teardown() {
+        mUserDao.deleteEverything();
+    }
+
+    private KeysetDataSource<Long, User> loadUsersById() {
+        return (KeysetDataSource<Long, User>) mUserDao.loadUsersById().create();
+    }
+
+    @Test
+    public void emptyPage() {
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        assertThat(dataSource.countItems(), is(0));
+        assertThat(dataSource.loadAfter(0L, 10), is(Collections.<User>emptyList()));
+    }
+
+    @Test
+    public void getKey() {
+        List<User> users = createUsers(1);
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        assertThat(dataSource.getKey(users.get(0)), is((long) users.get(0).getId()));
+    }
+
+    @Test
+    public void loadAfter() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        List<User> result = dataSource.loadAfter(dataSource.getKey(users.get(3)), 2);
+        assertThat(result, is(users.subList(4, 6)));
+    }
+
+    @Test
+    public void loadAfterLast() {
+        List<User> users = createUsers(3);
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        List<User> result = dataSource.loadAfter(dataSource.getKey(users.get(2)), 10);
+        assertThat(result.isEmpty(), is(true));
+    }
+
+    @Test
+    public void loadBefore() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        List<User> result = dataSource.loadBefore(dataSource.getKey(users.get(6)), 3);
+        assertThat(result, is(users.subList(3, 6)));
+    }
+
+    @Test
+    public void loadAllPageByPage() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<Long, User> dataSource = loadUsersById();
+        List<User> all = new ArrayList<>(dataSource.loadAfter(-1L, 3));
+        while (true) {
+            List<User> page = dataSource.loadAfter(
+                    dataSource.getKey(all.get(all.size() - 1)), 3);
+            if (page.isEmpty()) {
+                break;
+            }
+            all.addAll(page);
+        }
+        assertThat(all, is(users));
+    }
+
+    @Test
+    public void loadAllPageByPage_collation() {
+        String[] names = {"b", "C", "a", "E", "d", "F"};
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            User user = TestUtil.createUser(i);
+            user.setName(names[i]);
+            mUserDao.insert(user);
+            users.add(user);
+        }
+        Collections.sort(users, (u1, u2) -> u1.getName().compareToIgnoreCase(u2.getName()));
+        KeysetDataSource<String, User> dataSource =
+                (KeysetDataSource<String, User>) mUserDao.loadUsersByNameIgnoringCase().create();
+        List<User> all = new ArrayList<>(dataSource.loadAfter("", 2));
+        while (true) {
+            List<User> page = dataSource.loadAfter(
+                    dataSource.getKey(all.get(all.size() - 1)), 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            all.addAll(page);
+        }
+        assertThat(all, is(users));
+        assertThat(dataSource.loadBefore("c", 2), is(users.subList(0, 2)));
+    }
+
+    @Test
+    public void convertedKey() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = TestUtil.createUser(i);
+            user.setBirthday(new Date(1000L * i));
+            mUserDao.insert(user);
+            users.add(user);
+        }
+        Collections.reverse(users);
+        KeysetDataSource<Date, User> dataSource =
+                (KeysetDataSource<Date, User>) mUserDao.loadUsersByBirthdayDesc().create();
+        Date key = dataSource.getKey(users.get(1));
+        assertThat(dataSource.loadAfter(key, 2), is(users.subList(2, 4)));
+        assertThat(dataSource.loadBefore(key, 2), is(users.subList(0, 1)));
+    }
+
+    @NonNull
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = TestUtil.createUser(i);
+            mUserDao.insert(user);
+            users.add(user);
+        }
+        return users;
+    }
+}
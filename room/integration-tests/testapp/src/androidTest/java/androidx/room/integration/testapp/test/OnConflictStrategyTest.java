@@ -44,6 +44,7 @@ import org.hamcrest.Matcher;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -52,6 +53,9 @@ import java.util.List;
 @MediumTest
 public class OnConflictStrategyTest {
 
+    // Large enough to be inserted with several multi-row statements of different sizes.
+    private static final int LARGE_COUNT = 1234;
+
     @Database(version = 1, entities = {Animal.class}, exportSchema = false)
     public abstract static class OnConflictStrategyDatabase extends RoomDatabase {
         abstract AnimalDao animal();
@@ -123,6 +127,52 @@ public class OnConflictStrategyTest {
         assertThat(db.animal().allNames(), are("Dog", "Cat", "Monkey"));
     }
 
+    @Test
+    public void insertOrAbort_multipleStatements() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(LARGE_COUNT);
+        animals.add(new Animal(LARGE_COUNT - 1, "Duplicate"));
+        try {
+            db.animal().insertOrAbort(animals);
+            fail("Was expecting an exception");
+        } catch (SQLiteConstraintException e) {
+            assertThat(e.getMessage(), is(notNullValue()));
+        }
+        assertThat(db.animal().allNames(), are(/* empty */));
+    }
+
+    @Test
+    public void insertOrReplace_multipleStatements() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(LARGE_COUNT);
+        animals.add(new Animal(0, "Replaced"));
+        db.animal().insertOrReplace(animals);
+        final List<String> names = db.animal().allNames();
+        assertThat(names, hasSize(LARGE_COUNT));
+        assertThat(names, hasItems("Replaced", "Animal" + (LARGE_COUNT - 1)));
+        assertThat(names.contains("Animal0"), is(false));
+    }
+
+    @Test
+    public void insertOrIgnore_multipleStatements() {
+        final OnConflictStrategyDatabase db = openDatabase();
+        final List<Animal> animals = createAnimals(LARGE_COUNT);
+        animals.add(new Animal(0, "Ignored"));
+        db.animal().insertOrIgnore(animals);
+        final List<String> names = db.animal().allNames();
+        assertThat(names, hasSize(LARGE_COUNT));
+        assertThat(names, hasItems("Animal0", "Animal" + (LARGE_COUNT - 1)));
+        assertThat(names.contains("Ignored"), is(false));
+    }
+
+    private static List<Animal> createAnimals(int count) {
+        final List<Animal> animals = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            animals.add(new Animal(i, "Animal" + i));
+        }
+        return animals;
+    }
+
     @SuppressWarnings("unchecked")
     private <E> Matcher<Collection<E>> are(E... args) {
         return allOf((Matcher<? super Collection<E>>) hasSize(args.length), hasItems(args));
@@ -236,6 +236,86 @@ public class PojoWithRelationTest extends TestDatabaseTest {
         }
     }
 
+    @Test
+    public void largeRelation_nested() {
+        final List<User> users = new ArrayList<>();
+        final List<Pet> pets = new ArrayList<>();
+        final List<Toy> toys = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            User user = TestUtil.createUser(i + 1);
+            users.add(user);
+            Pet pet = TestUtil.createPet(i + 1);
+            pet.setUserId(user.getId());
+            pets.add(pet);
+            toys.add(TestUtil.createToyForPet(pet, i + 1));
+        }
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                mUserDao.insertAll(users.toArray(new User[users.size()]));
+                mPetDao.insertAll(pets.toArray(new Pet[pets.size()]));
+                mToyDao.insert(toys.toArray(new Toy[toys.size()]));
+            }
+        });
+        List<UserWithPetsAndToys> result = mUserPetDao.loadUserWithPetsAndToys();
+        assertThat(result.size(), is(1500));
+        for (int i = 0; i < 1500; i++) {
+            assertThat(result.get(i).user, is(users.get(i)));
+            assertThat(result.get(i).pets.size(), is(1));
+            assertThat(result.get(i).pets.get(0).toys,
+                    is(Collections.singletonList(toys.get(i))));
+        }
+    }
+
+    @Test
+    public void largeRelation_repeated() {
+        final List<User> users = new ArrayList<>();
+        final List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            User user = TestUtil.createUser(i + 1);
+            users.add(user);
+            Pet pet = TestUtil.createPet(i + 1);
+            pet.setUserId(user.getId());
+            pets.add(pet);
+        }
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                mUserDao.insertAll(users.toArray(new User[users.size()]));
+                mPetDao.insertAll(pets.toArray(new Pet[pets.size()]));
+            }
+        });
+        // the second load reuses the key tables of the first one
+        mUserPetDao.loadAllUsersWithTheirPets();
+        mUserDao.delete(users.get(0));
+        List<UserAndAllPets> result = mUserPetDao.loadAllUsersWithTheirPets();
+        assertThat(result.size(), is(1499));
+        for (int i = 0; i < 1499; i++) {
+            assertThat(result.get(i).user, is(users.get(i + 1)));
+            assertThat(result.get(i).pets, is(Collections.singletonList(pets.get(i + 1))));
+        }
+    }
+
+    @Test
+    public void largeRelation_insideTransaction() {
+        final List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            users.add(TestUtil.createUser(i + 1));
+        }
+        mUserDao.insertAll(users.toArray(new User[users.size()]));
+        final User lateUser = TestUtil.createUser(5000);
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                mUserDao.insert(lateUser);
+                List<UserAndAllPets> result = mUserPetDao.loadAllUsersWithTheirPets();
+                assertThat(result.size(), is(2001));
+            }
+        });
+        // loading the relation must not roll back the outer transaction
+        assertThat(mUserDao.load(5000), is(lateUser));
+    }
+
     @Test
     public void multipleRelations() {
         final List<User> users = new ArrayList<>();
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalToIgnoringCase;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.dao.UserDao;
+import androidx.room.integration.testapp.vo.User;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.ConnectionPoolMetrics;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+@SdkSuppress(minSdkVersion = 16)
+public class ReaderConnectionPoolTest {
+
+    private static final String DATABASE_NAME = "reader_pool.db";
+    private static final String ATTACHED_DATABASE_NAME = "reader_pool_attached.db";
+    private static final int READER_COUNT = 3;
+    private ConnectionPoolMetrics mMetrics;
+    private TestDatabase mDatabase;
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        mMetrics = new ConnectionPoolMetrics();
+        mDatabase = Room.databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .openHelperFactory(new FrameworkSQLiteOpenHelperFactory(READER_COUNT, mMetrics))
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .build();
+    }
+
+    @After
+    public void closeDatabase() {
+        mDatabase.close();
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void queryUsesReader() {
+        UserDao dao = mDatabase.getUserDao();
+        User user = TestUtil.createUser(1);
+        dao.insert(user);
+        mMetrics.reset();
+        assertThat(dao.load(1), is(equalTo(user)));
+        assertThat(mMetrics.getAcquireCount(), is(1L));
+        assertThat(mMetrics.getOpenReaderCount(), is(1));
+        assertThat(mMetrics.getActiveReaderCount(), is(0));
+    }
+
+    @Test
+    public void readYourWrites() {
+        UserDao dao = mDatabase.getUserDao();
+        for (int i = 1; i <= 10; i++) {
+            User user = TestUtil.createUser(i);
+            dao.insert(user);
+            assertThat(dao.load(i), is(equalTo(user)));
+            assertThat(dao.count(), is(i));
+        }
+    }
+
+    @Test
+    public void queryInTransactionUsesWriter() {
+        UserDao dao = mDatabase.getUserDao();
+        User user = TestUtil.createUser(1);
+        mMetrics.reset();
+        mDatabase.runInTransaction(() -> {
+            dao.insert(user);
+            assertThat(dao.load(1), is(equalTo(user)));
+        });
+        assertThat(mMetrics.getAcquireCount(), is(0L));
+    }
+
+    @Test
+    public void pragmaUsesWriter() {
+        mMetrics.reset();
+        Cursor c = mDatabase.query("PRAGMA journal_mode", null);
+        try {
+            c.moveToFirst();
+            assertThat(c.getString(0), is(equalToIgnoringCase("wal")));
+        } finally {
+            c.close();
+        }
+        assertThat(mMetrics.getAcquireCount(), is(0L));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void readInBackgroundDuringTransaction()
+            throws InterruptedException, ExecutionException {
+        final UserDao dao = mDatabase.getUserDao();
+        final User user1 = TestUtil.createUser(1);
+        dao.insert(user1);
+        mMetrics.reset();
+        try {
+            mDatabase.beginTransaction();
+            dao.delete(user1);
+            assertThat(dao.load(1), is(nullValue()));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<?> future = executor.submit(() ->
+                    assertThat(dao.load(1), is(equalTo(user1))));
+            future.get();
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+        assertThat(mMetrics.getAcquireCount(), is(1L));
+        assertThat(dao.load(1), is(nullValue()));
+    }
+
+    @Test
+    public void parallelReads() throws InterruptedException, ExecutionException {
+        final UserDao dao = mDatabase.getUserDao();
+        final int userCount = 10;
+        for (int i = 1; i <= userCount; i++) {
+            dao.insert(TestUtil.createUser(i));
+        }
+        mMetrics.reset();
+        int numberOfThreads = 10;
+        int readsPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        ArrayList<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 1; j <= readsPerThread; j++) {
+                    int id = j % userCount + 1;
+                    User user = dao.load(id);
+                    if (user == null || user.getId() != id) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertThat(future.get(), is(true));
+        }
+        assertThat(mMetrics.getAcquireCount(), is((long) numberOfThreads * readsPerThread));
+        assertThat(mMetrics.getOpenReaderCount(), is(lessThanOrEqualTo(READER_COUNT)));
+        assertThat(mMetrics.getOpenReaderCount(), is(greaterThan(0)));
+        assertThat(mMetrics.getActiveReaderCount(), is(0));
+    }
+
+    @Test
+    public void observeLiveData() {
+        UserDao dao = mDatabase.getUserDao();
+        LiveData<User> user1 = dao.liveUserById(1);
+        Observer<User> observer = startObserver(user1);
+        dao.insert(TestUtil.createUser(1));
+        verify(observer, timeout(3000).atLeastOnce())
+                .onChanged(argThat(user -> user != null && user.getId() == 1));
+        User updated = TestUtil.createUser(1);
+        updated.setName("updated");
+        dao.insertOrReplace(updated);
+        verify(observer, timeout(3000).atLeastOnce())
+                .onChanged(argThat(user -> user != null && "updated".equals(user.getName())));
+        stopObserver(user1, observer);
+    }
+
+    @Test
+    public void lastInsertRowIdUsesWriter() {
+        mDatabase.getUserDao().insert(TestUtil.createUser(3));
+        mMetrics.reset();
+        assertThat(queryLong("SELECT last_insert_rowid()"), is(3L));
+        assertThat(queryLong("SELECT changes()"), is(1L));
+        assertThat(mMetrics.getAcquireCount(), is(0L));
+    }
+
+    @Test
+    public void tempTableUsesWriter() {
+        SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+        db.execSQL("CREATE TEMP TABLE scratch (id INTEGER)");
+        db.execSQL("INSERT INTO scratch VALUES (1)");
+        mMetrics.reset();
+        assertThat(queryLong("SELECT COUNT(*) FROM scratch"), is(1L));
+        assertThat(queryLong("SELECT COUNT(*) FROM temp.scratch"), is(1L));
+        assertThat(mMetrics.getAcquireCount(), is(0L));
+    }
+
+    @Test
+    public void droppedTempTableUsesReader() {
+        SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+        // shadows the User table on the writer until it is dropped
+        db.execSQL("CREATE TEMP TABLE User (id INTEGER)");
+        db.execSQL("DROP TABLE User");
+        mDatabase.getUserDao().insert(TestUtil.createUser(3));
+        mMetrics.reset();
+        assertThat(queryLong("SELECT COUNT(*) FROM User"), is(1L));
+        assertThat(mMetrics.getAcquireCount(), is(1L));
+    }
+
+    @Test
+    public void attachedDatabaseUsesWriter() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(ATTACHED_DATABASE_NAME);
+        SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+        db.execSQL("ATTACH DATABASE '" + context.getDatabasePath(ATTACHED_DATABASE_NAME)
+                + "' AS other");
+        try {
+            db.execSQL("CREATE TABLE other.scratch (id INTEGER)");
+            db.execSQL("INSERT INTO other.scratch VALUES (1)");
+            mMetrics.reset();
+            assertThat(queryLong("SELECT COUNT(*) FROM other.scratch"), is(1L));
+            assertThat(mMetrics.getAcquireCount(), is(0L));
+        } finally {
+            db.execSQL("DETACH DATABASE other");
+            context.deleteDatabase(ATTACHED_DATABASE_NAME);
+        }
+    }
+
+    @Test
+    public void walEnabledThroughDatabaseUsesWriter() {
+        mDatabase.close();
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        mDatabase = Room.databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .openHelperFactory(new FrameworkSQLiteOpenHelperFactory(READER_COUNT, mMetrics))
+                .setJournalMode(RoomDatabase.JournalMode.TRUNCATE)
+                .build();
+        assertThat(mDatabase.getOpenHelper().getWritableDatabase().enableWriteAheadLogging(),
+                is(true));
+        mMetrics.reset();
+        UserDao dao = mDatabase.getUserDao();
+        LiveData<User> user1 = dao.liveUserById(1);
+        Observer<User> observer = startObserver(user1);
+        User user = TestUtil.createUser(1);
+        dao.insert(user);
+        assertThat(dao.load(1), is(equalTo(user)));
+        verify(observer, timeout(3000).atLeastOnce())
+                .onChanged(argThat(loaded -> loaded != null && loaded.getId() == 1));
+        stopObserver(user1, observer);
+        assertThat(mMetrics.getAcquireCount(), is(0L));
+    }
+
+    @Test
+    public void closeClosesReaders() {
+        UserDao dao = mDatabase.getUserDao();
+        dao.insert(TestUtil.createUser(1));
+        dao.load(1);
+        assertThat(mMetrics.getOpenReaderCount(), is(1));
+        mDatabase.close();
+        assertThat(mMetrics.getOpenReaderCount(), is(0));
+    }
+
+    @Test
+    public void cursorHoldsReader() {
+        mDatabase.getUserDao().insert(TestUtil.createUser(1));
+        Cursor c = mDatabase.query("SELECT * FROM User", null);
+        try {
+            assertThat(c.moveToFirst(), is(true));
+            assertThat(mMetrics.getActiveReaderCount(), is(1));
+        } finally {
+            c.close();
+        }
+        assertThat(mMetrics.getActiveReaderCount(), is(0));
+    }
+
+    @Test
+    public void cursorReadsAfterClose() {
+        final int userCount = 500;
+        final User[] users = new User[userCount];
+        for (int i = 0; i < userCount; i++) {
+            users[i] = TestUtil.createUser(i + 1);
+        }
+        mDatabase.getUserDao().insertAll(users);
+        // each row takes 10kB so the rows do not fit in the first window of the cursor
+        Cursor c = mDatabase.query("SELECT randomblob(10000) FROM User", null);
+        try {
+            assertThat(c.moveToFirst(), is(true));
+            mDatabase.close();
+            assertThat(mMetrics.getOpenReaderCount(), is(1));
+            assertThat(c.moveToLast(), is(true));
+            assertThat(c.getCount(), is(userCount));
+        } finally {
+            c.close();
+        }
+        assertThat(mMetrics.getOpenReaderCount(), is(0));
+        assertThat(mMetrics.getActiveReaderCount(), is(0));
+    }
+
+    private long queryLong(String sql) {
+        Cursor c = mDatabase.query(sql, null);
+        try {
+            assertThat(c.moveToFirst(), is(true));
+            return c.getLong(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static <T> Observer<T> startObserver(LiveData<T> liveData) {
+        @SuppressWarnings("unchecked")
+        Observer<T> observer = mock(Observer.class);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                liveData.observeForever(observer));
+        return observer;
+    }
+
+    private static <T> void stopObserver(LiveData<T> liveData, Observer<T> observer) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                liveData.removeObserver(observer));
+    }
+}
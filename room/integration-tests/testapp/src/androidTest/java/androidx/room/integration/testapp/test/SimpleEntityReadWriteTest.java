@@ -33,6 +33,7 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteException;
 
+import androidx.room.CursorIterable;
 import androidx.room.Room;
 import androidx.room.integration.testapp.TestDatabase;
 import androidx.room.integration.testapp.dao.BlobEntityDao;
@@ -60,13 +61,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 @SuppressWarnings("ArraysAsListWithZeroOrOneArgument")
@@ -626,6 +630,57 @@ public class SimpleEntityReadWriteTest {
         assertThat(result.getLastName(), is(user.getLastName()));
     }
 
+    @Test
+    public void iterateAll() {
+        User[] users = TestUtil.createUsersArray(3, 5, 7);
+        mUserDao.insertAll(users);
+        CursorIterable<User> result = mUserDao.iterateAll();
+        try {
+            assertThat(result.getCount(), is(3));
+            List<User> loaded = new ArrayList<>();
+            for (User user : result) {
+                loaded.add(user);
+            }
+            assertThat(loaded, is(Arrays.asList(users)));
+            // a new iterator restarts from the first row
+            assertThat(result.iterator().next(), is(users[0]));
+        } finally {
+            result.close();
+        }
+    }
+
+    @Test
+    public void iterateAll_empty() {
+        CursorIterable<User> result = mUserDao.iterateAll();
+        try {
+            Iterator<User> iterator = result.iterator();
+            assertThat(iterator.hasNext(), is(false));
+            try {
+                iterator.next();
+                fail("Was expecting an exception");
+            } catch (NoSuchElementException expected) {
+            }
+        } finally {
+            result.close();
+        }
+    }
+
+    @Test
+    public void iterateNamesAndLastNames() {
+        User user = TestUtil.createUser(3);
+        mUserDao.insert(user);
+        CursorIterable<NameAndLastName> result = mUserDao.iterateNamesAndLastNames();
+        try {
+            Iterator<NameAndLastName> iterator = result.iterator();
+            NameAndLastName loaded = iterator.next();
+            assertThat(loaded.getName(), is(user.getName()));
+            assertThat(loaded.getLastName(), is(user.getLastName()));
+            assertThat(iterator.hasNext(), is(false));
+        } finally {
+            result.close();
+        }
+    }
+
     @Test
     public void enumSet_simpleLoad() {
         User a = TestUtil.createUser(3);
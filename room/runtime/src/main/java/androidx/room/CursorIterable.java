@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a {@link Query} method that converts rows lazily while it is iterated.
+ * <p>
+ * Unlike a {@link java.util.List} return type, the rows are not read into memory up front. They
+ * are read from the cursor window by window and converted one at a time, which allows scanning
+ * large results in constant memory.
+ * <pre>
+ * {@literal @}Dao
+ * public interface UserDao {
+ *     {@literal @}Query("SELECT * FROM user")
+ *     CursorIterable&lt;User&gt; iterateAll();
+ * }
+ *
+ * try (CursorIterable&lt;User&gt; users = userDao.iterateAll()) {
+ *     for (User user : users) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * The query runs when the method is called and the result keeps its cursor open until
+ * {@link #close()} is called. The iterators returned by {@link #iterator()} share that cursor, so
+ * only one of them should be used at a time and getting a new one restarts from the first row.
+ * <p>
+ * Kotlin users can convert the result into a {@code Sequence} with {@code asSequence()}.
+ * <p>
+ * This return type cannot be used with POJOs that have {@link Relation} fields since those are
+ * loaded for all the rows of the result at once.
+ *
+ * @param <T> The type of the rows.
+ */
+public abstract class CursorIterable<T> implements Iterable<T>, Closeable {
+    private final Cursor mCursor;
+    @Nullable
+    private final RoomSQLiteQuery mQuery;
+    private boolean mClosed;
+
+    /**
+     * @param cursor The cursor to read the rows from.
+     * @param query  The query to release when this result is closed, if any.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected CursorIterable(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query) {
+        mCursor = cursor;
+        mQuery = query;
+    }
+
+    /**
+     * Converts the row the cursor is on.
+     *
+     * @param cursor The cursor of this result.
+     * @return The converted row.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected abstract T convert(@NonNull Cursor cursor);
+
+    /**
+     * Returns the number of rows in the result.
+     *
+     * @return The number of rows.
+     */
+    public int getCount() {
+        return mCursor.getCount();
+    }
+
+    /**
+     * Returns an iterator over the rows, starting from the first one.
+     *
+     * @return A new iterator that converts rows as they are returned.
+     */
+    @NonNull
+    @Override
+    public Iterator<T> iterator() {
+        mCursor.moveToPosition(-1);
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return mCursor.getPosition() < mCursor.getCount() - 1;
+            }
+
+            @Override
+            public T next() {
+                if (!mCursor.moveToNext()) {
+                    throw new NoSuchElementException();
+                }
+                return convert(mCursor);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Closes the cursor of this result. The result cannot be iterated afterwards.
+     */
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mCursor.close();
+        if (mQuery != null) {
+            mQuery.release();
+        }
+    }
+}
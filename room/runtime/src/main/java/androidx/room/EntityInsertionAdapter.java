@@ -16,16 +16,25 @@
 
 package androidx.room;
 
+import android.os.Build;
+
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
  * <p>
+ * If the implementation provides a {@link #getColumnCount() column count}, entities inserted via
+ * {@link #insert(Object[])} or {@link #insert(Iterable)} are written with multi-row
+ * {@code INSERT} statements, each chunk binding at most
+ * {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} arguments. The methods that return row ids always
+ * insert one row per statement since SQLite only reports the row id of the last inserted row.
+ * <p>
  * This is an internal library class and all of its implementations are auto-generated.
  *
  * @param <T> The type parameter of the entity to be inserted
@@ -34,6 +43,24 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    // Multi-row VALUES clauses are supported since SQLite 3.7.11, which ships with API 16.
+    private static final boolean MULTI_ROW_INSERT_SUPPORTED =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+
+    // SQLite versions before 3.8.8 count each row of a VALUES clause as a compound SELECT term,
+    // which are limited to 500.
+    private static final int MAX_ROW_COUNT = 500;
+
+    // Statements are cached for the full chunk size at slot 0 and for each power of two row count
+    // smaller than that at slot log2(rowCount) + 1, which is used to insert the remaining rows.
+    private static final int FULL_CHUNK_SLOT = 0;
+    private static final int BULK_STATEMENT_SLOT_COUNT =
+            Integer.numberOfTrailingZeros(Integer.highestOneBit(MAX_ROW_COUNT)) + 2;
+
+    private final AtomicBoolean mBulkLock = new AtomicBoolean(false);
+    private final SupportSQLiteStatement[] mBulkStatements =
+            new SupportSQLiteStatement[BULK_STATEMENT_SLOT_COUNT];
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -52,6 +79,61 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     protected abstract void bind(SupportSQLiteStatement statement, T entity);
 
+    /**
+     * Returns the number of arguments bound for each entity, or {@code 0} if this adapter cannot
+     * insert multiple entities with a single statement.
+     *
+     * @return The number of columns inserted for each entity.
+     */
+    protected int getColumnCount() {
+        return 0;
+    }
+
+    /**
+     * Creates a query that inserts {@code rowCount} entities with a single statement. Only called
+     * if {@link #getColumnCount()} is not {@code 0}.
+     *
+     * @param rowCount The number of entities to insert.
+     * @return The SQL query to prepare.
+     */
+    protected String createBulkQuery(int rowCount) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Binds the entity into the given statement, starting from the argument after {@code offset}.
+     * Only called if {@link #getColumnCount()} is not {@code 0}.
+     *
+     * @param statement The SQLite statement that prepared for the query returned from
+     *                  createBulkQuery.
+     * @param entity    The entity of type T.
+     * @param offset    The number of arguments bound before the first column of the entity.
+     */
+    protected void bind(SupportSQLiteStatement statement, T entity, int offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builds a multi-row insert query by repeating the given row placeholder.
+     *
+     * @param prefix   The query up to and including the {@code VALUES} keyword.
+     * @param row      The argument placeholders of a single row, e.g. {@code (?,?)}.
+     * @param rowCount The number of rows.
+     * @return The SQL query to prepare.
+     */
+    protected static String buildBulkQuery(String prefix, String row, int rowCount) {
+        final StringBuilder builder = new StringBuilder(
+                prefix.length() + (row.length() + 1) * rowCount);
+        builder.append(prefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(row);
+        }
+        return builder.toString();
+    }
+
     /**
      * Inserts the entity into the database.
      *
@@ -73,6 +155,19 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
+        final int maxRowCount = getMaxRowCount();
+        if (maxRowCount > 1 && entities.length > 1) {
+            assertNotMainThread();
+            final boolean canUseCached = mBulkLock.compareAndSet(false, true);
+            try {
+                insertRows(entities, entities.length, maxRowCount, getBulkStatements(canUseCached));
+            } finally {
+                if (canUseCached) {
+                    mBulkLock.set(false);
+                }
+            }
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -90,6 +185,30 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
+        final int maxRowCount = getMaxRowCount();
+        if (maxRowCount > 1 && !(entities instanceof Collection
+                && ((Collection<?>) entities).size() < 2)) {
+            assertNotMainThread();
+            final boolean canUseCached = mBulkLock.compareAndSet(false, true);
+            try {
+                final SupportSQLiteStatement[] statements = getBulkStatements(canUseCached);
+                final Object[] rows = new Object[maxRowCount];
+                int count = 0;
+                for (T entity : entities) {
+                    rows[count++] = entity;
+                    if (count == maxRowCount) {
+                        insertRows(rows, count, maxRowCount, statements);
+                        count = 0;
+                    }
+                }
+                insertRows(rows, count, maxRowCount, statements);
+            } finally {
+                if (canUseCached) {
+                    mBulkLock.set(false);
+                }
+            }
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +367,54 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    private int getMaxRowCount() {
+        final int columnCount = getColumnCount();
+        if (!MULTI_ROW_INSERT_SUPPORTED || columnCount <= 0) {
+            return 1;
+        }
+        return Math.min(MAX_ROW_COUNT, RoomDatabase.MAX_BIND_PARAMETER_CNT / columnCount);
+    }
+
+    private SupportSQLiteStatement[] getBulkStatements(boolean canUseCached) {
+        if (canUseCached) {
+            return mBulkStatements;
+        }
+        // the cached statements are in use, create one off statements
+        return new SupportSQLiteStatement[BULK_STATEMENT_SLOT_COUNT];
+    }
+
+    /**
+     * Inserts the first {@code count} rows, in order, as full chunks of {@code maxRowCount} rows
+     * followed by decreasing powers of two for the rest, so that only a few distinct statements
+     * are ever compiled.
+     */
+    @SuppressWarnings("unchecked")
+    private void insertRows(Object[] rows, int count, int maxRowCount,
+            SupportSQLiteStatement[] statements) {
+        final int columnCount = getColumnCount();
+        int start = 0;
+        while (start < count) {
+            final int remaining = count - start;
+            final int rowCount;
+            final int slot;
+            if (remaining >= maxRowCount) {
+                rowCount = maxRowCount;
+                slot = FULL_CHUNK_SLOT;
+            } else {
+                rowCount = Integer.highestOneBit(remaining);
+                slot = Integer.numberOfTrailingZeros(rowCount) + 1;
+            }
+            SupportSQLiteStatement stmt = statements[slot];
+            if (stmt == null) {
+                stmt = compileStatement(createBulkQuery(rowCount));
+                statements[slot] = stmt;
+            }
+            for (int i = 0; i < rowCount; i++) {
+                bind(stmt, (T) rows[start + i], i * columnCount);
+            }
+            stmt.executeInsert();
+            start += rowCount;
+        }
+    }
 }
@@ -34,14 +34,20 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 
@@ -58,6 +64,8 @@ import java.util.concurrent.locks.Lock;
 // tables.
 // * Each update (write operation) on one of the observed tables triggers an update into the
 // memory table table, flipping the invalidated flag ON.
+// * Observers are also indexed by table id so that a refresh only visits the observers of the
+// invalidated tables. They are collected under the observer map lock and notified outside of it.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
 public class InvalidationTracker {
@@ -82,6 +90,11 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final long REFRESH_SCHEDULER_KEEP_ALIVE_SECONDS = 10;
+
+    // guarded by InvalidationTracker.class
+    private static ScheduledExecutorService sRefreshScheduler;
+
     @NonNull
     @VisibleForTesting
     final HashMap<String, Integer> mTableIdLookup;
@@ -95,6 +108,8 @@ public class InvalidationTracker {
 
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
 
+    private volatile long mRefreshCoalescingWindowMillis = 0;
+
     private volatile boolean mInitialized = false;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -109,6 +124,11 @@ public class InvalidationTracker {
     @SuppressLint("RestrictedApi")
     final SafeIterableMap<Observer, ObserverWrapper> mObserverMap = new SafeIterableMap<>();
 
+    // Observers of each table id, guarded by mObserverMap. A list is created the first time an
+    // observer of that table is added.
+    @VisibleForTesting
+    final List<ObserverWrapper>[] mObserversByTableId;
+
     private MultiInstanceInvalidationClient mMultiInstanceInvalidationClient;
 
     /**
@@ -128,7 +148,7 @@ public class InvalidationTracker {
      *
      * @hide
      */
-    @SuppressWarnings("WeakerAccess")
+    @SuppressWarnings({"WeakerAccess", "unchecked"})
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public InvalidationTracker(RoomDatabase database, Map<String, String> shadowTablesMap,
             Map<String, Set<String>> viewTables, String... tableNames) {
@@ -138,6 +158,7 @@ public class InvalidationTracker {
         mViewTables = viewTables;
         mInvalidationLiveDataContainer = new InvalidationLiveDataContainer(mDatabase);
         final int size = tableNames.length;
+        mObserversByTableId = new List[size];
         mTableNames = new String[size];
         for (int id = 0; id < size; id++) {
             final String tableName = tableNames[id].toLowerCase(Locale.US);
@@ -271,6 +292,16 @@ public class InvalidationTracker {
         ObserverWrapper currentObserver;
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
+            if (currentObserver == null) {
+                for (int tableId : wrapper.mDistinctTableIds) {
+                    List<ObserverWrapper> observers = mObserversByTableId[tableId];
+                    if (observers == null) {
+                        observers = new ArrayList<>();
+                        mObserversByTableId[tableId] = observers;
+                    }
+                    observers.add(wrapper);
+                }
+            }
         }
         if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
             syncTriggers();
@@ -323,6 +354,9 @@ public class InvalidationTracker {
 
     /**
      * Removes the observer from the observers list.
+     * <p>
+     * Observers are notified outside of the lock that guards the list, so an observer may still
+     * be notified by a refresh that started before this method returned.
      *
      * @param observer The observer to remove.
      */
@@ -333,6 +367,11 @@ public class InvalidationTracker {
         ObserverWrapper wrapper;
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
+            if (wrapper != null) {
+                for (int tableId : wrapper.mDistinctTableIds) {
+                    mObserversByTableId[tableId].remove(wrapper);
+                }
+            }
         }
         if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
             syncTriggers();
@@ -402,10 +441,10 @@ public class InvalidationTracker {
                 closeLock.unlock();
             }
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
-                synchronized (mObserverMap) {
-                    for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
-                    }
+                // Observers are notified outside of the lock so that a slow observer does not
+                // block others from being added or removed.
+                for (ObserverWrapper wrapper : collectObservers(invalidatedTableIds)) {
+                    wrapper.notifyByTableInvalidStatus(invalidatedTableIds);
                 }
             }
         }
@@ -429,6 +468,77 @@ public class InvalidationTracker {
         }
     };
 
+    /**
+     * Scheduled on the refresh scheduler when a coalescing window is set, hands
+     * {@link #mRefreshRunnable} to the query executor once the window has passed. Refresh
+     * requests made in the meantime find {@link #mPendingRefresh} set and are merged into this
+     * refresh.
+     */
+    @VisibleForTesting
+    final Runnable mCoalescingRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+        }
+    };
+
+    /**
+     * Returns the scheduler of delayed refreshes, shared by all trackers. Its thread only waits
+     * for the coalescing windows to pass, the refreshes run on the query executors.
+     */
+    private static ScheduledExecutorService getRefreshScheduler() {
+        synchronized (InvalidationTracker.class) {
+            if (sRefreshScheduler == null) {
+                final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(@NonNull Runnable runnable) {
+                                final Thread thread = new Thread(runnable,
+                                        "Room-InvalidationTracker-Scheduler");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                scheduler.setKeepAliveTime(REFRESH_SCHEDULER_KEEP_ALIVE_SECONDS,
+                        TimeUnit.SECONDS);
+                scheduler.allowCoreThreadTimeOut(true);
+                sRefreshScheduler = scheduler;
+            }
+            return sRefreshScheduler;
+        }
+    }
+
+    /**
+     * Returns the observers of any of the given tables, without duplicates.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    List<ObserverWrapper> collectObservers(Set<Integer> tableIds) {
+        final ArrayList<ObserverWrapper> result = new ArrayList<>();
+        synchronized (mObserverMap) {
+            if (tableIds.size() == 1) {
+                final List<ObserverWrapper> observers =
+                        mObserversByTableId[tableIds.iterator().next()];
+                if (observers != null) {
+                    result.addAll(observers);
+                }
+            } else {
+                final Set<ObserverWrapper> seen = new HashSet<>();
+                for (int tableId : tableIds) {
+                    final List<ObserverWrapper> observers = mObserversByTableId[tableId];
+                    if (observers == null) {
+                        continue;
+                    }
+                    for (ObserverWrapper wrapper : observers) {
+                        if (seen.add(wrapper)) {
+                            result.add(wrapper);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Enqueues a task to refresh the list of updated tables.
      * <p>
@@ -440,8 +550,36 @@ public class InvalidationTracker {
     public void refreshVersionsAsync() {
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
-            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            final long windowMillis = mRefreshCoalescingWindowMillis;
+            if (windowMillis > 0) {
+                getRefreshScheduler().schedule(mCoalescingRefreshRunnable, windowMillis,
+                        TimeUnit.MILLISECONDS);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
+        }
+    }
+
+    /**
+     * Sets how long an asynchronous refresh waits before checking for updated tables.
+     * <p>
+     * By default the check runs as soon as possible after each transaction, so a burst of
+     * transactions can cause as many checks and observer notifications. With a window set, every
+     * refresh requested while one is waiting is merged into it, so observers are notified at
+     * most once per window, at the cost of being notified up to {@code window} later. The
+     * query executor is not blocked while the window passes.
+     * <p>
+     * Synchronous refreshes are not delayed. Since notifications are delayed, observers may also
+     * be notified after they were {@link #removeObserver(Observer) removed}.
+     *
+     * @param window The coalescing window, or 0 to check without waiting.
+     * @param unit The unit of {@code window}.
+     */
+    public void setRefreshCoalescingWindow(long window, @NonNull TimeUnit unit) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window must not be negative");
         }
+        mRefreshCoalescingWindowMillis = unit.toMillis(window);
     }
 
     /**
@@ -468,11 +606,19 @@ public class InvalidationTracker {
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
     public void notifyObserversByTableNames(String... tables) {
-        synchronized (mObserverMap) {
-            for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                if (!entry.getKey().isRemote()) {
-                    entry.getValue().notifyByTableNames(tables);
-                }
+        final Set<Integer> tableIds = new HashSet<>();
+        for (String table : tables) {
+            final Integer tableId = mTableIdLookup.get(table.toLowerCase(Locale.US));
+            if (tableId != null) {
+                tableIds.add(tableId);
+            }
+        }
+        if (tableIds.isEmpty()) {
+            return;
+        }
+        for (ObserverWrapper wrapper : collectObservers(tableIds)) {
+            if (!wrapper.mObserver.isRemote()) {
+                wrapper.notifyByTableNames(tables);
             }
         }
     }
@@ -591,6 +737,9 @@ public class InvalidationTracker {
     @SuppressWarnings("WeakerAccess")
     static class ObserverWrapper {
         final int[] mTableIds;
+        // mTableIds without duplicates, e.g. for an external content fts table observed together
+        // with its content table.
+        final int[] mDistinctTableIds;
         private final String[] mTableNames;
         final Observer mObserver;
         private final Set<String> mSingleTableSet;
@@ -598,6 +747,7 @@ public class InvalidationTracker {
         ObserverWrapper(Observer observer, int[] tableIds, String[] tableNames) {
             mObserver = observer;
             mTableIds = tableIds;
+            mDistinctTableIds = distinct(tableIds);
             mTableNames = tableNames;
             if (tableIds.length == 1) {
                 HashSet<String> set = new HashSet<>();
@@ -608,6 +758,18 @@ public class InvalidationTracker {
             }
         }
 
+        private static int[] distinct(int[] tableIds) {
+            final int[] sorted = tableIds.clone();
+            Arrays.sort(sorted);
+            int count = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[count++] = sorted[i];
+                }
+            }
+            return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+        }
+
         /**
          * Notifies the underlying {@link #mObserver} if any of the observed tables are invalidated
          * based on the given invalid status set.
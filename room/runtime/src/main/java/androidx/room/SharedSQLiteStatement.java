@@ -60,9 +60,13 @@ public abstract class SharedSQLiteStatement {
         mDatabase.assertNotMainThread();
     }
 
+    SupportSQLiteStatement compileStatement(String query) {
+        return mDatabase.compileStatement(query);
+    }
+
     private SupportSQLiteStatement createNewStatement() {
         String query = createQuery();
-        return mDatabase.compileStatement(query);
+        return compileStatement(query);
     }
 
     private SupportSQLiteStatement getStmt(boolean canUseCached) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A data source implementation that pages a query ordered by a single key column by seeking to
+ * the key of the last loaded item.
+ * <p>
+ * Unlike {@link LimitOffsetDataSource}, which has to step over every row before the requested
+ * offset, each page is loaded with a {@code WHERE key > ? ORDER BY key LIMIT ?} query, which
+ * SQLite answers with a single index seek when the key column is indexed. Counting the rows is
+ * optional; without it the initial load does not report placeholders.
+ * <p>
+ * The key column must be unique and not null, otherwise rows sharing a key with the last loaded
+ * row are skipped. If the source query orders the key column with a collation, keys are compared
+ * with the same collation and must be unique under it, e.g. {@code NOCASE} treats "a" and "A" as
+ * the same key.
+ *
+ * @param <K> Type of the key column.
+ * @param <T> Data type returned by the data source.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public abstract class KeysetDataSource<K, T> extends ItemKeyedDataSource<K, T> {
+    private final RoomSQLiteQuery mSourceQuery;
+    private final String mCountQuery;
+    private final String mCountBeforeQuery;
+    private final String mFirstPageQuery;
+    private final String mInitialQuery;
+    private final String mAfterQuery;
+    private final String mBeforeQuery;
+    private final RoomDatabase mDb;
+    @SuppressWarnings("FieldCanBeLocal")
+    private final InvalidationTracker.Observer mObserver;
+    private final boolean mInTransaction;
+    private final boolean mCountItems;
+
+    protected KeysetDataSource(RoomDatabase db, SupportSQLiteQuery query, String keyColumn,
+            @Nullable String collation, boolean descending, boolean countItems,
+            boolean inTransaction, String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), keyColumn, collation, descending, countItems,
+                inTransaction, tables);
+    }
+
+    protected KeysetDataSource(RoomDatabase db, RoomSQLiteQuery query, String keyColumn,
+            @Nullable String collation, boolean descending, boolean countItems,
+            boolean inTransaction, String... tables) {
+        mDb = db;
+        mSourceQuery = query;
+        mInTransaction = inTransaction;
+        mCountItems = countItems;
+        final String source = "SELECT * FROM ( " + mSourceQuery.getSql() + " )";
+        // comparisons and ordering must use the collation the source query is ordered with
+        final String key = "`" + keyColumn + "`"
+                + (collation == null ? "" : " COLLATE " + collation);
+        final String forward = descending ? " DESC" : " ASC";
+        final String backward = descending ? " ASC" : " DESC";
+        final String after = descending ? " < ?" : " > ?";
+        final String before = descending ? " > ?" : " < ?";
+        mCountQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " )";
+        mCountBeforeQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " ) WHERE "
+                + key + before;
+        mFirstPageQuery = source + " ORDER BY " + key + forward + " LIMIT ?";
+        mInitialQuery = source + " WHERE " + key + (descending ? " <= ?" : " >= ?")
+                + " ORDER BY " + key + forward + " LIMIT ?";
+        mAfterQuery = source + " WHERE " + key + after + " ORDER BY " + key + forward
+                + " LIMIT ?";
+        mBeforeQuery = source + " WHERE " + key + before + " ORDER BY " + key + backward
+                + " LIMIT ?";
+        mObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        db.getInvalidationTracker().addWeakObserver(mObserver);
+    }
+
+    @Override
+    public boolean isInvalid() {
+        mDb.getInvalidationTracker().refreshVersionsSync();
+        return super.isInvalid();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    protected abstract List<T> convertRows(Cursor cursor);
+
+    /**
+     * Count number of rows query can return
+     *
+     * @hide
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int countItems() {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mCountQuery,
+                mSourceQuery.getArgCount());
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        return queryCount(sqLiteQuery);
+    }
+
+    private int countItemsBefore(@NonNull K key) {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mCountBeforeQuery,
+                mSourceQuery.getArgCount() + 1);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        bindKey(sqLiteQuery, sqLiteQuery.getArgCount(), key);
+        return queryCount(sqLiteQuery);
+    }
+
+    private int queryCount(RoomSQLiteQuery sqLiteQuery) {
+        Cursor cursor = mDb.query(sqLiteQuery);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+            return 0;
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<K> params,
+            @NonNull LoadInitialCallback<T> callback) {
+        final K initialKey = params.requestedInitialKey;
+        List<T> list = Collections.emptyList();
+        int position = 0;
+        int totalCount = 0;
+        mDb.beginTransaction();
+        try {
+            list = query(initialKey == null ? mFirstPageQuery : mInitialQuery, initialKey,
+                    params.requestedLoadSize);
+            if (mCountItems) {
+                totalCount = countItems();
+                position = initialKey == null ? 0 : countItemsBefore(initialKey);
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+        if (mCountItems) {
+            callback.onResult(list, position, totalCount);
+        } else {
+            callback.onResult(list);
+        }
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<K> params, @NonNull LoadCallback<T> callback) {
+        callback.onResult(loadAfter(params.key, params.requestedLoadSize));
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<K> params, @NonNull LoadCallback<T> callback) {
+        callback.onResult(loadBefore(params.key, params.requestedLoadSize));
+    }
+
+    /**
+     * Return up to loadCount rows that come after the given key.
+     *
+     * @hide
+     */
+    @NonNull
+    public List<T> loadAfter(@NonNull K key, int loadCount) {
+        return loadInTransactionIfNeeded(mAfterQuery, key, loadCount);
+    }
+
+    /**
+     * Return up to loadCount rows that come before the given key, in query order.
+     *
+     * @hide
+     */
+    @NonNull
+    public List<T> loadBefore(@NonNull K key, int loadCount) {
+        final List<T> rows = loadInTransactionIfNeeded(mBeforeQuery, key, loadCount);
+        // The rows closest to the key are loaded first, put them back in query order.
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    @SuppressWarnings("deprecation")
+    private List<T> loadInTransactionIfNeeded(String sql, @NonNull K key, int loadCount) {
+        if (mInTransaction) {
+            mDb.beginTransaction();
+            try {
+                List<T> rows = query(sql, key, loadCount);
+                mDb.setTransactionSuccessful();
+                return rows;
+            } finally {
+                mDb.endTransaction();
+            }
+        } else {
+            return query(sql, key, loadCount);
+        }
+    }
+
+    private List<T> query(String sql, @Nullable K key, int loadCount) {
+        final int extraArgs = key == null ? 1 : 2;
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(sql,
+                mSourceQuery.getArgCount() + extraArgs);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        if (key != null) {
+            bindKey(sqLiteQuery, sqLiteQuery.getArgCount() - 1, key);
+        }
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), loadCount);
+        Cursor cursor = mDb.query(sqLiteQuery);
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            return convertRows(cursor);
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    /**
+     * Binds a key to the given argument of a query. Generated data sources override it to bind
+     * the key the same way as other query arguments of its type.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected void bindKey(@NonNull RoomSQLiteQuery query, int index, @NonNull K key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short
+                || key instanceof Byte) {
+            query.bindLong(index, ((Number) key).longValue());
+        } else if (key instanceof Double || key instanceof Float) {
+            query.bindDouble(index, ((Number) key).doubleValue());
+        } else if (key instanceof String) {
+            query.bindString(index, (String) key);
+        } else if (key instanceof byte[]) {
+            query.bindBlob(index, (byte[]) key);
+        } else {
+            throw new IllegalArgumentException("Cannot bind key of type " + key.getClass()
+                    + ", keys must be numbers, strings or byte arrays");
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+/**
+ * @hide
+ *
+ * A temporary table that holds the parent keys of a relation so that the related rows can be
+ * loaded with a single query, no matter how many keys there are.
+ * <p>
+ * The table is used inside a transaction that is started through the {@link RoomDatabase} when it
+ * is created and ended when it is closed, which makes sure that it is filled and read on the same
+ * connection. Since the transaction only changes the temporary table, it is always marked
+ * successful so that it does not roll back an outer transaction.
+ * <p>
+ * Beginning a transaction that is not nested takes the write lock of the database until the table
+ * is closed, which would block other writers for the whole relation load. Generated code therefore
+ * only uses a key table when a transaction is already active, e.g. in a
+ * {@link androidx.room.Transaction} method, and otherwise queries the keys in chunks of
+ * {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} outside of any transaction.
+ * <p>
+ * Tables are named after how deeply they are nested on the current thread, since relations of
+ * relations are loaded while the parent's table is in use. They are emptied instead of dropped
+ * when closed, so that the statements that fill and read them are the same every time and can be
+ * reused from the statement cache of the connection, and the schema of the connection does not
+ * change on every load.
+ * <pre>
+ * RelationKeyTable keyTable = RelationKeyTable.create(db);
+ * try {
+ *     for (Long key : keys) {
+ *         keyTable.add(key);
+ *     }
+ *     keyTable.flush();
+ *     // query rows WHERE parentId IN (keyTable.getKeysQuery())
+ * } finally {
+ *     keyTable.close();
+ * }
+ * </pre>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public final class RelationKeyTable {
+    private static final String TABLE_NAME_PREFIX = "room_relation_keys_";
+    private static final String KEY_COLUMN = "_key";
+
+    // Multi-row VALUES clauses are supported since SQLite 3.7.11, which ships with API 16. Before
+    // SQLite 3.8.8, each row counts as a compound SELECT term and those are limited to 500.
+    private static final int CHUNK_SIZE =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? 500 : 1;
+
+    // The number of key tables that are open on each thread, used to name nested tables.
+    private static final ThreadLocal<int[]> sDepth = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final RoomDatabase mRoomDatabase;
+    private final SupportSQLiteDatabase mDatabase;
+    private final String mName;
+    private final Object[] mPendingKeys = new Object[CHUNK_SIZE];
+    private int mPendingCount;
+    @Nullable
+    private SupportSQLiteStatement mChunkStatement;
+
+    /**
+     * Begins a transaction and returns an empty key table in it. This should only be called while
+     * a transaction is active, otherwise the write lock is held until the table is closed.
+     *
+     * @param db The database to create the table in.
+     * @return The key table, which must be closed.
+     */
+    @NonNull
+    @SuppressWarnings("deprecation")
+    public static RelationKeyTable create(@NonNull RoomDatabase db) {
+        db.beginTransaction();
+        final int[] depth = sDepth.get();
+        try {
+            final RelationKeyTable table = new RelationKeyTable(db,
+                    TABLE_NAME_PREFIX + depth[0]);
+            depth[0]++;
+            return table;
+        } catch (RuntimeException e) {
+            db.endTransaction();
+            throw e;
+        }
+    }
+
+    private RelationKeyTable(RoomDatabase roomDatabase, String name) {
+        mRoomDatabase = roomDatabase;
+        mDatabase = roomDatabase.getOpenHelper().getWritableDatabase();
+        mName = name;
+        mDatabase.execSQL(
+                "CREATE TEMP TABLE IF NOT EXISTS `" + name + "` (`" + KEY_COLUMN + "`)");
+    }
+
+    /**
+     * Adds a key to the table. Keys are inserted in chunks, {@link #flush()} inserts the remaining
+     * ones.
+     *
+     * @param key The key to add.
+     */
+    public void add(long key) {
+        add((Object) key);
+    }
+
+    /**
+     * Adds a key to the table. Keys are inserted in chunks, {@link #flush()} inserts the remaining
+     * ones.
+     *
+     * @param key The key to add, either a number, a String or a byte array.
+     */
+    public void add(@Nullable Object key) {
+        mPendingKeys[mPendingCount++] = key;
+        if (mPendingCount == CHUNK_SIZE) {
+            if (mChunkStatement == null) {
+                mChunkStatement = compileInsert(CHUNK_SIZE);
+            }
+            insertPending(mChunkStatement);
+        }
+    }
+
+    /**
+     * Inserts the keys that were added since the last chunk was inserted. This must be called
+     * before the table is queried.
+     */
+    public void flush() {
+        if (mPendingCount == 0) {
+            return;
+        }
+        final SupportSQLiteStatement statement = compileInsert(mPendingCount);
+        try {
+            insertPending(statement);
+        } finally {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * Returns a query that selects the keys of this table, to be used as the right operand of an
+     * IN expression.
+     *
+     * @return The query that selects the keys.
+     */
+    @NonNull
+    public String getKeysQuery() {
+        return "SELECT `" + KEY_COLUMN + "` FROM temp.`" + mName + "`";
+    }
+
+    /**
+     * Empties the table and ends the transaction it was created in.
+     */
+    @SuppressWarnings("deprecation")
+    public void close() {
+        sDepth.get()[0]--;
+        try {
+            if (mChunkStatement != null) {
+                closeStatement(mChunkStatement);
+                mChunkStatement = null;
+            }
+            mDatabase.execSQL("DELETE FROM temp.`" + mName + "`");
+            mRoomDatabase.setTransactionSuccessful();
+        } finally {
+            mRoomDatabase.endTransaction();
+        }
+    }
+
+    private SupportSQLiteStatement compileInsert(int rowCount) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("INSERT INTO temp.`").append(mName).append("` VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("(?)");
+        }
+        return mDatabase.compileStatement(builder.toString());
+    }
+
+    private void insertPending(SupportSQLiteStatement statement) {
+        for (int i = 0; i < mPendingCount; i++) {
+            bind(statement, i + 1, mPendingKeys[i]);
+            mPendingKeys[i] = null;
+        }
+        mPendingCount = 0;
+        statement.executeInsert();
+    }
+
+    private static void bind(SupportSQLiteStatement statement, int index, Object key) {
+        if (key == null) {
+            statement.bindNull(index);
+        } else if (key instanceof Double || key instanceof Float) {
+            statement.bindDouble(index, ((Number) key).doubleValue());
+        } else if (key instanceof Number) {
+            statement.bindLong(index, ((Number) key).longValue());
+        } else if (key instanceof byte[]) {
+            statement.bindBlob(index, (byte[]) key);
+        } else {
+            statement.bindString(index, key.toString());
+        }
+    }
+
+    private static void closeStatement(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (Exception ignored) {
+            // the statement is only released, closing it cannot fail in a way we can handle.
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package androidx.room;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
 import static org.hamcrest.core.IsCollectionContaining.hasItems;
@@ -27,7 +28,9 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -170,6 +173,24 @@ public class InvalidationTrackerTest {
         assertThat(mTracker.mObserverMap.size(), is(0));
     }
 
+    @Test
+    public void addRemoveObserver_updatesTableIndex() {
+        InvalidationTracker.Observer observerA = new LatchObserver(1, "a", "b");
+        // "d" is an external content fts table backed by "a", so it shares its table id.
+        InvalidationTracker.Observer observerD = new LatchObserver(1, "a", "d");
+        mTracker.addObserver(observerA);
+        mTracker.addObserver(observerD);
+        assertThat(mTracker.mObserversByTableId[0].size(), is(2));
+        assertThat(mTracker.mObserversByTableId[1].size(), is(1));
+        assertThat(mTracker.mObserversByTableId[2], nullValue());
+
+        mTracker.removeObserver(observerA);
+        assertThat(mTracker.mObserversByTableId[0].size(), is(1));
+        assertThat(mTracker.mObserversByTableId[1].size(), is(0));
+        mTracker.removeObserver(observerD);
+        assertThat(mTracker.mObserversByTableId[0].size(), is(0));
+    }
+
     private void drainTasks() throws InterruptedException {
         mTaskExecutorRule.drainTasks(200);
     }
@@ -198,6 +219,71 @@ public class InvalidationTrackerTest {
         verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
     }
 
+    @Test
+    public void refreshCheckTasks_coalescingWindow() throws Exception {
+        when(mRoomDatabase.query(any(SimpleSQLiteQuery.class))).thenReturn(mock(Cursor.class));
+        mTracker.setRefreshCoalescingWindow(50, TimeUnit.MILLISECONDS);
+        mTracker.refreshVersionsAsync();
+        mTracker.refreshVersionsAsync();
+        // the query executor is not used while the window passes
+        verify(mTaskExecutorRule.getTaskExecutor(), never())
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+        verify(mTaskExecutorRule.getTaskExecutor(), timeout(1000))
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+        drainTasks();
+
+        reset(mTaskExecutorRule.getTaskExecutor());
+        mTracker.setRefreshCoalescingWindow(0, TimeUnit.MILLISECONDS);
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCoalescingWindow() {
+        mTracker.setRefreshCoalescingWindow(-1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void observe1Table_coalescingWindow() throws Exception {
+        LatchObserver observer = new LatchObserver(1, "a");
+        mTracker.addObserver(observer);
+        mTracker.setRefreshCoalescingWindow(10, TimeUnit.MILLISECONDS);
+        setInvalidatedTables(0);
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+    }
+
+    @Test
+    public void observerNotifiedOutsideOfLock() throws Exception {
+        final LatchObserver other = new LatchObserver(1, "b");
+        final AtomicInteger added = new AtomicInteger();
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer("a") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                // Another thread must be able to change the observers while this one is notified.
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mTracker.addObserver(other);
+                        added.incrementAndGet();
+                    }
+                });
+                thread.start();
+                try {
+                    thread.join(3000);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0);
+        refreshSync();
+        assertThat(added.get(), is(1));
+        assertThat(mTracker.mObserverMap.size(), is(2));
+    }
+
     @Test
     public void observe1Table() throws Exception {
         LatchObserver observer = new LatchObserver(1, "a");
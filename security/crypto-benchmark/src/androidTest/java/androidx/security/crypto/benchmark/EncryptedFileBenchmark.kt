@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.security.crypto.benchmark
+
+import android.content.Context
+import androidx.benchmark.BenchmarkRule
+import androidx.benchmark.measureRepeated
+import androidx.security.crypto.EncryptedFile
+import androidx.security.crypto.MasterKeys
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.SeekableByteChannel
+import java.util.Random
+
+/**
+ * Measures the latency of small reads at random positions of a [FILE_SIZE] encrypted file, going
+ * through [EncryptedFile.openFileInput] versus [EncryptedFile.openSeekableChannel].
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class EncryptedFileBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var file: File
+    private lateinit var encryptedFile: EncryptedFile
+
+    private val positions = Random(42).let { random ->
+        IntArray(POSITION_COUNT) { random.nextInt(FILE_SIZE - READ_SIZE) }
+    }
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        file = File(context.filesDir, "encrypted_file_benchmark")
+        file.delete()
+        encryptedFile = EncryptedFile.Builder(
+            file,
+            context,
+            MasterKeys.getOrCreate(MasterKeys.AES256_GCM_SPEC),
+            EncryptedFile.FileEncryptionScheme.AES256_GCM_HKDF_4KB
+        ).build()
+
+        val content = ByteArray(FILE_SIZE)
+        Random(7).nextBytes(content)
+        encryptedFile.openFileOutput().use { it.write(content) }
+    }
+
+    @After
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun randomRead_inputStream() {
+        val buffer = ByteArray(READ_SIZE)
+        var i = 0
+        benchmarkRule.measureRepeated {
+            val position = positions[i++ % POSITION_COUNT]
+            // Streams can only skip by decrypting everything up to the position
+            encryptedFile.openFileInput().use { input ->
+                var skipped = 0L
+                while (skipped < position) {
+                    skipped += input.skip(position - skipped)
+                }
+                var read = 0
+                while (read < READ_SIZE) {
+                    read += input.read(buffer, read, READ_SIZE - read)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun randomRead_seekableChannel() {
+        encryptedFile.openSeekableChannel().use { measureRandomReads(it) }
+    }
+
+    @Test
+    fun randomRead_seekableChannelWithCache() {
+        encryptedFile.openSeekableChannel(CACHED_BLOCKS).use { measureRandomReads(it) }
+    }
+
+    @Test
+    fun sequentialSmallReads_seekableChannel() {
+        encryptedFile.openSeekableChannel().use { measureSequentialReads(it) }
+    }
+
+    @Test
+    fun sequentialSmallReads_seekableChannelWithCache() {
+        encryptedFile.openSeekableChannel(CACHED_BLOCKS).use { measureSequentialReads(it) }
+    }
+
+    private fun measureRandomReads(channel: SeekableByteChannel) {
+        val buffer = ByteBuffer.allocate(READ_SIZE)
+        var i = 0
+        benchmarkRule.measureRepeated {
+            buffer.clear()
+            channel.position(positions[i++ % POSITION_COUNT].toLong())
+            readFully(channel, buffer)
+        }
+    }
+
+    /** Reads through the file [SMALL_READ_SIZE] bytes at a time, starting over at its end. */
+    private fun measureSequentialReads(channel: SeekableByteChannel) {
+        val buffer = ByteBuffer.allocate(SMALL_READ_SIZE)
+        var position = 0L
+        benchmarkRule.measureRepeated {
+            buffer.clear()
+            if (position + SMALL_READ_SIZE > FILE_SIZE) {
+                position = 0
+            }
+            channel.position(position)
+            readFully(channel, buffer)
+            position += SMALL_READ_SIZE
+        }
+    }
+
+    private fun readFully(channel: SeekableByteChannel, buffer: ByteBuffer) {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+    }
+
+    companion object {
+        private const val FILE_SIZE = 1024 * 1024
+        private const val READ_SIZE = 256
+        private const val SMALL_READ_SIZE = 64
+        private const val POSITION_COUNT = 1024
+        private const val CACHED_BLOCKS = 16
+    }
+}
@@ -24,6 +24,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 
 import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.SdkSuppress;
 import androidx.test.filters.SmallTest;
 
 import com.google.crypto.tink.KeysetHandle;
@@ -45,7 +46,12 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
 import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Random;
 
 @SmallTest
 @RunWith(JUnit4.class)
@@ -82,6 +88,9 @@ public class EncryptedFileTest {
         dataFile = new File(mContext.getFilesDir(), "tink_test_file");
         dataFile.delete();
 
+        dataFile = new File(mContext.getFilesDir(), "seekable_file");
+        dataFile.delete();
+
         // Delete MasterKeys
         KeyStore keyStore = KeyStore.getInstance("AndroidKeyStore");
         keyStore.load(null);
@@ -268,4 +277,96 @@ public class EncryptedFileTest {
         inputStream.close();
     }
 
+    @SdkSuppress(minSdkVersion = 24)
+    @Test
+    public void testSeekableChannel() throws Exception {
+        byte[] fileContent = writeSeekableFile();
+        EncryptedFile encryptedFile = buildSeekableFile();
+
+        SeekableByteChannel channel = encryptedFile.openSeekableChannel();
+        assertRandomReads(channel, fileContent);
+        channel.close();
+        Assert.assertFalse("Channel should be closed.", channel.isOpen());
+    }
+
+    @SdkSuppress(minSdkVersion = 24)
+    @Test
+    public void testSeekableChannelWithCache() throws Exception {
+        byte[] fileContent = writeSeekableFile();
+        EncryptedFile encryptedFile = buildSeekableFile();
+
+        SeekableByteChannel channel = encryptedFile.openSeekableChannel(4);
+        assertRandomReads(channel, fileContent);
+        // Reading everything at once spans many more blocks than are cached
+        ByteBuffer all = ByteBuffer.allocate(fileContent.length);
+        channel.position(0);
+        readFully(channel, all);
+        Assert.assertArrayEquals(fileContent, all.array());
+        channel.close();
+    }
+
+    @SdkSuppress(minSdkVersion = 24)
+    @Test
+    public void testSeekableChannelIsReadOnly() throws Exception {
+        writeSeekableFile();
+        EncryptedFile encryptedFile = buildSeekableFile();
+
+        SeekableByteChannel channel = encryptedFile.openSeekableChannel();
+        boolean writeFailed = false;
+        try {
+            channel.write(ByteBuffer.allocate(1));
+        } catch (NonWritableChannelException ex) {
+            writeFailed = true;
+        }
+        Assert.assertTrue("Channel should have failed writing.", writeFailed);
+        channel.close();
+    }
+
+    private EncryptedFile buildSeekableFile() throws Exception {
+        return new EncryptedFile.Builder(new File(mContext.getFilesDir(), "seekable_file"),
+                mContext, mMasterKeyAlias,
+                EncryptedFile.FileEncryptionScheme.AES256_GCM_HKDF_4KB)
+                .build();
+    }
+
+    private byte[] writeSeekableFile() throws Exception {
+        // Several segments, with a partial last one
+        byte[] fileContent = new byte[10 * 4096 + 123];
+        new Random(42).nextBytes(fileContent);
+        OutputStream outputStream = buildSeekableFile().openFileOutput();
+        outputStream.write(fileContent);
+        outputStream.close();
+        return fileContent;
+    }
+
+    private static void assertRandomReads(SeekableByteChannel channel, byte[] fileContent)
+            throws IOException {
+        Assert.assertEquals(fileContent.length, channel.size());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            int position = random.nextInt(fileContent.length);
+            int length = Math.min(1 + random.nextInt(6000), fileContent.length - position);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            channel.position(position);
+            readFully(channel, buffer);
+            Assert.assertArrayEquals("Read at " + position + " should match.",
+                    Arrays.copyOfRange(fileContent, position, position + length),
+                    buffer.array());
+            Assert.assertEquals(position + length, channel.position());
+        }
+
+        channel.position(fileContent.length);
+        Assert.assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+    }
+
+    private static void readFully(SeekableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+    }
+
 }
@@ -21,8 +21,10 @@ import static androidx.security.crypto.MasterKeys.KEYSTORE_PATH_URI;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import android.content.Context;
+import android.os.Build;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 
 import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.StreamingAead;
@@ -40,6 +42,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.security.GeneralSecurityException;
 
 /**
@@ -226,6 +229,62 @@ public final class EncryptedFile {
         return new EncryptedFileInputStream(fileInputStream.getFD(), decryptingStream);
     }
 
+    /**
+     * Opens a read-only channel to a previously encrypted file that supports random access.
+     *
+     * Unlike {@link #openFileInput()}, which has to decrypt everything before the requested data,
+     * positioning the channel is free and a read only decrypts the segments of the file it
+     * overlaps. Same as {@code openSeekableChannel(0)}.
+     *
+     * @return The channel to read previously encrypted data.
+     * @throws GeneralSecurityException when a bad master key or keyset has been used
+     * @throws IOException when the file was not found
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    @NonNull
+    public SeekableByteChannel openSeekableChannel()
+            throws GeneralSecurityException, IOException {
+        return openSeekableChannel(0);
+    }
+
+    /**
+     * Opens a read-only channel to a previously encrypted file that supports random access, and
+     * keeps the most recently read data in memory.
+     *
+     * Every block of the file is decrypted once while it stays cached, which makes repeated small
+     * reads of nearby data cheap. The cached plaintext is dropped when the channel gets closed.
+     *
+     * Please ensure that the same master key and keyset are used to decrypt or it
+     * will cause failures.
+     *
+     * @param cachedBlocks The number of decrypted 4KB blocks to keep in memory, 0 to disable
+     *                     the cache.
+     * @return The channel to read previously encrypted data.
+     * @throws GeneralSecurityException when a bad master key or keyset has been used
+     * @throws IOException when the file was not found
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    @NonNull
+    public SeekableByteChannel openSeekableChannel(int cachedBlocks)
+            throws GeneralSecurityException, IOException {
+        if (cachedBlocks < 0) {
+            throw new IllegalArgumentException("cachedBlocks cannot be negative: "
+                    + cachedBlocks);
+        }
+        if (!mFile.exists()) {
+            throw new IOException("file doesn't exist: " + mFile.getName());
+        }
+        FileChannel fileChannel = new FileInputStream(mFile).getChannel();
+        try {
+            SeekableByteChannel decryptingChannel = mStreamingAead.newSeekableDecryptingChannel(
+                    fileChannel, mFile.getName().getBytes(UTF_8));
+            return new SeekableEncryptedFileChannel(decryptingChannel, cachedBlocks);
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
     /**
      * Encrypted file output stream
      *
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.security.crypto;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only channel over the plaintext of an {@link EncryptedFile}.
+ *
+ * Reads are served by a Tink seekable decrypting channel, which only decrypts and authenticates
+ * the ciphertext segments overlapping the requested range. Optionally the most recently read
+ * plaintext blocks are kept in memory, so that repeated small reads within the same part of the
+ * file do not decrypt the same segments over and over.
+ */
+@RequiresApi(Build.VERSION_CODES.N)
+final class SeekableEncryptedFileChannel implements SeekableByteChannel {
+
+    /**
+     * Size of the cached plaintext blocks, close to the 4KB ciphertext segments so a block miss
+     * decrypts at most two segments.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    private final SeekableByteChannel mDecryptingChannel;
+    private final Map<Long, byte[]> mBlockCache;
+    private long mPosition;
+    private boolean mIsOpen = true;
+
+    /**
+     * @param decryptingChannel The channel to decrypt the file with, closed with this channel.
+     * @param cachedBlocks The number of plaintext blocks to keep in memory, 0 to read everything
+     *                     straight from {@code decryptingChannel}.
+     */
+    SeekableEncryptedFileChannel(@NonNull SeekableByteChannel decryptingChannel,
+            final int cachedBlocks) {
+        mDecryptingChannel = decryptingChannel;
+        if (cachedBlocks > 0) {
+            mBlockCache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                    return size() > cachedBlocks;
+                }
+            };
+        } else {
+            mBlockCache = null;
+        }
+    }
+
+    @Override
+    public synchronized int read(@NonNull ByteBuffer dst) throws IOException {
+        ensureOpen();
+        int read = read(dst, mPosition);
+        if (read > 0) {
+            mPosition += read;
+        }
+        return read;
+    }
+
+    /**
+     * Reads a sequence of bytes into the given buffer, starting at the given file position. The
+     * position of this channel is not changed.
+     *
+     * @return The number of bytes read, possibly zero, or -1 if {@code position} is greater than
+     * or equal to the size of the plaintext.
+     */
+    synchronized int read(@NonNull ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        if (mBlockCache == null) {
+            mDecryptingChannel.position(position);
+            return mDecryptingChannel.read(dst);
+        }
+
+        long size = mDecryptingChannel.size();
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long blockIndex = position / BLOCK_SIZE;
+            byte[] block = getBlock(blockIndex);
+            int offset = (int) (position - blockIndex * BLOCK_SIZE);
+            if (offset >= block.length) {
+                // The file is shorter than its reported size, the decrypting channel failed
+                break;
+            }
+            int count = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, count);
+            position += count;
+            total += count;
+        }
+        return total;
+    }
+
+    private byte[] getBlock(long blockIndex) throws IOException {
+        byte[] block = mBlockCache.get(blockIndex);
+        if (block != null) {
+            return block;
+        }
+
+        long start = blockIndex * BLOCK_SIZE;
+        int length = (int) Math.min(BLOCK_SIZE, mDecryptingChannel.size() - start);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        mDecryptingChannel.position(start);
+        while (buffer.hasRemaining()) {
+            if (mDecryptingChannel.read(buffer) < 0) {
+                break;
+            }
+        }
+        if (buffer.hasRemaining()) {
+            block = new byte[buffer.position()];
+            System.arraycopy(buffer.array(), 0, block, 0, block.length);
+        } else {
+            block = buffer.array();
+        }
+        mBlockCache.put(blockIndex, block);
+        return block;
+    }
+
+    @Override
+    public int write(@NonNull ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return mPosition;
+    }
+
+    @NonNull
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        mPosition = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        return mDecryptingChannel.size();
+    }
+
+    @NonNull
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return mIsOpen;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!mIsOpen) {
+            return;
+        }
+        mIsOpen = false;
+        if (mBlockCache != null) {
+            mBlockCache.clear();
+        }
+        mDecryptingChannel.close();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!mIsOpen) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects how the read connections of the databases created by a
+ * {@link FrameworkSQLiteOpenHelperFactory} are used.
+ * <p>
+ * A query that finds every read connection busy waits for one to be released, which happens when
+ * the cursor of the query that uses it is closed. The ratio of {@link #getWaitCount()} to
+ * {@link #getAcquireCount()} shows how often the pool is saturated and
+ * {@link #getTotalWaitTime(TimeUnit)} how much time queries spend waiting, both of which suggest
+ * that more read connections would help.
+ * <p>
+ * All methods can be called from any thread.
+ */
+public final class ConnectionPoolMetrics {
+    private final AtomicInteger mOpenReaderCount = new AtomicInteger();
+    private final AtomicInteger mActiveReaderCount = new AtomicInteger();
+    private final AtomicLong mAcquireCount = new AtomicLong();
+    private final AtomicLong mWaitCount = new AtomicLong();
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+    private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+    /**
+     * Returns the number of read connections that are open.
+     *
+     * @return The number of open read connections.
+     */
+    public int getOpenReaderCount() {
+        return mOpenReaderCount.get();
+    }
+
+    /**
+     * Returns the number of read connections that are in use by a query, which lasts until the
+     * cursor of the query is closed.
+     *
+     * @return The number of busy read connections.
+     */
+    public int getActiveReaderCount() {
+        return mActiveReaderCount.get();
+    }
+
+    /**
+     * Returns the number of queries that ran on a read connection.
+     *
+     * @return The number of times a read connection was acquired.
+     */
+    public long getAcquireCount() {
+        return mAcquireCount.get();
+    }
+
+    /**
+     * Returns the number of queries that had to wait for a read connection because all of them
+     * were busy.
+     *
+     * @return The number of times the pool was saturated.
+     */
+    public long getWaitCount() {
+        return mWaitCount.get();
+    }
+
+    /**
+     * Returns the total time queries spent waiting for a read connection.
+     *
+     * @param unit The unit of the result.
+     * @return The total wait time.
+     */
+    public long getTotalWaitTime(@NonNull TimeUnit unit) {
+        return unit.convert(mTotalWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time a query spent waiting for a read connection.
+     *
+     * @param unit The unit of the result.
+     * @return The longest wait time.
+     */
+    public long getMaxWaitTime(@NonNull TimeUnit unit) {
+        return unit.convert(mMaxWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Resets the counters and wait times. The number of open and busy connections is kept.
+     */
+    public void reset() {
+        mAcquireCount.set(0);
+        mWaitCount.set(0);
+        mTotalWaitNanos.set(0);
+        mMaxWaitNanos.set(0);
+    }
+
+    void onReaderOpened() {
+        mOpenReaderCount.incrementAndGet();
+    }
+
+    void onReaderClosed() {
+        mOpenReaderCount.decrementAndGet();
+    }
+
+    void onAcquired(long waitNanos) {
+        mActiveReaderCount.incrementAndGet();
+        mAcquireCount.incrementAndGet();
+        if (waitNanos > 0) {
+            mWaitCount.incrementAndGet();
+            mTotalWaitNanos.addAndGet(waitNanos);
+            long max = mMaxWaitNanos.get();
+            while (waitNanos > max && !mMaxWaitNanos.compareAndSet(max, waitNanos)) {
+                max = mMaxWaitNanos.get();
+            }
+        }
+    }
+
+    void onReleased() {
+        mActiveReaderCount.decrementAndGet();
+    }
+}
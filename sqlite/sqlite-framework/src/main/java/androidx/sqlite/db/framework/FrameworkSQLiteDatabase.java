@@ -20,6 +20,7 @@ import static android.text.TextUtils.isEmpty;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteCursor;
 import android.database.sqlite.SQLiteCursorDriver;
@@ -30,14 +31,22 @@ import android.os.Build;
 import android.os.CancellationSignal;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Delegates all calls to an implementation of {@link SQLiteDatabase}.
@@ -48,7 +57,38 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
             {"", " OR ROLLBACK ", " OR ABORT ", " OR FAIL ", " OR IGNORE ", " OR REPLACE "};
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
 
+    // Names that refer to the state of the connection running the query, which readers do not
+    // share with the writer.
+    private static final Set<String> CONNECTION_STATE_NAMES = new HashSet<>(Arrays.asList(
+            "temp", "sqlite_temp_master", "sqlite_temp_schema", "last_insert_rowid", "changes",
+            "total_changes"));
+    private static final Pattern IDENTIFIER_SEPARATOR = Pattern.compile("[^\\w$]+");
+    private static final Pattern CREATE_TEMP_PATTERN = Pattern.compile(
+            "^\\s*CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?(?:VIRTUAL\\s+)?(?:TABLE|VIEW)\\s+"
+                    + "(?:IF\\s+NOT\\s+EXISTS\\s+)?([`\"\\[]?temp[`\"\\]]?\\s*\\.\\s*)?"
+                    + "[`\"\\[]?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTACH_PATTERN = Pattern.compile(
+            "^\\s*ATTACH\\s.*\\sAS\\s+(?:[`\"\\[]?(\\w+)[`\"\\]]?|\\S+)\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DROP_PATTERN = Pattern.compile(
+            "^\\s*DROP\\s+(?:TABLE|VIEW)\\s+(?:IF\\s+EXISTS\\s+)?"
+                    + "(?:[`\"\\[]?(\\w+)[`\"\\]]?\\s*\\.\\s*)?[`\"\\[]?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern DETACH_PATTERN = Pattern.compile(
+            "^\\s*DETACH\\s+(?:DATABASE\\s+)?[`\"\\[]?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+
     private final SQLiteDatabase mDelegate;
+    @Nullable
+    private final ReaderConnectionPool mReaderPool;
+
+    // Lower case names of the temporary tables and views and of the attached databases of the
+    // writer, which are only visible to the writer.
+    private final Set<String> mConnectionLocalNames =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // set when a database is attached under a name that is only known at runtime
+    private volatile boolean mHasUnknownConnectionLocalNames;
 
     /**
      * Creates a wrapper around {@link SQLiteDatabase}.
@@ -56,11 +96,24 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
      * @param delegate The delegate to receive all calls.
      */
     FrameworkSQLiteDatabase(SQLiteDatabase delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Creates a wrapper around {@link SQLiteDatabase} that runs queries outside of transactions on
+     * the readers of the given pool when the database is in WAL mode.
+     *
+     * @param delegate   The delegate to receive all calls.
+     * @param readerPool The pool of read connections, if any.
+     */
+    FrameworkSQLiteDatabase(SQLiteDatabase delegate, @Nullable ReaderConnectionPool readerPool) {
         mDelegate = delegate;
+        mReaderPool = readerPool;
     }
 
     @Override
     public SupportSQLiteStatement compileStatement(String sql) {
+        onStatement(sql, false);
         return new FrameworkSQLiteStatement(mDelegate.compileStatement(sql));
     }
 
@@ -158,28 +211,139 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
 
     @Override
     public Cursor query(final SupportSQLiteQuery supportQuery) {
-        return mDelegate.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
-            @Override
-            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
-                    String editTable, SQLiteQuery query) {
-                supportQuery.bindTo(new FrameworkSQLiteProgram(query));
-                return new SQLiteCursor(masterQuery, editTable, query);
-            }
-        }, supportQuery.getSql(), EMPTY_STRING_ARRAY, null);
+        if (canQueryOnReader(supportQuery)) {
+            return queryOnReader(supportQuery, null);
+        }
+        return mDelegate.rawQueryWithFactory(createCursorFactory(supportQuery),
+                supportQuery.getSql(), EMPTY_STRING_ARRAY, null);
     }
 
     @Override
     @androidx.annotation.RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
     public Cursor query(final SupportSQLiteQuery supportQuery,
             CancellationSignal cancellationSignal) {
-        return mDelegate.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+        if (canQueryOnReader(supportQuery)) {
+            return queryOnReader(supportQuery, cancellationSignal);
+        }
+        return mDelegate.rawQueryWithFactory(createCursorFactory(supportQuery),
+                supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
+    }
+
+    /**
+     * Returns true if the query can run on a read connection. Queries in a transaction must see
+     * its changes, and queries that refer to temporary tables, attached databases or the last
+     * insert of the writer must run on the writer, so only the other SELECT statements outside of
+     * transactions qualify.
+     */
+    private boolean canQueryOnReader(SupportSQLiteQuery supportQuery) {
+        if (mReaderPool == null
+                || !mReaderPool.isEnabled()
+                || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN
+                || !mDelegate.isWriteAheadLoggingEnabled()
+                || mDelegate.inTransaction()) {
+            return false;
+        }
+        final String sql = supportQuery.getSql();
+        return DatabaseUtils.getSqlStatementType(sql) == DatabaseUtils.STATEMENT_SELECT
+                && !referencesConnectionState(sql);
+    }
+
+    private boolean referencesConnectionState(String sql) {
+        if (mHasUnknownConnectionLocalNames) {
+            return true;
+        }
+        for (String identifier : IDENTIFIER_SEPARATOR.split(sql)) {
+            final String name = identifier.toLowerCase(Locale.US);
+            if (CONNECTION_STATE_NAMES.contains(name) || mConnectionLocalNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the temporary tables and views and the attached databases that a statement run
+     * on the writer creates, so that the queries using them are not run on a reader, and forgets
+     * them again when they are dropped or detached.
+     *
+     * @param sql      The statement.
+     * @param executed True if the statement runs now, false if it is only compiled. Compiled
+     *                 statements may never run, so they only add names, which at worst keeps a
+     *                 query on the writer.
+     */
+    private void onStatement(String sql, boolean executed) {
+        if (mReaderPool == null) {
+            return;
+        }
+        if (executed) {
+            final Matcher drop = DROP_PATTERN.matcher(sql);
+            if (drop.find()) {
+                // an unqualified name refers to the temporary table first
+                final String schema = drop.group(1);
+                if (schema == null || "temp".equalsIgnoreCase(schema)) {
+                    mConnectionLocalNames.remove(drop.group(2).toLowerCase(Locale.US));
+                }
+                return;
+            }
+            final Matcher detach = DETACH_PATTERN.matcher(sql);
+            if (detach.find()) {
+                mConnectionLocalNames.remove(detach.group(1).toLowerCase(Locale.US));
+                return;
+            }
+        }
+        final Matcher createTemp = CREATE_TEMP_PATTERN.matcher(sql);
+        if (createTemp.find()) {
+            if (createTemp.group(1) != null || createTemp.group(2) != null) {
+                mConnectionLocalNames.add(createTemp.group(3).toLowerCase(Locale.US));
+            }
+            return;
+        }
+        final Matcher attach = ATTACH_PATTERN.matcher(sql);
+        if (attach.find()) {
+            final String name = attach.group(1);
+            if (name == null) {
+                mHasUnknownConnectionLocalNames = true;
+            } else {
+                mConnectionLocalNames.add(name.toLowerCase(Locale.US));
+            }
+        }
+    }
+
+    @androidx.annotation.RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    private Cursor queryOnReader(final SupportSQLiteQuery supportQuery,
+            @Nullable CancellationSignal cancellationSignal) {
+        final SQLiteDatabase reader = mReaderPool.acquire(mDelegate);
+        if (reader == null) {
+            return mDelegate.rawQueryWithFactory(createCursorFactory(supportQuery),
+                    supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
+        }
+        try {
+            // the cursor fills its windows on the reader as it is read, so it keeps the reader
+            // until it is closed.
+            return reader.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+                @Override
+                public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
+                        String editTable, SQLiteQuery query) {
+                    supportQuery.bindTo(new FrameworkSQLiteProgram(query));
+                    return new ReaderCursor(masterQuery, editTable, query, reader);
+                }
+            }, supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
+        } catch (RuntimeException e) {
+            mReaderPool.release(reader);
+            throw e;
+        }
+    }
+
+    private static SQLiteDatabase.CursorFactory createCursorFactory(
+            final SupportSQLiteQuery supportQuery) {
+        return new SQLiteDatabase.CursorFactory() {
             @Override
             public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
                     String editTable, SQLiteQuery query) {
                 supportQuery.bindTo(new FrameworkSQLiteProgram(query));
                 return new SQLiteCursor(masterQuery, editTable, query);
             }
-        }, supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
+        };
     }
 
     @Override
@@ -239,11 +403,13 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
 
     @Override
     public void execSQL(String sql) throws SQLException {
+        onStatement(sql, true);
         mDelegate.execSQL(sql);
     }
 
     @Override
     public void execSQL(String sql, Object[] bindArgs) throws SQLException {
+        onStatement(sql, true);
         mDelegate.execSQL(sql, bindArgs);
     }
 
@@ -270,6 +436,9 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
     @Override
     public void setLocale(Locale locale) {
         mDelegate.setLocale(locale);
+        if (mReaderPool != null) {
+            mReaderPool.setLocale(locale);
+        }
     }
 
     @Override
@@ -313,6 +482,9 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
     @Override
     public void close() throws IOException {
         mDelegate.close();
+        if (mReaderPool != null) {
+            mReaderPool.closeAll();
+        }
     }
 
     /**
@@ -321,4 +493,35 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
     boolean isDelegate(SQLiteDatabase sqLiteDatabase) {
         return mDelegate == sqLiteDatabase;
     }
+
+    /**
+     * A cursor of a query on a reader, which releases the reader when it is closed.
+     */
+    private final class ReaderCursor extends SQLiteCursor {
+        // guarded by this, null once the reader is released
+        @Nullable
+        private SQLiteDatabase mReader;
+
+        ReaderCursor(SQLiteCursorDriver driver, String editTable, SQLiteQuery query,
+                SQLiteDatabase reader) {
+            super(driver, editTable, query);
+            mReader = reader;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                final SQLiteDatabase reader;
+                synchronized (this) {
+                    reader = mReader;
+                    mReader = null;
+                }
+                if (reader != null) {
+                    mReaderPool.release(reader);
+                }
+            }
+        }
+    }
 }
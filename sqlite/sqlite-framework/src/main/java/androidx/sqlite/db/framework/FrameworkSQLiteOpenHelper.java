@@ -22,6 +22,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
 
+import androidx.annotation.Nullable;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
@@ -29,12 +30,23 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     private final OpenHelper mDelegate;
 
     FrameworkSQLiteOpenHelper(Context context, String name, Callback callback) {
-        mDelegate = createDelegate(context, name, callback);
+        this(context, name, callback, 0, null);
     }
 
-    private OpenHelper createDelegate(Context context, String name, Callback callback) {
+    FrameworkSQLiteOpenHelper(Context context, String name, Callback callback,
+            int readerCount, @Nullable ConnectionPoolMetrics metrics) {
+        mDelegate = createDelegate(context, name, callback, readerCount, metrics);
+    }
+
+    private OpenHelper createDelegate(Context context, String name, Callback callback,
+            int readerCount, @Nullable ConnectionPoolMetrics metrics) {
         final FrameworkSQLiteDatabase[] dbRef = new FrameworkSQLiteDatabase[1];
-        return new OpenHelper(context, name, dbRef, callback);
+        // in memory databases cannot be shared between connections.
+        final ReaderConnectionPool readerPool = name != null && readerCount > 0
+                ? new ReaderConnectionPool(readerCount,
+                        metrics != null ? metrics : new ConnectionPoolMetrics())
+                : null;
+        return new OpenHelper(context, name, dbRef, readerPool, callback);
     }
 
     @Override
@@ -46,6 +58,9 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     @androidx.annotation.RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
     public void setWriteAheadLoggingEnabled(boolean enabled) {
         mDelegate.setWriteAheadLoggingEnabled(enabled);
+        if (mDelegate.mReaderPool != null) {
+            mDelegate.mReaderPool.setEnabled(enabled);
+        }
     }
 
     @Override
@@ -70,21 +85,24 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
          * constructor.
          */
         final FrameworkSQLiteDatabase[] mDbRef;
+        @Nullable
+        final ReaderConnectionPool mReaderPool;
         final Callback mCallback;
         // see b/78359448
         private boolean mMigrated;
 
         OpenHelper(Context context, String name, final FrameworkSQLiteDatabase[] dbRef,
-                final Callback callback) {
+                @Nullable final ReaderConnectionPool readerPool, final Callback callback) {
             super(context, name, null, callback.version,
                     new DatabaseErrorHandler() {
                         @Override
                         public void onCorruption(SQLiteDatabase dbObj) {
-                            callback.onCorruption(getWrappedDb(dbRef, dbObj));
+                            callback.onCorruption(getWrappedDb(dbRef, readerPool, dbObj));
                         }
                     });
             mCallback = callback;
             mDbRef = dbRef;
+            mReaderPool = readerPool;
         }
 
         synchronized SupportSQLiteDatabase getWritableSupportDatabase() {
@@ -110,7 +128,7 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
         }
 
         FrameworkSQLiteDatabase getWrappedDb(SQLiteDatabase sqLiteDatabase) {
-            return getWrappedDb(mDbRef, sqLiteDatabase);
+            return getWrappedDb(mDbRef, mReaderPool, sqLiteDatabase);
         }
 
         @Override
@@ -147,13 +165,16 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
         public synchronized void close() {
             super.close();
             mDbRef[0] = null;
+            if (mReaderPool != null) {
+                mReaderPool.closeAll();
+            }
         }
 
         static FrameworkSQLiteDatabase getWrappedDb(FrameworkSQLiteDatabase[] refHolder,
-                SQLiteDatabase sqLiteDatabase) {
+                @Nullable ReaderConnectionPool readerPool, SQLiteDatabase sqLiteDatabase) {
             FrameworkSQLiteDatabase dbRef = refHolder[0];
             if (dbRef == null || !dbRef.isDelegate(sqLiteDatabase)) {
-                refHolder[0] = new FrameworkSQLiteDatabase(sqLiteDatabase);
+                refHolder[0] = new FrameworkSQLiteDatabase(sqLiteDatabase, readerPool);
             }
             return refHolder[0];
         }
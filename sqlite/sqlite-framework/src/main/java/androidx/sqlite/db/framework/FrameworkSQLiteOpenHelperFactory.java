@@ -16,6 +16,8 @@
 
 package androidx.sqlite.db.framework;
 
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
 /**
@@ -24,9 +26,67 @@ import androidx.sqlite.db.SupportSQLiteOpenHelper;
  */
 @SuppressWarnings("unused")
 public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final int mReaderConnectionCount;
+    @Nullable
+    private final ConnectionPoolMetrics mMetrics;
+
+    /**
+     * Creates a factory whose databases run all statements on a single connection.
+     */
+    public FrameworkSQLiteOpenHelperFactory() {
+        this(0, null);
+    }
+
+    /**
+     * Creates a factory whose databases open up to the given number of read-only connections next
+     * to the connection they write with.
+     * <p>
+     * While write-ahead logging is enabled through
+     * {@link SupportSQLiteOpenHelper#setWriteAheadLoggingEnabled(boolean)}, which Room does for
+     * {@code JournalMode.WRITE_AHEAD_LOGGING}, SELECT queries that do not run in a transaction
+     * are executed on an idle read connection, so they neither wait for each other nor for a
+     * transaction on another thread. Queries in a transaction and all other statements still use
+     * the write connection, which keeps them consistent with the transaction. Read connections
+     * are only used on API 16 and above, and never for in-memory databases.
+     * <p>
+     * A read connection stays in use until the cursor of its query is closed, so cursors that are
+     * kept open make other queries wait for a read connection.
+     * <p>
+     * A read connection does not share the state of the write connection, so the following
+     * queries also stay on the write connection:
+     * <ul>
+     * <li>queries that call {@code last_insert_rowid()}, {@code changes()} or
+     * {@code total_changes()};</li>
+     * <li>queries that refer to the {@code temp} schema, or to a temporary table or view, or to
+     * an attached database, that was created or attached with
+     * {@link SupportSQLiteDatabase#execSQL(String)} or
+     * {@link SupportSQLiteDatabase#compileStatement(String)} and not yet dropped or detached with
+     * {@link SupportSQLiteDatabase#execSQL(String)}. Once a database is attached under a name
+     * given as a bind argument, all queries stay on the write connection.</li>
+     * </ul>
+     * Connection state that is created in other ways, for instance with a {@code PRAGMA}, an
+     * application-defined function or through the framework {@code SQLiteDatabase}, is not
+     * visible to queries that run on a read connection. Enabling write-ahead logging with
+     * {@link SupportSQLiteDatabase#enableWriteAheadLogging()} does not use read connections.
+     *
+     * @param readerConnectionCount The maximum number of read connections of each database, or 0
+     *                              to not use any.
+     * @param metrics               Receives the usage of the read connections, can be null.
+     */
+    public FrameworkSQLiteOpenHelperFactory(int readerConnectionCount,
+            @Nullable ConnectionPoolMetrics metrics) {
+        if (readerConnectionCount < 0) {
+            throw new IllegalArgumentException(
+                    "readerConnectionCount cannot be negative: " + readerConnectionCount);
+        }
+        mReaderConnectionCount = readerConnectionCount;
+        mMetrics = metrics;
+    }
+
     @Override
     public SupportSQLiteOpenHelper create(SupportSQLiteOpenHelper.Configuration configuration) {
         return new FrameworkSQLiteOpenHelper(
-                configuration.context, configuration.name, configuration.callback);
+                configuration.context, configuration.name, configuration.callback,
+                mReaderConnectionCount, mMetrics);
     }
 }
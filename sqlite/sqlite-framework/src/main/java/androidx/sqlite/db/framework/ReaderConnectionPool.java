@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A pool of read-only connections to the file of a database in WAL mode.
+ * <p>
+ * Each reader is a separate {@link SQLiteDatabase} opened with a single connection. Readers are
+ * opened when they are first needed, up to the maximum count, after which queries wait for one to
+ * be released. A reader stays in use until the cursor of its query is closed. Since a WAL database
+ * allows readers next to a writer, queries on the readers neither wait for each other nor for the
+ * transactions of the writer.
+ */
+final class ReaderConnectionPool {
+    private static final String TAG = "SupportSQLite";
+
+    private final int mMaxReaderCount;
+    private final ConnectionPoolMetrics mMetrics;
+
+    // all guarded by this
+    private final List<SQLiteDatabase> mReaders = new ArrayList<>();
+    private final ArrayDeque<SQLiteDatabase> mIdleReaders = new ArrayDeque<>();
+    // readers that were in use when the pool was closed, which are closed once they are released
+    private final List<SQLiteDatabase> mClosingReaders = new ArrayList<>();
+    @Nullable
+    private Locale mLocale;
+    private volatile boolean mEnabled;
+
+    ReaderConnectionPool(int maxReaderCount, ConnectionPoolMetrics metrics) {
+        mMaxReaderCount = maxReaderCount;
+        mMetrics = metrics;
+    }
+
+    /**
+     * Sets whether queries may run on the readers. This follows the write-ahead logging flag of
+     * the open helper rather than the journal mode of the writer, so a database that is switched
+     * to WAL through {@link SQLiteDatabase#enableWriteAheadLogging()} keeps using the writer.
+     *
+     * @param enabled True to use the readers, false to close them and use the writer.
+     */
+    void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        if (!enabled) {
+            closeAll();
+        }
+    }
+
+    /**
+     * Returns whether queries may run on the readers.
+     *
+     * @see #setEnabled(boolean)
+     */
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Returns an idle reader of the given database, waiting for one to be released if all of them
+     * are busy. The reader must be passed to {@link #release(SQLiteDatabase)} afterwards.
+     *
+     * @param writer The database to read.
+     * @return A reader or null if none could be opened, in which case the writer should be used.
+     */
+    @Nullable
+    SQLiteDatabase acquire(SQLiteDatabase writer) {
+        long waitStart = 0;
+        final SQLiteDatabase reader;
+        synchronized (this) {
+            while (mIdleReaders.isEmpty() && mReaders.size() >= mMaxReaderCount) {
+                if (waitStart == 0) {
+                    waitStart = System.nanoTime();
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (!mIdleReaders.isEmpty()) {
+                reader = mIdleReaders.pop();
+            } else {
+                reader = open(writer);
+                if (reader == null) {
+                    return null;
+                }
+                mReaders.add(reader);
+            }
+        }
+        mMetrics.onAcquired(waitStart == 0 ? 0 : System.nanoTime() - waitStart);
+        return reader;
+    }
+
+    /**
+     * Makes a reader returned by {@link #acquire(SQLiteDatabase)} available again.
+     *
+     * @param reader The reader to release.
+     */
+    void release(SQLiteDatabase reader) {
+        mMetrics.onReleased();
+        final boolean close;
+        synchronized (this) {
+            close = mClosingReaders.remove(reader);
+            if (!close && mReaders.contains(reader)) {
+                mIdleReaders.push(reader);
+            }
+            notify();
+        }
+        if (close) {
+            reader.close();
+            mMetrics.onReaderClosed();
+        }
+    }
+
+    /**
+     * Sets the locale of the readers, which closes the open ones so that they are opened again
+     * with the new locale.
+     *
+     * @param locale The locale of the writer.
+     */
+    void setLocale(Locale locale) {
+        synchronized (this) {
+            mLocale = locale;
+        }
+        closeAll();
+    }
+
+    /**
+     * Closes all readers. Readers that are in use are closed once they are released, so that the
+     * cursors reading them can still be moved past their first window.
+     */
+    void closeAll() {
+        final List<SQLiteDatabase> readers;
+        synchronized (this) {
+            readers = new ArrayList<>(mIdleReaders);
+            mReaders.removeAll(readers);
+            mClosingReaders.addAll(mReaders);
+            mReaders.clear();
+            mIdleReaders.clear();
+            notifyAll();
+        }
+        for (SQLiteDatabase reader : readers) {
+            reader.close();
+            mMetrics.onReaderClosed();
+        }
+    }
+
+    @Nullable
+    private SQLiteDatabase open(SQLiteDatabase writer) {
+        if (!writer.isOpen()) {
+            return null;
+        }
+        try {
+            final SQLiteDatabase reader = SQLiteDatabase.openDatabase(writer.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY);
+            if (mLocale != null) {
+                reader.setLocale(mLocale);
+            }
+            mMetrics.onReaderOpened();
+            return reader;
+        } catch (SQLiteException e) {
+            Log.w(TAG, "Cannot open a read connection to " + writer.getPath(), e);
+            return null;
+        }
+    }
+}
@@ -17,9 +17,11 @@ package androidx.versionedparcelable.compiler;
 
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -71,6 +73,7 @@ public class VersionedParcelProcessor extends AbstractProcessor {
     private static final ClassName RESTRICT_TO_SCOPE = RESTRICT_TO.nestedClass("Scope");
     private static final ClassName VERSIONED_PARCEL =
             ClassName.get("androidx.versionedparcelable", "VersionedParcel");
+    private static final ClassName PARCELIZER = VERSIONED_PARCEL.nestedClass("Parcelizer");
 
     private static final String GEN_SUFFIX = "Parcelizer";
     private static final String READ = "read";
@@ -301,37 +304,41 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         readBuilder.addStatement("return obj");
         genClass.addMethod(readBuilder.build());
         genClass.addMethod(writeBuilder.build());
+        String pkg = getPkg(versionedParcelable);
+        String genCls = pkg + "." + versionedParcelable.getSimpleName() + GEN_SUFFIX;
+        genClass.addStaticBlock(createRegistration(type, genCls, genCls));
         try {
             TypeSpec typeSpec = genClass.build();
-            String pkg = getPkg(versionedParcelable);
             JavaFile.builder(pkg,
                     typeSpec).build().writeTo(mEnv.getFiler());
             if (jetifyAs != null && jetifyAs.length() > 0) {
                 int index = jetifyAs.lastIndexOf('.');
                 String jetPkg = jetifyAs.substring(1, index);
-                String superCls = pkg + "." + versionedParcelable.getSimpleName() + GEN_SUFFIX;
+                String jetSimpleName = jetifyAs.substring(index + 1, jetifyAs.length() - 1)
+                        + GEN_SUFFIX;
                 TypeSpec.Builder jetifyClass = TypeSpec
-                        .classBuilder(jetifyAs.substring(index + 1, jetifyAs.length() - 1)
-                                + GEN_SUFFIX)
+                        .classBuilder(jetSimpleName)
                         .addJavadoc("@hide\n")
                         .addAnnotation(restrictTo)
                         .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
                         // The empty package here is a hack to avoid an import,
                         // since the classes have the same name.
-                        .superclass(ClassName.get("", superCls));
+                        .superclass(ClassName.get("", genCls))
+                        .addStaticBlock(createRegistration(type, jetPkg + "." + jetSimpleName,
+                                genCls));
                 jetifyClass.addMethod(MethodSpec
                         .methodBuilder(READ)
                         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                         .returns(type)
                         .addParameter(VERSIONED_PARCEL, "parcel")
-                        .addStatement("return $L.read(parcel)", superCls)
+                        .addStatement("return $L.read(parcel)", genCls)
                         .build());
                 jetifyClass.addMethod(MethodSpec
                         .methodBuilder(WRITE)
                         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                         .addParameter(type, "obj")
                         .addParameter(VERSIONED_PARCEL, "parcel")
-                        .addStatement("$L.write(obj, parcel)", superCls)
+                        .addStatement("$L.write(obj, parcel)", genCls)
                         .build());
                 TypeSpec jetified = jetifyClass.build();
                 JavaFile.builder(jetPkg, jetified).build().writeTo(mEnv.getFiler());
@@ -341,6 +348,40 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Creates the static initializer registering a Parcelizer with VersionedParcel, so that it is
+     * called directly instead of through reflection.
+     *
+     * @param type The VersionedParcelable type.
+     * @param parcelizerName The name of the class being generated, as written to parcels.
+     * @param target The generated class holding the read and write methods.
+     */
+    private CodeBlock createRegistration(TypeName type, String parcelizerName, String target) {
+        TypeSpec parcelizer = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(PARCELIZER, type))
+                .addMethod(MethodSpec
+                        .methodBuilder(READ)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(type)
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("return $L.read(parcel)", target)
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder(WRITE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(type, "obj")
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("$L.write(obj, parcel)", target)
+                        .build())
+                .build();
+        return CodeBlock.builder()
+                .addStatement("$T.registerParcelizer($T.class, $S, $L)", VERSIONED_PARCEL, type,
+                        parcelizerName, parcelizer)
+                .build();
+    }
+
     private String strip(String s) {
         if (!s.startsWith("\"")) return s;
         return s.substring(1, s.length() - 1);
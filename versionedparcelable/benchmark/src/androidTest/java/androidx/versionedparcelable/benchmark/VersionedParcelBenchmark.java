@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.versionedparcelable.ParcelField;
+import androidx.versionedparcelable.ParcelUtils;
+import androidx.versionedparcelable.VersionedParcelable;
+import androidx.versionedparcelable.VersionedParcelize;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures parcelling a tree of nested VersionedParcelables, {@link #DEPTH} levels deep with
+ * {@link #CHILD_COUNT} children per node.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class VersionedParcelBenchmark {
+
+    private static final int DEPTH = 4;
+    private static final int CHILD_COUNT = 3;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Node mTree = createTree(DEPTH);
+
+    @Test
+    public void parcelRoundTrip() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        Node copy = null;
+        while (state.keepRunning()) {
+            Parcel p = Parcel.obtain();
+            p.writeParcelable(ParcelUtils.toParcelable(mTree), 0);
+            p.setDataPosition(0);
+            Parcelable parcelable = p.readParcelable(getClass().getClassLoader());
+            copy = ParcelUtils.fromParcelable(parcelable);
+            p.recycle();
+        }
+        assertEquals(mTree.count(), copy.count());
+    }
+
+    @Test
+    public void parcelWrite() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel p = Parcel.obtain();
+            p.writeParcelable(ParcelUtils.toParcelable(mTree), 0);
+            p.recycle();
+        }
+    }
+
+    @Test
+    public void streamRoundTrip() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Node copy = null;
+        while (state.keepRunning()) {
+            outputStream.reset();
+            ParcelUtils.toOutputStream(mTree, outputStream);
+            copy = ParcelUtils.fromInputStream(
+                    new ByteArrayInputStream(outputStream.toByteArray()));
+        }
+        assertEquals(mTree.count(), copy.count());
+    }
+
+    private static Node createTree(int depth) {
+        Node node = new Node();
+        node.mId = depth;
+        node.mName = "node" + depth;
+        if (depth > 1) {
+            node.mChildren = new ArrayList<>();
+            for (int i = 0; i < CHILD_COUNT; i++) {
+                node.mChildren.add(createTree(depth - 1));
+            }
+        }
+        return node;
+    }
+
+    @VersionedParcelize
+    public static class Node implements VersionedParcelable {
+        @ParcelField(1)
+        public int mId;
+
+        @ParcelField(2)
+        public String mName;
+
+        @ParcelField(3)
+        public List<Node> mChildren;
+
+        int count() {
+            int count = 1;
+            if (mChildren != null) {
+                for (Node child : mChildren) {
+                    count += child.count();
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.versionedparcelable.ParcelUtils.fromByteBuffer;
+import static androidx.versionedparcelable.ParcelUtils.fromInputStream;
+import static androidx.versionedparcelable.ParcelUtils.toByteBuffer;
+import static androidx.versionedparcelable.ParcelUtils.toOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.os.Bundle;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+@SmallTest
+public class VersionedParcelBufferTest {
+
+    @Parameterized.Parameters
+    public static Iterable<? extends Object[]> data() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private boolean mDirect;
+
+    public VersionedParcelBufferTest(boolean direct) {
+        mDirect = direct;
+    }
+
+    private <T extends VersionedParcelable> T parcelCopy(T obj) {
+        VersionedParcelBuffer parcel = new VersionedParcelBuffer(16, mDirect);
+        parcel.write(obj);
+        return fromByteBuffer(parcel.getBuffer());
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] toStreamBytes(VersionedParcelable obj) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        toOutputStream(obj, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static Node createTree(int depth, int payloadSize) {
+        Node node = new Node();
+        node.mName = "node" + depth;
+        node.mPayload = new byte[payloadSize];
+        Arrays.fill(node.mPayload, (byte) depth);
+        if (depth > 1) {
+            node.mChildren = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                node.mChildren.add(createTree(depth - 1, payloadSize));
+            }
+        }
+        return node;
+    }
+
+    private static void assertTreeEquals(Node expected, Node actual) {
+        assertEquals(expected.mName, actual.mName);
+        assertArrayEquals(expected.mPayload, actual.mPayload);
+        if (expected.mChildren == null) {
+            assertNull(actual.mChildren);
+            return;
+        }
+        assertEquals(expected.mChildren.size(), actual.mChildren.size());
+        for (int i = 0; i < expected.mChildren.size(); i++) {
+            assertTreeEquals(expected.mChildren.get(i), actual.mChildren.get(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Node tree = createTree(3, 10);
+        tree.mBundle = new Bundle();
+        tree.mBundle.putString("string", "value");
+        tree.mBundle.putIntArray("ints", new int[] {1, 2, 3});
+        Node other = parcelCopy(tree);
+        assertTreeEquals(tree, other);
+        assertEquals("value", other.mBundle.getString("string"));
+        assertArrayEquals(new int[] {1, 2, 3}, other.mBundle.getIntArray("ints"));
+    }
+
+    @Test
+    public void testLargeFields() {
+        Node tree = createTree(3, 0x10000);
+        assertTreeEquals(tree, parcelCopy(tree));
+    }
+
+    @Test
+    public void testSameFormatAsStream() {
+        Node small = createTree(3, 10);
+        Node large = createTree(3, 0x10000);
+
+        VersionedParcelBuffer parcel = new VersionedParcelBuffer(16, mDirect);
+        parcel.write(small);
+        assertArrayEquals(toStreamBytes(small), toBytes(parcel.getBuffer()));
+        parcel.reset();
+        parcel.write(large);
+        assertArrayEquals(toStreamBytes(large), toBytes(parcel.getBuffer()));
+
+        Node fromStream = fromInputStream(
+                new ByteArrayInputStream(toBytes(toByteBuffer(large))));
+        assertTreeEquals(large, fromStream);
+    }
+
+    @Test
+    public void testMultipleObjects() {
+        Node first = createTree(2, 10);
+        Node second = createTree(3, 20);
+        VersionedParcelBuffer parcel = new VersionedParcelBuffer(16, mDirect);
+        parcel.write(first);
+        parcel.write(second);
+
+        VersionedParcelBuffer input = new VersionedParcelBuffer(parcel.getBuffer());
+        assertTreeEquals(first, input.<Node>read());
+        assertTreeEquals(second, input.<Node>read());
+    }
+
+    @Test
+    public void testReadDoesNotCopyOrMoveInput() {
+        Node tree = createTree(2, 10);
+        ByteBuffer buffer = toByteBuffer(tree);
+        ByteBuffer input = ByteBuffer.allocate(buffer.remaining() + 4);
+        input.putInt(42);
+        input.put(buffer);
+        input.position(4);
+
+        assertTreeEquals(tree, ParcelUtils.<Node>fromByteBuffer(input));
+        assertEquals(4, input.position());
+    }
+
+    @Test
+    public void testObtainAndRecycle() {
+        VersionedParcelBuffer parcel = VersionedParcelBuffer.obtain();
+        Node tree = createTree(3, 10);
+        parcel.write(tree);
+        assertTreeEquals(tree, ParcelUtils.<Node>fromByteBuffer(parcel.getBuffer()));
+        parcel.recycle();
+
+        parcel = VersionedParcelBuffer.obtain();
+        assertEquals(0, parcel.getBuffer().remaining());
+        parcel.write(tree);
+        assertTreeEquals(tree, ParcelUtils.<Node>fromByteBuffer(parcel.getBuffer()));
+        parcel.recycle();
+    }
+
+    @VersionedParcelize(allowSerialization = true,
+            ignoreParcelables = true)
+    public static class Node implements VersionedParcelable {
+        @ParcelField(1)
+        public String mName;
+
+        @ParcelField(2)
+        public byte[] mPayload;
+
+        @ParcelField(3)
+        public List<Node> mChildren;
+
+        @ParcelField(4)
+        public Bundle mBundle;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.versionedparcelable.ParcelUtils.fromInputStream;
+import static androidx.versionedparcelable.ParcelUtils.fromParcelable;
+import static androidx.versionedparcelable.ParcelUtils.toOutputStream;
+import static androidx.versionedparcelable.ParcelUtils.toParcelable;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Parcel;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+@RunWith(Parameterized.class)
+@SmallTest
+public class VersionedParcelRegistryTest {
+    // There is no class with this name, so it can only be read through the registry.
+    private static final String PARCELIZER_NAME =
+            "androidx.versionedparcelable.RegisteredParcelImplParcelizer";
+
+    private static int sReadCount;
+    private static int sWriteCount;
+
+    static {
+        VersionedParcel.registerParcelizer(RegisteredParcelImpl.class, PARCELIZER_NAME,
+                new VersionedParcel.Parcelizer<RegisteredParcelImpl>() {
+                    @Override
+                    public RegisteredParcelImpl read(VersionedParcel parcel) {
+                        sReadCount++;
+                        RegisteredParcelImpl obj = new RegisteredParcelImpl();
+                        obj.mInt = parcel.readInt(obj.mInt, 1);
+                        return obj;
+                    }
+
+                    @Override
+                    public void write(RegisteredParcelImpl obj, VersionedParcel parcel) {
+                        sWriteCount++;
+                        parcel.writeInt(obj.mInt, 1);
+                    }
+                });
+    }
+
+    @Parameterized.Parameters
+    public static Iterable<? extends Object[]> data() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private boolean mUseStream;
+
+    public VersionedParcelRegistryTest(boolean useStream) {
+        mUseStream = useStream;
+    }
+
+    private <T extends VersionedParcelable> T parcelCopy(T obj) {
+        if (mUseStream) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            toOutputStream(obj, outputStream);
+            byte[] buf = outputStream.toByteArray();
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(buf);
+            return fromInputStream(inputStream);
+        } else {
+            Parcel p = Parcel.obtain();
+            p.writeParcelable(toParcelable(obj), 0);
+            p.setDataPosition(0);
+            return fromParcelable(p.readParcelable(getClass().getClassLoader()));
+        }
+    }
+
+    @Test
+    public void testRegisteredParcelizer() {
+        sReadCount = 0;
+        sWriteCount = 0;
+        RegisteredParcelImpl obj = new RegisteredParcelImpl();
+        obj.mInt = 42;
+        RegisteredParcelImpl other = parcelCopy(obj);
+        assertEquals(obj.mInt, other.mInt);
+        assertEquals(1, sReadCount);
+        assertEquals(1, sWriteCount);
+    }
+
+    @Test
+    public void testGeneratedParcelizer() {
+        GeneratedParcelImpl obj = new GeneratedParcelImpl();
+        obj.mInner = new RegisteredParcelImpl();
+        obj.mInner.mInt = 15;
+        obj.mString = "my_string_123";
+        GeneratedParcelImpl other = parcelCopy(obj);
+        assertEquals(obj.mString, other.mString);
+        assertEquals(obj.mInner.mInt, other.mInner.mInt);
+    }
+
+    public static class RegisteredParcelImpl implements VersionedParcelable {
+        int mInt;
+    }
+
+    @VersionedParcelize(allowSerialization = true,
+            ignoreParcelables = true)
+    public static class GeneratedParcelImpl implements VersionedParcelable {
+        @ParcelField(1)
+        public String mString;
+
+        @ParcelField(2)
+        public RegisteredParcelImpl mInner;
+    }
+}
@@ -27,6 +27,7 @@ import androidx.annotation.RestrictTo;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,6 +37,7 @@ import java.util.List;
 public class ParcelUtils {
 
     private static final String INNER_BUNDLE_KEY = "a";
+    private static final int BYTE_BUFFER_CAPACITY = 1024;
 
     private ParcelUtils() { }
 
@@ -83,6 +85,28 @@ public class ParcelUtils {
         return stream.readVersionedParcelable();
     }
 
+    /**
+     * Write a VersionedParcelable into a new ByteBuffer, positioned at the start of the data.
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    public static ByteBuffer toByteBuffer(VersionedParcelable obj) {
+        VersionedParcelBuffer parcel = new VersionedParcelBuffer(BYTE_BUFFER_CAPACITY, false);
+        parcel.write(obj);
+        return parcel.getBuffer();
+    }
+
+    /**
+     * Read a VersionedParcelable from the remaining bytes of a ByteBuffer, without copying them.
+     * @hide
+     */
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    public static <T extends VersionedParcelable> T fromByteBuffer(ByteBuffer input) {
+        VersionedParcelBuffer parcel = new VersionedParcelBuffer(input);
+        return parcel.read();
+    }
+
     /**
      * Add a VersionedParcelable to an existing Bundle.
      */
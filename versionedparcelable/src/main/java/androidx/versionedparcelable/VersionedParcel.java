@@ -50,6 +50,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @hide
@@ -77,6 +78,12 @@ public abstract class VersionedParcel {
     private static final int TYPE_INTEGER = 7;
     private static final int TYPE_FLOAT = 8;
 
+    // Parcelizers registered by their generated classes, shared by all VersionedParcels.
+    private static final ConcurrentHashMap<String, Parcelizer<?>> sParcelizers =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, String> sParcelizerNames =
+            new ConcurrentHashMap<>();
+
     protected final ArrayMap<String, Method> mReadCache;
     protected final ArrayMap<String, Method> mWriteCache;
     protected final ArrayMap<String, Class<?>> mParcelizerCache;
@@ -1037,14 +1044,14 @@ public abstract class VersionedParcel {
     }
 
     private void writeVersionedParcelableCreator(VersionedParcelable p) {
-        Class<?> name;
+        String name;
         try {
-            name = findParcelClass(p.getClass());
+            name = getParcelizerName(p.getClass());
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(p.getClass().getSimpleName() + " does not have a Parcelizer",
                     e);
         }
-        writeString(name.getName());
+        writeString(name);
     }
 
     /**
@@ -1561,6 +1568,10 @@ public abstract class VersionedParcel {
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     protected <T extends VersionedParcelable> T readFromParcel(
             String parcelCls, VersionedParcel versionedParcel) {
+        Parcelizer<T> parcelizer = (Parcelizer<T>) findParcelizer(parcelCls);
+        if (parcelizer != null) {
+            return parcelizer.read(versionedParcel);
+        }
         try {
             Method m = getReadMethod(parcelCls);
             return (T) m.invoke(null, versionedParcel);
@@ -1584,9 +1595,15 @@ public abstract class VersionedParcel {
 
     /**
      */
+    @SuppressWarnings("unchecked")
     protected <T extends VersionedParcelable> void writeToParcel(T val,
             VersionedParcel versionedParcel) {
         try {
+            Parcelizer<T> parcelizer = (Parcelizer<T>) findParcelizer(val.getClass());
+            if (parcelizer != null) {
+                parcelizer.write(val, versionedParcel);
+                return;
+            }
             Method m = getWriteMethod(val.getClass());
             m.invoke(null, val, versionedParcel);
         } catch (IllegalAccessException e) {
@@ -1635,12 +1652,80 @@ public abstract class VersionedParcel {
         if (ret == null) {
             String pkg = cls.getPackage().getName();
             String c = String.format("%s.%sParcelizer", pkg, cls.getSimpleName());
-            ret = Class.forName(c, false, cls.getClassLoader());
+            // Initializing the Parcelizer registers it, see registerParcelizer.
+            ret = Class.forName(c, true, cls.getClassLoader());
             mParcelizerCache.put(cls.getName(), ret);
         }
         return ret;
     }
 
+    private String getParcelizerName(Class<?> cls) throws ClassNotFoundException {
+        String name = sParcelizerNames.get(cls);
+        if (name == null) {
+            name = findParcelClass(cls).getName();
+        }
+        return name;
+    }
+
+    private Parcelizer<?> findParcelizer(Class<?> cls) throws ClassNotFoundException {
+        String name = sParcelizerNames.get(cls);
+        if (name == null) {
+            findParcelClass(cls);
+            name = sParcelizerNames.get(cls);
+        }
+        // Parcelizers generated by older versions of the annotation processor are not
+        // registered and fall back to reflection.
+        return name != null ? sParcelizers.get(name) : null;
+    }
+
+    private Parcelizer<?> findParcelizer(String parcelCls) {
+        Parcelizer<?> parcelizer = sParcelizers.get(parcelCls);
+        if (parcelizer == null && !mReadCache.containsKey(parcelCls)) {
+            try {
+                Class.forName(parcelCls, true, VersionedParcel.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                // Reported by getReadMethod.
+                return null;
+            }
+            parcelizer = sParcelizers.get(parcelCls);
+        }
+        return parcelizer;
+    }
+
+    /**
+     * Registers the Parcelizer generated for a VersionedParcelable, so that every
+     * VersionedParcel in the process reads and writes it without reflection.
+     * <p>
+     * This is called when the generated Parcelizer class is initialized.
+     *
+     * @param cls The VersionedParcelable class.
+     * @param parcelizerName The name of the generated class, as written to the parcel.
+     * @param parcelizer Reads and writes instances of cls.
+     */
+    public static <T extends VersionedParcelable> void registerParcelizer(@NonNull Class<T> cls,
+            @NonNull String parcelizerName, @NonNull Parcelizer<T> parcelizer) {
+        sParcelizers.put(parcelizerName, parcelizer);
+        // Jetified Parcelizers register after the one they extend and must not replace its name.
+        sParcelizerNames.putIfAbsent(cls, parcelizerName);
+    }
+
+    /**
+     * Reads and writes a VersionedParcelable, implemented by the generated Parcelizer classes.
+     *
+     * @param <T> The VersionedParcelable type.
+     */
+    public interface Parcelizer<T extends VersionedParcelable> {
+        /**
+         * Reads a new instance of T from the parcel.
+         */
+        T read(VersionedParcel parcel);
+
+        /**
+         * Writes obj to the parcel.
+         */
+        void write(T obj, VersionedParcel parcel);
+    }
+
     /**
      */
     public static class ParcelException extends RuntimeException {
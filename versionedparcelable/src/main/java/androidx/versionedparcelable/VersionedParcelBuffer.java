@@ -0,0 +1,465 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
+
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.IInterface;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.collection.ArrayMap;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A VersionedParcel backed by a growable {@link ByteBuffer}.
+ * <p>
+ * The data is in the same format as {@link ParcelUtils#toOutputStream}, but the size of each
+ * field is patched in place once the field is closed instead of buffering the field, so nested
+ * VersionedParcelables are not copied once per level. Fields are read by offset from the
+ * buffer they were written to.
+ * <p>
+ * Instances writing to heap buffers can be reused through {@link #obtain()} and
+ * {@link #recycle()}.
+ *
+ * @hide
+ */
+@RestrictTo(LIBRARY_GROUP_PREFIX)
+public final class VersionedParcelBuffer extends VersionedParcel {
+
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int POOL_SIZE = 4;
+    // Larger buffers are not pooled to avoid holding on to the memory of one large payload.
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    // A field starts with an int holding its id and size, followed by another int holding the
+    // size if it does not fit in 16 bits.
+    private static final int FIELD_HEADER_SIZE = 4;
+    private static final int LARGE_FIELD_HEADER_SIZE = 8;
+    private static final int LARGE_FIELD_SIZE = 0xffff;
+
+    private static final VersionedParcelBuffer[] sPool = new VersionedParcelBuffer[POOL_SIZE];
+
+    private final VersionedParcelBuffer mRoot;
+    private final boolean mDirect;
+    // Only used on the root, shared by all of its sub parcels.
+    private ByteBuffer mBuffer;
+
+    private final int mOffset;
+    private int mEnd;
+    private int mNextRead;
+    private int mFieldId = -1;
+    private int mFieldStart = -1;
+    private int mOutputFieldId;
+    private boolean mIgnoreParcelables;
+
+    /**
+     * Creates a VersionedParcelBuffer to write VersionedParcelables into.
+     *
+     * @param initialCapacity The initial size of the buffer, which grows as needed.
+     * @param direct Whether to allocate a direct buffer.
+     */
+    public VersionedParcelBuffer(int initialCapacity, boolean direct) {
+        this(null, direct ? ByteBuffer.allocateDirect(initialCapacity)
+                : ByteBuffer.allocate(initialCapacity), 0, 0,
+                new ArrayMap<String, Method>(), new ArrayMap<String, Method>(),
+                new ArrayMap<String, Class<?>>());
+    }
+
+    /**
+     * Creates a VersionedParcelBuffer to read the VersionedParcelables held in the remaining
+     * bytes of input. The data is not copied and the position of input is not changed.
+     */
+    public VersionedParcelBuffer(@NonNull ByteBuffer input) {
+        this(null, input.slice(), 0, input.remaining(),
+                new ArrayMap<String, Method>(), new ArrayMap<String, Method>(),
+                new ArrayMap<String, Class<?>>());
+    }
+
+    private VersionedParcelBuffer(VersionedParcelBuffer root, ByteBuffer buffer, int offset,
+            int end, ArrayMap<String, Method> readCache, ArrayMap<String, Method> writeCache,
+            ArrayMap<String, Class<?>> parcelizerCache) {
+        super(readCache, writeCache, parcelizerCache);
+        mRoot = root != null ? root : this;
+        mDirect = buffer.isDirect();
+        mBuffer = root != null ? null : buffer;
+        mOffset = offset;
+        mEnd = end;
+        mNextRead = offset;
+    }
+
+    /**
+     * Returns a VersionedParcelBuffer writing to a heap buffer from the pool, or a new one if
+     * the pool is empty. Call {@link #recycle()} once the data has been consumed.
+     */
+    @NonNull
+    public static VersionedParcelBuffer obtain() {
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                VersionedParcelBuffer parcel = sPool[i];
+                if (parcel != null) {
+                    sPool[i] = null;
+                    return parcel;
+                }
+            }
+        }
+        return new VersionedParcelBuffer(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Resets this VersionedParcelBuffer and returns it to the pool. It must not be used
+     * afterwards, nor may any buffer returned by {@link #getBuffer()}.
+     */
+    public void recycle() {
+        if (mRoot != this) {
+            throw new IllegalStateException("Only the root VersionedParcelBuffer can be recycled");
+        }
+        reset();
+        if (mDirect || mBuffer.capacity() > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                if (sPool[i] == null) {
+                    sPool[i] = this;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the data written so far, keeping the buffer for reuse.
+     */
+    public void reset() {
+        mRoot.mBuffer.clear();
+        mEnd = mOffset;
+        mNextRead = mOffset;
+        mFieldId = -1;
+        mFieldStart = -1;
+        mIgnoreParcelables = false;
+    }
+
+    /**
+     * Writes a VersionedParcelable after the data already in this buffer.
+     */
+    public void write(VersionedParcelable obj) {
+        writeVersionedParcelable(obj);
+        closeField();
+    }
+
+    /**
+     * Reads the next VersionedParcelable from the input this VersionedParcelBuffer was created
+     * with.
+     */
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    public <T extends VersionedParcelable> T read() {
+        return readVersionedParcelable();
+    }
+
+    /**
+     * Returns a view of the data written to this buffer, positioned at its start. The view
+     * shares its content with this VersionedParcelBuffer, so it is only valid until
+     * this is reset or recycled.
+     */
+    @NonNull
+    public ByteBuffer getBuffer() {
+        ByteBuffer view = mRoot.mBuffer.duplicate();
+        view.flip();
+        return view;
+    }
+
+    @Override
+    public boolean isStream() {
+        return true;
+    }
+
+    /**
+     */
+    @Override
+    public void setSerializationFlags(boolean allowSerialization, boolean ignoreParcelables) {
+        if (!allowSerialization) {
+            throw new RuntimeException("Serialization of this object is not allowed");
+        }
+        mIgnoreParcelables = ignoreParcelables;
+    }
+
+    @Override
+    protected void closeField() {
+        if (mFieldStart < 0) {
+            return;
+        }
+        ByteBuffer buffer = mRoot.mBuffer;
+        int dataStart = mFieldStart + LARGE_FIELD_HEADER_SIZE;
+        int size = buffer.position() - dataStart;
+        if (size == 0) {
+            // Like VersionedParcelStream, empty fields are left out.
+            buffer.position(mFieldStart);
+        } else if (size >= LARGE_FIELD_SIZE) {
+            buffer.putInt(mFieldStart, (mOutputFieldId << 16) | LARGE_FIELD_SIZE);
+            buffer.putInt(mFieldStart + FIELD_HEADER_SIZE, size);
+        } else {
+            // Space was reserved for a large header, move the data back over the unused part.
+            // Fields this small are cheap to move, while large payloads are never copied.
+            buffer.putInt(mFieldStart, (mOutputFieldId << 16) | size);
+            int target = mFieldStart + FIELD_HEADER_SIZE;
+            if (buffer.hasArray()) {
+                byte[] array = buffer.array();
+                int arrayOffset = buffer.arrayOffset();
+                System.arraycopy(array, arrayOffset + dataStart, array, arrayOffset + target,
+                        size);
+                buffer.position(target + size);
+            } else {
+                ByteBuffer data = buffer.duplicate();
+                data.limit(dataStart + size);
+                data.position(dataStart);
+                buffer.position(target);
+                buffer.put(data);
+            }
+        }
+        mFieldStart = -1;
+    }
+
+    @Override
+    protected VersionedParcel createSubParcel() {
+        return new VersionedParcelBuffer(mRoot, mRoot.mBuffer, mRoot.mBuffer.position(),
+                mFieldId == -1 ? mEnd : mNextRead, mReadCache, mWriteCache, mParcelizerCache);
+    }
+
+    @Override
+    protected boolean readField(int fieldId) {
+        ByteBuffer buffer = mRoot.mBuffer;
+        while (true) {
+            if (mFieldId == fieldId) {
+                return true;
+            }
+            if (String.valueOf(mFieldId).compareTo(String.valueOf(fieldId)) > 0) {
+                return false;
+            }
+            if (mNextRead + FIELD_HEADER_SIZE > mEnd) {
+                return false;
+            }
+            int fieldInfo = buffer.getInt(mNextRead);
+            int dataStart = mNextRead + FIELD_HEADER_SIZE;
+            int size = fieldInfo & LARGE_FIELD_SIZE;
+            if (size == LARGE_FIELD_SIZE) {
+                size = buffer.getInt(dataStart);
+                dataStart += FIELD_HEADER_SIZE;
+            }
+            mFieldId = (fieldInfo >> 16) & 0xffff;
+            buffer.position(dataStart);
+            mNextRead = dataStart + size;
+        }
+    }
+
+    @Override
+    protected void setOutputField(int fieldId) {
+        closeField();
+        ensureCapacity(LARGE_FIELD_HEADER_SIZE);
+        ByteBuffer buffer = mRoot.mBuffer;
+        mFieldStart = buffer.position();
+        mOutputFieldId = fieldId;
+        buffer.position(mFieldStart + LARGE_FIELD_HEADER_SIZE);
+    }
+
+    private void ensureCapacity(int size) {
+        ByteBuffer buffer = mRoot.mBuffer;
+        if (buffer.remaining() >= size) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + size);
+        ByteBuffer grown = mDirect ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        mRoot.mBuffer = grown;
+    }
+
+    @Override
+    protected void writeByteArray(byte[] b) {
+        if (b != null) {
+            writeByteArray(b, 0, b.length);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    protected void writeByteArray(byte[] b, int offset, int len) {
+        if (b != null) {
+            ensureCapacity(4 + len);
+            mRoot.mBuffer.putInt(len).put(b, offset, len);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    protected void writeCharSequence(CharSequence charSequence) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("CharSequence cannot be written to a ByteBuffer");
+        }
+    }
+
+    @Override
+    protected void writeInt(int val) {
+        ensureCapacity(4);
+        mRoot.mBuffer.putInt(val);
+    }
+
+    @Override
+    protected void writeLong(long val) {
+        ensureCapacity(8);
+        mRoot.mBuffer.putLong(val);
+    }
+
+    @Override
+    protected void writeFloat(float val) {
+        ensureCapacity(4);
+        mRoot.mBuffer.putFloat(val);
+    }
+
+    @Override
+    protected void writeDouble(double val) {
+        ensureCapacity(8);
+        mRoot.mBuffer.putDouble(val);
+    }
+
+    @Override
+    protected void writeString(String val) {
+        if (val != null) {
+            writeByteArray(val.getBytes(UTF_16));
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    protected void writeBoolean(boolean val) {
+        ensureCapacity(1);
+        mRoot.mBuffer.put(val ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    protected void writeStrongBinder(IBinder val) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Binders cannot be written to a ByteBuffer");
+        }
+    }
+
+    @Override
+    protected void writeParcelable(Parcelable p) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Parcelables cannot be written to a ByteBuffer");
+        }
+    }
+
+    @Override
+    protected void writeStrongInterface(IInterface val) {
+        if (!mIgnoreParcelables) {
+            throw new RuntimeException("Binders cannot be written to a ByteBuffer");
+        }
+    }
+
+    @Override
+    protected void writeBundle(Bundle val) {
+        VersionedParcelStream.writeStreamBundle(this, val);
+    }
+
+    @Override
+    protected IBinder readStrongBinder() {
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    protected <T extends Parcelable> T readParcelable() {
+        return null;
+    }
+
+    @Override
+    protected int readInt() {
+        return mRoot.mBuffer.getInt();
+    }
+
+    @Override
+    protected long readLong() {
+        return mRoot.mBuffer.getLong();
+    }
+
+    @Override
+    protected float readFloat() {
+        return mRoot.mBuffer.getFloat();
+    }
+
+    @Override
+    protected double readDouble() {
+        return mRoot.mBuffer.getDouble();
+    }
+
+    @Override
+    protected String readString() {
+        int len = readInt();
+        if (len <= 0) {
+            return null;
+        }
+        ByteBuffer buffer = mRoot.mBuffer;
+        if (buffer.hasArray()) {
+            int position = buffer.position();
+            String val = new String(buffer.array(), buffer.arrayOffset() + position, len, UTF_16);
+            buffer.position(position + len);
+            return val;
+        }
+        byte[] bytes = new byte[len];
+        buffer.get(bytes);
+        return new String(bytes, UTF_16);
+    }
+
+    @Override
+    protected byte[] readByteArray() {
+        int len = readInt();
+        if (len <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        mRoot.mBuffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    protected CharSequence readCharSequence() {
+        return null;
+    }
+
+    @Override
+    protected boolean readBoolean() {
+        return mRoot.mBuffer.get() != 0;
+    }
+
+    @Override
+    protected Bundle readBundle() {
+        return VersionedParcelStream.readStreamBundle(this);
+    }
+}
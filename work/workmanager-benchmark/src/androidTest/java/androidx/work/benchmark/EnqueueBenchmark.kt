@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.BenchmarkRule
+import androidx.benchmark.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkContinuation
+import androidx.work.WorkManager
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import androidx.work.testing.WorkManagerTestInitHelper
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.TimeUnit
+
+@LargeTest
+@RunWith(Parameterized::class)
+class EnqueueBenchmark(private val requestCount: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext() as Context
+    private lateinit var workManager: WorkManager
+
+    @Before
+    fun setup() {
+        WorkManagerTestInitHelper.initializeTestWorkManager(context)
+        workManager = WorkManager.getInstance(context)
+    }
+
+    @Test
+    fun enqueue() {
+        benchmarkRule.measureRepeated {
+            val requests = runWithTimingDisabled {
+                List(requestCount) {
+                    // The delay keeps the test scheduler from running anything, so only the
+                    // enqueue itself is measured.
+                    OneTimeWorkRequest.Builder(NoOpWorker::class.java)
+                        .setInitialDelay(1, TimeUnit.DAYS)
+                        .addTag(TAG)
+                        .build()
+                }
+            }
+
+            when (mode) {
+                Mode.ENQUEUE_EACH -> requests.forEach {
+                    workManager.enqueue(it).result.get()
+                }
+                Mode.ENQUEUE_LIST -> workManager.enqueue(requests).result.get()
+                Mode.ENQUEUE_ALL_CONTINUATIONS -> {
+                    val continuations = ArrayList<WorkContinuation>(requestCount)
+                    requests.forEach { continuations.add(workManager.beginWith(it)) }
+                    workManager.enqueueAll(continuations).result.get()
+                }
+            }
+
+            runWithTimingDisabled {
+                workManager.cancelAllWorkByTag(TAG).result.get()
+                workManager.pruneWork().result.get()
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "requestCount={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                Mode.values().forEach { mode ->
+                    arrayOf(1_000, 10_000, 100_000).forEach { requestCount ->
+                        // Enqueueing 100k requests one transaction at a time takes minutes.
+                        if (mode != Mode.ENQUEUE_EACH || requestCount <= 10_000) {
+                            add(arrayOf(requestCount, mode))
+                        }
+                    }
+                }
+            }
+        }
+
+        private const val TAG = "EnqueueBenchmark"
+    }
+
+    class NoOpWorker(context: Context, params: WorkerParameters) : Worker(context, params) {
+        override fun doWork() = Result.success()
+    }
+
+    enum class Mode {
+        ENQUEUE_EACH,
+        ENQUEUE_LIST,
+        ENQUEUE_ALL_CONTINUATIONS
+    }
+}
@@ -218,6 +218,38 @@ public class WorkManagerImplTest {
         assertThat(workSpecDao.getWorkSpec(work3.getStringId()), is(notNullValue()));
     }
 
+    @Test
+    @MediumTest
+    public void testEnqueueAll_insertsEveryContinuation()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work3 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag("tag")
+                .build();
+
+        WorkContinuation continuation1 = mWorkManagerImpl.beginWith(work1).then(work2);
+        WorkContinuation continuation2 =
+                mWorkManagerImpl.beginUniqueWork("name", KEEP, work3);
+        mWorkManagerImpl.enqueueAll(Arrays.asList(continuation1, continuation2))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(notNullValue()));
+        assertThat(workSpecDao.getWorkSpec(work2.getStringId()).state, is(BLOCKED));
+        assertThat(workSpecDao.getWorkSpec(work3.getStringId()), is(notNullValue()));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2.getStringId()),
+                contains(work1.getStringId()));
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag("tag"),
+                contains(work3.getStringId()));
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName("name"),
+                contains(work3.getStringId()));
+        assertThat(((WorkContinuationImpl) continuation1).isEnqueued(), is(true));
+        assertThat(((WorkContinuationImpl) continuation2).isEnqueued(), is(true));
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertMultipleWork_continuationBlocking()
@@ -60,19 +60,52 @@ public final class Data {
     public static final int MAX_DATA_BYTES = 10 * 1024;    // 10KB
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    Map<String, Object> mValues;
+    volatile Map<String, Object> mValues;
+
+    // The compact encoding this object was read from, until something needs the whole map.  Reads
+    // of single keys are served straight from these bytes; see DataCodec.
+    private volatile byte[] mEncoded;
 
     Data() {    // stub required for room
     }
 
     public Data(@NonNull Data other) {
-        mValues = new HashMap<>(other.mValues);
+        byte[] encoded = other.mEncoded;
+        if (encoded != null) {
+            // The encoded bytes are never mutated, so they can be shared.
+            mEncoded = encoded;
+        } else {
+            mValues = new HashMap<>(other.mValues);
+        }
     }
 
     Data(@NonNull Map<String, ?> values) {
         mValues = new HashMap<>(values);
     }
 
+    private Data(@NonNull byte[] encoded) {
+        mEncoded = encoded;
+    }
+
+    private @Nullable Object getValue(@NonNull String key) {
+        byte[] encoded = mEncoded;
+        if (encoded != null) {
+            return DataCodec.decodeValue(encoded, key);
+        }
+        return mValues.get(key);
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @NonNull Map<String, Object> getValues() {
+        byte[] encoded = mEncoded;
+        if (encoded != null) {
+            // mValues must be visible before mEncoded is cleared; both fields are volatile.
+            mValues = DataCodec.decodeAll(encoded);
+            mEncoded = null;
+        }
+        return mValues;
+    }
+
     /**
      * Gets the boolean value for the given key.
      *
@@ -81,7 +114,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public boolean getBoolean(@NonNull String key, boolean defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Boolean) {
             return (boolean) value;
         } else {
@@ -96,7 +129,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable boolean[] getBooleanArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Boolean[]) {
             Boolean[] array = (Boolean[]) value;
             boolean[] returnArray = new boolean[array.length];
@@ -117,7 +150,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public byte getByte(@NonNull String key, byte defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Byte) {
             return (byte) value;
         } else {
@@ -132,7 +165,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable byte[] getByteArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Byte[]) {
             Byte[] array = (Byte[]) value;
             byte[] returnArray = new byte[array.length];
@@ -153,7 +186,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public int getInt(@NonNull String key, int defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Integer) {
             return (int) value;
         } else {
@@ -168,7 +201,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable int[] getIntArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Integer[]) {
             Integer[] array = (Integer[]) value;
             int[] returnArray = new int[array.length];
@@ -189,7 +222,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public long getLong(@NonNull String key, long defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Long) {
             return (long) value;
         } else {
@@ -204,7 +237,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable long[] getLongArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Long[]) {
             Long[] array = (Long[]) value;
             long[] returnArray = new long[array.length];
@@ -225,7 +258,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public float getFloat(@NonNull String key, float defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Float) {
             return (float) value;
         } else {
@@ -240,7 +273,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable float[] getFloatArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Float[]) {
             Float[] array = (Float[]) value;
             float[] returnArray = new float[array.length];
@@ -261,7 +294,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public double getDouble(@NonNull String key, double defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Double) {
             return (double) value;
         } else {
@@ -276,7 +309,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable double[] getDoubleArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Double[]) {
             Double[] array = (Double[]) value;
             double[] returnArray = new double[array.length];
@@ -296,7 +329,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public @Nullable String getString(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof String) {
             return (String) value;
         } else {
@@ -311,7 +344,7 @@ public final class Data {
      * @return The value specified by the key if it exists; {@code null} otherwise
      */
     public @Nullable String[] getStringArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof String[]) {
             return (String[]) value;
         } else {
@@ -326,7 +359,7 @@ public final class Data {
      * be used for reads only.
      */
     public @NonNull Map<String, Object> getKeyValueMap() {
-        return Collections.unmodifiableMap(mValues);
+        return Collections.unmodifiableMap(getValues());
     }
 
     /**
@@ -336,6 +369,10 @@ public final class Data {
     @VisibleForTesting
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public int size() {
+        byte[] encoded = mEncoded;
+        if (encoded != null) {
+            return DataCodec.size(encoded);
+        }
         return mValues.size();
     }
 
@@ -351,12 +388,30 @@ public final class Data {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     @TypeConverter
     public static @NonNull byte[] toByteArray(@NonNull Data data) throws IllegalStateException {
+        byte[] encoded = data.mEncoded;
+        if (encoded == null) {
+            encoded = DataCodec.encode(data.getValues());
+            if (encoded == null) {
+                // Fall back to the legacy format for values the compact encoding can't represent.
+                encoded = toLegacyByteArray(data);
+            }
+        }
+
+        if (encoded.length > MAX_DATA_BYTES) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES
+                            + " bytes when serialized");
+        }
+        return encoded;
+    }
+
+    private static @NonNull byte[] toLegacyByteArray(@NonNull Data data) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ObjectOutputStream objectOutputStream = null;
         try {
             objectOutputStream = new ObjectOutputStream(outputStream);
             objectOutputStream.writeInt(data.size());
-            for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
+            for (Map.Entry<String, Object> entry : data.getValues().entrySet()) {
                 objectOutputStream.writeUTF(entry.getKey());
                 objectOutputStream.writeObject(entry.getValue());
             }
@@ -379,12 +434,6 @@ public final class Data {
                 Log.e(TAG, "Error in Data#toByteArray: ", e);
             }
         }
-
-        if (outputStream.size() > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES
-                            + " bytes when serialized");
-        }
         return outputStream.toByteArray();
     }
 
@@ -404,6 +453,17 @@ public final class Data {
                     "Data cannot occupy more than " + MAX_DATA_BYTES + " bytes when serialized");
         }
 
+        if (DataCodec.isEncoded(bytes)) {
+            try {
+                DataCodec.validate(bytes);
+                // Values are decoded lazily, as they are read.
+                return new Data(bytes);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+                return new Data(new HashMap<String, Object>());
+            }
+        }
+
         Map<String, Object> map = new HashMap<>();
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
@@ -440,12 +500,12 @@ public final class Data {
             return false;
         }
         Data other = (Data) o;
-        return mValues.equals(other.mValues);
+        return getValues().equals(other.getValues());
     }
 
     @Override
     public int hashCode() {
-        return 31 * mValues.hashCode();
+        return 31 * getValues().hashCode();
     }
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -686,7 +746,7 @@ public final class Data {
          * @return The {@link Builder}
          */
         public @NonNull Builder putAll(@NonNull Data data) {
-            putAll(data.mValues);
+            putAll(data.getValues());
             return this;
         }
 
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact, tagged binary encoding for the values stored in {@link Data}.
+ * <p>
+ * The layout is a 3 byte header ({@link #MAGIC_0}, {@link #MAGIC_1}, {@link #VERSION}) followed by
+ * a varint entry count and then, for every entry, a length-prefixed UTF-8 key, a one byte type tag
+ * and the value.  Integers and longs are zig-zag varints, floats and doubles are fixed width, and
+ * arrays are a varint length followed by their elements.  Every value can be skipped without being
+ * decoded, which lets {@link Data} look up individual keys without inflating the whole map.
+ * <p>
+ * The header can never be mistaken for the stream header written by
+ * {@link java.io.ObjectOutputStream} ({@code 0xACED}), which is how payloads persisted by older
+ * versions of the library are told apart.
+ */
+final class DataCodec {
+
+    static final byte MAGIC_0 = (byte) 'W';
+    static final byte MAGIC_1 = (byte) 'D';
+    static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 3;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_ARRAY_FLAG = 0x10;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private DataCodec() {
+    }
+
+    /**
+     * @return {@code true} if the given bytes were written by {@link #encode(Map)}
+     */
+    static boolean isEncoded(@NonNull byte[] bytes) {
+        return bytes.length >= HEADER_SIZE
+                && bytes[0] == MAGIC_0
+                && bytes[1] == MAGIC_1
+                && bytes[2] == VERSION;
+    }
+
+    /**
+     * Encodes the given values.
+     *
+     * @param values The values held by a {@link Data} object
+     * @return The encoded values, or {@code null} if they contain something this format cannot
+     *         represent (a {@code null} element inside a boxed primitive array)
+     */
+    static @Nullable byte[] encode(@NonNull Map<String, Object> values) {
+        Writer writer = new Writer();
+        writer.writeByte(MAGIC_0);
+        writer.writeByte(MAGIC_1);
+        writer.writeByte(VERSION);
+        writer.writeVarint(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writer.writeBytes(entry.getKey().getBytes(UTF_8));
+            if (!writeValue(writer, entry.getValue())) {
+                return null;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Validates the structure of an encoded payload without decoding any values.
+     *
+     * @return The number of entries in the payload
+     * @throws IllegalArgumentException if the payload is truncated or malformed
+     */
+    static int validate(@NonNull byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        int count = reader.readVarint();
+        for (int i = 0; i < count; i++) {
+            reader.skipBytes();
+            reader.skipValue(reader.readByte());
+        }
+        if (reader.mPosition != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes in encoded Data");
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of entries in a payload that was already {@link #validate(byte[])}d.
+     */
+    static int size(@NonNull byte[] bytes) {
+        return new Reader(bytes).readVarint();
+    }
+
+    /**
+     * Decodes the value of a single key from a payload that was already
+     * {@link #validate(byte[])}d, skipping over every other value.
+     *
+     * @return The decoded value, or {@code null} if there is no such key
+     */
+    static @Nullable Object decodeValue(@NonNull byte[] bytes, @NonNull String key) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        Reader reader = new Reader(bytes);
+        for (int i = reader.readVarint(); i > 0; i--) {
+            boolean matches = reader.matchBytes(keyBytes);
+            byte type = reader.readByte();
+            if (matches) {
+                return reader.readValue(type);
+            }
+            reader.skipValue(type);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every entry of a payload that was already {@link #validate(byte[])}d.
+     */
+    static @NonNull Map<String, Object> decodeAll(@NonNull byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        int count = reader.readVarint();
+        Map<String, Object> values = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String key = reader.readString();
+            values.put(key, reader.readValue(reader.readByte()));
+        }
+        return values;
+    }
+
+    private static boolean writeValue(@NonNull Writer writer, @Nullable Object value) {
+        if (value == null) {
+            writer.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            writer.writeByte(TYPE_BOOLEAN);
+            writer.writeByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Byte) {
+            writer.writeByte(TYPE_BYTE);
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte(TYPE_INT);
+            writer.writeZigZag((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(TYPE_LONG);
+            writer.writeZigZag((Long) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(TYPE_FLOAT);
+            writer.writeFixed32(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            writer.writeByte(TYPE_DOUBLE);
+            writer.writeFixed64(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof String) {
+            writer.writeByte(TYPE_STRING);
+            writer.writeBytes(((String) value).getBytes(UTF_8));
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            writer.writeByte(TYPE_STRING | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (String element : array) {
+                // Strings are the only array elements that can legitimately be null, so they are
+                // prefixed with their length + 1 and 0 stands for null.
+                if (element == null) {
+                    writer.writeVarint(0);
+                } else {
+                    byte[] bytes = element.getBytes(UTF_8);
+                    writer.writeVarint(bytes.length + 1);
+                    writer.writeRaw(bytes);
+                }
+            }
+        } else {
+            return writeBoxedArray(writer, (Object[]) value);
+        }
+        return true;
+    }
+
+    private static boolean writeBoxedArray(@NonNull Writer writer, @NonNull Object[] array) {
+        for (Object element : array) {
+            if (element == null) {
+                return false;
+            }
+        }
+        if (array instanceof Boolean[]) {
+            writer.writeByte(TYPE_BOOLEAN | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeByte((Boolean) element ? 1 : 0);
+            }
+        } else if (array instanceof Byte[]) {
+            writer.writeByte(TYPE_BYTE | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeByte((Byte) element);
+            }
+        } else if (array instanceof Integer[]) {
+            writer.writeByte(TYPE_INT | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeZigZag((Integer) element);
+            }
+        } else if (array instanceof Long[]) {
+            writer.writeByte(TYPE_LONG | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeZigZag((Long) element);
+            }
+        } else if (array instanceof Float[]) {
+            writer.writeByte(TYPE_FLOAT | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeFixed32(Float.floatToIntBits((Float) element));
+            }
+        } else if (array instanceof Double[]) {
+            writer.writeByte(TYPE_DOUBLE | TYPE_ARRAY_FLAG);
+            writer.writeVarint(array.length);
+            for (Object element : array) {
+                writer.writeFixed64(Double.doubleToLongBits((Double) element));
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A minimal growable byte buffer; unlike {@link java.io.ByteArrayOutputStream} it is not
+     * synchronized.
+     */
+    private static final class Writer {
+        private byte[] mBuffer = new byte[64];
+        private int mSize;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeRaw(@NonNull byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+        }
+
+        void writeBytes(@NonNull byte[] bytes) {
+            writeVarint(bytes.length);
+            writeRaw(bytes);
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed32(int value) {
+            ensureCapacity(4);
+            mBuffer[mSize++] = (byte) (value >>> 24);
+            mBuffer[mSize++] = (byte) (value >>> 16);
+            mBuffer[mSize++] = (byte) (value >>> 8);
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeFixed64(long value) {
+            writeFixed32((int) (value >>> 32));
+            writeFixed32((int) value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (mSize + extra > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads an encoded payload.  Every read is bounds checked and fails with an
+     * {@link IllegalArgumentException}, so that a corrupt payload can never escape as an
+     * {@link ArrayIndexOutOfBoundsException} from a {@link Data} getter.
+     */
+    private static final class Reader {
+        private final byte[] mBuffer;
+        int mPosition;
+
+        Reader(@NonNull byte[] buffer) {
+            mBuffer = buffer;
+            mPosition = HEADER_SIZE;
+        }
+
+        byte readByte() {
+            require(1);
+            return mBuffer[mPosition++];
+        }
+
+        long readVarint64() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in encoded Data");
+        }
+
+        int readVarint() {
+            long value = readVarint64();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid length in encoded Data");
+            }
+            return (int) value;
+        }
+
+        long readZigZag() {
+            long value = readVarint64();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readFixed32() {
+            require(4);
+            int value = ((mBuffer[mPosition] & 0xFF) << 24)
+                    | ((mBuffer[mPosition + 1] & 0xFF) << 16)
+                    | ((mBuffer[mPosition + 2] & 0xFF) << 8)
+                    | (mBuffer[mPosition + 3] & 0xFF);
+            mPosition += 4;
+            return value;
+        }
+
+        long readFixed64() {
+            long high = readFixed32();
+            long low = readFixed32();
+            return (high << 32) | (low & 0xFFFFFFFFL);
+        }
+
+        @NonNull String readString() {
+            return readString(readVarint());
+        }
+
+        @NonNull String readString(int length) {
+            require(length);
+            String value = new String(mBuffer, mPosition, length, UTF_8);
+            mPosition += length;
+            return value;
+        }
+
+        void skipBytes() {
+            skip(readVarint());
+        }
+
+        /**
+         * Consumes a length-prefixed byte sequence and compares it against {@code expected}.
+         */
+        boolean matchBytes(@NonNull byte[] expected) {
+            int length = readVarint();
+            require(length);
+            boolean matches = length == expected.length;
+            for (int i = 0; matches && i < length; i++) {
+                matches = mBuffer[mPosition + i] == expected[i];
+            }
+            mPosition += length;
+            return matches;
+        }
+
+        @Nullable Object readValue(byte type) {
+            switch (type) {
+                case TYPE_NULL:
+                    return null;
+                case TYPE_BOOLEAN:
+                    return readByte() != 0;
+                case TYPE_BYTE:
+                    return readByte();
+                case TYPE_INT:
+                    return (int) readZigZag();
+                case TYPE_LONG:
+                    return readZigZag();
+                case TYPE_FLOAT:
+                    return Float.intBitsToFloat(readFixed32());
+                case TYPE_DOUBLE:
+                    return Double.longBitsToDouble(readFixed64());
+                case TYPE_STRING:
+                    return readString();
+                default:
+                    return readArray(type);
+            }
+        }
+
+        @NonNull Object readArray(byte type) {
+            int length = readVarint();
+            // Every element takes at least one byte, so this bounds the allocation below.
+            require(length);
+            switch (type) {
+                case TYPE_BOOLEAN | TYPE_ARRAY_FLAG: {
+                    Boolean[] array = new Boolean[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readByte() != 0;
+                    }
+                    return array;
+                }
+                case TYPE_BYTE | TYPE_ARRAY_FLAG: {
+                    Byte[] array = new Byte[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readByte();
+                    }
+                    return array;
+                }
+                case TYPE_INT | TYPE_ARRAY_FLAG: {
+                    Integer[] array = new Integer[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (int) readZigZag();
+                    }
+                    return array;
+                }
+                case TYPE_LONG | TYPE_ARRAY_FLAG: {
+                    Long[] array = new Long[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readZigZag();
+                    }
+                    return array;
+                }
+                case TYPE_FLOAT | TYPE_ARRAY_FLAG: {
+                    Float[] array = new Float[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Float.intBitsToFloat(readFixed32());
+                    }
+                    return array;
+                }
+                case TYPE_DOUBLE | TYPE_ARRAY_FLAG: {
+                    Double[] array = new Double[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Double.longBitsToDouble(readFixed64());
+                    }
+                    return array;
+                }
+                case TYPE_STRING | TYPE_ARRAY_FLAG: {
+                    String[] array = new String[length];
+                    for (int i = 0; i < length; i++) {
+                        int elementLength = readVarint();
+                        array[i] = elementLength == 0 ? null : readString(elementLength - 1);
+                    }
+                    return array;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown type " + type + " in encoded Data");
+            }
+        }
+
+        void skipValue(byte type) {
+            switch (type) {
+                case TYPE_NULL:
+                    return;
+                case TYPE_BOOLEAN:
+                case TYPE_BYTE:
+                    skip(1);
+                    return;
+                case TYPE_INT:
+                case TYPE_LONG:
+                    readVarint64();
+                    return;
+                case TYPE_FLOAT:
+                    skip(4);
+                    return;
+                case TYPE_DOUBLE:
+                    skip(8);
+                    return;
+                case TYPE_STRING:
+                    skipBytes();
+                    return;
+                case TYPE_BOOLEAN | TYPE_ARRAY_FLAG:
+                case TYPE_BYTE | TYPE_ARRAY_FLAG:
+                    skip(readVarint());
+                    return;
+                case TYPE_FLOAT | TYPE_ARRAY_FLAG:
+                    skip(4L * readVarint());
+                    return;
+                case TYPE_DOUBLE | TYPE_ARRAY_FLAG:
+                    skip(8L * readVarint());
+                    return;
+                case TYPE_INT | TYPE_ARRAY_FLAG:
+                case TYPE_LONG | TYPE_ARRAY_FLAG:
+                    for (int i = readVarint(); i > 0; i--) {
+                        readVarint64();
+                    }
+                    return;
+                case TYPE_STRING | TYPE_ARRAY_FLAG:
+                    for (int i = readVarint(); i > 0; i--) {
+                        int elementLength = readVarint();
+                        if (elementLength > 0) {
+                            skip(elementLength - 1);
+                        }
+                    }
+                    return;
+                default:
+                    throw new IllegalArgumentException("Unknown type " + type + " in encoded Data");
+            }
+        }
+
+        private void skip(long count) {
+            require(count);
+            mPosition += (int) count;
+        }
+
+        private void require(long count) {
+            if (count < 0 || count > mBuffer.length - mPosition) {
+                throw new IllegalArgumentException("Truncated encoded Data");
+            }
+        }
+    }
+}
@@ -223,6 +223,20 @@ public abstract class WorkManager {
     @NonNull
     public abstract Operation enqueue(@NonNull List<? extends WorkRequest> requests);
 
+    /**
+     * Enqueues several {@link WorkContinuation}s together.  This is equivalent to calling
+     * {@link WorkContinuation#enqueue()} on each of them, but all of their work is added to the
+     * database in a single transaction and scheduled in a single pass, which is much faster when
+     * enqueuing large numbers of continuations.
+     *
+     * @param continuations One or more {@link WorkContinuation}s to enqueue; these must have been
+     *                      created by this {@link WorkManager}
+     * @return An {@link Operation} that can be used to determine when all the continuations have
+     *         been enqueued
+     */
+    @NonNull
+    public abstract Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations);
+
     /**
      * Begins a chain with one or more {@link OneTimeWorkRequest}s, which can be enqueued together
      * in the future using {@link WorkContinuation#enqueue()}.
@@ -43,6 +43,7 @@ import androidx.work.impl.background.systemjob.SystemJobScheduler;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
+import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.LiveDataUtils;
 import androidx.work.impl.utils.Preferences;
@@ -56,6 +57,7 @@ import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -336,6 +338,22 @@ public class WorkManagerImpl extends WorkManager {
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
+    @Override
+    @NonNull
+    public Operation enqueueAll(@NonNull List<? extends WorkContinuation> continuations) {
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueAll needs at least one WorkContinuation.");
+        }
+        List<WorkContinuationImpl> workContinuations = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            workContinuations.add((WorkContinuationImpl) continuation);
+        }
+        EnqueueRunnable runnable = new EnqueueRunnable(this, workContinuations);
+        mWorkTaskExecutor.executeOnBackgroundThread(runnable);
+        return runnable.getOperation();
+    }
+
     @Override
     public @NonNull WorkContinuation beginWith(@NonNull List<OneTimeWorkRequest> work) {
         if (work.isEmpty()) {
@@ -38,6 +38,14 @@ public interface WorkNameDao {
     @Insert(onConflict = IGNORE)
     void insert(WorkName workName);
 
+    /**
+     * Inserts a list of {@link WorkName}s into the table.
+     *
+     * @param workNames The {@link WorkName}s to insert
+     */
+    @Insert(onConflict = IGNORE)
+    void insertAll(List<WorkName> workNames);
+
     /**
      * Retrieves all {@link WorkSpec} ids in the given named graph.
      *
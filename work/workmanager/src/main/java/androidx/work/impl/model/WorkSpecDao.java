@@ -44,6 +44,15 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert a list of {@link WorkSpec}s into the database, reusing one prepared
+     * statement for all of them.
+     *
+     * @param workSpecs The WorkSpecs to insert
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -56,11 +56,13 @@ import androidx.work.impl.model.WorkTag;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 /**
- * Manages the enqueuing of a {@link WorkContinuationImpl}.
+ * Manages the enqueuing of one or more {@link WorkContinuationImpl}s.  All of them are added to
+ * the database in a single transaction and scheduled in a single pass.
  *
  * @hide
  */
@@ -69,26 +71,42 @@ public class EnqueueRunnable implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("EnqueueRunnable");
 
-    private final WorkContinuationImpl mWorkContinuation;
+    private final WorkManagerImpl mWorkManagerImpl;
+    private final List<WorkContinuationImpl> mWorkContinuations;
     private final OperationImpl mOperation;
 
     public EnqueueRunnable(@NonNull WorkContinuationImpl workContinuation) {
-        mWorkContinuation = workContinuation;
+        this(workContinuation.getWorkManagerImpl(), Collections.singletonList(workContinuation));
+    }
+
+    /**
+     * Creates an {@link EnqueueRunnable} which enqueues several {@link WorkContinuationImpl}s
+     * together.
+     *
+     * @param workManagerImpl   The {@link WorkManagerImpl} all the continuations belong to
+     * @param workContinuations The {@link WorkContinuationImpl}s to enqueue, in order
+     */
+    public EnqueueRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        mWorkManagerImpl = workManagerImpl;
+        mWorkContinuations = workContinuations;
         mOperation = new OperationImpl();
     }
 
     @Override
     public void run() {
         try {
-            if (mWorkContinuation.hasCycles()) {
-                throw new IllegalStateException(
-                        String.format("WorkContinuation has cycles (%s)", mWorkContinuation));
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (workContinuation.hasCycles()) {
+                    throw new IllegalStateException(
+                            String.format("WorkContinuation has cycles (%s)", workContinuation));
+                }
             }
             boolean needsScheduling = addToDatabase();
             if (needsScheduling) {
                 // Enable RescheduleReceiver, only when there are Worker's that need scheduling.
-                final Context context =
-                        mWorkContinuation.getWorkManagerImpl().getApplicationContext();
+                final Context context = mWorkManagerImpl.getApplicationContext();
                 PackageManagerHelper.setComponentEnabled(context, RescheduleReceiver.class, true);
                 scheduleWorkInBackground();
             }
@@ -111,11 +129,20 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public boolean addToDatabase() {
-        WorkManagerImpl workManagerImpl = mWorkContinuation.getWorkManagerImpl();
-        WorkDatabase workDatabase = workManagerImpl.getWorkDatabase();
+        WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
         workDatabase.beginTransaction();
         try {
-            boolean needsScheduling = processContinuation(mWorkContinuation);
+            boolean needsScheduling = false;
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                // A continuation can be reachable from more than one of the continuations being
+                // enqueued (as a shared parent); processContinuation() skips it the second time.
+                if (!workContinuation.isEnqueued()) {
+                    needsScheduling |= processContinuation(workContinuation);
+                } else {
+                    Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
+                            TextUtils.join(", ", workContinuation.getIds())));
+                }
+            }
             workDatabase.setTransactionSuccessful();
             return needsScheduling;
         } finally {
@@ -128,7 +155,7 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public void scheduleWorkInBackground() {
-        WorkManagerImpl workManager = mWorkContinuation.getWorkManagerImpl();
+        WorkManagerImpl workManager = mWorkManagerImpl;
         Schedulers.schedule(
                 workManager.getConfiguration(),
                 workManager.getWorkDatabase(),
@@ -271,6 +298,19 @@ public class EnqueueRunnable implements Runnable {
             }
         }
 
+        // Rows are collected and inserted in bulk, which reuses a single prepared statement per
+        // table instead of going through a nested transaction for every row.
+        List<WorkSpec> workSpecs = new ArrayList<>(workList.size());
+        List<Dependency> dependencies = new ArrayList<>();
+        List<WorkTag> workTags = new ArrayList<>();
+        List<WorkName> workNames = new ArrayList<>();
+
+        boolean shouldDelegateConstrainedWork =
+                (Build.VERSION.SDK_INT >= WorkManagerImpl.MIN_JOB_SCHEDULER_API_LEVEL
+                        && Build.VERSION.SDK_INT <= 25)
+                || (Build.VERSION.SDK_INT <= WorkManagerImpl.MAX_PRE_JOB_SCHEDULER_API_LEVEL
+                        && usesScheduler(workManagerImpl, Schedulers.GCM_SCHEDULER));
+
         for (WorkRequest work : workList) {
             WorkSpec workSpec = work.getWorkSpec();
 
@@ -293,11 +333,7 @@ public class EnqueueRunnable implements Runnable {
                 }
             }
 
-            if (Build.VERSION.SDK_INT >= WorkManagerImpl.MIN_JOB_SCHEDULER_API_LEVEL
-                    && Build.VERSION.SDK_INT <= 25) {
-                tryDelegateConstrainedWorkSpec(workSpec);
-            } else if (Build.VERSION.SDK_INT <= WorkManagerImpl.MAX_PRE_JOB_SCHEDULER_API_LEVEL
-                    && usesScheduler(workManagerImpl, Schedulers.GCM_SCHEDULER)) {
+            if (shouldDelegateConstrainedWork) {
                 tryDelegateConstrainedWorkSpec(workSpec);
             }
 
@@ -306,23 +342,34 @@ public class EnqueueRunnable implements Runnable {
                 needsScheduling = true;
             }
 
-            workDatabase.workSpecDao().insertWorkSpec(workSpec);
+            workSpecs.add(workSpec);
 
             if (hasPrerequisite) {
                 for (String prerequisiteId : prerequisiteIds) {
-                    Dependency dep = new Dependency(work.getStringId(), prerequisiteId);
-                    workDatabase.dependencyDao().insertDependency(dep);
+                    dependencies.add(new Dependency(work.getStringId(), prerequisiteId));
                 }
             }
 
             for (String tag : work.getTags()) {
-                workDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+                workTags.add(new WorkTag(tag, work.getStringId()));
             }
 
             if (isNamed) {
-                workDatabase.workNameDao().insert(new WorkName(name, work.getStringId()));
+                workNames.add(new WorkName(name, work.getStringId()));
             }
         }
+
+        // WorkSpecs have to go in first; the other tables reference them with foreign keys.
+        workDatabase.workSpecDao().insertWorkSpecs(workSpecs);
+        if (!dependencies.isEmpty()) {
+            workDatabase.dependencyDao().insertDependencies(dependencies);
+        }
+        if (!workTags.isEmpty()) {
+            workDatabase.workTagDao().insertAll(workTags);
+        }
+        if (!workNames.isEmpty()) {
+            workDatabase.workNameDao().insertAll(workNames);
+        }
         return needsScheduling;
     }
 
@@ -24,6 +24,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -86,6 +89,105 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putByte("byte", (byte) -7)
+                .putInt("int", Integer.MIN_VALUE)
+                .putLong("long", Long.MAX_VALUE)
+                .putFloat("float", 1.5f)
+                .putDouble("double", -2.25)
+                .putString("string", "\u00e9t\u00e9 \ud83d\ude00")
+                .putString("null", null)
+                .putBooleanArray("boolean array", new boolean[]{true, false})
+                .putByteArray("byte array", new byte[]{1, -1})
+                .putLongArray("long array", new long[]{-1L, 1L << 40})
+                .putFloatArray("float array", new float[]{Float.NaN, 0f})
+                .putDoubleArray("double array", new double[]{Double.MIN_VALUE})
+                .putStringArray("string array", new String[]{"a", null, ""})
+                .build();
+
+        Data restoredData = Data.fromByteArray(Data.toByteArray(data));
+
+        assertThat(restoredData.size(), is(14));
+        assertThat(restoredData.getBoolean("boolean", false), is(true));
+        assertThat(restoredData.getByte("byte", (byte) 0), is((byte) -7));
+        assertThat(restoredData.getInt("int", 0), is(Integer.MIN_VALUE));
+        assertThat(restoredData.getLong("long", 0L), is(Long.MAX_VALUE));
+        assertThat(restoredData.getFloat("float", 0f), is(1.5f));
+        assertThat(restoredData.getDouble("double", 0.0), is(-2.25));
+        assertThat(restoredData.getString("string"), is("\u00e9t\u00e9 \ud83d\ude00"));
+        assertThat(restoredData.getString("null"), is(nullValue()));
+        assertThat(restoredData.getBooleanArray("boolean array"),
+                is(equalTo(new boolean[]{true, false})));
+        assertThat(restoredData.getByteArray("byte array"), is(equalTo(new byte[]{1, -1})));
+        assertThat(restoredData.getLongArray("long array"),
+                is(equalTo(new long[]{-1L, 1L << 40})));
+        assertThat(restoredData.getFloatArray("float array"),
+                is(equalTo(new float[]{Float.NaN, 0f})));
+        assertThat(restoredData.getDoubleArray("double array"),
+                is(equalTo(new double[]{Double.MIN_VALUE})));
+        assertThat(restoredData.getStringArray("string array"),
+                is(equalTo(new String[]{"a", null, ""})));
+        assertThat(restoredData.getString("missing"), is(nullValue()));
+    }
+
+    @Test
+    public void testSerializeIsCompact() throws IOException {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value1")
+                .putIntArray(KEY2, new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+                .build();
+
+        byte[] byteArray = Data.toByteArray(data);
+
+        assertThat(DataCodec.isEncoded(byteArray), is(true));
+        assertThat(byteArray.length < toLegacyByteArray(data.getKeyValueMap()).length / 4,
+                is(true));
+    }
+
+    @Test
+    public void testDeserializeLegacyFormat() throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        values.put(KEY1, "value1");
+        values.put(KEY2, new Integer[]{1, 2, 3});
+        values.put("long", 5L);
+
+        Data restoredData = Data.fromByteArray(toLegacyByteArray(values));
+
+        assertThat(restoredData.size(), is(3));
+        assertThat(restoredData.getString(KEY1), is("value1"));
+        assertThat(restoredData.getIntArray(KEY2), is(equalTo(new int[]{1, 2, 3})));
+        assertThat(restoredData.getLong("long", 0L), is(5L));
+    }
+
+    @Test
+    public void testDeserializeTruncatedPayload() {
+        Data data = new Data.Builder().putString(KEY1, "value1").build();
+        byte[] byteArray = Data.toByteArray(data);
+        byte[] truncated = new byte[byteArray.length - 1];
+        System.arraycopy(byteArray, 0, truncated, 0, truncated.length);
+
+        Data restoredData = Data.fromByteArray(truncated);
+
+        assertThat(restoredData.size(), is(0));
+    }
+
+    @Test
+    public void testDeserializeIsLazy() {
+        Data data = new Data.Builder().putString(KEY1, "value1").putInt(KEY2, 2).build();
+
+        Data restoredData = Data.fromByteArray(Data.toByteArray(data));
+        assertThat(restoredData.getInt(KEY2, 0), is(2));
+        assertThat(restoredData.mValues, is(nullValue()));
+
+        // Re-serializing a lazily decoded Data shouldn't change its representation.
+        assertThat(Data.toByteArray(restoredData), is(equalTo(Data.toByteArray(data))));
+        assertThat(restoredData, is(data));
+        assertThat(restoredData.mValues, is(notNullValue()));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];
@@ -157,4 +259,16 @@ public class DataTest {
         }
         assertThat(caughtIllegalArgumentException, is(true));
     }
+
+    private static byte[] toLegacyByteArray(Map<String, Object> values) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
 }